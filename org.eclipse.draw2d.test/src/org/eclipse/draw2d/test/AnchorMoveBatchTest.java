@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.AbstractRouter;
+import org.eclipse.draw2d.ChopboxAnchor;
+import org.eclipse.draw2d.Connection;
+import org.eclipse.draw2d.ConnectionRouter;
+import org.eclipse.draw2d.DeferredUpdateManager;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.PolylineConnection;
+import org.eclipse.draw2d.UpdateManager;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Tests that moving a container with many connections reroutes each connection
+ * once per update, and tells the router about the moved connections at once.
+ */
+public class AnchorMoveBatchTest extends TestCase {
+
+	private static final int CONNECTIONS = 20;
+
+	private class TestUpdateManager extends DeferredUpdateManager {
+		protected void sendUpdateRequest() {
+			// updates are performed explicitly by the tests
+		}
+	}
+
+	private class CountingRouter extends AbstractRouter {
+		Map routed = new HashMap();
+		List batches = new ArrayList();
+		Set anchors;
+
+		public void route(Connection connection) {
+			Integer count = (Integer) routed.get(connection);
+			routed.put(connection, new Integer(count == null ? 1 : count
+					.intValue() + 1));
+			ConnectionRouter.NULL.route(connection);
+		}
+
+		public void anchorsMoved(Set anchors, List connections) {
+			this.anchors = anchors;
+			batches.add(new ArrayList(connections));
+			super.anchorsMoved(anchors, connections);
+		}
+	}
+
+	private TestUpdateManager manager;
+	private CountingRouter router;
+	private Figure container;
+	private List connections;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		manager = new TestUpdateManager();
+		router = new CountingRouter();
+		Figure root = new Figure() {
+			public UpdateManager getUpdateManager() {
+				return manager;
+			}
+		};
+		root.setBounds(new Rectangle(0, 0, 1000, 1000));
+		manager.setRoot(root);
+		root.addNotify();
+		container = new Figure();
+		container.setBounds(new Rectangle(0, 0, 100, 100));
+		root.add(container);
+		Figure target = new Figure();
+		target.setBounds(new Rectangle(500, 500, 10, 10));
+		root.add(target);
+		connections = new ArrayList();
+		for (int i = 0; i < CONNECTIONS; i++) {
+			Figure source = new Figure();
+			source.setBounds(new Rectangle(i * 4, i * 4, 4, 4));
+			container.add(source);
+			PolylineConnection connection = new PolylineConnection();
+			connection.setConnectionRouter(router);
+			connection.setSourceAnchor(new ChopboxAnchor(source));
+			connection.setTargetAnchor(new ChopboxAnchor(target));
+			root.add(connection);
+			connections.add(connection);
+		}
+		manager.performValidation();
+		router.routed.clear();
+		router.batches.clear();
+	}
+
+	private int getRouteCount(Object connection) {
+		Integer count = (Integer) router.routed.get(connection);
+		return count == null ? 0 : count.intValue();
+	}
+
+	public void testRoutedOncePerUpdate() {
+		container.translate(10, 0);
+		container.translate(0, 10);
+		container.translate(5, 5);
+		assertTrue(router.routed.isEmpty());
+		manager.performValidation();
+		for (int i = 0; i < CONNECTIONS; i++)
+			assertEquals(1, getRouteCount(connections.get(i)));
+		assertEquals(1, router.batches.size());
+		assertEquals(connections, router.batches.get(0));
+		assertEquals(CONNECTIONS, router.anchors.size());
+	}
+
+	public void testConnectionsFollowAnchors() {
+		container.translate(50, 20);
+		manager.performValidation();
+		for (int i = 0; i < CONNECTIONS; i++) {
+			PolylineConnection connection = (PolylineConnection) connections
+					.get(i);
+			Figure source = (Figure) connection.getSourceAnchor().getOwner();
+			assertTrue(source.getBounds().getExpanded(1, 1).contains(
+					connection.getStart()));
+		}
+	}
+
+	public void testRemovedConnectionNotRouted() {
+		PolylineConnection removed = (PolylineConnection) connections.get(0);
+		container.translate(10, 10);
+		removed.getParent().remove(removed);
+		manager.performValidation();
+		assertEquals(0, getRouteCount(removed));
+		assertEquals(1, router.batches.size());
+		assertFalse(((List) router.batches.get(0)).contains(removed));
+		assertEquals(1, getRouteCount(connections.get(1)));
+	}
+
+	public void testAnchorsMovedDuringValidation() {
+		Figure mover = new Figure() {
+			protected void layout() {
+				container.translate(1, 1);
+			}
+		};
+		container.getParent().add(mover);
+		manager.performValidation();
+		router.routed.clear();
+		router.batches.clear();
+		mover.revalidate();
+		manager.performValidation();
+		for (int i = 0; i < CONNECTIONS; i++)
+			assertEquals(1, getRouteCount(connections.get(i)));
+	}
+
+}
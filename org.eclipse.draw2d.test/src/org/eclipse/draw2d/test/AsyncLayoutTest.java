@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.AbstractLayout;
+import org.eclipse.draw2d.AsyncLayout;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.LayoutManager;
+import org.eclipse.draw2d.LayoutSnapshot;
+import org.eclipse.draw2d.SnapshotLayout;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class AsyncLayoutTest extends TestCase {
+
+	private static final int CHILDREN = 200;
+
+	/**
+	 * Places the children in rows, from their preferred sizes. The synchronous
+	 * layout computes a snapshot as well, so that there is one algorithm.
+	 */
+	private static class RowLayout extends AbstractLayout implements
+			SnapshotLayout {
+		protected Dimension calculatePreferredSize(IFigure container,
+				int wHint, int hHint) {
+			return new Dimension();
+		}
+
+		public LayoutSnapshot createSnapshot(IFigure container) {
+			return new RowSnapshot(container);
+		}
+
+		public void layout(IFigure container) {
+			LayoutSnapshot snapshot = createSnapshot(container);
+			snapshot.compute();
+			snapshot.apply(container);
+		}
+	}
+
+	private static class RowSnapshot extends LayoutSnapshot {
+		private final Rectangle area;
+		private final Dimension[] sizes;
+
+		RowSnapshot(IFigure container) {
+			super(container);
+			area = container.getClientArea().getCopy();
+			List children = container.getChildren();
+			sizes = new Dimension[children.size()];
+			for (int i = 0; i < sizes.length; i++)
+				sizes[i] = ((IFigure) children.get(i)).getPreferredSize()
+						.getCopy();
+		}
+
+		protected Rectangle[] computeBounds() {
+			Rectangle[] bounds = new Rectangle[sizes.length];
+			int x = 0, y = 0, rowHeight = 0;
+			for (int i = 0; i < sizes.length; i++) {
+				if (x > 0 && x + sizes[i].width > area.width) {
+					x = 0;
+					y += rowHeight;
+					rowHeight = 0;
+				}
+				bounds[i] = new Rectangle(area.x + x, area.y + y,
+						sizes[i].width, sizes[i].height);
+				x += sizes[i].width;
+				rowHeight = Math.max(rowHeight, sizes[i].height);
+			}
+			return bounds;
+		}
+	}
+
+	/**
+	 * Lays out every container in the background, and hands the computed
+	 * layouts to the test instead of to a display.
+	 */
+	private static class QueuedLayout extends AsyncLayout {
+		private final List results = new ArrayList();
+
+		QueuedLayout() {
+			super(new RowLayout());
+		}
+
+		protected void asyncExec(Runnable runnable) {
+			synchronized (results) {
+				results.add(runnable);
+				results.notifyAll();
+			}
+		}
+
+		protected boolean isLaidOutInBackground(IFigure container) {
+			return true;
+		}
+
+		Runnable takeResult() throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 10000;
+			synchronized (results) {
+				while (results.isEmpty()
+						&& System.currentTimeMillis() < deadline)
+					results.wait(100);
+				assertFalse(results.isEmpty());
+				return (Runnable) results.remove(0);
+			}
+		}
+	}
+
+	/**
+	 * Counts how often it is invalidated.
+	 */
+	private static class Parent extends Figure {
+		int invalidated;
+
+		public void invalidate() {
+			invalidated++;
+			super.invalidate();
+		}
+	}
+
+	private static Figure createContainer(LayoutManager layout) {
+		Figure container = new Figure();
+		container.setLayoutManager(layout);
+		for (int i = 0; i < CHILDREN; i++) {
+			Figure child = new Figure();
+			child.setPreferredSize(10 + i % 17, 5 + i % 11);
+			container.add(child);
+		}
+		container.setBounds(new Rectangle(5, 5, 300, 1000));
+		return container;
+	}
+
+	private static IFigure getChild(IFigure container, int index) {
+		return (IFigure) container.getChildren().get(index);
+	}
+
+	private static void assertSameBounds(IFigure expected, IFigure actual) {
+		for (int i = 0; i < CHILDREN; i++)
+			assertEquals(getChild(expected, i).getBounds(), getChild(actual, i)
+					.getBounds());
+	}
+
+	private static void waitForLayout(IFigure container, IFigure expected)
+			throws InterruptedException {
+		Display display = Display.getDefault();
+		IFigure last = getChild(container, CHILDREN - 1);
+		Rectangle bounds = getChild(expected, CHILDREN - 1).getBounds();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!last.getBounds().equals(bounds)
+				&& System.currentTimeMillis() < deadline) {
+			if (!display.readAndDispatch())
+				Thread.sleep(10);
+			container.validate();
+		}
+	}
+
+	public void testLayoutInBackground() throws InterruptedException {
+		Figure expected = createContainer(new RowLayout());
+		expected.validate();
+
+		AsyncLayout layout = new AsyncLayout(new RowLayout());
+		layout.setThreshold(CHILDREN);
+		Figure container = createContainer(layout);
+		Rectangle before = getChild(container, CHILDREN - 1).getBounds()
+				.getCopy();
+		container.validate();
+		assertEquals(before, getChild(container, CHILDREN - 1).getBounds());
+
+		waitForLayout(container, expected);
+		assertSameBounds(expected, container);
+	}
+
+	public void testInvalidatedWhileComputing() throws InterruptedException {
+		Figure expected = createContainer(new RowLayout());
+		expected.setSize(200, 1000);
+		expected.validate();
+
+		AsyncLayout layout = new AsyncLayout(new RowLayout());
+		layout.setThreshold(CHILDREN);
+		Figure container = createContainer(layout);
+		container.validate();
+		container.setSize(200, 1000);
+
+		waitForLayout(container, expected);
+		assertSameBounds(expected, container);
+	}
+
+	public void testStaleLayoutIsDiscarded() throws InterruptedException {
+		Figure expected = createContainer(new RowLayout());
+		expected.setSize(200, 1000);
+		expected.validate();
+
+		QueuedLayout layout = new QueuedLayout();
+		Figure container = createContainer(layout);
+		Parent parent = new Parent();
+		parent.add(container);
+		IFigure last = getChild(container, CHILDREN - 1);
+		Rectangle before = last.getBounds().getCopy();
+		container.validate();
+		Runnable stale = layout.takeResult();
+
+		container.setSize(200, 1000);
+		stale.run();
+		assertEquals(before, last.getBounds());
+
+		container.validate();
+		int invalidated = parent.invalidated;
+		layout.takeResult().run();
+		assertSameBounds(expected, container);
+		assertEquals(invalidated, parent.invalidated);
+	}
+
+	public void testSmallContainerLaidOutSynchronously() {
+		Figure expected = createContainer(new RowLayout());
+		expected.validate();
+
+		AsyncLayout layout = new AsyncLayout(new RowLayout());
+		layout.setThreshold(CHILDREN + 1);
+		Figure container = createContainer(layout);
+		container.validate();
+		assertSameBounds(expected, container);
+	}
+
+}
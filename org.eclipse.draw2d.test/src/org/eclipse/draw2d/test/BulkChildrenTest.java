@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FreeformLayer;
+import org.eclipse.draw2d.FreeformLayout;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Layer;
+import org.eclipse.draw2d.LayeredPane;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class BulkChildrenTest extends TestCase {
+
+	private static final int COUNT = 1000;
+
+	private class CountingLayer extends FreeformLayer {
+		int revalidated;
+
+		public void revalidate() {
+			revalidated++;
+			super.revalidate();
+		}
+	}
+
+	private CountingLayer layer;
+	private List figures;
+	private List constraints;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		layer = new CountingLayer();
+		layer.setLayoutManager(new FreeformLayout());
+		new Figure().add(layer);
+		layer.revalidated = 0;
+		figures = new ArrayList();
+		constraints = new ArrayList();
+		for (int i = 0; i < COUNT; i++) {
+			figures.add(new Figure());
+			constraints.add(new Rectangle(i, 2 * i, 10, 10));
+		}
+	}
+
+	public void testAddAll() {
+		layer.addAll(figures, constraints, -1);
+		assertEquals(1, layer.revalidated);
+		assertEquals(figures, layer.getChildren());
+		layer.validate();
+		for (int i = 0; i < COUNT; i++) {
+			IFigure figure = (IFigure) figures.get(i);
+			assertSame(layer, figure.getParent());
+			assertEquals(constraints.get(i), figure.getBounds());
+		}
+	}
+
+	public void testAddAllAtIndex() {
+		Figure first = new Figure(), last = new Figure();
+		layer.add(first);
+		layer.add(last);
+		layer.addAll(figures, null, 1);
+		assertEquals(COUNT + 2, layer.getChildren().size());
+		assertSame(first, layer.getChildren().get(0));
+		assertEquals(figures, layer.getChildren().subList(1, COUNT + 1));
+		assertSame(last, layer.getChildren().get(COUNT + 1));
+	}
+
+	public void testAddAllMovesChildren() {
+		layer.addAll(figures, null, -1);
+		List moved = new ArrayList(figures.subList(COUNT - 10, COUNT));
+		layer.addAll(moved, null, 5);
+		List expected = new ArrayList(figures.subList(0, COUNT - 10));
+		expected.addAll(5, moved);
+		assertEquals(expected, layer.getChildren());
+	}
+
+	public void testRemoveAll() {
+		layer.addAll(figures, constraints, -1);
+		List removed = new ArrayList();
+		List kept = new ArrayList();
+		for (int i = 0; i < COUNT; i++)
+			(i % 3 == 0 ? removed : kept).add(figures.get(i));
+		layer.revalidated = 0;
+		layer.removeAll(removed);
+		assertEquals(1, layer.revalidated);
+		assertEquals(kept, layer.getChildren());
+		for (int i = 0; i < removed.size(); i++)
+			assertNull(((IFigure) removed.get(i)).getParent());
+		assertNull(layer.getLayoutManager().getConstraint(
+				(IFigure) removed.get(0)));
+
+		try {
+			layer.removeAll(removed);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		assertEquals(kept, layer.getChildren());
+	}
+
+	public void testReorderChildren() {
+		layer.addAll(figures, constraints, -1);
+		List reversed = new ArrayList(figures);
+		Collections.reverse(reversed);
+		layer.revalidated = 0;
+		layer.reorderChildren(reversed);
+		assertEquals(1, layer.revalidated);
+		assertEquals(reversed, layer.getChildren());
+
+		reversed.remove(0);
+		reversed.add(new Figure());
+		try {
+			layer.reorderChildren(reversed);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public void testReorderLayers() {
+		LayeredPane pane = new LayeredPane();
+		Layer a = new Layer(), b = new Layer(), c = new Layer();
+		pane.add(a, "a"); //$NON-NLS-1$
+		pane.add(b, "b"); //$NON-NLS-1$
+		pane.add(c, "c"); //$NON-NLS-1$
+		List order = new ArrayList();
+		order.add(c);
+		order.add(a);
+		order.add(b);
+		pane.reorderChildren(order);
+		assertEquals(order, pane.getChildren());
+		assertSame(a, pane.getLayer("a")); //$NON-NLS-1$
+		assertSame(b, pane.getLayer("b")); //$NON-NLS-1$
+		assertSame(c, pane.getLayer("c")); //$NON-NLS-1$
+	}
+
+}
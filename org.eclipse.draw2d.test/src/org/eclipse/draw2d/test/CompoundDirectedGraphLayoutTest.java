@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.graph.CompoundDirectedGraph;
+import org.eclipse.draw2d.graph.CompoundDirectedGraphLayout;
+import org.eclipse.draw2d.graph.Edge;
+import org.eclipse.draw2d.graph.Node;
+import org.eclipse.draw2d.graph.Subgraph;
+
+/**
+ * Tests the incremental mode of the compound directed graph layout.
+ */
+public class CompoundDirectedGraphLayoutTest extends TestCase {
+
+	private CompoundDirectedGraph graph;
+	private Map nodes;
+
+	private Node node(String name, Subgraph parent) {
+		Node node = parent instanceof Subgraph || parent == null ? new Node(
+				name, parent) : null;
+		node.width = 40;
+		node.height = 20;
+		graph.nodes.add(node);
+		nodes.put(name, node);
+		return node;
+	}
+
+	private Subgraph subgraph(String name, Subgraph parent) {
+		Subgraph s = new Subgraph(name, parent);
+		graph.nodes.add(s);
+		nodes.put(name, s);
+		return s;
+	}
+
+	private void edge(String source, String target) {
+		graph.edges.add(new Edge((Node) nodes.get(source), (Node) nodes
+				.get(target)));
+	}
+
+	/**
+	 * Builds two subgraphs, each with a fan out and a fan in, and an extra
+	 * node in the second one if requested.
+	 */
+	private CompoundDirectedGraph build(int extra) {
+		graph = new CompoundDirectedGraph();
+		nodes = new HashMap();
+		Node start = node("start", null);
+		Node end = node("end", null);
+		for (int s = 1; s <= 2; s++) {
+			Subgraph sub = subgraph("s" + s, null);
+			node("in" + s, sub);
+			node("out" + s, sub);
+			int count = s == 2 ? 3 + extra : 3;
+			for (int i = 0; i < count; i++) {
+				node("n" + s + i, sub);
+				edge("in" + s, "n" + s + i);
+				edge("n" + s + i, "out" + s);
+			}
+			edge("start", "s" + s);
+			edge("s" + s, "end");
+		}
+		edge("n10", "n21");
+		return graph;
+	}
+
+	private Map positions() {
+		Map result = new HashMap();
+		for (int i = 0; i < graph.nodes.size(); i++) {
+			Node n = graph.nodes.getNode(i);
+			if (nodes.containsKey(n.data))
+				result.put(n.data, n.x + "," + n.y);
+		}
+		return result;
+	}
+
+	public void testSameGraphSameLayout() {
+		CompoundDirectedGraphLayout layout = new CompoundDirectedGraphLayout();
+		layout.setIncremental(true);
+		layout.visit(build(0));
+		Map first = positions();
+		layout.visit(build(0));
+		assertEquals(first, positions());
+		layout.visit(build(0));
+		assertEquals(first, positions());
+	}
+
+	public void testUnchangedSubgraphKeepsOrder() {
+		CompoundDirectedGraphLayout layout = new CompoundDirectedGraphLayout();
+		layout.setIncremental(true);
+		layout.visit(build(0));
+		Map before = new HashMap(nodes);
+		layout.visit(build(1));
+		assertTrue(nodes.containsKey("n23"));
+		for (int i = 0; i < 2; i++) {
+			Node previousLeft = (Node) before.get("n1" + i);
+			Node previousRight = (Node) before.get("n1" + (i + 1));
+			Node left = (Node) nodes.get("n1" + i);
+			Node right = (Node) nodes.get("n1" + (i + 1));
+			assertEquals(previousLeft.x < previousRight.x, left.x < right.x);
+			assertEquals(previousLeft.y - previousRight.y, left.y - right.y);
+		}
+		Node in = (Node) nodes.get("in1"), out = (Node) nodes.get("out1");
+		Node previousIn = (Node) before.get("in1");
+		Node previousOut = (Node) before.get("out1");
+		assertEquals(previousOut.y - previousIn.y, out.y - in.y);
+	}
+
+	public void testIncrementalFlag() {
+		CompoundDirectedGraphLayout layout = new CompoundDirectedGraphLayout();
+		assertFalse(layout.isIncremental());
+		layout.setIncremental(true);
+		assertTrue(layout.isIncremental());
+		layout.visit(build(0));
+		layout.setIncremental(false);
+		assertFalse(layout.isIncremental());
+		layout.visit(build(1));
+		assertTrue(((Node) nodes.get("n23")).y > 0);
+	}
+
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.graph.CompoundDirectedGraph;
+import org.eclipse.draw2d.graph.CompoundDirectedGraphLayout;
+import org.eclipse.draw2d.graph.DirectedGraph;
+import org.eclipse.draw2d.graph.DirectedGraphLayout;
+import org.eclipse.draw2d.graph.Edge;
+import org.eclipse.draw2d.graph.Node;
+import org.eclipse.draw2d.graph.Rank;
+
+/**
+ * Tests the rank assignment of the directed graph layouts.
+ */
+public class DirectedGraphLayoutTest extends TestCase {
+
+	private static Map ranks(DirectedGraph graph) {
+		Map result = new HashMap();
+		for (int r = 0; r < graph.ranks.size(); r++) {
+			Rank rank = graph.ranks.getRank(r);
+			for (int i = 0; i < rank.count(); i++)
+				result.put(rank.getNode(i), new Integer(r));
+		}
+		return result;
+	}
+
+	private static int rank(Map ranks, Node node) {
+		return ((Integer) ranks.get(node)).intValue();
+	}
+
+	/**
+	 * Returns the least total weighted length of the edges over all rank
+	 * assignments of at most the given number of ranks.
+	 */
+	private static int bruteForce(int[][] edges, int nodeCount, int[] rank,
+			int node) {
+		if (node == nodeCount) {
+			int total = 0;
+			for (int i = 0; i < edges.length; i++) {
+				int length = rank[edges[i][1]] - rank[edges[i][0]];
+				if (length < 1)
+					return Integer.MAX_VALUE;
+				total += length * edges[i][2];
+			}
+			return total;
+		}
+		int best = Integer.MAX_VALUE;
+		for (int r = 0; r < nodeCount; r++) {
+			rank[node] = r;
+			best = Math.min(best, bruteForce(edges, nodeCount, rank, node + 1));
+		}
+		return best;
+	}
+
+	public void testHeavyEdgeIsShortened() {
+		DirectedGraph graph = new DirectedGraph();
+		Node[] chain = new Node[4];
+		for (int i = 0; i < chain.length; i++) {
+			graph.nodes.add(chain[i] = new Node("n" + i));
+			if (i > 0)
+				graph.edges.add(new Edge(chain[i - 1], chain[i]));
+		}
+		Node side = new Node("side");
+		graph.nodes.add(side);
+		graph.edges.add(new Edge(chain[0], side));
+		Edge heavy = new Edge(side, chain[3]);
+		heavy.weight = 10;
+		graph.edges.add(heavy);
+		new DirectedGraphLayout().visit(graph);
+
+		Map ranks = ranks(graph);
+		assertEquals(2, rank(ranks, side));
+		assertEquals(3, rank(ranks, chain[3]));
+	}
+
+	public void testRanksAreOptimal() {
+		Random random = new Random(7);
+		for (int run = 0; run < 20; run++) {
+			int nodeCount = 6;
+			DirectedGraph graph = new DirectedGraph();
+			Node[] nodes = new Node[nodeCount];
+			for (int i = 0; i < nodeCount; i++)
+				graph.nodes.add(nodes[i] = new Node("n" + i));
+			int[][] edges = new int[nodeCount - 1 + 4][];
+			for (int i = 0; i < edges.length; i++) {
+				int source, target;
+				if (i < nodeCount - 1) {
+					source = random.nextInt(i + 1);
+					target = i + 1;
+				} else {
+					source = random.nextInt(nodeCount - 1);
+					target = source + 1 + random.nextInt(nodeCount - 1 - source);
+				}
+				edges[i] = new int[] { source, target, 1 + random.nextInt(5) };
+				Edge edge = new Edge(nodes[source], nodes[target]);
+				edge.weight = edges[i][2];
+				graph.edges.add(edge);
+			}
+			new DirectedGraphLayout().visit(graph);
+
+			Map ranks = ranks(graph);
+			int total = 0;
+			for (int i = 0; i < edges.length; i++) {
+				int length = rank(ranks, nodes[edges[i][1]])
+						- rank(ranks, nodes[edges[i][0]]);
+				assertTrue(length >= 1);
+				total += length * edges[i][2];
+			}
+			assertEquals(bruteForce(edges, nodeCount, new int[nodeCount], 0),
+					total);
+		}
+	}
+
+	public void testLargeGraph() {
+		Random random = new Random(11);
+		DirectedGraph graph = new DirectedGraph();
+		Node[] nodes = new Node[1000];
+		for (int i = 0; i < nodes.length; i++) {
+			graph.nodes.add(nodes[i] = new Node("n" + i));
+			if (i > 0)
+				graph.edges.add(new Edge(nodes[Math.max(0, i - 1
+						- random.nextInt(4))], nodes[i]));
+		}
+		for (int i = 0; i < 500; i++) {
+			int source = random.nextInt(nodes.length - 5);
+			graph.edges.add(new Edge(nodes[source], nodes[source + 1
+					+ random.nextInt(4)]));
+		}
+		new DirectedGraphLayout().visit(graph);
+
+		Map ranks = ranks(graph);
+		for (int i = 0; i < nodes.length; i++)
+			assertTrue(ranks.containsKey(nodes[i]));
+		for (int i = 0; i < graph.edges.size(); i++) {
+			Edge edge = graph.edges.getEdge(i);
+			assertTrue(edge.target.y > edge.source.y);
+		}
+	}
+
+	private static Node[] buildRandom(CompoundDirectedGraph graph, long seed) {
+		Random random = new Random(seed);
+		Node[] nodes = new Node[60];
+		for (int i = 0; i < nodes.length; i++) {
+			graph.nodes.add(nodes[i] = new Node("n" + i));
+			if (i > 0)
+				graph.edges.add(new Edge(nodes[random.nextInt(i)], nodes[i]));
+		}
+		for (int i = 0; i < 40; i++) {
+			int source = random.nextInt(nodes.length - 1);
+			int target = source + 1 + random.nextInt(nodes.length - 1 - source);
+			graph.edges.add(new Edge(nodes[source], nodes[target]));
+		}
+		return nodes;
+	}
+
+	public void testIncrementalLayoutKeepsRanks() {
+		CompoundDirectedGraphLayout layout = new CompoundDirectedGraphLayout();
+		layout.setIncremental(true);
+		CompoundDirectedGraph first = new CompoundDirectedGraph();
+		Node[] before = buildRandom(first, 3);
+		layout.visit(first);
+		CompoundDirectedGraph second = new CompoundDirectedGraph();
+		Node[] after = buildRandom(second, 3);
+		layout.visit(second);
+
+		for (int i = 0; i < before.length; i++)
+			assertEquals(before[i].y, after[i].y);
+	}
+
+}
@@ -60,5 +60,19 @@ public class Draw2dTestSuite extends TestSuite {
 		addTest(new TestSuite(ScalablePolygonShapeTest.class));
 		addTest(new TestSuite(LayerTest.class));
 		addTest(new TestSuite(ShapeTest.class));
+		addTest(new TestSuite(ZoomedFontCacheTest.class));
+		addTest(new TestSuite(PNGEncoderTest.class));
+		addTest(new TestSuite(PageBucketsTest.class));
+		addTest(new TestSuite(VirtualFlowPageTest.class));
+		addTest(new TestSuite(AnchorMoveBatchTest.class));
+		addTest(new TestSuite(EventListenerListTest.class));
+		addTest(new TestSuite(AsyncLayoutTest.class));
+		addTest(new TestSuite(GridLayoutTest.class));
+		addTest(new TestSuite(BulkChildrenTest.class));
+		addTest(new TestSuite(OrthogonalConnectionRouterTest.class));
+		addTest(new TestSuite(PolylineHitTestTest.class));
+		addTest(new TestSuite(CompoundDirectedGraphLayoutTest.class));
+		addTest(new TestSuite(DirectedGraphLayoutTest.class));
+		addTest(new TestSuite(LayerCacheTest.class));
 	}
 }
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.EventListenerList;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FigureListener;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.MouseListener;
+import org.eclipse.draw2d.MouseMotionListener;
+
+public class EventListenerListTest extends TestCase {
+
+	private EventListenerList list;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		list = new EventListenerList();
+	}
+
+	public void testListenersByType() {
+		Object a = "a", b = "b", c = "c"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		list.addListener(MouseListener.class, a);
+		list.addListener(MouseMotionListener.class, b);
+		list.addListener(MouseListener.class, c);
+
+		Object[] mouse = list.getListenerArray(MouseListener.class);
+		assertEquals(2, mouse.length);
+		assertSame(a, mouse[0]);
+		assertSame(c, mouse[1]);
+		assertEquals(1, list.getListenerArray(MouseMotionListener.class).length);
+		assertEquals(0, list.getListenerArray(FigureListener.class).length);
+		assertTrue(list.containsListener(MouseMotionListener.class));
+		assertFalse(list.containsListener(FigureListener.class));
+
+		Iterator iter = list.getListeners(MouseListener.class);
+		assertSame(a, iter.next());
+		assertSame(c, iter.next());
+		assertFalse(iter.hasNext());
+		assertFalse(list.getListeners(FigureListener.class).hasNext());
+	}
+
+	public void testRemoveListener() {
+		Object a = "a", b = "b"; //$NON-NLS-1$ //$NON-NLS-2$
+		list.addListener(MouseListener.class, a);
+		list.addListener(MouseListener.class, b);
+		list.addListener(MouseListener.class, a);
+		Object[] before = list.getListenerArray(MouseListener.class);
+
+		list.removeListener(MouseMotionListener.class, a);
+		list.removeListener(MouseListener.class, a);
+		Object[] after = list.getListenerArray(MouseListener.class);
+		assertEquals(2, after.length);
+		assertSame(b, after[0]);
+		assertSame(a, after[1]);
+		// arrays already handed out are not modified
+		assertEquals(3, before.length);
+
+		list.removeListener(MouseListener.class, a);
+		list.removeListener(MouseListener.class, b);
+		assertFalse(list.containsListener(MouseListener.class));
+		assertEquals(0, list.getListenerArray(MouseListener.class).length);
+	}
+
+	public void testListenerRemovedDuringNotification() {
+		final Figure figure = new Figure();
+		final int[] count = new int[1];
+		FigureListener first = new FigureListener() {
+			public void figureMoved(IFigure source) {
+				count[0]++;
+				figure.removeFigureListener(this);
+			}
+		};
+		FigureListener second = new FigureListener() {
+			public void figureMoved(IFigure source) {
+				count[0]++;
+			}
+		};
+		figure.addFigureListener(first);
+		figure.addFigureListener(second);
+		figure.translate(1, 1);
+		assertEquals(2, count[0]);
+		figure.translate(1, 1);
+		assertEquals(3, count[0]);
+	}
+
+}
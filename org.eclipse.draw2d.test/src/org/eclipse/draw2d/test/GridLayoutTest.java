@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.GridData;
+import org.eclipse.draw2d.GridLayout;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class GridLayoutTest extends TestCase {
+
+	private static final int SIZE = 10;
+
+	private static class MeasuredFigure extends Figure {
+		int measured;
+
+		public Dimension getPreferredSize(int wHint, int hHint) {
+			measured++;
+			return super.getPreferredSize(wHint, hHint);
+		}
+	}
+
+	private Figure container;
+
+	private static Figure createContainer() {
+		Figure container = new Figure();
+		container.setLayoutManager(new GridLayout(SIZE, false));
+		for (int i = 0; i < SIZE * SIZE; i++) {
+			Figure child = new MeasuredFigure();
+			child.setPreferredSize(10 + i % 7, 10 + i % 5);
+			container.add(child);
+		}
+		container.setBounds(new Rectangle(0, 0, 500, 500));
+		return container;
+	}
+
+	private static IFigure getChild(IFigure container, int index) {
+		return (IFigure) container.getChildren().get(index);
+	}
+
+	private static void assertSameBounds(IFigure expected, IFigure actual) {
+		assertEquals(expected.getChildren().size(), actual.getChildren()
+				.size());
+		for (int i = 0; i < expected.getChildren().size(); i++)
+			assertEquals(getChild(expected, i).getBounds(), getChild(actual,
+					i).getBounds());
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		container = createContainer();
+		container.validate();
+		for (int i = 0; i < SIZE * SIZE; i++)
+			((MeasuredFigure) getChild(container, i)).measured = 0;
+	}
+
+	public void testOnlyInvalidatedChildIsMeasured() {
+		IFigure changed = getChild(container, 42);
+		changed.setPreferredSize(new Dimension(60, 30));
+		container.validate();
+
+		for (int i = 0; i < SIZE * SIZE; i++) {
+			MeasuredFigure child = (MeasuredFigure) getChild(container, i);
+			if (child == changed)
+				assertTrue(child.measured > 0);
+			else
+				assertEquals(0, child.measured);
+		}
+		assertEquals(new Dimension(60, 30), changed.getSize());
+
+		Figure expected = createContainer();
+		getChild(expected, 42).setPreferredSize(new Dimension(60, 30));
+		expected.validate();
+		assertSameBounds(expected, container);
+	}
+
+	public void testSpanChange() {
+		GridData data = new GridData();
+		data.horizontalSpan = 3;
+		container.getLayoutManager().setConstraint(getChild(container, 5),
+				data);
+		container.revalidate();
+		container.validate();
+
+		Figure expected = createContainer();
+		data = new GridData();
+		data.horizontalSpan = 3;
+		expected.getLayoutManager().setConstraint(getChild(expected, 5), data);
+		expected.validate();
+		assertSameBounds(expected, container);
+
+		data.verticalSpan = 2;
+		((GridData) container.getLayoutManager().getConstraint(
+				getChild(container, 5))).verticalSpan = 2;
+		container.revalidate();
+		container.validate();
+		expected.revalidate();
+		expected.validate();
+		assertSameBounds(expected, container);
+	}
+
+	public void testHintChange() {
+		IFigure child = getChild(container, 7);
+		GridData data = (GridData) container.getLayoutManager().getConstraint(
+				child);
+		data.widthHint = 80;
+		container.revalidate();
+		container.validate();
+		assertEquals(80, child.getSize().width);
+	}
+
+	public void testChildRemovedAndAdded() {
+		IFigure child = getChild(container, 12);
+		container.remove(child);
+		container.validate();
+
+		Figure expected = createContainer();
+		expected.remove(getChild(expected, 12));
+		expected.validate();
+		assertSameBounds(expected, container);
+
+		container.add(child, 3);
+		child.setPreferredSize(new Dimension(40, 40));
+		container.validate();
+		assertEquals(new Dimension(40, 40), child.getSize());
+	}
+
+}
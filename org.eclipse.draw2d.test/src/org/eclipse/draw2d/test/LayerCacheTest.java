@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.ColorConstants;
+import org.eclipse.draw2d.DeferredUpdateManager;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.Layer;
+import org.eclipse.draw2d.LayeredPane;
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.draw2d.UpdateManager;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Tests when a cached layer is painted from its offscreen image.
+ */
+public class LayerCacheTest extends TestCase {
+
+	private static class RecordingGraphics extends SWTGraphics {
+		int images;
+
+		RecordingGraphics(GC gc) {
+			super(gc);
+		}
+
+		public void drawImage(Image image, int x1, int y1, int w1, int h1,
+				int x2, int y2, int w2, int h2) {
+			images++;
+			super.drawImage(image, x1, y1, w1, h1, x2, y2, w2, h2);
+		}
+	}
+
+	private static class TestUpdateManager extends DeferredUpdateManager {
+		Graphics graphics;
+
+		protected Graphics getGraphics(Rectangle region) {
+			return graphics;
+		}
+
+		protected void releaseGraphics(Graphics graphics) {
+		}
+
+		protected void sendUpdateRequest() {
+		}
+	}
+
+	private Image image;
+	private GC gc;
+	private TestUpdateManager manager;
+	private LayeredPane pane;
+	private Figure child;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		image = new Image(Display.getDefault(), 100, 100);
+		gc = new GC(image);
+		manager = new TestUpdateManager();
+		Figure root = new Figure() {
+			public UpdateManager getUpdateManager() {
+				return manager;
+			}
+		};
+		root.setBounds(new Rectangle(0, 0, 100, 100));
+		root.setBackgroundColor(ColorConstants.white);
+		root.setForegroundColor(ColorConstants.black);
+		manager.setRoot(root);
+		pane = new LayeredPane();
+		pane.setBounds(new Rectangle(0, 0, 100, 100));
+		root.add(pane);
+		Layer layer = new Layer();
+		layer.setBounds(new Rectangle(0, 0, 100, 100));
+		pane.add(layer);
+		child = new Figure();
+		child.setBounds(new Rectangle(10, 10, 20, 20));
+		layer.add(child);
+		layer.setCachingEnabled(true);
+	}
+
+	protected void tearDown() throws Exception {
+		gc.dispose();
+		image.dispose();
+		super.tearDown();
+	}
+
+	private RecordingGraphics createGraphics() {
+		RecordingGraphics graphics = new RecordingGraphics(gc);
+		graphics.setClip(new Rectangle(0, 0, 100, 100));
+		return graphics;
+	}
+
+	public void testRepairUsesCache() {
+		RecordingGraphics graphics = createGraphics();
+		manager.graphics = graphics;
+		manager.addDirtyRegion(child, 0, 0, 20, 20);
+		manager.performUpdate();
+		assertEquals(1, graphics.images);
+	}
+
+	public void testRepairWithoutPaintDisarmsCache() {
+		manager.addDirtyRegion(child, 0, 0, 20, 20);
+		manager.performUpdate();
+
+		RecordingGraphics graphics = createGraphics();
+		pane.paint(graphics);
+		assertEquals(0, graphics.images);
+	}
+
+	public void testPaintOutsideRepairBypassesCache() {
+		RecordingGraphics graphics = createGraphics();
+		manager.graphics = graphics;
+		manager.addDirtyRegion(child, 0, 0, 20, 20);
+		manager.performUpdate();
+
+		RecordingGraphics print = createGraphics();
+		pane.paint(print);
+		assertEquals(0, print.images);
+	}
+
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.ChopboxAnchor;
+import org.eclipse.draw2d.DeferredUpdateManager;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.OrthogonalConnectionRouter;
+import org.eclipse.draw2d.PolylineConnection;
+import org.eclipse.draw2d.UpdateManager;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class OrthogonalConnectionRouterTest extends TestCase {
+
+	private class TestUpdateManager extends DeferredUpdateManager {
+		protected void sendUpdateRequest() {
+			// updates are performed explicitly by the tests
+		}
+	}
+
+	private TestUpdateManager manager;
+	private Figure root;
+	private Figure container;
+	private OrthogonalConnectionRouter router;
+	private IFigure source, target, blocker, far;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		manager = new TestUpdateManager();
+		root = new Figure() {
+			public UpdateManager getUpdateManager() {
+				return manager;
+			}
+		};
+		root.setBounds(new Rectangle(0, 0, 2000, 2000));
+		manager.setRoot(root);
+		root.addNotify();
+		container = new Figure();
+		container.setBounds(new Rectangle(0, 0, 2000, 2000));
+		root.add(container);
+		router = new OrthogonalConnectionRouter(container);
+		source = addObstacle(new Rectangle(50, 200, 40, 40));
+		target = addObstacle(new Rectangle(400, 200, 40, 40));
+		blocker = addObstacle(new Rectangle(200, 150, 60, 140));
+		far = addObstacle(new Rectangle(1500, 1500, 40, 40));
+	}
+
+	private IFigure addObstacle(Rectangle bounds) {
+		Figure figure = new Figure();
+		figure.setBounds(bounds);
+		container.add(figure);
+		return figure;
+	}
+
+	private PolylineConnection connect(IFigure from, IFigure to) {
+		PolylineConnection connection = new PolylineConnection();
+		connection.setConnectionRouter(router);
+		connection.setSourceAnchor(new ChopboxAnchor(from));
+		connection.setTargetAnchor(new ChopboxAnchor(to));
+		root.add(connection);
+		return connection;
+	}
+
+	private void assertOrthogonalAndClear(PointList points) {
+		assertOrthogonalAndClear(points, null);
+	}
+
+	private void assertOrthogonalAndClear(PointList points, IFigure ignored) {
+		Point p = new Point(), q = new Point();
+		for (int i = 0; i < points.size() - 1; i++) {
+			points.getPoint(p, i);
+			points.getPoint(q, i + 1);
+			assertTrue(p.x == q.x || p.y == q.y);
+			Rectangle segment = new Rectangle(p, q);
+			for (int j = 0; j < container.getChildren().size(); j++) {
+				IFigure child = (IFigure) container.getChildren().get(j);
+				if (child == ignored)
+					continue;
+				Rectangle bounds = child.getBounds();
+				assertFalse(segment.x < bounds.right()
+						&& segment.right() > bounds.x
+						&& segment.y < bounds.bottom()
+						&& segment.bottom() > bounds.y);
+			}
+		}
+	}
+
+	public void testRouteAvoidsObstacles() {
+		PolylineConnection connection = connect(source, target);
+		manager.performValidation();
+		PointList points = connection.getPoints();
+		assertTrue(points.size() > 2);
+		assertEquals(new Point(90, 220), points.getFirstPoint());
+		assertEquals(new Point(399, 220), points.getLastPoint());
+		assertOrthogonalAndClear(points);
+	}
+
+	public void testRouteFollowsMovedObstacle() {
+		PolylineConnection connection = connect(source, target);
+		manager.performValidation();
+		PointList points = connection.getPoints();
+		far.setBounds(new Rectangle(1600, 1500, 40, 40));
+		manager.performValidation();
+		assertSame(points, connection.getPoints());
+		blocker.setBounds(new Rectangle(200, 100, 60, 240));
+		manager.performValidation();
+		assertNotSame(points, connection.getPoints());
+		assertOrthogonalAndClear(connection.getPoints());
+	}
+
+	public void testRemovedObstacle() {
+		PolylineConnection connection = connect(source, target);
+		manager.performValidation();
+		container.remove(blocker);
+		manager.performValidation();
+		assertEquals(2, connection.getPoints().size());
+	}
+
+	public void testParallelSegmentsNudged() {
+		PolylineConnection first = connect(source, target);
+		PolylineConnection second = connect(source, target);
+		manager.performValidation();
+		PointList p1 = first.getPoints(), p2 = second.getPoints();
+		assertEquals(p1.size(), p2.size());
+		assertEquals(p1.getFirstPoint(), p2.getFirstPoint());
+		assertEquals(p1.getLastPoint(), p2.getLastPoint());
+		int nudged = 0;
+		for (int i = 1; i < p1.size() - 2; i++) {
+			Point a = p1.getPoint(i), b = p2.getPoint(i);
+			Point c = p1.getPoint(i + 1), d = p2.getPoint(i + 1);
+			if (a.x == c.x && b.x == d.x
+					&& Math.abs(a.x - b.x) == router.getSpacing())
+				nudged++;
+			else if (a.y == c.y && b.y == d.y
+					&& Math.abs(a.y - b.y) == router.getSpacing())
+				nudged++;
+		}
+		assertEquals(p1.size() - 3, nudged);
+		assertOrthogonalAndClear(p1);
+		assertOrthogonalAndClear(p2);
+	}
+
+	public void testManyObstaclesAreNotCrossed() {
+		container.removeAll();
+		Random random = new Random(0);
+		IFigure[][] grid = new IFigure[20][20];
+		for (int i = 0; i < 20; i++)
+			for (int j = 0; j < 20; j++)
+				grid[i][j] = addObstacle(new Rectangle(i * 90 + 10
+						+ random.nextInt(20), j * 90 + 10 + random.nextInt(20),
+						30 + random.nextInt(40), 30 + random.nextInt(40)));
+		PolylineConnection[] connections = new PolylineConnection[] {
+				connect(grid[0][0], grid[19][19]),
+				connect(grid[19][0], grid[0][19]),
+				connect(grid[3][7], grid[15][12]),
+				connect(grid[10][10], grid[10][11]),
+				connect(grid[0][19], grid[19][18]) };
+		manager.performValidation();
+		for (int i = 0; i < connections.length; i++)
+			assertOrthogonalAndClear(connections[i].getPoints());
+	}
+
+	public void testEnclosingObstacleIsIgnored() {
+		container.remove(target);
+		IFigure outer = addObstacle(new Rectangle(400, 150, 200, 200));
+		IFigure inner = new Figure();
+		inner.setBounds(new Rectangle(480, 230, 40, 40));
+		outer.add(inner);
+		PolylineConnection connection = connect(source, inner);
+		manager.performValidation();
+		PointList points = connection.getPoints();
+		assertEquals(479, points.getLastPoint().x);
+		assertOrthogonalAndClear(points, outer);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.RGB;
+
+import org.eclipse.draw2d.export.PNGEncoder;
+
+public class PNGEncoderTest extends TestCase {
+
+	public void testEncodedImageCanBeLoaded() throws Exception {
+		int width = 300, height = 200;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PNGEncoder encoder = new PNGEncoder(out, width, height);
+		byte[] row = new byte[width * 3];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				row[x * 3] = (byte) x;
+				row[x * 3 + 1] = (byte) y;
+				row[x * 3 + 2] = (byte) (x ^ y);
+			}
+			encoder.writeRow(row, 0);
+		}
+		encoder.finish();
+
+		ImageData[] data = new ImageLoader().load(new ByteArrayInputStream(
+				out.toByteArray()));
+		assertEquals(1, data.length);
+		assertEquals(width, data[0].width);
+		assertEquals(height, data[0].height);
+		RGB rgb = data[0].palette.getRGB(data[0].getPixel(123, 45));
+		assertEquals(new RGB(123, 45, (123 ^ 45) & 0xFF), rgb);
+	}
+
+	public void testFinishRequiresAllRows() throws Exception {
+		PNGEncoder encoder = new PNGEncoder(new ByteArrayOutputStream(), 2, 2);
+		encoder.writeRow(new byte[6], 0);
+		try {
+			encoder.finish();
+			fail("Finishing an incomplete image should fail");
+		} catch (IllegalStateException expected) {
+		}
+	}
+
+}
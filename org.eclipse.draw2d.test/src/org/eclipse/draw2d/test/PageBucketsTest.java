@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Layer;
+import org.eclipse.draw2d.LayeredPane;
+import org.eclipse.draw2d.PageBuckets;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class PageBucketsTest extends TestCase {
+
+	private LayeredPane pane;
+	private Layer layer;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		pane = new LayeredPane();
+		pane.setBounds(new Rectangle(0, 0, 300, 200));
+		layer = new Layer();
+		pane.add(layer, "primary"); //$NON-NLS-1$
+		layer.setBounds(new Rectangle(0, 0, 300, 200));
+	}
+
+	private IFigure addChild(int x, int y, int w, int h) {
+		IFigure child = new Figure();
+		child.setBounds(new Rectangle(x, y, w, h));
+		layer.add(child);
+		return child;
+	}
+
+	public void testPageGrid() {
+		PageBuckets pages = new PageBuckets(pane, pane.getBounds(), 100, 100);
+		assertEquals(3, pages.getColumnCount());
+		assertEquals(2, pages.getRowCount());
+		assertEquals(6, pages.getPageCount());
+		assertEquals(new Rectangle(100, 100, 100, 100),
+				pages.getPageBounds(4));
+	}
+
+	public void testChildrenAreBucketedByPage() {
+		addChild(10, 10, 20, 20);
+		addChild(150, 50, 100, 100);
+		PageBuckets pages = new PageBuckets(pane, pane.getBounds(), 100, 100);
+		assertFalse(pages.isEmpty(0));
+		assertFalse(pages.isEmpty(1));
+		assertFalse(pages.isEmpty(2));
+		assertTrue(pages.isEmpty(3));
+		assertFalse(pages.isEmpty(4));
+		assertFalse(pages.isEmpty(5));
+	}
+
+	public void testEdgeDoesNotSpillIntoNextPage() {
+		addChild(0, 0, 100, 100);
+		PageBuckets pages = new PageBuckets(pane, pane.getBounds(), 100, 100);
+		assertFalse(pages.isEmpty(0));
+		for (int page = 1; page < pages.getPageCount(); page++)
+			assertTrue(pages.isEmpty(page));
+	}
+
+}
@@ -56,4 +56,25 @@ public class PointListTests extends BaseTestCase {
 		assertFalse(points.intersects(new Rectangle(0, 0, 1, 1)));
 	}
 
+	public void testIntersectsWithoutRectangle() {
+		PointList points = new PointList();
+		points.addPoint(0, 0);
+		points.addPoint(10, 10);
+		assertTrue(points.intersects(3, 4, 3, 2));
+		assertTrue(points.intersects(-10, 0, 20, 3));
+		assertFalse(points.intersects(6, 0, 4, 4));
+		assertFalse(points.intersects(0, 0, 0, 0));
+	}
+
+	public void testGetBounds() {
+		PointList points = new PointList();
+		points.addPoint(5, 5);
+		assertEquals(new Rectangle(5, 5, 1, 1), points.getBounds());
+		points = new PointList();
+		points.addPoint(5, 5);
+		points.addPoint(-2, 8);
+		points.addPoint(3, 0);
+		assertEquals(new Rectangle(-2, 0, 8, 9), points.getBounds());
+	}
+
 }
\ No newline at end of file
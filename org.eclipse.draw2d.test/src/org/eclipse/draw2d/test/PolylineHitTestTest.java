@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.ConnectionLayer;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Polyline;
+import org.eclipse.draw2d.PolylineConnection;
+import org.eclipse.draw2d.geometry.Geometry;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+public class PolylineHitTestTest extends TestCase {
+
+	/**
+	 * A polyline which tests every segment.
+	 */
+	private static class LinearPolyline extends Polyline {
+		protected boolean shapeContainsPoint(int x, int y) {
+			return Geometry.polylineContainsPoint(getPoints(), x, y, 2);
+		}
+	}
+
+	private Random random = new Random(42);
+
+	private PointList randomWalk(int size, int step) {
+		PointList points = new PointList();
+		Point p = new Point(500, 500);
+		for (int i = 0; i < size; i++) {
+			points.addPoint(p);
+			p = p.getTranslated(random.nextInt(2 * step + 1) - step,
+					random.nextInt(2 * step + 1) - step);
+		}
+		return points;
+	}
+
+	private void assertSameHits(Polyline expected, Polyline actual) {
+		Rectangle bounds = expected.getBounds().getExpanded(5, 5);
+		for (int x = bounds.x; x < bounds.right(); x += 3)
+			for (int y = bounds.y; y < bounds.bottom(); y += 3)
+				assertEquals(expected.containsPoint(x, y), actual
+						.containsPoint(x, y));
+	}
+
+	public void testLongPolyline() {
+		PointList points = randomWalk(300, 40);
+		Polyline expected = new LinearPolyline();
+		expected.setPoints(points);
+		Polyline actual = new Polyline();
+		actual.setPoints(points.getCopy());
+		assertSameHits(expected, actual);
+	}
+
+	public void testChangedPoints() {
+		PointList points = randomWalk(100, 40);
+		Polyline expected = new LinearPolyline();
+		expected.setPoints(points);
+		Polyline actual = new Polyline();
+		actual.setPoints(points.getCopy());
+		assertSameHits(expected, actual);
+
+		Point moved = new Point(200, 800);
+		expected.setPoint(moved, 50);
+		actual.setPoint(moved, 50);
+		assertTrue(actual.containsPoint(200, 800));
+		assertSameHits(expected, actual);
+
+		expected.insertPoint(new Point(900, 100), 10);
+		actual.insertPoint(new Point(900, 100), 10);
+		assertSameHits(expected, actual);
+	}
+
+	private IFigure findTopmost(IFigure layer, int x, int y) {
+		for (int i = layer.getChildren().size(); i > 0;) {
+			IFigure child = (IFigure) layer.getChildren().get(--i);
+			if (child.containsPoint(x, y))
+				return child;
+		}
+		return null;
+	}
+
+	private void assertLayerHits(ConnectionLayer layer) {
+		for (int x = 0; x < 1000; x += 7)
+			for (int y = 0; y < 1000; y += 7)
+				assertSame(findTopmost(layer, x, y), layer.findFigureAt(x, y));
+	}
+
+	private Polyline addDiagonal(ConnectionLayer layer, int index) {
+		Polyline polyline = new Polyline();
+		polyline.setEndpoints(new Point(random.nextInt(1000), 0), new Point(
+				random.nextInt(1000), 999));
+		layer.add(polyline, index);
+		return polyline;
+	}
+
+	public void testConnectionLayer() {
+		ConnectionLayer layer = new ConnectionLayer();
+		layer.setBounds(new Rectangle(0, 0, 1000, 1000));
+		for (int i = 0; i < 200; i++)
+			addDiagonal(layer, -1);
+		assertLayerHits(layer);
+
+		Polyline polyline = (Polyline) layer.getChildren().get(10);
+		polyline.setPoints(randomWalk(50, 100));
+		addDiagonal(layer, 0);
+		addDiagonal(layer, 100);
+		layer.remove((IFigure) layer.getChildren().get(50));
+		assertLayerHits(layer);
+	}
+
+	public void testReorderedConnectionLayer() {
+		ConnectionLayer layer = new ConnectionLayer();
+		layer.setBounds(new Rectangle(0, 0, 1000, 1000));
+		for (int i = 0; i < 200; i++)
+			addDiagonal(layer, -1);
+		assertLayerHits(layer);
+
+		List order = new ArrayList(layer.getChildren());
+		Collections.reverse(order);
+		layer.reorderChildren(order);
+		assertLayerHits(layer);
+	}
+
+	public void testMovedDecoration() {
+		ConnectionLayer layer = new ConnectionLayer();
+		layer.setBounds(new Rectangle(0, 0, 1000, 1000));
+		for (int i = 0; i < 100; i++)
+			addDiagonal(layer, -1);
+		PolylineConnection connection = new PolylineConnection();
+		connection.setEndpoints(new Point(0, 0), new Point(999, 999));
+		IFigure decoration = new Figure();
+		decoration.setBounds(new Rectangle(100, 800, 20, 20));
+		connection.add(decoration);
+		layer.add(connection);
+		assertSame(decoration, layer.findFigureAt(110, 810));
+
+		// the points do not change, and the bounds still contain both places
+		decoration.setBounds(new Rectangle(800, 100, 20, 20));
+		assertSame(decoration, layer.findFigureAt(810, 110));
+		IFigure found = layer.findFigureAt(110, 810);
+		assertNotSame(decoration, found);
+		assertNotSame(connection, found);
+
+		connection.remove(decoration);
+		found = layer.findFigureAt(810, 110);
+		assertNotSame(decoration, found);
+		assertNotSame(connection, found);
+	}
+
+}
@@ -94,4 +94,28 @@ public class RectangleTest extends TestCase {
 		assertTrue(r.contains(6, 7));
 		assertTrue(r.contains(6.9, 7.9));
 	}
+
+	public void testPrimitiveContains() {
+		Rectangle r = new Rectangle(1, 1, 6, 7);
+		assertTrue(r.contains(1, 1, 6, 7));
+		assertTrue(r.contains(2, 2, 1, 1));
+		assertFalse(r.contains(2, 2, 6, 1));
+	}
+
+	public void testPrimitiveIntersects() {
+		Rectangle r = new Rectangle(1, 1, 6, 7);
+		assertTrue(r.intersects(6, 7, 5, 5));
+		assertFalse(r.intersects(7, 1, 5, 5));
+		assertFalse(r.intersects(2, 2, 0, 3));
+		assertEquals(r.intersects(new Rectangle(0, 8, 3, 3)),
+				r.intersects(0, 8, 3, 3));
+	}
+
+	public void testPrimitiveIntersect() {
+		Rectangle r = new Rectangle(1, 1, 6, 7);
+		assertEquals(new Rectangle(4, 5, 3, 3), r.getCopy().intersect(4, 5,
+				10, 10));
+		assertEquals(new Rectangle(0, 0, 0, 0), r.getCopy().intersect(20,
+				20, 1, 1));
+	}
 }
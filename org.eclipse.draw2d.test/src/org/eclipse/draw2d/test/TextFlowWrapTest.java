@@ -12,6 +12,7 @@ package org.eclipse.draw2d.test;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.draw2d.FigureUtilities;
 import org.eclipse.draw2d.text.FlowPage;
@@ -454,4 +455,104 @@ public class TextFlowWrapTest extends BaseTestCase {
 				TERMINATE });
 	}
 
+	private void assertSameFragments(TextFlow expected, TextFlow actual) {
+		List expectedFrags = expected.getFragments();
+		List actualFrags = actual.getFragments();
+		assertEquals("Failed on: " + actual.getText(), expectedFrags.size(),
+				actualFrags.size());
+		for (int i = 0; i < expectedFrags.size(); i++) {
+			TextFragmentBox e = (TextFragmentBox) expectedFrags.get(i);
+			TextFragmentBox a = (TextFragmentBox) actualFrags.get(i);
+			String message = "Failed on: " + actual.getText() + " fragment "
+					+ i;
+			assertEquals(message, e.offset, a.offset);
+			assertEquals(message, e.length, a.length);
+			assertEquals(message, e.getX(), a.getX());
+			assertEquals(message, e.getBaseline(), a.getBaseline());
+			assertEquals(message, e.getWidth(), a.getWidth());
+			assertEquals(message, e.isTruncated(), a.isTruncated());
+		}
+	}
+
+	private void doIncrementalTest(int style, int offset, int length,
+			String s) {
+		String text = "The quick brown fox jumps over the lazy dog.\n"
+				+ "Pack my box with five dozen liquor jugs. "
+				+ "How vexingly quick daft zebras jump!";
+		int width = FigureUtilities.getStringExtents("The quick brown", TAHOMA).width;
+		figure = new FlowPage();
+		figure.setSize(width, 1000);
+		StringBuffer contents = new StringBuffer(text);
+		textFlow = new TextFlow();
+		textFlow.setContents(contents);
+		textFlow.setLayoutManager(new ParagraphTextLayout(textFlow, style));
+		textFlow.setFont(TAHOMA);
+		figure.add(textFlow);
+		figure.validate();
+		contents.replace(offset, offset + length, s);
+		textFlow.contentsChanged(offset, length, s.length());
+		figure.validate();
+
+		FlowPage page = new FlowPage();
+		page.setSize(width, 1000);
+		textFlow2 = new TextFlow(textFlow.getText());
+		textFlow2.setLayoutManager(new ParagraphTextLayout(textFlow2, style));
+		textFlow2.setFont(TAHOMA);
+		page.add(textFlow2);
+		page.validate();
+		assertSameFragments(textFlow2, textFlow);
+	}
+
+	public void testIncrementalWrapping() {
+		int styles[] = { ParagraphTextLayout.WORD_WRAP_SOFT,
+				ParagraphTextLayout.WORD_WRAP_HARD,
+				ParagraphTextLayout.WORD_WRAP_TRUNCATE };
+		for (int i = 0; i < styles.length; i++) {
+			doIncrementalTest(styles[i], 0, 0, "A ");
+			doIncrementalTest(styles[i], 4, 6, "");
+			doIncrementalTest(styles[i], 20, 0, "really very ");
+			doIncrementalTest(styles[i], 44, 1, " ");
+			doIncrementalTest(styles[i], 50, 0, "\n");
+			doIncrementalTest(styles[i], 60, 20, "withaverylongwordinstead");
+			doIncrementalTest(styles[i], 120, 0, " The end.");
+		}
+	}
+
+	public void testEditingDoesNotCopyContents() {
+		final StringBuffer buffer = new StringBuffer(
+				"The quick brown fox jumps over the lazy dog.\n"
+						+ "Pack my box with five dozen liquor jugs.");
+		final int copies[] = new int[1];
+		CharSequence contents = new CharSequence() {
+			public char charAt(int index) {
+				return buffer.charAt(index);
+			}
+
+			public int length() {
+				return buffer.length();
+			}
+
+			public CharSequence subSequence(int start, int end) {
+				return buffer.substring(start, end);
+			}
+
+			public String toString() {
+				copies[0]++;
+				return buffer.toString();
+			}
+		};
+		figure = new FlowPage();
+		figure.setSize(FigureUtilities.getStringExtents("The quick brown",
+				TAHOMA).width, 1000);
+		textFlow = new TextFlow();
+		textFlow.setContents(contents);
+		textFlow.setFont(TAHOMA);
+		figure.add(textFlow);
+		figure.validate();
+		buffer.insert(50, "very ");
+		textFlow.contentsChanged(50, 0, 5);
+		figure.validate();
+		assertEquals(0, copies[0]);
+	}
+
 }
\ No newline at end of file
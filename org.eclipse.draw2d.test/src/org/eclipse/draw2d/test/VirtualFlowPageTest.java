@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import java.util.List;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Viewport;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.text.BlockFlow;
+import org.eclipse.draw2d.text.FlowPage;
+import org.eclipse.draw2d.text.TextFlow;
+import org.eclipse.draw2d.text.TextFragmentBox;
+
+public class VirtualFlowPageTest extends BaseTestCase {
+
+	private static final int BLOCKS = 500;
+
+	private Figure root;
+	private Viewport viewport;
+	private FlowPage page;
+
+	private static FlowPage createPage() {
+		FlowPage page = new FlowPage();
+		page.setFont(TAHOMA);
+		for (int i = 0; i < BLOCKS; i++) {
+			BlockFlow block = new BlockFlow();
+			StringBuffer text = new StringBuffer();
+			for (int j = 0; j <= i % 7; j++)
+				text.append("Paragraph ").append(i).append(" sentence ")
+						.append(j).append(". ");
+			block.add(new TextFlow(text.toString()));
+			page.add(block);
+		}
+		return page;
+	}
+
+	private TextFlow getText(FlowPage page, int block) {
+		return (TextFlow) ((IFigure) page.getChildren().get(block))
+				.getChildren().get(0);
+	}
+
+	private boolean isLaidOut(int block) {
+		return !getText(page, block).getFragments().isEmpty();
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		root = new Figure();
+		root.setBounds(new Rectangle(0, 0, 300, 200));
+		viewport = new Viewport(true);
+		viewport.setContentsTracksWidth(true);
+		page = createPage();
+		page.setVirtualized(true);
+		viewport.setContents(page);
+		root.add(viewport);
+		root.addNotify();
+		viewport.setBounds(new Rectangle(0, 0, 300, 200));
+		root.validate();
+	}
+
+	protected void tearDown() throws Exception {
+		root.removeNotify();
+		super.tearDown();
+	}
+
+	private void scrollTo(int y) {
+		viewport.setViewLocation(0, y);
+		root.validate();
+	}
+
+	public void testOnlyVisibleBlocksAreLaidOut() {
+		assertTrue(isLaidOut(0));
+		assertFalse(isLaidOut(BLOCKS - 1));
+		int laidOut = 0;
+		for (int i = 0; i < BLOCKS; i++)
+			if (isLaidOut(i))
+				laidOut++;
+		assertTrue(laidOut < BLOCKS / 4);
+		assertTrue(page.getBounds().height > viewport.getBounds().height);
+	}
+
+	public void testScrollingLaysOutBlocks() {
+		scrollTo(page.getBounds().height);
+		assertTrue(isLaidOut(BLOCKS - 1));
+		Point location = viewport.getViewLocation();
+		IFigure block = (IFigure) page.getChildren().get(BLOCKS - 1);
+		assertTrue(block.getBounds().bottom() > location.y);
+	}
+
+	public void testChangedBlockOutOfViewHasNoFragments() {
+		assertTrue(isLaidOut(0));
+		scrollTo(page.getBounds().height);
+		TextFlow text = getText(page, 0);
+		text.setText("Changed");
+		root.validate();
+		assertFalse(isLaidOut(0));
+
+		scrollTo(0);
+		assertTrue(isLaidOut(0));
+		List fragments = text.getFragments();
+		TextFragmentBox box = (TextFragmentBox) fragments
+				.get(fragments.size() - 1);
+		assertEquals(text.getText().length(), box.offset + box.length);
+	}
+
+	public void testSameLayoutAsFullPage() {
+		scrollTo(page.getBounds().height);
+		scrollTo(page.getBounds().height);
+
+		FlowPage full = createPage();
+		full.setSize(page.getSize().width, -1);
+		full.validate();
+
+		IFigure last = (IFigure) page.getChildren().get(BLOCKS - 1);
+		IFigure fullLast = (IFigure) full.getChildren().get(BLOCKS - 1);
+		assertEquals(fullLast.getBounds().getSize(), last.getBounds()
+				.getSize());
+		List fragments = getText(page, BLOCKS - 1).getFragments();
+		List fullFragments = getText(full, BLOCKS - 1).getFragments();
+		assertEquals(fullFragments.size(), fragments.size());
+		for (int i = 0; i < fragments.size(); i++) {
+			TextFragmentBox box = (TextFragmentBox) fragments.get(i);
+			TextFragmentBox fullBox = (TextFragmentBox) fullFragments.get(i);
+			assertEquals(fullBox.offset, box.offset);
+			assertEquals(fullBox.length, box.length);
+			assertEquals(fullBox.getX(), box.getX());
+			assertEquals(fullBox.getBaseline(), box.getBaseline());
+		}
+	}
+
+	public void testFindFigureAt() {
+		scrollTo(page.getBounds().height / 2);
+		int found = 0;
+		for (int i = 0; i < BLOCKS; i++) {
+			if (!isLaidOut(i))
+				continue;
+			TextFlow text = getText(page, i);
+			TextFragmentBox box = (TextFragmentBox) text.getFragments().get(0);
+			Point pt = new Point(box.getX() + 1, box.getBaseline());
+			text.translateToAbsolute(pt);
+			if (!viewport.getBounds().contains(pt))
+				continue;
+			assertSame(text, root.findFigureAt(pt.x, pt.y));
+			found++;
+		}
+		assertTrue(found > 0);
+	}
+
+	public void testNotVirtualized() {
+		page.setVirtualized(false);
+		root.validate();
+		for (int i = 0; i < BLOCKS; i++)
+			assertTrue(isLaidOut(i));
+	}
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.ZoomedFontCache;
+
+public class ZoomedFontCacheTest extends TestCase {
+
+	private Font base;
+	private ZoomedFontCache cache;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		base = Display.getDefault().getSystemFont();
+		cache = new ZoomedFontCache(null, 2);
+	}
+
+	protected void tearDown() throws Exception {
+		cache.dispose();
+		super.tearDown();
+	}
+
+	public void testHitsShareFont() {
+		Font first = cache.acquire(base, 20);
+		Font second = cache.acquire(base, 20);
+		assertSame(first, second);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getSize());
+	}
+
+	public void testReleasedFontsAreRetained() {
+		Font font = cache.acquire(base, 20);
+		cache.release(font);
+		assertFalse(font.isDisposed());
+		assertSame(font, cache.acquire(base, 20));
+		assertEquals(1, cache.getHitCount());
+	}
+
+	public void testEvictsEldestUnreferencedFont() {
+		Font f10 = cache.acquire(base, 10);
+		Font f20 = cache.acquire(base, 20);
+		cache.release(f10);
+		cache.release(f20);
+		Font f30 = cache.acquire(base, 30);
+		assertTrue(f10.isDisposed());
+		assertFalse(f20.isDisposed());
+		assertFalse(f30.isDisposed());
+		assertEquals(2, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	public void testReferencedFontsAreNotEvicted() {
+		Font f10 = cache.acquire(base, 10);
+		Font f20 = cache.acquire(base, 20);
+		Font f30 = cache.acquire(base, 30);
+		assertFalse(f10.isDisposed());
+		assertEquals(3, cache.getSize());
+		cache.release(f10);
+		assertTrue(f10.isDisposed());
+		assertEquals(2, cache.getSize());
+		assertFalse(f20.isDisposed());
+		assertFalse(f30.isDisposed());
+	}
+
+	public void testEqualFontDataSharesFont() {
+		Font copy = new Font(base.getDevice(), base.getFontData());
+		try {
+			Font first = cache.acquire(base, 20);
+			assertSame(first, cache.acquire(copy, 20));
+			assertEquals(1, cache.getMissCount());
+		} finally {
+			copy.dispose();
+		}
+	}
+
+	public void testZoomedFontKeepsBaseFontData() {
+		FontData data = new FontData("Serif", 9, SWT.ITALIC); //$NON-NLS-1$
+		data.setLocale("de_CH"); //$NON-NLS-1$
+		Font italic = new Font(base.getDevice(), data);
+		try {
+			FontData zoomed = cache.acquire(italic, 20).getFontData()[0];
+			assertEquals("Serif", zoomed.getName()); //$NON-NLS-1$
+			assertEquals(SWT.ITALIC, zoomed.getStyle());
+			assertEquals("de_CH", zoomed.getLocale()); //$NON-NLS-1$
+			assertEquals(20, zoomed.getHeight());
+		} finally {
+			italic.dispose();
+		}
+	}
+
+	public void testDisposedBaseFontIsNotAKey() {
+		Font temporary = new Font(base.getDevice(), base.getFontData());
+		Font zoomed = cache.acquire(temporary, 20);
+		temporary.dispose();
+		cache.release(zoomed);
+		Font other = new Font(base.getDevice(), "Serif", 9, SWT.BOLD);
+		try {
+			Font otherZoomed = cache.acquire(other, 20);
+			assertNotSame(zoomed, otherZoomed);
+			assertEquals(SWT.BOLD, otherZoomed.getFontData()[0].getStyle());
+		} finally {
+			other.dispose();
+		}
+	}
+
+	public void testDefaultCacheIsPerDisplay() {
+		assertSame(ZoomedFontCache.getDefault(), ZoomedFontCache.getDefault());
+	}
+
+	public void testDisposeReleasesAllFonts() {
+		Font font = cache.acquire(base, 10);
+		cache.dispose();
+		assertTrue(font.isDisposed());
+		assertEquals(0, cache.getSize());
+	}
+
+}
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.draw2d;
 
+import java.util.List;
+import java.util.Set;
+
 import org.eclipse.draw2d.geometry.Point;
 
 /**
@@ -80,6 +83,24 @@ public abstract class AbstractRouter implements ConnectionRouter {
 	public void invalidate(Connection connection) {
 	}
 
+	/**
+	 * Called when the given anchors moved, with the connections attached to
+	 * them which this router is responsible for. Routers which can handle many
+	 * moved connections more efficiently than one at a time may override
+	 * this. By default, {@link #invalidate(Connection)} is called for each
+	 * connection.
+	 * 
+	 * @param anchors
+	 *            the {@link ConnectionAnchor}s which moved
+	 * @param connections
+	 *            the {@link Connection}s to invalidate
+	 * @since 3.10
+	 */
+	public void anchorsMoved(Set anchors, List connections) {
+		for (int i = 0; i < connections.size(); i++)
+			invalidate((Connection) connections.get(i));
+	}
+
 	/**
 	 * Removes the given Connection from this routers list of Connections it is
 	 * responsible for.
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the anchors which moved during one update cycle of a
+ * {@link DeferredUpdateManager}, together with the connections attached to
+ * them. Moving a container typically moves many anchors, and an anchor whose
+ * ancestors move is notified once per ancestor. The batch makes sure that each
+ * connection is revalidated only once, and that every router is told about all
+ * of its moved connections with a single call.
+ */
+class AnchorMoveBatch {
+
+	/**
+	 * Tells the given router that the given connections have to be rerouted
+	 * because the given anchors moved.
+	 *
+	 * @param router
+	 *            the router
+	 * @param anchors
+	 *            the anchors which moved
+	 * @param connections
+	 *            the connections attached to the anchors
+	 */
+	static void anchorsMoved(ConnectionRouter router, Set anchors,
+			List connections) {
+		if (router instanceof AbstractRouter)
+			((AbstractRouter) router).anchorsMoved(anchors, connections);
+		else if (router instanceof PolylineConnection.RoutingNotifier)
+			((PolylineConnection.RoutingNotifier) router).anchorsMoved(
+					anchors, connections);
+		else
+			for (int i = 0; i < connections.size(); i++)
+				router.invalidate((Connection) connections.get(i));
+	}
+
+	private final Set anchors = new HashSet();
+	private final Set connections = new LinkedHashSet();
+
+	/**
+	 * Records that the given anchor of the given connection moved.
+	 *
+	 * @param connection
+	 *            the connection
+	 * @param anchor
+	 *            the anchor which moved
+	 */
+	void add(PolylineConnection connection, ConnectionAnchor anchor) {
+		anchors.add(anchor);
+		connections.add(connection);
+	}
+
+	/**
+	 * Revalidates the connections of this batch and tells their routers about
+	 * them, grouped by router.
+	 */
+	void flush() {
+		Map byRouter = new IdentityHashMap();
+		for (Iterator iter = connections.iterator(); iter.hasNext();) {
+			PolylineConnection connection = (PolylineConnection) iter.next();
+			// a connection removed in the meantime is no longer routed
+			if (connection.getParent() == null)
+				continue;
+			ConnectionRouter router = connection.revalidateWithoutRouter();
+			List list = (List) byRouter.get(router);
+			if (list == null) {
+				list = new ArrayList();
+				byRouter.put(router, list);
+			}
+			list.add(connection);
+		}
+		for (Iterator iter = byRouter.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			anchorsMoved((ConnectionRouter) entry.getKey(), anchors,
+					(List) entry.getValue());
+		}
+	}
+
+}
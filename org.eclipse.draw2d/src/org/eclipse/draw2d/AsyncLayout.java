@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.geometry.Dimension;
+
+/**
+ * Computes the bounds of the children of a {@link SnapshotLayout} on a
+ * background thread.
+ * <P>
+ * When a container with at least {@link #setThreshold(int) threshold}
+ * children is laid out, the wrapped layout captures a {@link LayoutSnapshot}
+ * and the bounds are computed by a pool of worker threads. The inputs of the
+ * layout, such as the preferred sizes of the children, are still measured on
+ * the UI thread when the snapshot is captured, since figures measure their
+ * text with fonts of the display. Only the placement of the children is moved
+ * off the UI thread, so this pays off for layouts whose placement costs more
+ * than measuring the children, such as layouts which solve a graph.
+ * <P>
+ * This is why the layouts of draw2d do not implement {@link SnapshotLayout}:
+ * {@link FlowLayout}, {@link GridLayout} and {@link ToolbarLayout} spend their
+ * time measuring the children, and place them in a single linear pass.
+ * <P>
+ * The children keep their previous bounds until the result is ready, which is
+ * then applied to them all at once on the UI thread. The container itself is
+ * not invalidated again. A result is discarded if the container was
+ * invalidated while it was computed.
+ * <P>
+ * Smaller containers, and containers which are laid out outside of the UI
+ * thread, are laid out synchronously. Everything but {@link #layout(IFigure)}
+ * is delegated to the wrapped layout.
+ *
+ * @since 3.10
+ */
+public class AsyncLayout implements LayoutManager {
+
+	private static final int KEEP_ALIVE = 30000;
+	private static final int MAX_WORKERS = Math.max(1, Math.min(4, Runtime
+			.getRuntime().availableProcessors() - 1));
+	private static final LinkedList QUEUE = new LinkedList();
+	private static int workers;
+	private static int idleWorkers;
+
+	private static class Worker implements Runnable {
+		public void run() {
+			while (true) {
+				Runnable job;
+				synchronized (QUEUE) {
+					if (QUEUE.isEmpty()) {
+						idleWorkers++;
+						try {
+							QUEUE.wait(KEEP_ALIVE);
+						} catch (InterruptedException e) {
+						}
+						idleWorkers--;
+						if (QUEUE.isEmpty()) {
+							workers--;
+							return;
+						}
+					}
+					job = (Runnable) QUEUE.removeFirst();
+				}
+				job.run();
+			}
+		}
+	}
+
+	private static void schedule(Runnable job) {
+		synchronized (QUEUE) {
+			QUEUE.addLast(job);
+			if (idleWorkers > 0)
+				QUEUE.notify();
+			else if (workers < MAX_WORKERS) {
+				workers++;
+				Thread thread = new Thread(new Worker(), "Draw2d Layout"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	/**
+	 * Computes a snapshot on a worker thread, then reports the result on the
+	 * UI thread.
+	 */
+	private class LayoutJob implements Runnable {
+		private final IFigure container;
+		private final LayoutSnapshot snapshot;
+		private final int generation;
+		private boolean computed;
+		private boolean failed;
+
+		LayoutJob(IFigure container, LayoutSnapshot snapshot, int generation) {
+			this.container = container;
+			this.snapshot = snapshot;
+			this.generation = generation;
+		}
+
+		public void run() {
+			if (computed) {
+				layoutComputed(container, failed ? null : snapshot, generation);
+				return;
+			}
+			try {
+				snapshot.compute();
+			} catch (RuntimeException e) {
+				failed = true;
+			}
+			computed = true;
+			asyncExec(this);
+		}
+	}
+
+	private final SnapshotLayout layout;
+	private int threshold = 100;
+	private int generation;
+	private Display display;
+
+	/**
+	 * Creates a new AsyncLayout computing the layout of the given layout in
+	 * the background.
+	 *
+	 * @param layout
+	 *            the layout to compute in the background
+	 */
+	public AsyncLayout(SnapshotLayout layout) {
+		this.layout = layout;
+	}
+
+	/**
+	 * @see LayoutManager#getConstraint(IFigure)
+	 */
+	public Object getConstraint(IFigure child) {
+		return layout.getConstraint(child);
+	}
+
+	/**
+	 * Returns the layout whose layout is computed in the background.
+	 *
+	 * @return the wrapped layout
+	 */
+	public SnapshotLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * @see LayoutManager#getMinimumSize(IFigure, int, int)
+	 */
+	public Dimension getMinimumSize(IFigure container, int wHint, int hHint) {
+		return layout.getMinimumSize(container, wHint, hHint);
+	}
+
+	/**
+	 * @see LayoutManager#getPreferredSize(IFigure, int, int)
+	 */
+	public Dimension getPreferredSize(IFigure container, int wHint, int hHint) {
+		return layout.getPreferredSize(container, wHint, hHint);
+	}
+
+	/**
+	 * Returns the number of children from which containers are laid out in
+	 * the background.
+	 *
+	 * @return the threshold
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Runs the given runnable on the UI thread. Called on a worker thread once
+	 * a layout has been computed. By default, the runnable is posted to the
+	 * display on which the layout was started.
+	 *
+	 * @param runnable
+	 *            the runnable which applies the computed layout
+	 */
+	protected void asyncExec(Runnable runnable) {
+		try {
+			display.asyncExec(runnable);
+		} catch (SWTException e) {
+			// the display has been disposed
+		}
+	}
+
+	/**
+	 * Discards any layout being computed, in addition to invalidating the
+	 * wrapped layout.
+	 *
+	 * @see LayoutManager#invalidate()
+	 */
+	public void invalidate() {
+		generation++;
+		layout.invalidate();
+	}
+
+	/**
+	 * Returns whether the given container is laid out in the background. By
+	 * default, containers with at least {@link #getThreshold() threshold}
+	 * children are, if they are laid out on the UI thread.
+	 *
+	 * @param container
+	 *            the container being laid out
+	 * @return <code>true</code> to compute the layout in the background
+	 */
+	protected boolean isLaidOutInBackground(IFigure container) {
+		return Display.getCurrent() != null
+				&& container.getChildren().size() >= threshold;
+	}
+
+	/**
+	 * Starts computing the layout in the background, or lays out the container
+	 * synchronously if it is small or this is not the UI thread.
+	 *
+	 * @see LayoutManager#layout(IFigure)
+	 */
+	public void layout(IFigure container) {
+		if (!isLaidOutInBackground(container)) {
+			layout.layout(container);
+			return;
+		}
+		display = Display.getCurrent();
+		schedule(new LayoutJob(container, layout.createSnapshot(container),
+				++generation));
+	}
+
+	/**
+	 * Called on the UI thread when a layout has been computed. The snapshot is
+	 * <code>null</code> if the computation failed, in which case the container
+	 * is laid out synchronously so that the failure surfaces on the UI thread.
+	 * Children whose size changed are queued for validation on their own, so
+	 * that neither the container nor its ancestors are laid out again.
+	 */
+	private void layoutComputed(IFigure container, LayoutSnapshot snapshot,
+			int generation) {
+		if (generation != this.generation
+				|| container.getLayoutManager() != this)
+			return; // the container has been invalidated again
+		List children = container.getChildren();
+		Dimension[] sizes = new Dimension[children.size()];
+		for (int i = 0; i < sizes.length; i++)
+			sizes[i] = ((IFigure) children.get(i)).getSize();
+		if (snapshot == null)
+			layout.layout(container);
+		else
+			snapshot.apply(container);
+		UpdateManager manager = container.getUpdateManager();
+		for (int i = 0; i < sizes.length; i++) {
+			IFigure child = (IFigure) children.get(i);
+			if (!child.getSize().equals(sizes[i]))
+				manager.addInvalidFigure(child);
+		}
+	}
+
+	/**
+	 * @see LayoutManager#remove(IFigure)
+	 */
+	public void remove(IFigure child) {
+		layout.remove(child);
+	}
+
+	/**
+	 * @see LayoutManager#setConstraint(IFigure, Object)
+	 */
+	public void setConstraint(IFigure child, Object constraint) {
+		layout.setConstraint(child, constraint);
+	}
+
+	/**
+	 * Sets the number of children from which containers are laid out in the
+	 * background. Containers with fewer children are laid out synchronously.
+	 * The default is 100.
+	 *
+	 * @param threshold
+	 *            the threshold
+	 */
+	public void setThreshold(int threshold) {
+		this.threshold = threshold;
+	}
+
+}
@@ -11,6 +11,11 @@
 package org.eclipse.draw2d;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.PointList;
@@ -111,6 +116,47 @@ public abstract class AutomaticRouter extends AbstractRouter {
 
 	}
 
+	/**
+	 * Overridden to revalidate the connections overlapping the moved ones only
+	 * once, after all moved connections have been removed.
+	 * 
+	 * @see AbstractRouter#anchorsMoved(Set, List)
+	 * @since 3.10
+	 */
+	public void anchorsMoved(Set anchors, List moved) {
+		if (next() != null)
+			AnchorMoveBatch.anchorsMoved(next(), anchors, moved);
+		Map firstAffected = new HashMap();
+		for (int i = 0; i < moved.size(); i++) {
+			Connection conn = (Connection) moved.get(i);
+			if (conn.getSourceAnchor() == null
+					|| conn.getTargetAnchor() == null)
+				continue;
+			HashKey connectionKey = new HashKey(conn);
+			int affected = connections.remove(connectionKey, conn);
+			if (affected == -1) {
+				connections.removeValue(conn);
+				continue;
+			}
+			Integer first = (Integer) firstAffected.get(connectionKey);
+			if (first == null || affected < first.intValue())
+				firstAffected.put(connectionKey, new Integer(affected));
+		}
+		for (Iterator iter = firstAffected.entrySet().iterator(); iter
+				.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			ArrayList connectionList = connections.get(entry.getKey());
+			if (connectionList == null)
+				continue;
+			int first = ((Integer) entry.getValue()).intValue();
+			Object[] affected = connectionList.subList(
+					Math.min(first, connectionList.size()),
+					connectionList.size()).toArray();
+			for (int i = 0; i < affected.length; i++)
+				((Connection) affected[i]).revalidate();
+		}
+	}
+
 	/**
 	 * Returns the next router in the chain.
 	 * 
@@ -12,6 +12,7 @@ package org.eclipse.draw2d;
 
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
 
 /**
  * The ChopboxAnchor's location is found by calculating the intersection of a
@@ -48,7 +49,8 @@ public class ChopboxAnchor extends AbstractConnectionAnchor {
 	 * @return The anchor location
 	 */
 	public Point getLocation(Point reference) {
-		Rectangle r = Rectangle.SINGLETON;
+		ScratchPool pool = ScratchPool.getCurrent();
+		Rectangle r = pool.getRectangle();
 		r.setBounds(getBox());
 		r.translate(-1, -1);
 		r.resize(1, 1);
@@ -56,8 +58,12 @@ public class ChopboxAnchor extends AbstractConnectionAnchor {
 		getOwner().translateToAbsolute(r);
 		float centerX = r.x + 0.5f * r.width;
 		float centerY = r.y + 0.5f * r.height;
+		float width = r.width;
+		float height = r.height;
+		boolean empty = r.isEmpty();
+		pool.release(r);
 
-		if (r.isEmpty()
+		if (empty
 				|| (reference.x == (int) centerX && reference.y == (int) centerY))
 			return new Point((int) centerX, (int) centerY); // This avoids
 															// divide-by-zero
@@ -65,9 +71,9 @@ public class ChopboxAnchor extends AbstractConnectionAnchor {
 		float dx = reference.x - centerX;
 		float dy = reference.y - centerY;
 
-		// r.width, r.height, dx, and dy are guaranteed to be non-zero.
-		float scale = 0.5f / Math.max(Math.abs(dx) / r.width, Math.abs(dy)
-				/ r.height);
+		// width, height, dx, and dy are guaranteed to be non-zero.
+		float scale = 0.5f / Math.max(Math.abs(dx) / width, Math.abs(dy)
+				/ height);
 
 		dx *= scale;
 		dy *= scale;
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * A broad phase for hit testing the children of a {@link ConnectionLayer}.
+ * The layer is divided into a grid of square cells, and each {@link Polyline}
+ * child is registered in the cells which its segments and its own children
+ * pass through. A long diagonal connection is therefore only a candidate near
+ * its segments, instead of everywhere in its bounds. Other children are always
+ * candidates.
+ * <P>
+ * Changed children are registered again lazily, on the next query. The
+ * children of a registered polyline are listened to, so that a polyline is
+ * also registered again when one of its decorations moves.
+ */
+class ConnectionHitIndex {
+
+	private static final int CELL_SIZE = 64;
+	/**
+	 * The maximum number of cells in which a child is registered. Larger
+	 * children are always candidates.
+	 */
+	private static final int MAX_CELLS = 4096;
+
+	private static class Entry {
+		final IFigure figure;
+		int order;
+		Set cells;
+		List decorations;
+
+		Entry(IFigure figure) {
+			this.figure = figure;
+		}
+	}
+
+	private static final Comparator TOPMOST_FIRST = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			return ((Entry) o2).order - ((Entry) o1).order;
+		}
+	};
+
+	private final FigureListener decorationListener = new FigureListener() {
+		public void figureMoved(IFigure source) {
+			invalidate(source.getParent());
+		}
+	};
+
+	private final IFigure layer;
+	private final Map cells = new HashMap();
+	private final Map entries = new HashMap();
+	private final Set dirty = new HashSet();
+	private final List unindexed = new ArrayList();
+	private boolean ordersDirty;
+	private int nextOrder;
+
+	/**
+	 * Creates the index for the children of the given layer.
+	 */
+	ConnectionHitIndex(IFigure layer) {
+		this.layer = layer;
+		List children = layer.getChildren();
+		for (int i = 0; i < children.size(); i++)
+			add((IFigure) children.get(i), -1);
+	}
+
+	/**
+	 * Adds a child which has been added to the layer at the given index.
+	 */
+	void add(IFigure child, int index) {
+		Entry entry = new Entry(child);
+		entries.put(child, entry);
+		if (index == -1)
+			entry.order = nextOrder++;
+		else
+			ordersDirty = true;
+		dirty.add(entry);
+	}
+
+	private static int cell(double coordinate) {
+		return (int) Math.floor(coordinate / CELL_SIZE);
+	}
+
+	/**
+	 * Returns the children which may contain the given point, topmost first.
+	 */
+	List getCandidates(int x, int y) {
+		update();
+		List result = new ArrayList(unindexed);
+		List list = (List) cells.get(key(cell(x), cell(y)));
+		if (list != null)
+			result.addAll(list);
+		Collections.sort(result, TOPMOST_FIRST);
+		for (int i = 0; i < result.size(); i++)
+			result.set(i, ((Entry) result.get(i)).figure);
+		return result;
+	}
+
+	/**
+	 * Marks a child whose geometry has changed.
+	 */
+	void invalidate(IFigure child) {
+		Entry entry = (Entry) entries.get(child);
+		if (entry != null)
+			dirty.add(entry);
+	}
+
+	private static Long key(int column, int row) {
+		return new Long(((long) column << 32) | (row & 0xffffffffL));
+	}
+
+	/**
+	 * Returns the cells in which the given child may contain a point, or
+	 * <code>null</code> if it must always be a candidate.
+	 */
+	private Set computeCells(IFigure child) {
+		if (!(child instanceof Polyline) || child instanceof Polygon)
+			return null;
+		Polyline polyline = (Polyline) child;
+		Set result = new HashSet();
+		int tolerance = polyline.getHitTolerance() + 1;
+		PointList points = polyline.getPoints();
+		int[] coords = points.toIntArray();
+		for (int i = 0; i + 3 < points.size() * 2; i += 2)
+			if (!addSegment(result, coords[i], coords[i + 1], coords[i + 2],
+					coords[i + 3], tolerance))
+				return null;
+		if (points.size() == 1
+				&& !addSegment(result, coords[0], coords[1], coords[0],
+						coords[1], tolerance))
+			return null;
+		List children = child.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			Rectangle r = ((IFigure) children.get(i)).getBounds();
+			for (int c = cell(r.x); c <= cell(r.right()); c++)
+				for (int row = cell(r.y); row <= cell(r.bottom()); row++)
+					result.add(key(c, row));
+			if (result.size() > MAX_CELLS)
+				return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the cells which contain points within the tolerance of the segment.
+	 * Returns <code>false</code> if there are too many cells.
+	 */
+	private static boolean addSegment(Set result, int x1, int y1, int x2,
+			int y2, int tolerance) {
+		if (x1 > x2) {
+			int t = x1;
+			x1 = x2;
+			x2 = t;
+			t = y1;
+			y1 = y2;
+			y2 = t;
+		}
+		int c1 = cell(x1 - tolerance), c2 = cell(x2 + tolerance);
+		for (int c = c1; c <= c2; c++) {
+			// the part of the segment which is within the tolerance of the
+			// column
+			double low = Math.max(x1, c * CELL_SIZE - tolerance);
+			double high = Math.min(x2, (c + 1) * CELL_SIZE + tolerance);
+			double ya = y1, yb = y2;
+			if (x1 != x2) {
+				double slope = (double) (y2 - y1) / (x2 - x1);
+				ya = y1 + (low - x1) * slope;
+				yb = y1 + (high - x1) * slope;
+			}
+			int r2 = cell(Math.max(ya, yb) + tolerance);
+			for (int r = cell(Math.min(ya, yb) - tolerance); r <= r2; r++)
+				result.add(key(c, r));
+			if (result.size() > MAX_CELLS)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Marks the order of the children as changed.
+	 */
+	void reorder() {
+		ordersDirty = true;
+	}
+
+	/**
+	 * Removes a child which has been removed from the layer.
+	 */
+	void remove(IFigure child) {
+		Entry entry = (Entry) entries.remove(child);
+		if (entry == null)
+			return;
+		dirty.remove(entry);
+		unregister(entry);
+	}
+
+	private void unregister(Entry entry) {
+		if (entry.decorations != null) {
+			for (int i = 0; i < entry.decorations.size(); i++)
+				((IFigure) entry.decorations.get(i))
+						.removeFigureListener(decorationListener);
+			entry.decorations = null;
+		}
+		if (entry.cells == null) {
+			unindexed.remove(entry);
+			return;
+		}
+		for (Iterator iter = entry.cells.iterator(); iter.hasNext();) {
+			Object key = iter.next();
+			List list = (List) cells.get(key);
+			list.remove(entry);
+			if (list.isEmpty())
+				cells.remove(key);
+		}
+		entry.cells = null;
+	}
+
+	private void update() {
+		if (ordersDirty) {
+			List children = layer.getChildren();
+			for (int i = 0; i < children.size(); i++)
+				((Entry) entries.get(children.get(i))).order = i;
+			nextOrder = children.size();
+			ordersDirty = false;
+		}
+		for (Iterator iter = dirty.iterator(); iter.hasNext();) {
+			Entry entry = (Entry) iter.next();
+			unregister(entry);
+			entry.cells = computeCells(entry.figure);
+			if (entry.cells == null) {
+				unindexed.add(entry);
+				continue;
+			}
+			for (Iterator keys = entry.cells.iterator(); keys.hasNext();) {
+				Object key = keys.next();
+				List list = (List) cells.get(key);
+				if (list == null) {
+					list = new ArrayList(4);
+					cells.put(key, list);
+				}
+				list.add(entry);
+			}
+			List children = entry.figure.getChildren();
+			if (!children.isEmpty()) {
+				entry.decorations = new ArrayList(children);
+				for (int i = 0; i < children.size(); i++)
+					((IFigure) children.get(i))
+							.addFigureListener(decorationListener);
+			}
+		}
+		dirty.clear();
+	}
+
+}
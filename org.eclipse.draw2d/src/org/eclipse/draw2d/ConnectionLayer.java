@@ -12,15 +12,28 @@
  *******************************************************************************/
 package org.eclipse.draw2d;
 
+import java.util.List;
+
 import org.eclipse.swt.SWT;
 
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
+
 /**
  * Layer designed specifically to handle the presence of connections. This is
  * done due to the necessity of having a router for the connections added.
  */
 public class ConnectionLayer extends FreeformLayer {
 
+	/**
+	 * The number of children from which hit testing uses a
+	 * {@link ConnectionHitIndex}.
+	 */
+	private static final int HIT_INDEX_THRESHOLD = 64;
+
 	int antialias = SWT.DEFAULT;
+	private ConnectionHitIndex hitIndex;
 
 	/**
 	 * The ConnectionRouter used to route all connections on this layer.
@@ -41,6 +54,8 @@ public class ConnectionLayer extends FreeformLayer {
 	 */
 	public void add(IFigure figure, Object constraint, int index) {
 		super.add(figure, constraint, index);
+		if (hitIndex != null)
+			hitIndex.add(figure, index);
 
 		// If the connection layout manager is set, then every
 		// figure added should use this layout manager.
@@ -48,6 +63,73 @@ public class ConnectionLayer extends FreeformLayer {
 			((Connection) figure).setConnectionRouter(getConnectionRouter());
 	}
 
+	/**
+	 * Called by a {@link Polyline} child whose points have changed.
+	 */
+	void childChanged(IFigure child) {
+		if (hitIndex != null)
+			hitIndex.invalidate(child);
+	}
+
+	/**
+	 * Overridden to only test the children which may contain the point.
+	 * 
+	 * @see Layer#containsPoint(int, int)
+	 * @since 3.10
+	 */
+	public boolean containsPoint(int x, int y) {
+		if (isOpaque() || !useHitIndex())
+			return super.containsPoint(x, y);
+		ScratchPool pool = ScratchPool.getCurrent();
+		Point pt = pool.getPoint();
+		pt.setLocation(x, y);
+		translateFromParent(pt);
+		x = pt.x;
+		y = pt.y;
+		pool.release(pt);
+		List candidates = hitIndex.getCandidates(x, y);
+		for (int i = 0; i < candidates.size(); i++)
+			if (((IFigure) candidates.get(i)).containsPoint(x, y))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Overridden to only search the children which may contain the point.
+	 * 
+	 * @see Figure#findDescendantAtExcluding(int, int, TreeSearch)
+	 * @since 3.10
+	 */
+	protected IFigure findDescendantAtExcluding(int x, int y, TreeSearch search) {
+		if (!useHitIndex())
+			return super.findDescendantAtExcluding(x, y, search);
+		ScratchPool pool = ScratchPool.getCurrent();
+		Point pt = pool.getPoint();
+		Rectangle clientArea = pool.getRectangle();
+		try {
+			pt.setLocation(x, y);
+			translateFromParent(pt);
+			if (!getClientArea(clientArea).contains(pt))
+				return null;
+			x = pt.x;
+			y = pt.y;
+		} finally {
+			pool.release(clientArea);
+			pool.release(pt);
+		}
+
+		List candidates = hitIndex.getCandidates(x, y);
+		for (int i = 0; i < candidates.size(); i++) {
+			IFigure fig = (IFigure) candidates.get(i);
+			if (fig.isVisible()) {
+				fig = fig.findFigureAt(x, y, search);
+				if (fig != null)
+					return fig;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the ConnectionRouter being used by this layer.
 	 * 
@@ -78,6 +160,20 @@ public class ConnectionLayer extends FreeformLayer {
 		if (figure instanceof Connection)
 			((Connection) figure).setConnectionRouter(null);
 		super.remove(figure);
+		if (hitIndex != null)
+			hitIndex.remove(figure);
+	}
+
+	/**
+	 * Overridden to update the order in which the children are hit tested.
+	 * 
+	 * @see Figure#reorderChildren(List)
+	 * @since 3.10
+	 */
+	public void reorderChildren(List order) {
+		super.reorderChildren(order);
+		if (hitIndex != null)
+			hitIndex.reorder();
 	}
 
 	/**
@@ -113,4 +209,16 @@ public class ConnectionLayer extends FreeformLayer {
 		this.antialias = antialias;
 	}
 
+	/**
+	 * Returns whether hit testing uses the index, and creates it on first use.
+	 */
+	private boolean useHitIndex() {
+		if (hitIndex == null) {
+			if (getChildren().size() < HIT_INDEX_THRESHOLD)
+				return false;
+			hitIndex = new ConnectionHitIndex(this);
+		}
+		return true;
+	}
+
 }
@@ -56,6 +56,7 @@ public class DeferredUpdateManager extends UpdateManager {
 	private boolean updating;
 	private boolean validating;
 	private RunnableChain afterUpdate;
+	private AnchorMoveBatch anchorMoves;
 
 	private static class RunnableChain {
 		RunnableChain next;
@@ -134,6 +135,26 @@ public class DeferredUpdateManager extends UpdateManager {
 		invalidFigures.add(f);
 	}
 
+	/**
+	 * Records that an anchor of the given connection moved. The connection is
+	 * revalidated, and its router told about the move, the next time figures
+	 * are validated, so that a connection is rerouted only once per update no
+	 * matter how many of its anchors' ancestors moved.
+	 * 
+	 * @param connection
+	 *            the connection
+	 * @param anchor
+	 *            the anchor which moved
+	 */
+	synchronized void anchorMoved(PolylineConnection connection,
+			ConnectionAnchor anchor) {
+		if (anchorMoves == null) {
+			anchorMoves = new AnchorMoveBatch();
+			queueWork();
+		}
+		anchorMoves.add(connection, anchor);
+	}
+
 	/**
 	 * Returns a Graphics object for the given region.
 	 * 
@@ -206,23 +227,36 @@ public class DeferredUpdateManager extends UpdateManager {
 	 * @see UpdateManager#performValidation()
 	 */
 	public synchronized void performValidation() {
-		if (invalidFigures.isEmpty() || validating)
+		if ((invalidFigures.isEmpty() && anchorMoves == null) || validating)
 			return;
 		try {
 			IFigure fig;
 			validating = true;
 			fireValidating();
-			for (int i = 0; i < invalidFigures.size(); i++) {
-				fig = (IFigure) invalidFigures.get(i);
-				invalidFigures.set(i, null);
-				fig.validate();
-			}
+			int i = 0;
+			do {
+				// anchors may also move while figures are being validated
+				flushAnchorMoves();
+				for (; i < invalidFigures.size(); i++) {
+					fig = (IFigure) invalidFigures.get(i);
+					invalidFigures.set(i, null);
+					fig.validate();
+				}
+			} while (anchorMoves != null);
 		} finally {
 			invalidFigures.clear();
 			validating = false;
 		}
 	}
 
+	private void flushAnchorMoves() {
+		if (anchorMoves == null)
+			return;
+		AnchorMoveBatch batch = anchorMoves;
+		anchorMoves = null;
+		batch.flush();
+	}
+
 	/**
 	 * Adds the given exposed region to the update queue and then performs the
 	 * update.
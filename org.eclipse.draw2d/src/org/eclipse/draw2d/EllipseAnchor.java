@@ -12,6 +12,7 @@ package org.eclipse.draw2d;
 
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
 
 /**
  * Similar to a {@link org.eclipse.draw2d.ChopboxAnchor}, except this anchor is
@@ -41,29 +42,35 @@ public class EllipseAnchor extends AbstractConnectionAnchor {
 	 * @see org.eclipse.draw2d.ConnectionAnchor#getLocation(Point)
 	 */
 	public Point getLocation(Point reference) {
-		Rectangle r = Rectangle.SINGLETON;
-		r.setBounds(getOwner().getBounds());
-		r.translate(-1, -1);
-		r.resize(1, 1);
-		getOwner().translateToAbsolute(r);
+		ScratchPool pool = ScratchPool.getCurrent();
+		Rectangle r = pool.getRectangle();
+		try {
+			r.setBounds(getOwner().getBounds());
+			r.translate(-1, -1);
+			r.resize(1, 1);
+			getOwner().translateToAbsolute(r);
 
-		Point ref = r.getCenter().negate().translate(reference);
+			Point ref = r.getCenter().negate().translate(reference);
 
-		if (ref.x == 0)
-			return new Point(reference.x, (ref.y > 0) ? r.bottom() : r.y);
-		if (ref.y == 0)
-			return new Point((ref.x > 0) ? r.right() : r.x, reference.y);
+			if (ref.x == 0)
+				return new Point(reference.x, (ref.y > 0) ? r.bottom() : r.y);
+			if (ref.y == 0)
+				return new Point((ref.x > 0) ? r.right() : r.x, reference.y);
 
-		float dx = (ref.x > 0) ? 0.5f : -0.5f;
-		float dy = (ref.y > 0) ? 0.5f : -0.5f;
+			float dx = (ref.x > 0) ? 0.5f : -0.5f;
+			float dy = (ref.y > 0) ? 0.5f : -0.5f;
 
-		// ref.x, ref.y, r.width, r.height != 0 => safe to proceed
+			// ref.x, ref.y, r.width, r.height != 0 => safe to proceed
 
-		float k = (float) (ref.y * r.width) / (ref.x * r.height);
-		k = k * k;
+			float k = (float) (ref.y * r.width) / (ref.x * r.height);
+			k = k * k;
 
-		return r.getCenter().translate((int) (r.width * dx / Math.sqrt(1 + k)),
-				(int) (r.height * dy / Math.sqrt(1 + 1 / k)));
+			return r.getCenter().translate(
+					(int) (r.width * dx / Math.sqrt(1 + k)),
+					(int) (r.height * dy / Math.sqrt(1 + 1 / k)));
+		} finally {
+			pool.release(r);
+		}
 	}
 
 	/**
@@ -11,6 +11,7 @@
 package org.eclipse.draw2d;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * This class is intended for internal use only. TODO: If this is for internal
@@ -18,7 +19,18 @@ import java.util.Iterator;
  */
 public final class EventListenerList {
 
-	private volatile Object array[];
+	private static final Object[] NO_LISTENERS = new Object[0];
+
+	private static final Iterator EMPTY_ITERATOR = new TypeIterator(
+			NO_LISTENERS);
+
+	/**
+	 * The listeners grouped by type: each even index holds a type, followed by
+	 * the array of listeners of that type. Neither this array nor the listener
+	 * arrays are ever modified once published, so they can be read without
+	 * locking.
+	 */
+	private volatile Object buckets[];
 
 	/**
 	 * Adds a listener of type <i>c</i> to the list.
@@ -32,13 +44,26 @@ public final class EventListenerList {
 		if (listener == null || c == null)
 			throw new IllegalArgumentException();
 
-		int oldSize = (array == null) ? 0 : array.length;
-		Object[] newArray = new Object[oldSize + 2];
-		if (oldSize != 0)
-			System.arraycopy(array, 0, newArray, 0, oldSize);
-		newArray[oldSize++] = c;
-		newArray[oldSize] = listener;
-		array = newArray;
+		Object[] oldBuckets = buckets;
+		int index = indexOf(oldBuckets, c);
+		Object[] newBuckets;
+		if (index == -1) {
+			int oldSize = (oldBuckets == null) ? 0 : oldBuckets.length;
+			newBuckets = new Object[oldSize + 2];
+			if (oldSize != 0)
+				System.arraycopy(oldBuckets, 0, newBuckets, 0, oldSize);
+			newBuckets[oldSize] = c;
+			newBuckets[oldSize + 1] = new Object[] { listener };
+		} else {
+			Object[] oldListeners = (Object[]) oldBuckets[index + 1];
+			Object[] newListeners = new Object[oldListeners.length + 1];
+			System.arraycopy(oldListeners, 0, newListeners, 0,
+					oldListeners.length);
+			newListeners[oldListeners.length] = listener;
+			newBuckets = (Object[]) oldBuckets.clone();
+			newBuckets[index + 1] = newListeners;
+		}
+		buckets = newBuckets;
 	}
 
 	/**
@@ -49,36 +74,33 @@ public final class EventListenerList {
 	 *            the type
 	 * @return whether this list contains a listener of type <i>c</i>
 	 */
-	public synchronized boolean containsListener(Class c) {
-		if (array == null)
-			return false;
-		for (int i = 0; i < array.length; i += 2)
-			if (array[i] == c)
-				return true;
-		return false;
+	public boolean containsListener(Class c) {
+		return indexOf(buckets, c) != -1;
+	}
+
+	private static int indexOf(Object[] buckets, Class c) {
+		if (buckets != null)
+			for (int i = 0; i < buckets.length; i += 2)
+				if (buckets[i] == c)
+					return i;
+		return -1;
 	}
 
 	static class TypeIterator implements Iterator {
 		private final Object[] items;
-		private final Class type;
 		private int index;
 
-		TypeIterator(Object items[], Class type) {
+		TypeIterator(Object items[]) {
 			this.items = items;
-			this.type = type;
 		}
 
 		public Object next() {
-			Object result = items[index + 1];
-			index += 2;
-			return result;
+			if (index >= items.length)
+				throw new NoSuchElementException();
+			return items[index++];
 		}
 
 		public boolean hasNext() {
-			if (items == null)
-				return false;
-			while (index < items.length && items[index] != type)
-				index += 2;
 			return index < items.length;
 		}
 
@@ -88,6 +110,26 @@ public final class EventListenerList {
 		}
 	}
 
+	/**
+	 * Returns the listeners of type <i>c</i>, in the order they were added.
+	 * Unlike {@link #getListeners(Class)}, this does not allocate. The returned
+	 * array is shared and must not be modified. Adding or removing listeners
+	 * does not affect an array which has already been returned, so it can be
+	 * iterated while listeners remove themselves.
+	 * 
+	 * @param c
+	 *            the type
+	 * @return the listeners of type <i>c</i>, possibly an empty array
+	 * @since 3.10
+	 */
+	public Object[] getListenerArray(Class c) {
+		Object[] current = buckets;
+		int index = indexOf(current, c);
+		if (index == -1)
+			return NO_LISTENERS;
+		return (Object[]) current[index + 1];
+	}
+
 	/**
 	 * Returns an Iterator of all the listeners of type <i>c</i>.
 	 * 
@@ -95,8 +137,11 @@ public final class EventListenerList {
 	 *            the type
 	 * @return an Iterator of all the listeners of type <i>c</i>
 	 */
-	public synchronized Iterator getListeners(final Class listenerType) {
-		return new TypeIterator(array, listenerType);
+	public Iterator getListeners(final Class listenerType) {
+		Object[] listeners = getListenerArray(listenerType);
+		if (listeners.length == 0)
+			return EMPTY_ITERATOR;
+		return new TypeIterator(listeners);
 	}
 
 	/**
@@ -108,25 +153,38 @@ public final class EventListenerList {
 	 *            the listener
 	 */
 	public synchronized void removeListener(Class c, Object listener) {
-		if (array == null || array.length == 0)
+		Object[] oldBuckets = buckets;
+		if (oldBuckets == null || oldBuckets.length == 0)
 			return;
 		if (listener == null || c == null)
 			throw new IllegalArgumentException();
 
-		int index = 0;
-		while (index < array.length) {
-			if (array[index] == c && array[index + 1] == listener)
-				break;
-			index += 2;
-		}
-		if (index == array.length)
+		int index = indexOf(oldBuckets, c);
+		if (index == -1)
+			return;
+		Object[] oldListeners = (Object[]) oldBuckets[index + 1];
+		int position = 0;
+		while (position < oldListeners.length
+				&& oldListeners[position] != listener)
+			position++;
+		if (position == oldListeners.length)
 			return; // listener was not found
 
-		Object newArray[] = new Object[array.length - 2];
-		System.arraycopy(array, 0, newArray, 0, index);
-		System.arraycopy(array, index + 2, newArray, index, array.length
-				- index - 2);
-		array = newArray;
+		Object[] newBuckets;
+		if (oldListeners.length == 1) {
+			newBuckets = new Object[oldBuckets.length - 2];
+			System.arraycopy(oldBuckets, 0, newBuckets, 0, index);
+			System.arraycopy(oldBuckets, index + 2, newBuckets, index,
+					oldBuckets.length - index - 2);
+		} else {
+			Object[] newListeners = new Object[oldListeners.length - 1];
+			System.arraycopy(oldListeners, 0, newListeners, 0, position);
+			System.arraycopy(oldListeners, position + 1, newListeners,
+					position, oldListeners.length - position - 1);
+			newBuckets = (Object[]) oldBuckets.clone();
+			newBuckets[index + 1] = newListeners;
+		}
+		buckets = newBuckets;
 	}
 
 }
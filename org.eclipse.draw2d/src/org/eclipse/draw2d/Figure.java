@@ -15,8 +15,10 @@ import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.SWTException;
@@ -29,6 +31,7 @@ import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Insets;
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
 import org.eclipse.draw2d.geometry.Translatable;
 
 /**
@@ -36,8 +39,6 @@ import org.eclipse.draw2d.geometry.Translatable;
  */
 public class Figure implements IFigure {
 
-	private static final Rectangle PRIVATE_RECT = new Rectangle();
-	private static final Point PRIVATE_POINT = new Point();
 	private static final int FLAG_VALID = new Integer(1).intValue(),
 			FLAG_OPAQUE = new Integer(1 << 1).intValue(),
 			FLAG_VISIBLE = new Integer(1 << 2).intValue(),
@@ -47,6 +48,24 @@ public class Figure implements IFigure {
 
 	static final int FLAG_REALIZED = 1 << 31;
 
+	/**
+	 * Set while children are added or removed in bulk, to defer revalidation
+	 * and repainting until all of them are done.
+	 */
+	private static final int FLAG_BULK = 1 << 30;
+
+	/**
+	 * Set while children are added in bulk at an index. They are appended
+	 * and moved to the index at once.
+	 */
+	private static final int FLAG_BULK_APPEND = 1 << 29;
+
+	/**
+	 * Set while children are removed in bulk. They are only detached, and
+	 * taken out of the list of children at once.
+	 */
+	private static final int FLAG_BULK_REMOVE = 1 << 28;
+
 	/**
 	 * The largest flag defined in this class. If subclasses define flags, they
 	 * should declare them as larger than this value and redefine MAX_FLAG to be
@@ -148,7 +167,7 @@ public class Figure implements IFigure {
 		if (figure.getParent() != null)
 			figure.getParent().remove(figure);
 
-		if (index == -1)
+		if (index == -1 || getFlag(FLAG_BULK_APPEND))
 			children.add(figure);
 		else
 			children.add(index, figure);
@@ -157,11 +176,70 @@ public class Figure implements IFigure {
 		if (layoutManager != null)
 			layoutManager.setConstraint(figure, constraint);
 
-		revalidate();
+		if (!getFlag(FLAG_BULK))
+			revalidate();
 
 		if (getFlag(FLAG_REALIZED))
 			figure.addNotify();
-		figure.repaint();
+		if (!getFlag(FLAG_BULK))
+			figure.repaint();
+	}
+
+	/**
+	 * Adds the given figures as children of this figure, starting at the given
+	 * index, with the given constraints. Each figure is added by calling
+	 * {@link #add(IFigure, Object, int)}, but this figure is revalidated and
+	 * repainted only once, after all of them have been added.
+	 * 
+	 * @param figures
+	 *            the figures to add
+	 * @param constraints
+	 *            the constraints of the figures, in the same order, or
+	 *            <code>null</code>
+	 * @param index
+	 *            the index of the first figure, or -1 to append them
+	 * @since 3.10
+	 */
+	public void addAll(List figures, List constraints, int index) {
+		if (constraints != null && constraints.size() != figures.size())
+			throw new IllegalArgumentException(
+					"Constraints do not match figures"); //$NON-NLS-1$
+		if (index < -1 || index > children.size())
+			throw new IndexOutOfBoundsException("Index does not exist"); //$NON-NLS-1$
+		if (figures.isEmpty())
+			return;
+		if (children == Collections.EMPTY_LIST)
+			children = new ArrayList(figures.size());
+		else if (children instanceof ArrayList)
+			((ArrayList) children).ensureCapacity(children.size()
+					+ figures.size());
+
+		boolean bulk = getFlag(FLAG_BULK);
+		boolean append = getFlag(FLAG_BULK_APPEND);
+		setFlag(FLAG_BULK, true);
+		setFlag(FLAG_BULK_APPEND, index != -1);
+		int added = 0;
+		try {
+			for (int i = 0; i < figures.size(); i++) {
+				add((IFigure) figures.get(i),
+						constraints == null ? null : constraints.get(i),
+						index == -1 ? -1 : index + i);
+				added++;
+			}
+		} finally {
+			setFlag(FLAG_BULK, bulk);
+			setFlag(FLAG_BULK_APPEND, append);
+			if (index != -1 && added > 0) {
+				// move the appended figures to the index in one pass
+				int start = Math.min(index, children.size() - added);
+				Collections.rotate(children.subList(start, children.size()),
+						added);
+			}
+		}
+		if (!bulk) {
+			revalidate();
+			repaint();
+		}
 	}
 
 	/**
@@ -322,9 +400,12 @@ public class Figure implements IFigure {
 		if (getParent() == null || !isVisible())
 			return;
 
-		Rectangle r = new Rectangle(getBounds());
+		ScratchPool pool = ScratchPool.getCurrent();
+		Rectangle r = pool.getRectangle();
+		r.setBounds(getBounds());
 		getParent().translateToParent(r);
 		getParent().repaint(r.x, r.y, r.width, r.height);
+		pool.release(r);
 	}
 
 	/**
@@ -341,13 +422,21 @@ public class Figure implements IFigure {
 	 * @return The descendant Figure at (x,y)
 	 */
 	protected IFigure findDescendantAtExcluding(int x, int y, TreeSearch search) {
-		PRIVATE_POINT.setLocation(x, y);
-		translateFromParent(PRIVATE_POINT);
-		if (!getClientArea(Rectangle.SINGLETON).contains(PRIVATE_POINT))
-			return null;
+		ScratchPool pool = ScratchPool.getCurrent();
+		Point pt = pool.getPoint();
+		Rectangle clientArea = pool.getRectangle();
+		try {
+			pt.setLocation(x, y);
+			translateFromParent(pt);
+			if (!getClientArea(clientArea).contains(pt))
+				return null;
+			x = pt.x;
+			y = pt.y;
+		} finally {
+			pool.release(clientArea);
+			pool.release(pt);
+		}
 
-		x = PRIVATE_POINT.x;
-		y = PRIVATE_POINT.y;
 		IFigure fig;
 		for (int i = children.size(); i > 0;) {
 			i--;
@@ -440,20 +529,28 @@ public class Figure implements IFigure {
 	 *         true
 	 */
 	protected IFigure findMouseEventTargetInDescendantsAt(int x, int y) {
-		PRIVATE_POINT.setLocation(x, y);
-		translateFromParent(PRIVATE_POINT);
-
-		if (!getClientArea(Rectangle.SINGLETON).contains(PRIVATE_POINT))
-			return null;
+		ScratchPool pool = ScratchPool.getCurrent();
+		Point pt = pool.getPoint();
+		Rectangle clientArea = pool.getRectangle();
+		try {
+			pt.setLocation(x, y);
+			translateFromParent(pt);
+			if (!getClientArea(clientArea).contains(pt))
+				return null;
+			x = pt.x;
+			y = pt.y;
+		} finally {
+			pool.release(clientArea);
+			pool.release(pt);
+		}
 
 		IFigure fig;
 		for (int i = children.size(); i > 0;) {
 			i--;
 			fig = (IFigure) children.get(i);
 			if (fig.isVisible() && fig.isEnabled()) {
-				if (fig.containsPoint(PRIVATE_POINT.x, PRIVATE_POINT.y)) {
-					fig = fig.findMouseEventTargetAt(PRIVATE_POINT.x,
-							PRIVATE_POINT.y);
+				if (fig.containsPoint(x, y)) {
+					fig = fig.findMouseEventTargetAt(x, y);
 					return fig;
 				}
 			}
@@ -469,13 +566,10 @@ public class Figure implements IFigure {
 	 * @since 3.1
 	 */
 	protected void fireCoordinateSystemChanged() {
-		if (!eventListeners.containsListener(CoordinateListener.class))
-			return;
-		Iterator figureListeners = eventListeners
-				.getListeners(CoordinateListener.class);
-		while (figureListeners.hasNext())
-			((CoordinateListener) figureListeners.next())
-					.coordinateSystemChanged(this);
+		Object[] listeners = eventListeners
+				.getListenerArray(CoordinateListener.class);
+		for (int i = 0; i < listeners.length; i++)
+			((CoordinateListener) listeners[i]).coordinateSystemChanged(this);
 	}
 
 	/**
@@ -485,12 +579,10 @@ public class Figure implements IFigure {
 	 * @since 3.1
 	 */
 	protected void fireFigureMoved() {
-		if (!eventListeners.containsListener(FigureListener.class))
-			return;
-		Iterator figureListeners = eventListeners
-				.getListeners(FigureListener.class);
-		while (figureListeners.hasNext())
-			((FigureListener) figureListeners.next()).figureMoved(this);
+		Object[] listeners = eventListeners
+				.getListenerArray(FigureListener.class);
+		for (int i = 0; i < listeners.length; i++)
+			((FigureListener) listeners[i]).figureMoved(this);
 	}
 
 	/**
@@ -840,108 +932,113 @@ public class Figure implements IFigure {
 	 * @see IFigure#handleFocusGained(FocusEvent)
 	 */
 	public void handleFocusGained(FocusEvent event) {
-		Iterator iter = eventListeners.getListeners(FocusListener.class);
-		while (iter.hasNext())
-			((FocusListener) iter.next()).focusGained(event);
+		Object[] listeners = eventListeners.getListenerArray(FocusListener.class);
+		for (int i = 0; i < listeners.length; i++)
+			((FocusListener) listeners[i]).focusGained(event);
 	}
 
 	/**
 	 * @see IFigure#handleFocusLost(FocusEvent)
 	 */
 	public void handleFocusLost(FocusEvent event) {
-		Iterator iter = eventListeners.getListeners(FocusListener.class);
-		while (iter.hasNext())
-			((FocusListener) iter.next()).focusLost(event);
+		Object[] listeners = eventListeners.getListenerArray(FocusListener.class);
+		for (int i = 0; i < listeners.length; i++)
+			((FocusListener) listeners[i]).focusLost(event);
 	}
 
 	/**
 	 * @see IFigure#handleKeyPressed(KeyEvent)
 	 */
 	public void handleKeyPressed(KeyEvent event) {
-		Iterator iter = eventListeners.getListeners(KeyListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((KeyListener) iter.next()).keyPressed(event);
+		Object[] listeners = eventListeners.getListenerArray(KeyListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((KeyListener) listeners[i]).keyPressed(event);
 	}
 
 	/**
 	 * @see IFigure#handleKeyReleased(KeyEvent)
 	 */
 	public void handleKeyReleased(KeyEvent event) {
-		Iterator iter = eventListeners.getListeners(KeyListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((KeyListener) iter.next()).keyReleased(event);
+		Object[] listeners = eventListeners.getListenerArray(KeyListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((KeyListener) listeners[i]).keyReleased(event);
 	}
 
 	/**
 	 * @see IFigure#handleMouseDoubleClicked(MouseEvent)
 	 */
 	public void handleMouseDoubleClicked(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseListener) iter.next()).mouseDoubleClicked(event);
+		Object[] listeners = eventListeners.getListenerArray(MouseListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseListener) listeners[i]).mouseDoubleClicked(event);
 	}
 
 	/**
 	 * @see IFigure#handleMouseDragged(MouseEvent)
 	 */
 	public void handleMouseDragged(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseMotionListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseMotionListener) iter.next()).mouseDragged(event);
+		Object[] listeners = eventListeners
+				.getListenerArray(MouseMotionListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseMotionListener) listeners[i]).mouseDragged(event);
 	}
 
 	/**
 	 * @see IFigure#handleMouseEntered(MouseEvent)
 	 */
 	public void handleMouseEntered(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseMotionListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseMotionListener) iter.next()).mouseEntered(event);
+		Object[] listeners = eventListeners
+				.getListenerArray(MouseMotionListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseMotionListener) listeners[i]).mouseEntered(event);
 	}
 
 	/**
 	 * @see IFigure#handleMouseExited(MouseEvent)
 	 */
 	public void handleMouseExited(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseMotionListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseMotionListener) iter.next()).mouseExited(event);
+		Object[] listeners = eventListeners
+				.getListenerArray(MouseMotionListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseMotionListener) listeners[i]).mouseExited(event);
 	}
 
 	/**
 	 * @see IFigure#handleMouseHover(MouseEvent)
 	 */
 	public void handleMouseHover(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseMotionListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseMotionListener) iter.next()).mouseHover(event);
+		Object[] listeners = eventListeners
+				.getListenerArray(MouseMotionListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseMotionListener) listeners[i]).mouseHover(event);
 	}
 
 	/**
 	 * @see IFigure#handleMouseMoved(MouseEvent)
 	 */
 	public void handleMouseMoved(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseMotionListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseMotionListener) iter.next()).mouseMoved(event);
+		Object[] listeners = eventListeners
+				.getListenerArray(MouseMotionListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseMotionListener) listeners[i]).mouseMoved(event);
 	}
 
 	/**
 	 * @see IFigure#handleMousePressed(MouseEvent)
 	 */
 	public void handleMousePressed(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseListener) iter.next()).mousePressed(event);
+		Object[] listeners = eventListeners.getListenerArray(MouseListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseListener) listeners[i]).mousePressed(event);
 	}
 
 	/**
 	 * @see IFigure#handleMouseReleased(MouseEvent)
 	 */
 	public void handleMouseReleased(MouseEvent event) {
-		Iterator iter = eventListeners.getListeners(MouseListener.class);
-		while (!event.isConsumed() && iter.hasNext())
-			((MouseListener) iter.next()).mouseReleased(event);
+		Object[] listeners = eventListeners.getListenerArray(MouseListener.class);
+		for (int i = 0; i < listeners.length && !event.isConsumed(); i++)
+			((MouseListener) listeners[i]).mouseReleased(event);
 	}
 
 	/**
@@ -1148,27 +1245,64 @@ public class Figure implements IFigure {
 	 * @since 2.0
 	 */
 	protected void paintChildren(Graphics graphics) {
-		for (int i = 0; i < children.size(); i++) {
-			IFigure child = (IFigure) children.get(i);
-			if (child.isVisible()) {
-				// determine clipping areas for child
-				Rectangle[] clipping = null;
-				if (clippingStrategy != null) {
-					clipping = clippingStrategy.getClip(child);
-				} else {
+		paintChildren(graphics, children);
+	}
+
+	/**
+	 * Paints the given children, which must be children of this Figure in
+	 * z-order, clipping each of them as {@link #paintChildren(Graphics)} does.
+	 * Subclasses which paint only some of their children may call this method
+	 * with a subset of their children.
+	 * 
+	 * @param graphics
+	 *            the graphics used to paint
+	 * @param children
+	 *            the children to paint
+	 * @since 3.10
+	 */
+	protected void paintChildren(Graphics graphics, List children) {
+		ScratchPool pool = ScratchPool.getCurrent();
+		// the clip is restored after each child is painted
+		Rectangle clip = graphics.getClip(pool.getRectangle());
+		try {
+			for (int i = 0; i < children.size(); i++) {
+				IFigure child = (IFigure) children.get(i);
+				if (!child.isVisible())
+					continue;
+				if (clippingStrategy == null) {
 					// default clipping behaviour is to clip at bounds
-					clipping = new Rectangle[] { child.getBounds() };
+					Rectangle bounds = child.getBounds();
+					if (bounds.intersects(clip.x, clip.y, clip.width,
+							clip.height)) {
+						graphics.clipRect(bounds);
+						child.paint(graphics);
+						graphics.restoreState();
+					}
+					continue;
 				}
 				// child may now paint inside the clipping areas
+				Rectangle[] clipping = clippingStrategy.getClip(child);
 				for (int j = 0; j < clipping.length; j++) {
-					if (clipping[j].intersects(graphics
-							.getClip(Rectangle.SINGLETON))) {
+					if (clipping[j].intersects(clip.x, clip.y, clip.width,
+							clip.height)) {
 						graphics.clipRect(clipping[j]);
 						child.paint(graphics);
 						graphics.restoreState();
 					}
 				}
 			}
+		} finally {
+			pool.release(clip);
+		}
+	}
+
+	private void clipToClientArea(Graphics graphics) {
+		ScratchPool pool = ScratchPool.getCurrent();
+		Rectangle clientArea = pool.getRectangle();
+		try {
+			graphics.clipRect(getClientArea(clientArea));
+		} finally {
+			pool.release(clientArea);
 		}
 	}
 
@@ -1192,7 +1326,7 @@ public class Figure implements IFigure {
 			graphics.translate(getBounds().x + getInsets().left, getBounds().y
 					+ getInsets().top);
 			if (!optimizeClip)
-				graphics.clipRect(getClientArea(PRIVATE_RECT));
+				clipToClientArea(graphics);
 			graphics.pushState();
 			paintChildren(graphics);
 			graphics.popState();
@@ -1201,7 +1335,7 @@ public class Figure implements IFigure {
 			if (optimizeClip)
 				paintChildren(graphics);
 			else {
-				graphics.clipRect(getClientArea(PRIVATE_RECT));
+				clipToClientArea(graphics);
 				graphics.pushState();
 				paintChildren(graphics);
 				graphics.popState();
@@ -1266,6 +1400,16 @@ public class Figure implements IFigure {
 			figure.removeNotify();
 		if (layoutManager != null)
 			layoutManager.remove(figure);
+		if (getFlag(FLAG_BULK_REMOVE)) {
+			// removeAll(Collection) takes the child out of the list
+			figure.setParent(null);
+			return;
+		}
+		if (getFlag(FLAG_BULK)) {
+			figure.setParent(null);
+			children.remove(figure);
+			return;
+		}
 		// The updates in the UpdateManager *have* to be
 		// done asynchronously, else will result in
 		// incorrect dirty region corrections.
@@ -1275,6 +1419,59 @@ public class Figure implements IFigure {
 		revalidate();
 	}
 
+	/**
+	 * Removes the given children from this figure. Each child is removed by
+	 * calling {@link #remove(IFigure)}, starting with the last one, but this
+	 * figure is revalidated and repainted only once, after all of them have
+	 * been removed. The list of children is updated in one pass at the end, so
+	 * it still holds the removed children while they are being removed.
+	 * 
+	 * @param figures
+	 *            the children to remove
+	 * @throws IllegalArgumentException
+	 *             if one of the figures is not a child of this figure
+	 * @since 3.10
+	 */
+	public void removeAll(Collection figures) {
+		Set removed = new HashSet(figures.size());
+		for (Iterator iter = figures.iterator(); iter.hasNext();) {
+			IFigure figure = (IFigure) iter.next();
+			if (figure.getParent() != this)
+				throw new IllegalArgumentException("Figure is not a child"); //$NON-NLS-1$
+			removed.add(figure);
+		}
+		if (removed.isEmpty())
+			return;
+
+		repaint();
+		boolean bulk = getFlag(FLAG_BULK);
+		boolean bulkRemove = getFlag(FLAG_BULK_REMOVE);
+		setFlag(FLAG_BULK, true);
+		setFlag(FLAG_BULK_REMOVE, true);
+		try {
+			for (int i = children.size() - 1; i >= 0; i--) {
+				IFigure child = (IFigure) children.get(i);
+				if (removed.contains(child))
+					remove(child);
+			}
+		} finally {
+			setFlag(FLAG_BULK, bulk);
+			setFlag(FLAG_BULK_REMOVE, bulkRemove);
+			if (!bulkRemove) {
+				// keep the children which are still attached, in one pass
+				int size = 0;
+				for (int i = 0; i < children.size(); i++) {
+					IFigure child = (IFigure) children.get(i);
+					if (child.getParent() == this)
+						children.set(size++, child);
+				}
+				children.subList(size, children.size()).clear();
+			}
+		}
+		if (!bulk)
+			revalidate();
+	}
+
 	/**
 	 * Removes all children from this Figure.
 	 * 
@@ -1288,6 +1485,35 @@ public class Figure implements IFigure {
 		}
 	}
 
+	/**
+	 * Changes the order of the children of this figure, which is also their
+	 * z-order, to the order of the given list. The list must contain exactly
+	 * the children of this figure. This figure is revalidated and repainted
+	 * once.
+	 * 
+	 * @param order
+	 *            the children of this figure, in their new order
+	 * @throws IllegalArgumentException
+	 *             if the list does not contain exactly the children of this
+	 *             figure
+	 * @since 3.10
+	 */
+	public void reorderChildren(List order) {
+		if (order.size() != children.size())
+			throw new IllegalArgumentException("Figures are not the children"); //$NON-NLS-1$
+		Set seen = new HashSet(order.size());
+		for (int i = 0; i < order.size(); i++) {
+			IFigure figure = (IFigure) order.get(i);
+			if (figure.getParent() != this || !seen.add(figure))
+				throw new IllegalArgumentException(
+						"Figures are not the children"); //$NON-NLS-1$
+		}
+		for (int i = 0; i < order.size(); i++)
+			children.set(i, order.get(i));
+		revalidate();
+		repaint();
+	}
+
 	/**
 	 * @see IFigure#removeAncestorListener(AncestorListener)
 	 */
@@ -26,6 +26,7 @@ class FreeformHelper implements FreeformListener {
 	private FreeformFigure host;
 	private Rectangle freeformExtent;
 	private FigureListener figureListener = new ChildTracker();
+	private boolean deferInvalidation, invalid;
 
 	FreeformHelper(FreeformFigure host) {
 		this.host = host;
@@ -68,8 +69,24 @@ class FreeformHelper implements FreeformListener {
 			child.addFigureListener(figureListener);
 	}
 
+	/**
+	 * Defers invalidating the host while children are added or removed in
+	 * bulk. The host is invalidated once when deferring stops.
+	 */
+	void setDeferInvalidation(boolean defer) {
+		deferInvalidation = defer;
+		if (!defer && invalid) {
+			invalid = false;
+			invalidate();
+		}
+	}
+
 	void invalidate() {
 		freeformExtent = null;
+		if (deferInvalidation) {
+			invalid = true;
+			return;
+		}
 		host.fireExtentChanged();
 		if (host.getParent() != null)
 			host.getParent().revalidate();
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.eclipse.draw2d;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.draw2d.geometry.Rectangle;
 
@@ -36,6 +38,21 @@ public class FreeformLayeredPane extends LayeredPane implements FreeformFigure {
 		helper.hookChild(child);
 	}
 
+	/**
+	 * Overridden to update the freeform extent once.
+	 * 
+	 * @see Figure#addAll(List, List, int)
+	 * @since 3.10
+	 */
+	public void addAll(List figures, List constraints, int index) {
+		helper.setDeferInvalidation(true);
+		try {
+			super.addAll(figures, constraints, index);
+		} finally {
+			helper.setDeferInvalidation(false);
+		}
+	}
+
 	/**
 	 * @see FreeformFigure#addFreeformListener(FreeformListener)
 	 */
@@ -92,6 +109,21 @@ public class FreeformLayeredPane extends LayeredPane implements FreeformFigure {
 		super.remove(child);
 	}
 
+	/**
+	 * Overridden to update the freeform extent once.
+	 * 
+	 * @see Figure#removeAll(Collection)
+	 * @since 3.10
+	 */
+	public void removeAll(Collection figures) {
+		helper.setDeferInvalidation(true);
+		try {
+			super.removeAll(figures);
+		} finally {
+			helper.setDeferInvalidation(false);
+		}
+	}
+
 	/**
 	 * @see FreeformFigure#removeFreeformListener(FreeformListener)
 	 */
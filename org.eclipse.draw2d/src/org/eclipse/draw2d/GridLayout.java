@@ -12,8 +12,10 @@
 package org.eclipse.draw2d;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.swt.SWT;
 
@@ -64,6 +66,12 @@ import org.eclipse.draw2d.geometry.Rectangle;
  * <code>GridLayout</code>. Widgets are laid out in columns from left to right,
  * and a new row is created when <code>numColumns</code>+ 1 figures are added to
  * the <code>Figure<code> parent container.
+ * <p>
+ * The sizes of the children are measured once and cached in their
+ * <code>GridData</code>. A cached size is only discarded when the child is
+ * invalidated, so that a change to one child does not re-measure all the
+ * others. Likewise, the arrangement of the children into cells is kept until
+ * the children or their spans change.
  * 
  * @see GridData
  * 
@@ -120,6 +128,39 @@ public class GridLayout extends AbstractHintLayout {
 	/** The layout contraints */
 	protected Map constraints = new HashMap();
 
+	/**
+	 * The children whose invalidation is tracked by {@link #childListener}.
+	 */
+	private final Set hookedChildren = new HashSet();
+
+	/**
+	 * The child whose bounds are being set by this layout. Its invalidation
+	 * does not affect its measured size.
+	 */
+	private IFigure boundsChild;
+
+	/**
+	 * Discards the measured size of a child when it is invalidated.
+	 */
+	private final LayoutListener childListener = new LayoutListener.Stub() {
+		public void invalidate(IFigure child) {
+			if (child == boundsChild)
+				return;
+			GridData data = (GridData) getConstraint(child);
+			if (data != null)
+				data.flushCache();
+		}
+	};
+
+	/**
+	 * The arrangement of the children into cells computed by the last layout,
+	 * with the children and spans it was computed for.
+	 */
+	private IFigure[][] grid;
+	private int gridRowCount, gridColumnCount;
+	private IFigure[] gridChildren;
+	private int[] gridSpans;
+
 	/**
 	 * Default Constructor
 	 */
@@ -200,7 +241,7 @@ public class GridLayout extends AbstractHintLayout {
 			hHint -= borderHeight;
 
 		Dimension size = layout(container, false, 0, 0, wHint, hHint, /* flushCache */
-				true);
+				false);
 		if (wHint != SWT.DEFAULT)
 			size.width = wHint;
 		if (hHint != SWT.DEFAULT)
@@ -225,32 +266,24 @@ public class GridLayout extends AbstractHintLayout {
 		// initChildren( container);
 		Rectangle rect = container.getClientArea();
 		layout(container, true, rect.x, rect.y, rect.width, rect.height, /* flushCache */
-				true);
+				false);
 
 	}
 
-	Dimension layout(IFigure container, boolean move, int x, int y, int width,
-			int height, boolean flushCache) {
-		if (numColumns < 1)
-			return new Dimension(marginWidth * 2, marginHeight * 2);
-		List children = container.getChildren();
-		for (int i = 0; i < children.size(); i++) {
-			IFigure child = (IFigure) children.get(i);
-
-			GridData data = (GridData) getConstraint(child);
-			if (data == null)
-				setConstraint(child, data = new GridData());
-			if (flushCache)
-				data.flushCache();
-			data.computeSize(child, flushCache);
-		}
-
-		/* Build the grid */
+	/**
+	 * Arranges the children into cells, according to their spans.
+	 */
+	private void buildGrid(List children) {
 		int row = 0, column = 0, rowCount = 0, columnCount = numColumns;
 		IFigure[][] grid = new IFigure[4][columnCount];
+		gridChildren = new IFigure[children.size()];
+		gridSpans = new int[children.size() * 2];
 		for (int i = 0; i < children.size(); i++) {
 			IFigure child = (IFigure) children.get(i);
 			GridData data = (GridData) getConstraint(child);
+			gridChildren[i] = child;
+			gridSpans[2 * i] = data.horizontalSpan;
+			gridSpans[2 * i + 1] = data.verticalSpan;
 			int hSpan = Math.max(1, Math.min(data.horizontalSpan, columnCount));
 			int vSpan = Math.max(1, data.verticalSpan);
 			while (true) {
@@ -292,6 +325,55 @@ public class GridLayout extends AbstractHintLayout {
 			rowCount = Math.max(rowCount, row + vSpan);
 			column += hSpan;
 		}
+		this.grid = grid;
+		gridRowCount = rowCount;
+		gridColumnCount = columnCount;
+	}
+
+	/**
+	 * Returns whether the cells computed by the last layout are still valid
+	 * for the given children.
+	 */
+	private boolean isGridValid(List children) {
+		if (grid == null || gridColumnCount != numColumns
+				|| gridChildren.length != children.size())
+			return false;
+		for (int i = 0; i < gridChildren.length; i++) {
+			if (gridChildren[i] != children.get(i))
+				return false;
+			GridData data = (GridData) getConstraint(gridChildren[i]);
+			if (gridSpans[2 * i] != data.horizontalSpan
+					|| gridSpans[2 * i + 1] != data.verticalSpan)
+				return false;
+		}
+		return true;
+	}
+
+	Dimension layout(IFigure container, boolean move, int x, int y, int width,
+			int height, boolean flushCache) {
+		if (numColumns < 1)
+			return new Dimension(marginWidth * 2, marginHeight * 2);
+		List children = container.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			IFigure child = (IFigure) children.get(i);
+
+			GridData data = (GridData) getConstraint(child);
+			if (data == null)
+				setConstraint(child, data = new GridData());
+			if (hookedChildren.add(child)) {
+				child.addLayoutListener(childListener);
+				data.flushCache();
+			}
+			// the sizes cached by hint remain valid until the child is
+			// invalidated, but the hints might have changed
+			data.cacheWidth = data.cacheHeight = SWT.DEFAULT;
+			data.computeSize(child, flushCache);
+		}
+
+		if (!isGridValid(children))
+			buildGrid(children);
+		IFigure[][] grid = this.grid;
+		int rowCount = gridRowCount, columnCount = gridColumnCount;
 
 		/* Column widths */
 		int availableWidth = width - horizontalSpacing * (columnCount - 1)
@@ -756,8 +838,10 @@ public class GridLayout extends AbstractHintLayout {
 						if (child != null) {
 							// following param could be replaced by
 							// Rectangle.SINGLETON
+							boundsChild = child;
 							child.setBounds(new Rectangle(childX, childY,
 									childWidth, childHeight));
+							boundsChild = null;
 						}
 					}
 					gridX += widths[j] + horizontalSpacing;
@@ -797,6 +881,17 @@ public class GridLayout extends AbstractHintLayout {
 		return constraints.get(child);
 	}
 
+	/**
+	 * Stops tracking the invalidation of the removed child.
+	 * 
+	 * @see LayoutManager#remove(IFigure)
+	 */
+	public void remove(IFigure child) {
+		if (hookedChildren.remove(child))
+			child.removeLayoutListener(childListener);
+		super.remove(child);
+	}
+
 	/**
 	 * Sets the layout constraint of the given figure. The constraints can only
 	 * be of type {@link GridData}.
@@ -10,7 +10,10 @@
  *******************************************************************************/
 package org.eclipse.draw2d;
 
+import java.util.List;
+
 import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.ScratchPool;
 
 /**
  * A transparent figure intended to be added exclusively to a
@@ -18,6 +21,18 @@ import org.eclipse.draw2d.geometry.Point;
  */
 public class Layer extends Figure {
 
+	private LayerCache cache;
+	private List paintedChildren;
+
+	/**
+	 * @see IFigure#addNotify()
+	 */
+	public void addNotify() {
+		super.addNotify();
+		if (cache != null)
+			cache.hook(getUpdateManager());
+	}
+
 	/**
 	 * Overridden to implement transparent behavior.
 	 * 
@@ -27,11 +42,13 @@ public class Layer extends Figure {
 	public boolean containsPoint(int x, int y) {
 		if (isOpaque())
 			return super.containsPoint(x, y);
-		Point pt = Point.SINGLETON;
+		ScratchPool pool = ScratchPool.getCurrent();
+		Point pt = pool.getPoint();
 		pt.setLocation(x, y);
 		translateFromParent(pt);
 		x = pt.x;
 		y = pt.y;
+		pool.release(pt);
 		for (int i = 0; i < getChildren().size(); i++) {
 			IFigure child = (IFigure) getChildren().get(i);
 			if (child.containsPoint(x, y))
@@ -57,4 +74,93 @@ public class Layer extends Figure {
 		return f;
 	}
 
+	LayerCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Discards the cached rendering of this layer, so that it is fully
+	 * repainted the next time it is painted. Has no effect if caching is not
+	 * enabled.
+	 * 
+	 * @see #setCachingEnabled(boolean)
+	 * @since 3.10
+	 */
+	public void invalidateCache() {
+		if (cache != null)
+			cache.invalidate();
+	}
+
+	/**
+	 * Returns <code>true</code> if this layer retains its rendering in an
+	 * offscreen image.
+	 * 
+	 * @return <code>true</code> if caching is enabled
+	 * @see #setCachingEnabled(boolean)
+	 * @since 3.10
+	 */
+	public boolean isCachingEnabled() {
+		return cache != null;
+	}
+
+	/**
+	 * Overridden to paint only a subset of the children while a page is
+	 * painted by {@link PageBuckets}.
+	 * 
+	 * @see Figure#paintChildren(Graphics)
+	 */
+	protected void paintChildren(Graphics graphics) {
+		if (paintedChildren == null)
+			super.paintChildren(graphics);
+		else
+			paintChildren(graphics, paintedChildren);
+	}
+
+	/**
+	 * @see IFigure#removeNotify()
+	 */
+	public void removeNotify() {
+		if (cache != null)
+			cache.unhook();
+		super.removeNotify();
+	}
+
+	/**
+	 * Enables or disables retained-mode painting of this layer. When enabled,
+	 * the {@link LayeredPane} containing this layer renders this layer and all
+	 * layers beneath it into an offscreen image per zoom level, and paints
+	 * from that image as long as none of those layers reported a dirty
+	 * region. Layers above this one are still painted normally, so that for
+	 * example feedback can be updated without repainting a complex diagram.
+	 * <P>
+	 * Since the cached image is opaque, it is filled with the layered pane's
+	 * background color. Caching has no effect on layers which are not
+	 * contained in a <code>LayeredPane</code>.
+	 * 
+	 * @param value
+	 *            <code>true</code> to enable caching
+	 * @since 3.10
+	 */
+	public void setCachingEnabled(boolean value) {
+		if (isCachingEnabled() == value)
+			return;
+		if (value) {
+			cache = new LayerCache(this);
+			if (getParent() != null)
+				cache.hook(getUpdateManager());
+		} else {
+			cache.unhook();
+			cache = null;
+		}
+		repaint();
+	}
+
+	/**
+	 * Restricts painting to the given children, or restores painting of all
+	 * children if <code>null</code>.
+	 */
+	void setPaintedChildren(List children) {
+		paintedChildren = children;
+	}
+
 }
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
+
+/**
+ * Retains the rendering of a cached {@link Layer}, together with all layers
+ * beneath it in its {@link LayeredPane}, in an offscreen image. One image is
+ * kept per zoom level, covering the visible part of the layered pane. The
+ * cache listens to the update manager and only re-renders regions which were
+ * reported dirty by figures inside the cached layers.
+ */
+class LayerCache implements UpdateListener {
+
+	private static class Entry {
+		double scale;
+		Image image;
+		int width;
+		int height;
+		Rectangle area;
+		Rectangle dirty;
+	}
+
+	private static final int MAX_ZOOM_LEVELS = 2;
+
+	private final Layer layer;
+	private final List entries = new ArrayList(MAX_ZOOM_LEVELS);
+	private UpdateManager manager;
+	/**
+	 * Set when the update manager is about to repair damage. The cache is
+	 * only used for that paint, so that printing and exporting paint the
+	 * layers directly.
+	 */
+	private boolean armed;
+
+	private final Runnable disarm = new Runnable() {
+		public void run() {
+			armed = false;
+		}
+	};
+
+	LayerCache(Layer layer) {
+		this.layer = layer;
+	}
+
+	/**
+	 * Starts tracking dirty regions reported to the given update manager.
+	 */
+	void hook(UpdateManager manager) {
+		unhook();
+		this.manager = manager;
+		manager.addUpdateListener(this);
+	}
+
+	/**
+	 * Stops tracking dirty regions and disposes all cached images.
+	 */
+	void unhook() {
+		if (manager != null)
+			manager.removeUpdateListener(this);
+		manager = null;
+		dispose();
+	}
+
+	void dispose() {
+		for (int i = 0; i < entries.size(); i++)
+			((Entry) entries.get(i)).image.dispose();
+		entries.clear();
+	}
+
+	void invalidate() {
+		for (int i = 0; i < entries.size(); i++) {
+			Entry entry = (Entry) entries.get(i);
+			entry.dirty.setBounds(entry.area);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given dirty figure belongs to the
+	 * cached layer or one of the layers beneath it.
+	 */
+	private boolean affects(LayeredPane pane, IFigure figure, int top) {
+		if (figure == pane)
+			return true;
+		while (figure != null && figure.getParent() != pane)
+			figure = figure.getParent();
+		return figure != null && pane.getChildren().indexOf(figure) <= top;
+	}
+
+	/**
+	 * @see UpdateListener#notifyPainting(Rectangle, Map)
+	 */
+	public void notifyPainting(Rectangle damage, Map dirtyRegions) {
+		armed = true;
+		// disarm when the repair has ended, whether or not it painted the pane
+		manager.runWithUpdate(disarm);
+		if (entries.isEmpty() || !(layer.getParent() instanceof LayeredPane))
+			return;
+		LayeredPane pane = (LayeredPane) layer.getParent();
+		int top = pane.getChildren().indexOf(layer);
+		Iterator iter = dirtyRegions.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry region = (Map.Entry) iter.next();
+			Rectangle rect = (Rectangle) region.getValue();
+			if (rect.isEmpty() || !affects(pane, (IFigure) region.getKey(), top))
+				continue;
+			// dirty regions have been translated to absolute coordinates
+			rect = rect.getCopy();
+			pane.translateToRelative(rect);
+			rect.expand(1, 1);
+			for (int i = 0; i < entries.size(); i++) {
+				Entry entry = (Entry) entries.get(i);
+				if (entry.dirty.isEmpty())
+					entry.dirty.setBounds(rect);
+				else
+					entry.dirty.union(rect);
+			}
+		}
+	}
+
+	/**
+	 * @see UpdateListener#notifyValidating()
+	 */
+	public void notifyValidating() {
+		armed = false;
+	}
+
+	/**
+	 * Stores the visible part of the given pane, in the coordinates of its
+	 * children, in the given rectangle and returns it.
+	 */
+	private Rectangle getVisibleArea(LayeredPane pane, Rectangle area) {
+		pane.getClientArea(area);
+		IFigure viewport = pane.getParent();
+		while (viewport != null && !(viewport instanceof Viewport))
+			viewport = viewport.getParent();
+		if (viewport != null && viewport.getParent() != null) {
+			ScratchPool pool = ScratchPool.getCurrent();
+			Rectangle visible = pool.getRectangle();
+			visible.setBounds(viewport.getBounds()).crop(viewport.getInsets());
+			viewport.getParent().translateToAbsolute(visible);
+			pane.translateToRelative(visible);
+			// allow for rounding of scaled clip regions
+			visible.expand(1, 1);
+			area.intersect(visible);
+			pool.release(visible);
+		}
+		return area;
+	}
+
+	private Entry getEntry(double scale, Rectangle area) {
+		Entry entry = null;
+		for (int i = 0; i < entries.size(); i++) {
+			Entry candidate = (Entry) entries.get(i);
+			if (candidate.scale == scale) {
+				entry = candidate;
+				entries.remove(i);
+				break;
+			}
+		}
+		int width = (int) Math.ceil(area.width * scale);
+		int height = (int) Math.ceil(area.height * scale);
+		if (entry != null && (entry.width != width || entry.height != height)) {
+			entry.image.dispose();
+			entry = null;
+		}
+		if (entry == null) {
+			entry = new Entry();
+			entry.scale = scale;
+			entry.width = width;
+			entry.height = height;
+			entry.image = new Image(Display.getCurrent(), width, height);
+			entry.area = area.getCopy();
+			entry.dirty = area.getCopy();
+		} else if (!entry.area.equals(area))
+			scroll(entry, area);
+		entries.add(0, entry);
+		while (entries.size() > MAX_ZOOM_LEVELS)
+			((Entry) entries.remove(entries.size() - 1)).image.dispose();
+		return entry;
+	}
+
+	/**
+	 * Moves the still visible part of the cached image to its new location
+	 * and marks the newly exposed area as dirty.
+	 */
+	private void scroll(Entry entry, Rectangle area) {
+		double dx = (entry.area.x - area.x) * entry.scale;
+		double dy = (entry.area.y - area.y) * entry.scale;
+		Rectangle old = entry.area;
+		entry.area = area.getCopy();
+		if (dx != Math.floor(dx) || dy != Math.floor(dy)
+				|| !old.intersects(area)) {
+			entry.dirty.setBounds(area);
+			return;
+		}
+		GC gc = new GC(entry.image);
+		gc.copyArea(0, 0, entry.width, entry.height, (int) dx, (int) dy);
+		gc.dispose();
+
+		Rectangle exposed = area.getCopy();
+		if (old.x != area.x) {
+			exposed.width = Math.abs(old.x - area.x);
+			if (area.x > old.x)
+				exposed.x = old.right();
+		} else {
+			exposed.height = Math.abs(old.y - area.y);
+			if (area.y > old.y)
+				exposed.y = old.bottom();
+		}
+		if (old.x != area.x && old.y != area.y) {
+			Rectangle strip = area.getCopy();
+			strip.height = Math.abs(old.y - area.y);
+			if (area.y > old.y)
+				strip.y = old.bottom();
+			exposed.union(strip);
+		}
+		if (entry.dirty.isEmpty())
+			entry.dirty.setBounds(exposed);
+		else
+			entry.dirty.union(exposed);
+		entry.dirty.intersect(area);
+	}
+
+	/**
+	 * Paints the given pane's layers up to and including <code>top</code>
+	 * from the cache, re-rendering any dirty part first. Returns
+	 * <code>false</code> if the cache cannot be used for the given graphics,
+	 * in which case nothing has been painted.
+	 */
+	boolean paint(Graphics graphics, LayeredPane pane, int top) {
+		if (!armed || manager == null || Display.getCurrent() == null)
+			return false;
+		armed = false;
+		ScratchPool pool = ScratchPool.getCurrent();
+		Rectangle area = getVisibleArea(pane, pool.getRectangle());
+		Rectangle clip = graphics.getClip(pool.getRectangle());
+		try {
+			if (area.isEmpty() || !area.contains(clip))
+				return false;
+
+			double scale = graphics.getAbsoluteScale();
+			Entry entry = getEntry(scale, area);
+			entry.dirty.intersect(entry.area);
+			if (!entry.dirty.isEmpty()) {
+				render(entry, pane, top);
+				entry.dirty.setSize(0, 0);
+			}
+			graphics.drawImage(entry.image, 0, 0, entry.width, entry.height,
+					area.x, area.y, area.width, area.height);
+			return true;
+		} finally {
+			pool.release(clip);
+			pool.release(area);
+		}
+	}
+
+	private void render(Entry entry, LayeredPane pane, int top) {
+		GC gc = new GC(entry.image);
+		SWTGraphics swtGraphics = new SWTGraphics(gc);
+		Graphics graphics = swtGraphics;
+		ScaledGraphics scaledGraphics = null;
+		if (entry.scale != 1.0) {
+			scaledGraphics = new ScaledGraphics(swtGraphics);
+			scaledGraphics.scale(entry.scale);
+			graphics = scaledGraphics;
+		}
+		try {
+			graphics.translate(-entry.area.x, -entry.area.y);
+			graphics.clipRect(entry.dirty);
+			graphics.setBackgroundColor(pane.getBackgroundColor());
+			graphics.setForegroundColor(pane.getForegroundColor());
+			graphics.setFont(pane.getFont());
+			graphics.fillRectangle(entry.dirty);
+			graphics.pushState();
+			pane.paintLayers(graphics, 0, top);
+			graphics.popState();
+		} finally {
+			if (scaledGraphics != null)
+				scaledGraphics.dispose();
+			swtGraphics.dispose();
+			gc.dispose();
+		}
+	}
+
+}
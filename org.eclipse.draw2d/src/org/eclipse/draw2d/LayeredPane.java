@@ -98,6 +98,21 @@ public class LayeredPane extends Layer {
 		return (Layer) getChildren().get(index);
 	}
 
+	/**
+	 * Overridden to keep the keys of the layers in the same order as the
+	 * layers.
+	 * 
+	 * @see Figure#reorderChildren(List)
+	 * @since 3.10
+	 */
+	public void reorderChildren(List order) {
+		List layers = new ArrayList(getChildren());
+		super.reorderChildren(order);
+		List keys = new ArrayList(layerKeys);
+		for (int i = 0; i < order.size(); i++)
+			layerKeys.set(i, keys.get(layers.indexOf(order.get(i))));
+	}
+
 	/**
 	 * Returns the layer at the specified index in this pane.
 	 * 
@@ -157,4 +172,45 @@ public class LayeredPane extends Layer {
 		remove(removeLayer);
 	}
 
+	/**
+	 * Returns the index of the topmost visible layer which has caching
+	 * enabled, or -1 if there is none.
+	 */
+	private int getCachedLayerIndex() {
+		List children = getChildren();
+		for (int i = children.size() - 1; i >= 0; i--) {
+			IFigure child = (IFigure) children.get(i);
+			if (child.isVisible() && child instanceof Layer
+					&& ((Layer) child).isCachingEnabled())
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Overridden to paint cached layers, and all layers beneath them, from
+	 * their offscreen image.
+	 * 
+	 * @see Layer#setCachingEnabled(boolean)
+	 * @see Figure#paintChildren(Graphics)
+	 */
+	protected void paintChildren(Graphics graphics) {
+		int cached = getCachedLayerIndex();
+		if (cached == -1
+				|| !((Layer) getChildren().get(cached)).getCache().paint(
+						graphics, this, cached)) {
+			super.paintChildren(graphics);
+			return;
+		}
+		paintLayers(graphics, cached + 1, getChildren().size() - 1);
+	}
+
+	/**
+	 * Paints the layers between the given indices, inclusive. The graphics
+	 * must be prepared as for {@link #paintChildren(Graphics)}.
+	 */
+	void paintLayers(Graphics graphics, int from, int to) {
+		paintChildren(graphics, getChildren().subList(from, to + 1));
+	}
+
 }
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * The inputs of a layout, captured by a {@link SnapshotLayout} on the UI
+ * thread. A snapshot holds copies of everything the layout needs, such as the
+ * client area of the container and the preferred sizes of its children, so
+ * that the bounds of the children can be computed on another thread.
+ * <P>
+ * {@link #computeBounds()} must only use the values captured in the snapshot.
+ * It must not call any method of a figure.
+ *
+ * @see AsyncLayout
+ * @since 3.10
+ */
+public abstract class LayoutSnapshot {
+
+	private final IFigure[] children;
+	private Rectangle[] bounds;
+
+	/**
+	 * Creates a snapshot of the given container's children. Subclasses should
+	 * capture their other inputs in their constructor.
+	 *
+	 * @param container
+	 *            the container being laid out
+	 */
+	protected LayoutSnapshot(IFigure container) {
+		children = (IFigure[]) container.getChildren().toArray(
+				new IFigure[container.getChildren().size()]);
+	}
+
+	/**
+	 * Applies the computed bounds to the children of the given container.
+	 * Children which have been removed from the container in the meantime are
+	 * ignored. Must be called on the UI thread, after {@link #compute()}.
+	 *
+	 * @param container
+	 *            the container being laid out
+	 */
+	public void apply(IFigure container) {
+		for (int i = 0; i < children.length; i++)
+			if (bounds[i] != null && children[i].getParent() == container)
+				children[i].setBounds(bounds[i]);
+	}
+
+	/**
+	 * Computes the bounds of the children. May be called on any thread.
+	 */
+	public final void compute() {
+		bounds = computeBounds();
+	}
+
+	/**
+	 * Computes the new bounds of the children from the values in this
+	 * snapshot. This method may be called on any thread, and must not access
+	 * any figure.
+	 *
+	 * @return the bounds of the children, in the order of
+	 *         {@link #getChildCount() their indices}. A <code>null</code>
+	 *         element leaves the child unchanged.
+	 */
+	protected abstract Rectangle[] computeBounds();
+
+	/**
+	 * Returns the number of children captured by this snapshot.
+	 *
+	 * @return the number of children
+	 */
+	protected final int getChildCount() {
+		return children.length;
+	}
+
+}
@@ -0,0 +1,961 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Routes connections with horizontal and vertical segments around the
+ * children of a given container figure.
+ * <P>
+ * Each connection is routed on its own, with an A* search over a sparse
+ * orthogonal visibility graph. The graph is built from the sides of the
+ * obstacles in a corridor around the connection's end points, which is widened
+ * when no route is found. Every bend adds a {@link #setBendPenalty(int)
+ * penalty} to the length of a route, so routes with fewer bends are preferred
+ * to slightly shorter ones. The obstacles and the corridors of the routed
+ * connections are kept in spatial indexes, so when a child of the container is
+ * added, moved or removed, only the connections whose corridor it touches are
+ * routed again.
+ * <P>
+ * The obstacles which enclose the owner of an anchor are ignored when routing
+ * its connections. A connection for which there is no route, because one of
+ * its ends is boxed in, is drawn in a straight line.
+ * <P>
+ * Overlapping parallel segments of different connections are nudged apart by
+ * the {@link #setSpacing(int) spacing}. The first and last segment of a
+ * connection are never nudged, so that they stay attached to the anchors.
+ * <P>
+ * The connections being routed must not be contained within the container.
+ * Bendpoint constraints are not supported.
+ *
+ * @since 3.10
+ */
+public class OrthogonalConnectionRouter extends AbstractRouter {
+
+	private static final int HORIZONTAL = 0;
+	private static final int VERTICAL = 1;
+	private static final int CELL_SIZE = 64;
+
+	private class LayoutTracker extends LayoutListener.Stub {
+		public void postLayout(IFigure container) {
+			processLayout();
+		}
+
+		public void remove(IFigure child) {
+			removeChild(child);
+		}
+
+		public void setConstraint(IFigure child, Object constraint) {
+			addChild(child);
+		}
+	}
+
+	/**
+	 * The route of a connection, in the coordinates of the container.
+	 */
+	private static class Route {
+		final Connection connection;
+		int[] points = new int[0];
+		int[] offsets = new int[0];
+
+		Route(Connection connection) {
+			this.connection = connection;
+		}
+
+		boolean isHorizontal(int segment) {
+			return points[2 * segment + 1] == points[2 * segment + 3];
+		}
+
+		int segmentCount() {
+			return points.length / 2 - 1;
+		}
+	}
+
+	/**
+	 * An interior segment of a route, on a track of segments with the same
+	 * orientation and coordinate.
+	 */
+	private static class Segment {
+		final Route route;
+		final int index;
+		final int low, high;
+
+		Segment(Route route, int index, int low, int high) {
+			this.route = route;
+			this.index = index;
+			this.low = low;
+			this.high = high;
+		}
+	}
+
+	/**
+	 * Orders visibility segments, given as their coordinate and the low and
+	 * high end of their extent, by coordinate and then by extent.
+	 */
+	private static final Comparator LINE_ORDER = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			int[] l1 = (int[]) o1, l2 = (int[]) o2;
+			if (l1[0] != l2[0])
+				return l1[0] < l2[0] ? -1 : 1;
+			if (l1[1] != l2[1])
+				return l1[1] < l2[1] ? -1 : 1;
+			return 0;
+		}
+	};
+
+	private static final Comparator SEGMENT_ORDER = new Comparator() {
+		public int compare(Object o1, Object o2) {
+			Segment s1 = (Segment) o1, s2 = (Segment) o2;
+			if (s1.low != s2.low)
+				return s1.low < s2.low ? -1 : 1;
+			if (s1.high != s2.high)
+				return s1.high < s2.high ? -1 : 1;
+			return 0;
+		}
+	};
+
+	/**
+	 * A binary min-heap of search states, ordered by their estimated cost.
+	 */
+	private static class StateHeap {
+		int[] states = new int[64];
+		int[] keys = new int[64];
+		int size;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		int peekKey() {
+			return keys[0];
+		}
+
+		int pop() {
+			int state = states[0];
+			size--;
+			int s = states[size], k = keys[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && keys[child + 1] < keys[child])
+					child++;
+				if (keys[child] >= k)
+					break;
+				states[i] = states[child];
+				keys[i] = keys[child];
+				i = child;
+			}
+			states[i] = s;
+			keys[i] = k;
+			return state;
+		}
+
+		void push(int state, int key) {
+			if (size == states.length) {
+				int[] grown = new int[size * 2];
+				System.arraycopy(states, 0, grown, 0, size);
+				states = grown;
+				grown = new int[size * 2];
+				System.arraycopy(keys, 0, grown, 0, size);
+				keys = grown;
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (keys[parent] <= key)
+					break;
+				states[i] = states[parent];
+				keys[i] = keys[parent];
+				i = parent;
+			}
+			states[i] = state;
+			keys[i] = key;
+		}
+	}
+
+	/**
+	 * An orthogonal visibility graph. Its nodes are the crossings of the
+	 * horizontal and vertical visibility segments, and each node is linked to
+	 * the nearest nodes on its two segments.
+	 */
+	private static class VisibilityGraph {
+		static final int LEFT = 2, RIGHT = 3, UP = 4, DOWN = 5;
+		// x, y, and the left, right, upper and lower neighbor of each node
+		int[] nodes = new int[6 * 64];
+		int size;
+
+		int add(int x, int y) {
+			if (6 * size == nodes.length) {
+				int[] grown = new int[nodes.length * 2];
+				System.arraycopy(nodes, 0, grown, 0, nodes.length);
+				nodes = grown;
+			}
+			int i = 6 * size;
+			nodes[i] = x;
+			nodes[i + 1] = y;
+			for (int link = LEFT; link <= DOWN; link++)
+				nodes[i + link] = -1;
+			return size++;
+		}
+
+		int get(int node, int field) {
+			return nodes[6 * node + field];
+		}
+
+		void link(int first, int second, boolean horizontal) {
+			nodes[6 * first + (horizontal ? RIGHT : DOWN)] = second;
+			nodes[6 * second + (horizontal ? LEFT : UP)] = first;
+		}
+	}
+
+	private final IFigure container;
+	private Map routes;
+	private Map figuresToBounds;
+	private final RectangleIndex obstacles = new RectangleIndex(CELL_SIZE);
+	private final RectangleIndex corridors = new RectangleIndex(CELL_SIZE);
+	/**
+	 * Maps the key of each track to the list of segments on it.
+	 */
+	private final Map tracks = new HashMap();
+	private final Set dirtyTracks = new HashSet();
+	private final Set staleConnections = new HashSet();
+	private boolean isDirty;
+	private boolean ignoreInvalidate;
+	private int spacing = 8;
+	private int bendPenalty = 40;
+	private LayoutListener listener = new LayoutTracker();
+
+	private FigureListener figureListener = new FigureListener() {
+		public void figureMoved(IFigure source) {
+			Rectangle oldBounds = (Rectangle) figuresToBounds.get(source);
+			Rectangle newBounds = source.getBounds().getCopy();
+			if (newBounds.equals(oldBounds))
+				return;
+			figuresToBounds.put(source, newBounds);
+			obstacles.put(source, newBounds);
+			obstacleChanged(oldBounds);
+			obstacleChanged(newBounds);
+		}
+	};
+
+	/**
+	 * Creates a new orthogonal router with the given container. The container
+	 * contains all the figures which will be treated as obstacles for the
+	 * connections to avoid.
+	 *
+	 * @param container
+	 *            the container
+	 */
+	public OrthogonalConnectionRouter(IFigure container) {
+		this.container = container;
+	}
+
+	void addChild(IFigure child) {
+		if (routes == null || figuresToBounds.containsKey(child))
+			return;
+		Rectangle bounds = child.getBounds().getCopy();
+		figuresToBounds.put(child, bounds);
+		obstacles.put(child, bounds);
+		child.addFigureListener(figureListener);
+		obstacleChanged(bounds);
+	}
+
+	/**
+	 * Adds the obstacles which enclose the bounds of the owner of an anchor,
+	 * other than the owner itself, to the given set.
+	 */
+	private void addEnclosing(IFigure owner, Rectangle bounds, Set result) {
+		if (bounds == null)
+			return;
+		List found = obstacles.query(bounds, new ArrayList());
+		for (int i = 0; i < found.size(); i++) {
+			Object figure = found.get(i);
+			if (figure != owner
+					&& ((Rectangle) figuresToBounds.get(figure))
+							.contains(bounds))
+				result.add(figure);
+		}
+	}
+
+	/**
+	 * Adds the horizontal and vertical visibility segments through the given
+	 * point, unless it lies outside of the region or inside an obstacle. A
+	 * segment is given as its coordinate and the low and high end of its
+	 * extent.
+	 */
+	private static void addLines(RectangleIndex index, Rectangle region,
+			int x, int y, List horizontal, List vertical) {
+		if (x < region.x || x > region.right() || y < region.y
+				|| y > region.bottom() || index.intersectsInterior(x, y, 0, 0))
+			return;
+		horizontal.add(new int[] { y,
+				index.castRay(x, y, true, false, region.x),
+				index.castRay(x, y, true, true, region.right()) });
+		vertical.add(new int[] { x,
+				index.castRay(x, y, false, false, region.y),
+				index.castRay(x, y, false, true, region.bottom()) });
+	}
+
+	private void addSegments(Route route) {
+		int[] p = route.points;
+		for (int i = 1; i < route.segmentCount() - 1; i++) {
+			Long key;
+			Segment segment;
+			if (route.isHorizontal(i)) {
+				key = trackKey(HORIZONTAL, p[2 * i + 1]);
+				segment = new Segment(route, i, Math.min(p[2 * i],
+						p[2 * i + 2]), Math.max(p[2 * i], p[2 * i + 2]));
+			} else {
+				key = trackKey(VERTICAL, p[2 * i]);
+				segment = new Segment(route, i, Math.min(p[2 * i + 1],
+						p[2 * i + 3]), Math.max(p[2 * i + 1], p[2 * i + 3]));
+			}
+			List track = (List) tracks.get(key);
+			if (track == null) {
+				track = new ArrayList(2);
+				tracks.put(key, track);
+			}
+			track.add(segment);
+			dirtyTracks.add(key);
+		}
+	}
+
+	/**
+	 * @see AbstractRouter#anchorsMoved(Set, List)
+	 */
+	public void anchorsMoved(Set anchors, List connections) {
+		if (ignoreInvalidate)
+			return;
+		staleConnections.addAll(connections);
+		isDirty = true;
+	}
+
+	/**
+	 * Returns the visibility graph of the given segments. The segments on a
+	 * line are either equal or disjoint, so the duplicates are removed first.
+	 */
+	private static VisibilityGraph createGraph(List horizontal, List vertical) {
+		int[][] rows = sortLines(horizontal);
+		int[][] columns = sortLines(vertical);
+		// the last node on each column
+		int[] last = new int[columns.length];
+		Arrays.fill(last, -1);
+		VisibilityGraph graph = new VisibilityGraph();
+		for (int i = 0; i < rows.length; i++) {
+			int[] row = rows[i];
+			int low = 0, high = columns.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (columns[mid][0] < row[1])
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			int previous = -1;
+			for (int c = low; c < columns.length && columns[c][0] <= row[2];
+					c++) {
+				if (row[0] < columns[c][1] || row[0] > columns[c][2])
+					continue;
+				int node = graph.add(columns[c][0], row[0]);
+				if (previous != -1)
+					graph.link(previous, node, true);
+				if (last[c] != -1)
+					graph.link(last[c], node, false);
+				previous = node;
+				last[c] = node;
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the point outside of the given side point from which a route
+	 * leaves it, and the orientation of the segment between them, or
+	 * <code>null</code> if there is no room. The point is at the spacing from
+	 * the side, or halfway to the next obstacle if that is closer.
+	 */
+	private int[] escape(RectangleIndex index, int[] side) {
+		if (side[2] == -1)
+			return side;
+		boolean horizontal = side[2] == HORIZONTAL;
+		int x = side[0], y = side[1], sign = side[3];
+		int origin = (horizontal ? x : y) + sign;
+		int hit = index.castRay(horizontal ? origin : x, horizontal ? y
+				: origin, horizontal, sign > 0, origin + sign * 2 * spacing);
+		int distance = Math.min(spacing, (Math.abs(hit - origin) + 1) / 2);
+		if (distance < 1)
+			return null;
+		if (horizontal)
+			return new int[] { x + sign * distance, y, HORIZONTAL };
+		return new int[] { x, y + sign * distance, VERTICAL };
+	}
+
+	private int estimate(int x, int y, int tx, int ty) {
+		int estimate = Math.abs(tx - x) + Math.abs(ty - y);
+		if (x != tx && y != ty)
+			estimate += bendPenalty;
+		return estimate;
+	}
+
+	/**
+	 * Returns the penalty added to the length of a route for each bend. The
+	 * default value is 40.
+	 *
+	 * @return the bend penalty
+	 */
+	public int getBendPenalty() {
+		return bendPenalty;
+	}
+
+	/**
+	 * Returns the bounds of the owner of the given anchor, in the coordinates
+	 * of the container, or <code>null</code> if it has no owner.
+	 */
+	private Rectangle getOwnerBounds(ConnectionAnchor anchor) {
+		IFigure owner = anchor.getOwner();
+		if (owner == null)
+			return null;
+		Rectangle bounds = owner.getBounds().getCopy();
+		owner.translateToAbsolute(bounds);
+		container.translateToRelative(bounds);
+		return bounds;
+	}
+
+	/**
+	 * Returns the point on the side of the bounds which is closest to the given
+	 * point, the orientation of the segment which leaves the side, or -1 if
+	 * there are no bounds, and the direction in which it leaves.
+	 */
+	private static int[] getSide(Point p, Rectangle bounds) {
+		if (bounds == null)
+			return new int[] { p.x, p.y, -1, 0 };
+		int left = Math.abs(p.x - bounds.x);
+		int right = Math.abs(bounds.right() - p.x);
+		int top = Math.abs(p.y - bounds.y);
+		int bottom = Math.abs(bounds.bottom() - p.y);
+		int min = Math.min(Math.min(left, right), Math.min(top, bottom));
+		if (min == left)
+			return new int[] { bounds.x, p.y, HORIZONTAL, -1 };
+		if (min == right)
+			return new int[] { bounds.right(), p.y, HORIZONTAL, 1 };
+		if (min == top)
+			return new int[] { p.x, bounds.y, VERTICAL, -1 };
+		return new int[] { p.x, bounds.bottom(), VERTICAL, 1 };
+	}
+
+	/**
+	 * Returns the space maintained between parallel segments, and between the
+	 * connections and the obstacles. The default value is 8.
+	 *
+	 * @return the connection spacing
+	 */
+	public int getSpacing() {
+		return spacing;
+	}
+
+	private void hookAll() {
+		figuresToBounds = new HashMap();
+		for (int i = 0; i < container.getChildren().size(); i++)
+			addChild((IFigure) container.getChildren().get(i));
+		container.addLayoutListener(listener);
+	}
+
+	/**
+	 * @see ConnectionRouter#invalidate(Connection)
+	 */
+	public void invalidate(Connection connection) {
+		if (ignoreInvalidate)
+			return;
+		staleConnections.add(connection);
+		isDirty = true;
+	}
+
+	private boolean isBlocked(int x1, int y1, int x2, int y2) {
+		// a segment which touches an obstacle is blocked as well
+		return obstacles.intersectsInterior(Math.min(x1, x2) - 1, Math.min(y1,
+				y2) - 1, Math.abs(x2 - x1) + 2, Math.abs(y2 - y1) + 2);
+	}
+
+	/**
+	 * Nudges the overlapping segments on the dirty tracks apart, and adds the
+	 * routes whose offsets change to the given set.
+	 */
+	private void nudge(Set changed) {
+		for (Iterator iter = dirtyTracks.iterator(); iter.hasNext();) {
+			Long key = (Long) iter.next();
+			List track = (List) tracks.get(key);
+			if (track == null)
+				continue;
+			if (track.isEmpty()) {
+				tracks.remove(key);
+				continue;
+			}
+			Segment[] segments = (Segment[]) track.toArray(new Segment[track
+					.size()]);
+			Arrays.sort(segments, SEGMENT_ORDER);
+			int first = 0;
+			int high = segments[0].high;
+			for (int i = 1; i <= segments.length; i++) {
+				if (i < segments.length && segments[i].low < high) {
+					high = Math.max(high, segments[i].high);
+					continue;
+				}
+				int count = i - first;
+				for (int j = first; j < i; j++) {
+					int offset = (2 * (j - first) - count + 1) * spacing / 2;
+					setOffset(segments[j], offset, changed);
+				}
+				if (i < segments.length) {
+					first = i;
+					high = segments[i].high;
+				}
+			}
+		}
+		dirtyTracks.clear();
+	}
+
+	private void obstacleChanged(Rectangle bounds) {
+		if (bounds == null)
+			return;
+		List affected = corridors.query(bounds, new ArrayList());
+		if (affected.isEmpty())
+			return;
+		staleConnections.addAll(affected);
+		isDirty = true;
+		queueSomeRouting();
+	}
+
+	private void processLayout() {
+		if (staleConnections.isEmpty())
+			return;
+		((Connection) staleConnections.iterator().next()).revalidate();
+	}
+
+	private void queueSomeRouting() {
+		if (routes == null || routes.isEmpty())
+			return;
+		try {
+			ignoreInvalidate = true;
+			((Connection) routes.keySet().iterator().next()).revalidate();
+		} finally {
+			ignoreInvalidate = false;
+		}
+	}
+
+	/**
+	 * @see ConnectionRouter#remove(Connection)
+	 */
+	public void remove(Connection connection) {
+		staleConnections.remove(connection);
+		if (routes == null)
+			return;
+		Route route = (Route) routes.remove(connection);
+		if (route != null) {
+			removeSegments(route);
+			corridors.remove(connection);
+		}
+		if (routes.isEmpty()) {
+			unhookAll();
+			routes = null;
+			tracks.clear();
+			dirtyTracks.clear();
+		} else if (!dirtyTracks.isEmpty()) {
+			isDirty = true;
+			queueSomeRouting();
+		}
+	}
+
+	void removeChild(IFigure child) {
+		if (routes == null)
+			return;
+		Rectangle bounds = (Rectangle) figuresToBounds.remove(child);
+		obstacles.remove(child);
+		child.removeFigureListener(figureListener);
+		obstacleChanged(bounds);
+	}
+
+	private void removeSegments(Route route) {
+		int[] p = route.points;
+		for (int i = 1; i < route.segmentCount() - 1; i++) {
+			Long key = route.isHorizontal(i) ? trackKey(HORIZONTAL, p[2 * i + 1])
+					: trackKey(VERTICAL, p[2 * i]);
+			List track = (List) tracks.get(key);
+			for (int j = 0; j < track.size(); j++) {
+				Segment segment = (Segment) track.get(j);
+				if (segment.route == route && segment.index == i) {
+					track.remove(j);
+					break;
+				}
+			}
+			dirtyTracks.add(key);
+		}
+	}
+
+	private void rerouteAll() {
+		if (routes == null)
+			return;
+		staleConnections.addAll(routes.keySet());
+		isDirty = true;
+		queueSomeRouting();
+	}
+
+	/**
+	 * @see ConnectionRouter#route(Connection)
+	 */
+	public void route(Connection conn) {
+		if (routes == null || !routes.containsKey(conn)) {
+			staleConnections.add(conn);
+			isDirty = true;
+		}
+		if (!isDirty)
+			return;
+		ignoreInvalidate = true;
+		try {
+			if (routes == null) {
+				routes = new HashMap();
+				hookAll();
+			}
+			Set changed = new HashSet();
+			for (Iterator iter = staleConnections.iterator(); iter.hasNext();) {
+				Connection connection = (Connection) iter.next();
+				if (connection.getSourceAnchor() == null
+						|| connection.getTargetAnchor() == null)
+					continue;
+				Route route = (Route) routes.get(connection);
+				if (route == null) {
+					route = new Route(connection);
+					routes.put(connection, route);
+				}
+				removeSegments(route);
+				corridors.put(connection, solve(route));
+				addSegments(route);
+				changed.add(route);
+			}
+			staleConnections.clear();
+			nudge(changed);
+			for (Iterator iter = changed.iterator(); iter.hasNext();)
+				setPoints((Route) iter.next());
+		} finally {
+			isDirty = false;
+			ignoreInvalidate = false;
+		}
+	}
+
+	/**
+	 * Returns the points of the cheapest orthogonal path between the escape
+	 * points of the given side points, which runs inside the region and does
+	 * not touch an obstacle other than the ignored ones, or <code>null</code>
+	 * if there is none.
+	 */
+	private int[] search(int[] source, int[] target, Rectangle region,
+			Set ignored) {
+		// the bounds are grown by a pixel, so that touching them is blocked
+		RectangleIndex index = new RectangleIndex(CELL_SIZE);
+		List found = obstacles.query(region, new ArrayList());
+		for (int i = 0; i < found.size(); i++)
+			if (!ignored.contains(found.get(i)))
+				index.put(found.get(i), ((Rectangle) figuresToBounds
+						.get(found.get(i))).getExpanded(1, 1));
+		int[] from = escape(index, source);
+		int[] to = escape(index, target);
+		if (from == null || to == null)
+			return null;
+
+		List horizontal = new ArrayList(), vertical = new ArrayList();
+		addLines(index, region, from[0], from[1], horizontal, vertical);
+		addLines(index, region, to[0], to[1], horizontal, vertical);
+		int gap = Math.max(spacing, 1);
+		for (int i = 0; i < found.size(); i++) {
+			if (ignored.contains(found.get(i)))
+				continue;
+			Rectangle r = (Rectangle) figuresToBounds.get(found.get(i));
+			int left = r.x - gap, right = r.right() + gap;
+			int top = r.y - gap, bottom = r.bottom() + gap;
+			addLines(index, region, left, top, horizontal, vertical);
+			addLines(index, region, right, top, horizontal, vertical);
+			addLines(index, region, left, bottom, horizontal, vertical);
+			addLines(index, region, right, bottom, horizontal, vertical);
+		}
+		VisibilityGraph graph = createGraph(horizontal, vertical);
+		int first = -1, last = -1;
+		for (int node = 0; node < graph.size; node++) {
+			int x = graph.get(node, 0), y = graph.get(node, 1);
+			if (x == from[0] && y == from[1])
+				first = node;
+			if (x == to[0] && y == to[1])
+				last = node;
+		}
+		if (first == -1 || last == -1)
+			return null;
+
+		int[] cost = new int[graph.size * 2];
+		int[] parent = new int[graph.size * 2];
+		Arrays.fill(cost, Integer.MAX_VALUE);
+		StateHeap heap = new StateHeap();
+		for (int dir = HORIZONTAL; dir <= VERTICAL; dir++)
+			if (from[2] == -1 || from[2] == dir) {
+				int state = first * 2 + dir;
+				cost[state] = 0;
+				parent[state] = -1;
+				heap.push(state, estimate(from[0], from[1], to[0], to[1]));
+			}
+
+		int best = Integer.MAX_VALUE, bestState = -1;
+		while (!heap.isEmpty() && heap.peekKey() < best) {
+			int key = heap.peekKey();
+			int state = heap.pop();
+			int dir = state & 1, node = state >> 1;
+			int x = graph.get(node, 0), y = graph.get(node, 1);
+			int g = cost[state];
+			if (key != g + estimate(x, y, to[0], to[1]))
+				continue;
+			if (node == last) {
+				int total = g;
+				if (to[2] != -1 && to[2] != dir)
+					total += bendPenalty;
+				if (total < best) {
+					best = total;
+					bestState = state;
+				}
+				continue;
+			}
+			for (int link = VisibilityGraph.LEFT; link <= VisibilityGraph.DOWN;
+					link++) {
+				int neighbor = graph.get(node, link);
+				if (neighbor == -1)
+					continue;
+				int moveDir = link <= VisibilityGraph.RIGHT ? HORIZONTAL
+						: VERTICAL;
+				int next = neighbor * 2 + moveDir;
+				int nx = graph.get(neighbor, 0), ny = graph.get(neighbor, 1);
+				int step = Math.abs(nx - x) + Math.abs(ny - y);
+				if (moveDir != dir)
+					step += bendPenalty;
+				if (g + step >= cost[next])
+					continue;
+				cost[next] = g + step;
+				parent[next] = state;
+				heap.push(next, g + step + estimate(nx, ny, to[0], to[1]));
+			}
+		}
+		if (bestState == -1)
+			return null;
+
+		int count = 0;
+		for (int s = bestState; s != -1; s = parent[s])
+			count++;
+		int[] points = new int[count * 2];
+		for (int s = bestState, i = count - 1; s != -1; s = parent[s], i--) {
+			points[2 * i] = graph.get(s >> 1, 0);
+			points[2 * i + 1] = graph.get(s >> 1, 1);
+		}
+		return points;
+	}
+
+	/**
+	 * Sets the penalty added to the length of a route for each bend. Higher
+	 * values lead to routes with fewer bends. The default value is 40.
+	 *
+	 * @param penalty
+	 *            the bend penalty
+	 */
+	public void setBendPenalty(int penalty) {
+		bendPenalty = penalty;
+		rerouteAll();
+	}
+
+	private void setOffset(Segment segment, int offset, Set changed) {
+		Route route = segment.route;
+		if (offset != 0) {
+			int[] p = route.points;
+			int i = segment.index;
+			boolean blocked;
+			if (route.isHorizontal(i))
+				blocked = isBlocked(p[2 * i], p[2 * i + 1] + offset,
+						p[2 * i + 2], p[2 * i + 3] + offset);
+			else
+				blocked = isBlocked(p[2 * i] + offset, p[2 * i + 1],
+						p[2 * i + 2] + offset, p[2 * i + 3]);
+			if (blocked)
+				offset = 0;
+		}
+		if (route.offsets[segment.index] != offset) {
+			route.offsets[segment.index] = offset;
+			changed.add(route);
+		}
+	}
+
+	private void setPoints(Route route) {
+		int[] p = route.points;
+		PointList points = new PointList(p.length / 2);
+		for (int i = 0; i < p.length; i += 2)
+			points.addPoint(p[i], p[i + 1]);
+		Point point = new Point();
+		for (int i = 1; i < route.segmentCount() - 1; i++) {
+			int offset = route.offsets[i];
+			if (offset == 0)
+				continue;
+			for (int j = i; j <= i + 1; j++) {
+				points.getPoint(point, j);
+				if (route.isHorizontal(i))
+					point.y += offset;
+				else
+					point.x += offset;
+				points.setPoint(point, j);
+			}
+		}
+		Connection conn = route.connection;
+		container.translateToAbsolute(points);
+		conn.translateToRelative(points);
+		conn.revalidate();
+		conn.setPoints(points);
+	}
+
+	/**
+	 * Sets the space maintained between parallel segments, and between the
+	 * connections and the obstacles. The default value is 8.
+	 *
+	 * @param spacing
+	 *            the connection spacing
+	 */
+	public void setSpacing(int spacing) {
+		this.spacing = spacing;
+		rerouteAll();
+	}
+
+	/**
+	 * Routes the connection, and returns the corridor in which it has been
+	 * routed. The route only depends on the obstacles in the corridor.
+	 */
+	private Rectangle solve(Route route) {
+		Connection conn = route.connection;
+		Point start = getStartPoint(conn).getCopy();
+		Point end = getEndPoint(conn).getCopy();
+		container.translateToRelative(start);
+		container.translateToRelative(end);
+		Rectangle sourceBounds = getOwnerBounds(conn.getSourceAnchor());
+		Rectangle targetBounds = getOwnerBounds(conn.getTargetAnchor());
+		int[] from = getSide(start, sourceBounds);
+		int[] to = getSide(end, targetBounds);
+		Set ignored = new HashSet();
+		addEnclosing(conn.getSourceAnchor().getOwner(), sourceBounds, ignored);
+		addEnclosing(conn.getTargetAnchor().getOwner(), targetBounds, ignored);
+
+		Rectangle ends = new Rectangle(from[0], from[1], 0, 0);
+		ends.union(to[0], to[1]);
+		int margin = Math.max(8 * spacing, 2 * CELL_SIZE);
+		Rectangle region = null;
+		int[] path = null;
+		for (int stage = 0; stage < 3 && path == null; stage++) {
+			if (stage < 2) {
+				region = ends.getCopy().expand(margin, margin);
+				margin *= 4;
+			} else {
+				Rectangle extent = obstacles.getExtent();
+				if (extent == null || region.contains(extent))
+					break;
+				region.union(extent.expand(2 * spacing, 2 * spacing));
+			}
+			path = search(from, to, region, ignored);
+		}
+
+		int[] points;
+		int n = 0;
+		if (path == null) {
+			// a straight line, like the one of the null router
+			points = new int[] { start.x, start.y, end.x, end.y };
+			n = points.length;
+		} else {
+			points = new int[path.length + 4];
+			points[n++] = start.x;
+			points[n++] = start.y;
+			System.arraycopy(path, 0, points, n, path.length);
+			n += path.length;
+			points[n++] = end.x;
+			points[n++] = end.y;
+		}
+		route.points = simplify(points, n);
+		route.offsets = new int[route.segmentCount()];
+		return region;
+	}
+
+	/**
+	 * Removes duplicate points, and points between collinear segments.
+	 */
+	private static int[] simplify(int[] points, int length) {
+		int n = 0;
+		for (int i = 0; i < length; i += 2) {
+			int x = points[i], y = points[i + 1];
+			if (n >= 2 && points[n - 2] == x && points[n - 1] == y)
+				continue;
+			if (n >= 4) {
+				int px = points[n - 4], py = points[n - 3];
+				int mx = points[n - 2], my = points[n - 1];
+				if ((px == mx && mx == x) || (py == my && my == y))
+					n -= 2;
+			}
+			points[n++] = x;
+			points[n++] = y;
+		}
+		int[] result = new int[n];
+		System.arraycopy(points, 0, result, 0, n);
+		return result;
+	}
+
+	/**
+	 * Returns the given visibility segments sorted, without duplicates.
+	 */
+	private static int[][] sortLines(List lines) {
+		int[][] sorted = (int[][]) lines.toArray(new int[lines.size()][]);
+		Arrays.sort(sorted, LINE_ORDER);
+		int n = 0;
+		for (int i = 0; i < sorted.length; i++)
+			if (n == 0 || LINE_ORDER.compare(sorted[n - 1], sorted[i]) != 0)
+				sorted[n++] = sorted[i];
+		int[][] result = new int[n][];
+		System.arraycopy(sorted, 0, result, 0, n);
+		return result;
+	}
+
+	private static Long trackKey(int orientation, int coordinate) {
+		return new Long(((long) orientation << 32)
+				| (coordinate & 0xffffffffL));
+	}
+
+	private void unhookAll() {
+		container.removeLayoutListener(listener);
+		if (figuresToBounds != null) {
+			Iterator figureItr = figuresToBounds.keySet().iterator();
+			while (figureItr.hasNext()) {
+				IFigure child = (IFigure) figureItr.next();
+				child.removeFigureListener(figureListener);
+				obstacles.remove(child);
+			}
+			figuresToBounds = null;
+		}
+	}
+
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Divides a figure into a grid of equally sized pages and sorts the children
+ * of its innermost {@link Layer layers} into the pages they intersect. A page
+ * can then be painted by visiting only the figures which intersect it,
+ * instead of walking every child of every layer once per page.
+ * <P>
+ * The buckets are computed once from the bounds of the figures at
+ * construction time. They must be recreated if the figure changes.
+ * <P>
+ * Pages are numbered row by row, starting at 0 in the top left corner of the
+ * paged area.
+ *
+ * @since 3.10
+ */
+public class PageBuckets {
+
+	private final IFigure root;
+	private final Rectangle area;
+	private final int pageWidth;
+	private final int pageHeight;
+	private final int columns;
+	private final int rows;
+	/**
+	 * Maps each bucketed layer to an array containing, for every page, the
+	 * list of children intersecting that page, or <code>null</code>.
+	 */
+	private final Map buckets = new HashMap();
+
+	/**
+	 * Creates page buckets for the given figure.
+	 *
+	 * @param root
+	 *            the figure to page
+	 * @param area
+	 *            the region of the figure to divide into pages, in the
+	 *            coordinates of the figure's bounds
+	 * @param pageWidth
+	 *            the width of a page, in the same coordinates
+	 * @param pageHeight
+	 *            the height of a page, in the same coordinates
+	 */
+	public PageBuckets(IFigure root, Rectangle area, int pageWidth,
+			int pageHeight) {
+		if (pageWidth <= 0 || pageHeight <= 0)
+			throw new IllegalArgumentException("Invalid page size"); //$NON-NLS-1$
+		this.root = root;
+		this.area = area.getCopy();
+		this.pageWidth = pageWidth;
+		this.pageHeight = pageHeight;
+		columns = Math.max(1, (area.width + pageWidth - 1) / pageWidth);
+		rows = Math.max(1, (area.height + pageHeight - 1) / pageHeight);
+		collect(root);
+	}
+
+	private void bucket(Layer layer) {
+		List[] pages = new List[getPageCount()];
+		List children = layer.getChildren();
+		Rectangle r = new Rectangle();
+		for (int i = 0; i < children.size(); i++) {
+			IFigure child = (IFigure) children.get(i);
+			r.setBounds(child.getBounds());
+			toRootCoordinates(layer, r);
+			r.intersect(area);
+			if (r.isEmpty())
+				continue;
+			int firstColumn = (r.x - area.x) / pageWidth;
+			int lastColumn = (r.right() - 1 - area.x) / pageWidth;
+			int firstRow = (r.y - area.y) / pageHeight;
+			int lastRow = (r.bottom() - 1 - area.y) / pageHeight;
+			for (int row = firstRow; row <= lastRow; row++) {
+				for (int column = firstColumn; column <= lastColumn; column++) {
+					int page = row * columns + column;
+					if (pages[page] == null)
+						pages[page] = new ArrayList();
+					pages[page].add(child);
+				}
+			}
+		}
+		buckets.put(layer, pages);
+	}
+
+	/**
+	 * Buckets the content layers found in the given figure. Only layers
+	 * without nested layers are bucketed, since a layer containing layers,
+	 * such as a {@link LayeredPane}, is usually as large as its layers and
+	 * would otherwise make every page non-empty.
+	 */
+	private void collect(IFigure figure) {
+		boolean leaf = true;
+		List children = figure.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			IFigure child = (IFigure) children.get(i);
+			if (child instanceof Layer) {
+				leaf = false;
+				collect(child);
+			}
+		}
+		if (leaf && figure instanceof Layer)
+			bucket((Layer) figure);
+	}
+
+	/**
+	 * Returns the number of pages in a row.
+	 *
+	 * @return the number of columns
+	 */
+	public int getColumnCount() {
+		return columns;
+	}
+
+	/**
+	 * Returns the bounds of the given page, in the coordinates of the root
+	 * figure's bounds.
+	 *
+	 * @param page
+	 *            the page index
+	 * @return the page bounds
+	 */
+	public Rectangle getPageBounds(int page) {
+		return new Rectangle(area.x + (page % columns) * pageWidth, area.y
+				+ (page / columns) * pageHeight, pageWidth, pageHeight);
+	}
+
+	/**
+	 * Returns the total number of pages.
+	 *
+	 * @return the page count
+	 */
+	public int getPageCount() {
+		return columns * rows;
+	}
+
+	/**
+	 * Returns the number of rows of pages.
+	 *
+	 * @return the number of rows
+	 */
+	public int getRowCount() {
+		return rows;
+	}
+
+	/**
+	 * Returns the figure being paged.
+	 *
+	 * @return the root figure
+	 */
+	public IFigure getRoot() {
+		return root;
+	}
+
+	/**
+	 * Returns <code>true</code> if no layer has a child intersecting the
+	 * given page. Empty pages may be skipped by batch backends.
+	 *
+	 * @param page
+	 *            the page index
+	 * @return <code>true</code> if the page is empty
+	 */
+	public boolean isEmpty(int page) {
+		Iterator iter = buckets.values().iterator();
+		while (iter.hasNext())
+			if (((List[]) iter.next())[page] != null)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Paints the given page. The graphics is translated so that the top left
+	 * corner of the page is painted at its origin, and clipped to the page.
+	 * Only the children of layers which intersect the page are painted.
+	 *
+	 * @param graphics
+	 *            the graphics to paint on, prepared with the root figure's
+	 *            colors, font and any scale
+	 * @param page
+	 *            the page index
+	 */
+	public void paintPage(Graphics graphics, int page) {
+		Rectangle bounds = getPageBounds(page);
+		graphics.pushState();
+		try {
+			Iterator iter = buckets.entrySet().iterator();
+			while (iter.hasNext()) {
+				Map.Entry entry = (Map.Entry) iter.next();
+				List children = ((List[]) entry.getValue())[page];
+				((Layer) entry.getKey())
+						.setPaintedChildren(children == null ? Collections.EMPTY_LIST
+								: children);
+			}
+			graphics.translate(-bounds.x, -bounds.y);
+			graphics.clipRect(bounds);
+			root.paint(graphics);
+		} finally {
+			Iterator iter = buckets.keySet().iterator();
+			while (iter.hasNext())
+				((Layer) iter.next()).setPaintedChildren(null);
+			graphics.popState();
+		}
+	}
+
+	/**
+	 * Translates a rectangle in the client coordinates of the given figure to
+	 * the coordinates of the root's bounds.
+	 */
+	private void toRootCoordinates(IFigure figure, Rectangle r) {
+		while (true) {
+			figure.translateToParent(r);
+			if (figure == root)
+				return;
+			figure = figure.getParent();
+		}
+	}
+
+}
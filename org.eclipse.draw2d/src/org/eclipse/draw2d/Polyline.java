@@ -28,29 +28,51 @@ import org.eclipse.draw2d.geometry.Rectangle;
  */
 public class Polyline extends AbstractPointListShape {
 
+	/**
+	 * The number of points above which hit testing uses a {@link SegmentIndex}.
+	 */
+	private static final int SEGMENT_INDEX_THRESHOLD = 16;
+
 	private int tolerance = 2;
-	private static final Rectangle LINEBOUNDS = Rectangle.SINGLETON;
+	private SegmentIndex segmentIndex;
 
 	{
 		setFill(false);
 		bounds = null;
 	}
 
+	/**
+	 * Overridden to register the new child for hit testing in a parent
+	 * {@link ConnectionLayer}.
+	 * 
+	 * @see Figure#add(IFigure, Object, int)
+	 * @since 3.10
+	 */
+	public void add(IFigure figure, Object constraint, int index) {
+		super.add(figure, constraint, index);
+		invalidateHitTesting();
+	}
+
 	/**
 	 * @see org.eclipse.draw2d.IFigure#containsPoint(int, int)
 	 */
 	public boolean containsPoint(int x, int y) {
 		int tolerance = (int) Math.max(getLineWidthFloat() / 2.0f,
 				this.tolerance);
-		LINEBOUNDS.setBounds(getBounds());
-		LINEBOUNDS.expand(tolerance, tolerance);
-		if (!LINEBOUNDS.contains(x, y))
+		Rectangle bounds = getBounds();
+		if (x < bounds.x - tolerance || y < bounds.y - tolerance
+				|| x >= bounds.right() + tolerance
+				|| y >= bounds.bottom() + tolerance)
 			return false;
 		return shapeContainsPoint(x, y) || childrenContainsPoint(x, y);
 	}
 
 	protected boolean shapeContainsPoint(int x, int y) {
-		return Geometry.polylineContainsPoint(points, x, y, tolerance);
+		if (points.size() <= SEGMENT_INDEX_THRESHOLD)
+			return Geometry.polylineContainsPoint(points, x, y, tolerance);
+		if (segmentIndex == null)
+			segmentIndex = new SegmentIndex(points);
+		return segmentIndex.containsPoint(x, y, tolerance);
 	}
 
 	/**
@@ -72,6 +94,14 @@ public class Polyline extends AbstractPointListShape {
 		return bounds;
 	}
 
+	/**
+	 * Returns the largest distance from the points at which this polyline
+	 * may contain a point.
+	 */
+	int getHitTolerance() {
+		return (int) Math.max(getLineWidthFloat() / 2.0f, tolerance);
+	}
+
 	/**
 	 * @return <code>false</code> because Polyline's aren't filled
 	 */
@@ -86,12 +116,34 @@ public class Polyline extends AbstractPointListShape {
 		g.drawPolyline(points);
 	}
 
+	/**
+	 * Discards the cached hit testing data, and notifies a parent
+	 * {@link ConnectionLayer}.
+	 */
+	private void invalidateHitTesting() {
+		segmentIndex = null;
+		if (getParent() instanceof ConnectionLayer)
+			((ConnectionLayer) getParent()).childChanged(this);
+	}
+
 	/**
 	 * @see Figure#primTranslate(int, int)
 	 */
 	public void primTranslate(int x, int y) {
 	}
 
+	/**
+	 * Overridden to unregister the child from hit testing in a parent
+	 * {@link ConnectionLayer}.
+	 * 
+	 * @see Figure#remove(IFigure)
+	 * @since 3.10
+	 */
+	public void remove(IFigure figure) {
+		super.remove(figure);
+		invalidateHitTesting();
+	}
+
 	/**
 	 * Erases the Polyline and removes all of its {@link Point Points}.
 	 * 
@@ -100,6 +152,7 @@ public class Polyline extends AbstractPointListShape {
 	public void removeAllPoints() {
 		super.removeAllPoints();
 		bounds = null;
+		invalidateHitTesting();
 	}
 
 	/**
@@ -139,10 +192,12 @@ public class Polyline extends AbstractPointListShape {
 	 */
 	public void setTolerance(int tolerance) {
 		this.tolerance = tolerance;
+		invalidateHitTesting();
 	}
 
 	public void repaint() {
 		bounds = null;
+		invalidateHitTesting();
 		super.repaint();
 	}
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ package org.eclipse.draw2d;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
@@ -80,7 +81,11 @@ public class PolylineConnection extends Polyline implements Connection,
 	 *            the anchor that moved
 	 */
 	public void anchorMoved(ConnectionAnchor anchor) {
-		revalidate();
+		UpdateManager manager = getUpdateManager();
+		if (manager instanceof DeferredUpdateManager)
+			((DeferredUpdateManager) manager).anchorMoved(this, anchor);
+		else
+			revalidate();
 	}
 
 	/**
@@ -225,6 +230,17 @@ public class PolylineConnection extends Polyline implements Connection,
 		connectionRouter.invalidate(this);
 	}
 
+	/**
+	 * Revalidates this connection without invalidating it with its router.
+	 * Used when the router is told about several connections at once.
+	 * 
+	 * @return the router which has to be told about this connection
+	 */
+	ConnectionRouter revalidateWithoutRouter() {
+		super.revalidate();
+		return connectionRouter;
+	}
+
 	/**
 	 * Sets the connection router which handles the layout of this polyline.
 	 * Generally set by the parent handling the polyline connection.
@@ -361,6 +377,15 @@ public class PolylineConnection extends Polyline implements Connection,
 			realRouter.invalidate(connection);
 		}
 
+		void anchorsMoved(Set anchors, List connections) {
+			for (int i = 0; i < connections.size(); i++)
+				for (int j = 0; j < listeners.size(); j++)
+					((RoutingListener) listeners.get(j))
+							.invalidate((Connection) connections.get(i));
+
+			AnchorMoveBatch.anchorsMoved(realRouter, anchors, connections);
+		}
+
 		public void route(Connection connection) {
 			boolean consumed = false;
 			for (int i = 0; i < listeners.size(); i++)
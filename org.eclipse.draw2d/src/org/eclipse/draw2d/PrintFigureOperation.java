@@ -51,6 +51,9 @@ public class PrintFigureOperation extends PrintOperation {
 	private IFigure printSource;
 	private Color oldBGColor;
 	private int printMode = TILE;
+	private PrintProgressListener listeners[] = new PrintProgressListener[0];
+	private volatile boolean canceled;
+	private boolean printing;
 
 	/**
 	 * Constructor for PrintFigureOperation.
@@ -77,6 +80,59 @@ public class PrintFigureOperation extends PrintOperation {
 		setPrintSource(srcFigure);
 	}
 
+	/**
+	 * Adds the given listener, which is notified as pages are printed.
+	 * 
+	 * @param listener
+	 *            the listener to add
+	 * @since 3.10
+	 */
+	public void addPrintProgressListener(PrintProgressListener listener) {
+		PrintProgressListener newListeners[] = new PrintProgressListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+		newListeners[listeners.length] = listener;
+		listeners = newListeners;
+	}
+
+	/**
+	 * Requests that the running print job is canceled. No further pages are
+	 * printed and the job is canceled with the printer. Has no effect if no
+	 * job is running.
+	 * 
+	 * @since 3.10
+	 */
+	public void cancel() {
+		canceled = true;
+	}
+
+	/**
+	 * Sorts the print source into pages. The page size is the size of the
+	 * given graphics' clip, which has been set up for the print source.
+	 * 
+	 * @param graphics
+	 *            the printer graphics
+	 * @return the pages to print
+	 * @since 3.10
+	 */
+	protected PageBuckets createPageBuckets(Graphics graphics) {
+		Rectangle page = graphics.getClip(new Rectangle());
+		IFigure figure = getPrintSource();
+		return new PageBuckets(figure, figure.getBounds(), page.width,
+				page.height);
+	}
+
+	private void firePagePrinted(int page, int pageCount) {
+		PrintProgressListener localListeners[] = listeners;
+		for (int i = 0; i < localListeners.length; i++)
+			localListeners[i].pagePrinted(page, pageCount);
+	}
+
+	private void firePrintingDone(boolean wasCanceled) {
+		PrintProgressListener localListeners[] = listeners;
+		for (int i = 0; i < localListeners.length; i++)
+			localListeners[i].printingDone(wasCanceled);
+	}
+
 	/**
 	 * @return SWT.RIGHT_TO_LEFT if the print source is mirrored;
 	 *         SWT.LEFT_TO_RIGHT otherwise
@@ -106,6 +162,28 @@ public class PrintFigureOperation extends PrintOperation {
 		return printSource;
 	}
 
+	/**
+	 * Returns <code>true</code> if {@link #cancel()} has been called during
+	 * the current print job.
+	 * 
+	 * @return <code>true</code> if the job is canceled
+	 * @since 3.10
+	 */
+	public boolean isCanceled() {
+		return canceled;
+	}
+
+	/**
+	 * Returns <code>true</code> while a print job of this operation is
+	 * running.
+	 * 
+	 * @return <code>true</code> if printing
+	 * @since 3.10
+	 */
+	public boolean isPrinting() {
+		return printing;
+	}
+
 	/**
 	 * @see org.eclipse.draw2d.PrintOperation#preparePrintSource()
 	 */
@@ -114,33 +192,47 @@ public class PrintFigureOperation extends PrintOperation {
 		getPrintSource().setBackgroundColor(ColorConstants.white);
 	}
 
+	private void printPage(Graphics graphics, PageBuckets pages, int page) {
+		getPrinter().startPage();
+		pages.paintPage(graphics, page);
+		getPrinter().endPage();
+	}
+
 	/**
-	 * Prints the pages based on the current print mode.
+	 * Prints the pages based on the current print mode. The children of the
+	 * print source's layers are sorted into pages once, so that each page
+	 * only paints the figures intersecting it.
 	 * 
 	 * @see org.eclipse.draw2d.PrintOperation#printPages()
 	 */
 	protected void printPages() {
 		Graphics graphics = getFreshPrinterGraphics();
-		IFigure figure = getPrintSource();
-		setupPrinterGraphicsFor(graphics, figure);
-		Rectangle bounds = figure.getBounds();
-		int x = bounds.x, y = bounds.y;
-		Rectangle clipRect = new Rectangle();
-		while (y < bounds.y + bounds.height) {
-			while (x < bounds.x + bounds.width) {
-				graphics.pushState();
-				getPrinter().startPage();
-				graphics.translate(-x, -y);
-				graphics.getClip(clipRect);
-				clipRect.setLocation(x, y);
-				graphics.clipRect(clipRect);
-				figure.paint(graphics);
-				getPrinter().endPage();
-				graphics.popState();
-				x += clipRect.width;
+		setupPrinterGraphicsFor(graphics, getPrintSource());
+		PageBuckets pages = createPageBuckets(graphics);
+		int count = pages.getPageCount();
+		for (int page = 0; page < count && !canceled; page++) {
+			printPage(graphics, pages, page);
+			firePagePrinted(page + 1, count);
+		}
+	}
+
+	/**
+	 * Removes the given listener.
+	 * 
+	 * @param listener
+	 *            the listener to remove
+	 * @since 3.10
+	 */
+	public void removePrintProgressListener(PrintProgressListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				PrintProgressListener newListeners[] = new PrintProgressListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, newListeners, 0, i);
+				System.arraycopy(listeners, i + 1, newListeners, i,
+						newListeners.length - i);
+				listeners = newListeners;
+				return;
 			}
-			x = bounds.x;
-			y += clipRect.height;
 		}
 	}
 
@@ -152,6 +244,86 @@ public class PrintFigureOperation extends PrintOperation {
 		oldBGColor = null;
 	}
 
+	/**
+	 * @see PrintOperation#run(String)
+	 */
+	public void run(String jobName) {
+		if (printing)
+			throw new IllegalStateException("Print job already running"); //$NON-NLS-1$
+		canceled = false;
+		printing = true;
+		try {
+			if (startJob(jobName)) {
+				try {
+					printPages();
+				} catch (RuntimeException e) {
+					canceled = true;
+					throw e;
+				} finally {
+					endJob(canceled);
+				}
+			}
+		} finally {
+			printing = false;
+		}
+		firePrintingDone(canceled);
+	}
+
+	/**
+	 * Starts a print job and prints one page at a time from the display's
+	 * event loop, so that the user interface stays responsive while a large
+	 * figure is printed. This method returns immediately. Progress is reported
+	 * to the {@link PrintProgressListener}s, and the job can be stopped with
+	 * {@link #cancel()}. The print source must not be changed until the
+	 * listeners are told that printing is done.
+	 * <P>
+	 * The pages printed are the ones returned by
+	 * {@link #createPageBuckets(Graphics)}; {@link #printPages()} is not
+	 * called.
+	 * 
+	 * @param jobName
+	 *            A String representing the name of the print job
+	 * @since 3.10
+	 */
+	public void schedule(String jobName) {
+		if (printing)
+			throw new IllegalStateException("Print job already running"); //$NON-NLS-1$
+		canceled = false;
+		if (!startJob(jobName)) {
+			firePrintingDone(false);
+			return;
+		}
+		printing = true;
+		final Display display = Display.getCurrent();
+		final Graphics graphics = getFreshPrinterGraphics();
+		setupPrinterGraphicsFor(graphics, getPrintSource());
+		final PageBuckets pages = createPageBuckets(graphics);
+		display.asyncExec(new Runnable() {
+			private int page;
+
+			public void run() {
+				boolean done = true;
+				try {
+					if (!canceled && page < pages.getPageCount()) {
+						printPage(graphics, pages, page++);
+						firePagePrinted(page, pages.getPageCount());
+						done = canceled || page == pages.getPageCount();
+					}
+				} catch (RuntimeException e) {
+					canceled = true;
+					throw e;
+				} finally {
+					if (done) {
+						printing = false;
+						endJob(canceled);
+						firePrintingDone(canceled);
+					} else
+						display.asyncExec(this);
+				}
+			}
+		});
+	}
+
 	/**
 	 * Sets the print mode. Possible values are {@link #TILE},
 	 * {@link #FIT_HEIGHT}, {@link #FIT_WIDTH} and {@link #FIT_PAGE}.
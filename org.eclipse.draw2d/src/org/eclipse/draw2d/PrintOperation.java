@@ -154,14 +154,45 @@ public abstract class PrintOperation {
 	 *            A String representing the name of the print job
 	 */
 	public void run(String jobName) {
+		if (startJob(jobName)) {
+			boolean printed = false;
+			try {
+				printPages();
+				printed = true;
+			} finally {
+				endJob(!printed);
+			}
+		}
+	}
+
+	/**
+	 * Prepares the print source and starts a print job. If the job could not
+	 * be started, the print source is restored immediately.
+	 * 
+	 * @return <code>true</code> if the job was started
+	 */
+	boolean startJob(String jobName) {
 		preparePrintSource();
 		if (printer.startJob(jobName)) {
 			printerGC = new GC(getPrinter(), getGraphicsOrientation());
-			printPages();
-			printer.endJob();
+			return true;
 		}
 		restorePrintSource();
 		cleanup();
+		return false;
+	}
+
+	/**
+	 * Ends or cancels a job started by {@link #startJob(String)} and restores
+	 * the print source.
+	 */
+	void endJob(boolean cancel) {
+		if (cancel)
+			printer.cancelJob();
+		else
+			printer.endJob();
+		restorePrintSource();
+		cleanup();
 	}
 
 	/**
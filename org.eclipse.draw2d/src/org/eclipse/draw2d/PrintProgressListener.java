@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+/**
+ * A listener interface for receiving progress notifications from a
+ * {@link PrintFigureOperation}.
+ * 
+ * @since 3.10
+ */
+public interface PrintProgressListener {
+
+	/**
+	 * Called after a page has been printed.
+	 * 
+	 * @param page
+	 *            the number of pages printed so far
+	 * @param pageCount
+	 *            the total number of pages
+	 */
+	void pagePrinted(int page, int pageCount);
+
+	/**
+	 * Called once the print job has ended, either because all pages were
+	 * printed or because it was canceled.
+	 * 
+	 * @param canceled
+	 *            <code>true</code> if the job was canceled
+	 */
+	void printingDone(boolean canceled);
+
+}
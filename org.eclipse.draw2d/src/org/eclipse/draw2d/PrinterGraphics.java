@@ -15,8 +15,6 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.eclipse.swt.SWT;
-import org.eclipse.swt.graphics.Font;
-import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.LineAttributes;
 import org.eclipse.swt.printing.Printer;
@@ -46,8 +44,13 @@ public class PrinterGraphics extends ScaledGraphics {
 		printer = p;
 	}
 
-	Font createFont(FontData data) {
-		return new Font(printer, data);
+	/**
+	 * Printer fonts are not shared with other graphics. Since the cache
+	 * retains no unreferenced fonts, all printer fonts are disposed when this
+	 * graphics is disposed.
+	 */
+	ZoomedFontCache createZoomedFontCache() {
+		return new ZoomedFontCache(printer, 0);
 	}
 
 	private Image printerImage(Image image) {
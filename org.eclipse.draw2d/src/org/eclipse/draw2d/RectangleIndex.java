@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Indexes objects by their bounds in a uniform grid of square cells, so that
+ * the objects whose bounds intersect a region can be found by visiting only
+ * the cells which the region covers. Only the cells which contain objects are
+ * allocated.
+ */
+class RectangleIndex {
+
+	private static class Entry {
+		final Object data;
+		final int x, y, width, height;
+		int stamp;
+
+		Entry(Object data, Rectangle bounds) {
+			this.data = data;
+			x = bounds.x;
+			y = bounds.y;
+			width = bounds.width;
+			height = bounds.height;
+		}
+	}
+
+	private final int cellSize;
+	/**
+	 * Maps the key of each cell to the list of entries which touch it.
+	 */
+	private final Map cells = new HashMap();
+	private final Map entries = new HashMap();
+	private int stamp;
+
+	/**
+	 * Creates an empty index.
+	 *
+	 * @param cellSize
+	 *            the width and height of the cells
+	 */
+	RectangleIndex(int cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	private int cell(int coordinate) {
+		if (coordinate >= 0)
+			return coordinate / cellSize;
+		return (coordinate + 1) / cellSize - 1;
+	}
+
+	private static Long key(int column, int row) {
+		return new Long(((long) column << 32) | (row & 0xffffffffL));
+	}
+
+	/**
+	 * Returns the coordinate at which a horizontal or vertical ray from the
+	 * given point enters the open interior of the bounds of an object, or the
+	 * limit if it does not enter one before. Only the cells along the ray are
+	 * visited, up to the first one which is beyond the result.
+	 *
+	 * @param x
+	 *            the x coordinate of the origin
+	 * @param y
+	 *            the y coordinate of the origin
+	 * @param horizontal
+	 *            whether the ray is horizontal
+	 * @param forward
+	 *            whether the ray runs towards increasing coordinates
+	 * @param limit
+	 *            the coordinate at which the ray ends
+	 */
+	int castRay(int x, int y, boolean horizontal, boolean forward, int limit) {
+		int along = horizontal ? x : y;
+		int across = horizontal ? y : x;
+		int row = cell(across);
+		int last = cell(limit);
+		int result = limit;
+		for (int c = cell(along); forward ? c <= last : c >= last; c += forward ? 1
+				: -1) {
+			// the objects which are not in the cells visited so far are
+			// beyond this one
+			if (forward ? result <= c * cellSize : result >= (c + 1)
+					* cellSize)
+				break;
+			List list = (List) cells.get(horizontal ? key(c, row) : key(row,
+					c));
+			if (list == null)
+				continue;
+			for (int i = 0; i < list.size(); i++) {
+				Entry e = (Entry) list.get(i);
+				int low = horizontal ? e.x : e.y;
+				int high = low + (horizontal ? e.width : e.height);
+				int side = horizontal ? e.y : e.x;
+				if (low >= high || across <= side
+						|| across >= side + (horizontal ? e.height : e.width))
+					continue;
+				if (forward && high > along)
+					result = Math.min(result, Math.max(low, along));
+				else if (!forward && low < along)
+					result = Math.max(result, Math.min(high, along));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the smallest rectangle containing the bounds of all objects, or
+	 * <code>null</code> if the index is empty.
+	 */
+	Rectangle getExtent() {
+		Rectangle extent = null;
+		for (Iterator iter = entries.values().iterator(); iter.hasNext();) {
+			Entry e = (Entry) iter.next();
+			if (extent == null)
+				extent = new Rectangle(e.x, e.y, e.width, e.height);
+			else
+				extent.union(e.x, e.y, e.width, e.height);
+		}
+		return extent;
+	}
+
+	/**
+	 * Returns whether the open interior of the bounds of any object intersects
+	 * the given closed region. A region which only touches the outline of an
+	 * object does not intersect it.
+	 */
+	boolean intersectsInterior(int x, int y, int width, int height) {
+		int c2 = cell(x + width), r2 = cell(y + height);
+		for (int c = cell(x); c <= c2; c++)
+			for (int r = cell(y); r <= r2; r++) {
+				List list = (List) cells.get(key(c, r));
+				if (list == null)
+					continue;
+				for (int i = 0; i < list.size(); i++) {
+					Entry e = (Entry) list.get(i);
+					if (x < e.x + e.width && x + width > e.x
+							&& y < e.y + e.height && y + height > e.y)
+						return true;
+				}
+			}
+		return false;
+	}
+
+	/**
+	 * Adds or moves the given object.
+	 */
+	void put(Object data, Rectangle bounds) {
+		remove(data);
+		Entry e = new Entry(data, bounds);
+		entries.put(data, e);
+		int c2 = cell(e.x + e.width), r2 = cell(e.y + e.height);
+		for (int c = cell(e.x); c <= c2; c++)
+			for (int r = cell(e.y); r <= r2; r++) {
+				Long key = key(c, r);
+				List list = (List) cells.get(key);
+				if (list == null) {
+					list = new ArrayList(4);
+					cells.put(key, list);
+				}
+				list.add(e);
+			}
+	}
+
+	/**
+	 * Adds the objects whose bounds intersect or touch the given region to the
+	 * given list, and returns the list.
+	 */
+	List query(Rectangle region, List result) {
+		stamp++;
+		int c2 = cell(region.x + region.width), r2 = cell(region.y
+				+ region.height);
+		for (int c = cell(region.x); c <= c2; c++)
+			for (int r = cell(region.y); r <= r2; r++) {
+				List list = (List) cells.get(key(c, r));
+				if (list == null)
+					continue;
+				for (int i = 0; i < list.size(); i++) {
+					Entry e = (Entry) list.get(i);
+					if (e.stamp == stamp)
+						continue;
+					e.stamp = stamp;
+					if (e.x <= region.x + region.width
+							&& region.x <= e.x + e.width
+							&& e.y <= region.y + region.height
+							&& region.y <= e.y + e.height)
+						result.add(e.data);
+				}
+			}
+		return result;
+	}
+
+	/**
+	 * Removes the given object, and returns whether it was indexed.
+	 */
+	boolean remove(Object data) {
+		Entry e = (Entry) entries.remove(data);
+		if (e == null)
+			return false;
+		int c2 = cell(e.x + e.width), r2 = cell(e.y + e.height);
+		for (int c = cell(e.x); c <= c2; c++)
+			for (int r = cell(e.y); r <= r2; r++) {
+				Long key = key(c, r);
+				List list = (List) cells.get(key);
+				list.remove(e);
+				if (list.isEmpty())
+					cells.remove(key);
+			}
+		return true;
+	}
+
+	/**
+	 * Returns the number of indexed objects.
+	 */
+	int size() {
+		return entries.size();
+	}
+
+}
@@ -11,6 +11,7 @@
 package org.eclipse.draw2d;
 
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
 import org.eclipse.draw2d.geometry.Translatable;
 
 /**
@@ -62,8 +63,12 @@ public class ScalableFreeformLayeredPane extends FreeformLayeredPane implements
 			ScaledGraphics g = new ScaledGraphics(graphics);
 			boolean optimizeClip = getBorder() == null
 					|| getBorder().isOpaque();
-			if (!optimizeClip)
-				g.clipRect(getBounds().getCropped(getInsets()));
+			if (!optimizeClip) {
+				ScratchPool pool = ScratchPool.getCurrent();
+				Rectangle clip = pool.getRectangle();
+				g.clipRect(clip.setBounds(getBounds()).crop(getInsets()));
+				pool.release(clip);
+			}
 			g.scale(scale);
 			g.pushState();
 			paintChildren(g);
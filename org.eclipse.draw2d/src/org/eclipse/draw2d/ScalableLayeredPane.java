@@ -14,6 +14,7 @@ import org.eclipse.swt.SWT;
 
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
 import org.eclipse.draw2d.geometry.Translatable;
 
 /**
@@ -96,8 +97,12 @@ public class ScalableLayeredPane extends LayeredPane implements ScalableFigure {
 			ScaledGraphics g = new ScaledGraphics(graphics);
 			boolean optimizeClip = getBorder() == null
 					|| getBorder().isOpaque();
-			if (!optimizeClip)
-				g.clipRect(getBounds().getCropped(getInsets()));
+			if (!optimizeClip) {
+				ScratchPool pool = ScratchPool.getCurrent();
+				Rectangle clip = pool.getRectangle();
+				g.clipRect(clip.setBounds(getBounds()).crop(getInsets()));
+				pool.release(clip);
+			}
 			g.scale(scale);
 			g.pushState();
 			paintChildren(g);
@@ -190,6 +190,7 @@ public class ScaledGraphics extends Graphics {
 	private boolean allowText = true;
 	// private static final Point PT = new Point();
 	private Map fontCache = new HashMap();
+	private ZoomedFontCache zoomedFontCache;
 	private Map fontDataCache = new HashMap();
 	private FontKey fontKey = new FontKey();
 	private double fractionalX;
@@ -221,8 +222,14 @@ public class ScaledGraphics extends Graphics {
 		graphics.clipRect(zoomClipRect(r));
 	}
 
-	Font createFont(FontData data) {
-		return new Font(Display.getCurrent(), data);
+	/**
+	 * Returns the cache from which zoomed fonts are acquired. By default, this
+	 * is the cache shared by all instances on the current display.
+	 * 
+	 * @return the zoomed font cache
+	 */
+	ZoomedFontCache createZoomedFontCache() {
+		return ZoomedFontCache.getDefault();
 	}
 
 	/**
@@ -277,13 +284,13 @@ public class ScaledGraphics extends Graphics {
 			popState();
 		}
 
-		// Dispose fonts
-		Iterator iter = fontCache.values().iterator();
-		while (iter.hasNext()) {
-			Font font = ((Font) iter.next());
-			font.dispose();
+		// Release fonts to the shared cache
+		if (zoomedFontCache != null) {
+			Iterator iter = fontCache.values().iterator();
+			while (iter.hasNext())
+				zoomedFontCache.release((Font) iter.next());
 		}
-
+		fontCache.clear();
 	}
 
 	/** @see Graphics#drawArc(int, int, int, int, int, int) */
@@ -519,10 +526,10 @@ public class ScaledGraphics extends Graphics {
 		if (font != null) {
 			return font;
 		}
+		if (zoomedFontCache == null)
+			zoomedFontCache = createZoomedFontCache();
 		key = new FontKey(key.font, key.height);
-		FontData data = key.font.getFontData()[0];
-		data.setHeight(key.height);
-		Font zoomedFont = createFont(data);
+		Font zoomedFont = zoomedFontCache.acquire(key.font, key.height);
 		fontCache.put(key, zoomedFont);
 		return zoomedFont;
 	}
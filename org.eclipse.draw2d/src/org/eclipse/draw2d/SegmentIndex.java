@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import org.eclipse.draw2d.geometry.Geometry;
+import org.eclipse.draw2d.geometry.PointList;
+
+/**
+ * A bounding volume hierarchy over the segments of a point list. Each node
+ * covers a run of consecutive segments and caches their bounding box, so that
+ * a hit test only visits the runs whose box is near the point. Since
+ * consecutive segments of a polyline are close to each other, the boxes of
+ * sibling nodes rarely overlap much.
+ * <P>
+ * The index refers to the coordinates of the point list, and must be discarded
+ * when the list changes.
+ */
+class SegmentIndex {
+
+	private static final int LEAF_SIZE = 8;
+
+	private final int[] coordinates;
+	/**
+	 * The bounding box of each node, as min x, min y, max x and max y.
+	 */
+	private final int[] boxes;
+	/**
+	 * The first segment and the end of the segments of each node.
+	 */
+	private final int[] ranges;
+	/**
+	 * The index of the first child of each node, or -1 for leaves. The second
+	 * child follows the first.
+	 */
+	private final int[] children;
+	private int nodeCount;
+	private int depth;
+
+	/**
+	 * Creates the index for the given points.
+	 */
+	SegmentIndex(PointList points) {
+		coordinates = points.toIntArray();
+		int segments = Math.max(points.size() - 1, 0);
+		int capacity = 2 * (segments / (LEAF_SIZE / 2) + 1);
+		boxes = new int[capacity * 4];
+		ranges = new int[capacity * 2];
+		children = new int[capacity];
+		nodeCount = 1;
+		build(0, 0, segments, 1);
+	}
+
+	private void build(int node, int first, int end, int level) {
+		depth = Math.max(depth, level);
+		ranges[node * 2] = first;
+		ranges[node * 2 + 1] = end;
+		if (end - first <= LEAF_SIZE) {
+			children[node] = -1;
+			int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+			int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+			for (int i = first * 2; i <= end * 2 && i < coordinates.length; i += 2) {
+				minX = Math.min(minX, coordinates[i]);
+				minY = Math.min(minY, coordinates[i + 1]);
+				maxX = Math.max(maxX, coordinates[i]);
+				maxY = Math.max(maxY, coordinates[i + 1]);
+			}
+			setBox(node, minX, minY, maxX, maxY);
+			return;
+		}
+		int left = nodeCount;
+		nodeCount += 2;
+		children[node] = left;
+		int middle = (first + end) / 2;
+		build(left, first, middle, level + 1);
+		build(left + 1, middle, end, level + 1);
+		setBox(node, Math.min(boxes[left * 4], boxes[left * 4 + 4]), Math.min(
+				boxes[left * 4 + 1], boxes[left * 4 + 5]), Math.max(
+				boxes[left * 4 + 2], boxes[left * 4 + 6]), Math.max(
+				boxes[left * 4 + 3], boxes[left * 4 + 7]));
+	}
+
+	/**
+	 * Returns whether the least distance between the point and any segment is
+	 * not more than the tolerance.
+	 */
+	boolean containsPoint(int x, int y, int tolerance) {
+		int[] stack = new int[depth + 1];
+		int size = 0;
+		stack[size++] = 0;
+		while (size > 0) {
+			int node = stack[--size];
+			int b = node * 4;
+			if (x < boxes[b] - tolerance || y < boxes[b + 1] - tolerance
+					|| x > boxes[b + 2] + tolerance
+					|| y > boxes[b + 3] + tolerance)
+				continue;
+			if (children[node] != -1) {
+				stack[size++] = children[node] + 1;
+				stack[size++] = children[node];
+				continue;
+			}
+			for (int i = ranges[node * 2]; i < ranges[node * 2 + 1]; i++)
+				if (Geometry.segmentContainsPoint(coordinates[i * 2],
+						coordinates[i * 2 + 1], coordinates[i * 2 + 2],
+						coordinates[i * 2 + 3], x, y, tolerance))
+					return true;
+		}
+		return false;
+	}
+
+	private void setBox(int node, int minX, int minY, int maxX, int maxY) {
+		boxes[node * 4] = minX;
+		boxes[node * 4 + 1] = minY;
+		boxes[node * 4 + 2] = maxX;
+		boxes[node * 4 + 3] = maxY;
+	}
+
+}
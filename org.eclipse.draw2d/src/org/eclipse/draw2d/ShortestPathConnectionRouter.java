@@ -154,6 +154,17 @@ public final class ShortestPathConnectionRouter extends AbstractRouter {
 		isDirty = true;
 	}
 
+	/**
+	 * @see AbstractRouter#anchorsMoved(Set, List)
+	 * @since 3.10
+	 */
+	public void anchorsMoved(Set anchors, List connections) {
+		if (ignoreInvalidate)
+			return;
+		staleConnections.addAll(connections);
+		isDirty = true;
+	}
+
 	private void processLayout() {
 		if (staleConnections.isEmpty())
 			return;
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+/**
+ * A {@link LayoutManager} which can place the children away from the UI
+ * thread. It measures its inputs on the UI thread and captures them in a
+ * {@link LayoutSnapshot}, whose bounds can then be computed on any thread.
+ * Wrap it in an {@link AsyncLayout} to lay out large containers in the
+ * background.
+ * <P>
+ * To keep a single algorithm, the synchronous {@link #layout(IFigure)} can
+ * compute a snapshot and apply it right away.
+ *
+ * @since 3.10
+ */
+public interface SnapshotLayout extends LayoutManager {
+
+	/**
+	 * Captures the inputs of the layout of the given container. Called on the
+	 * UI thread.
+	 *
+	 * @param container
+	 *            the container to be laid out
+	 * @return the snapshot
+	 */
+	LayoutSnapshot createSnapshot(IFigure container);
+
+}
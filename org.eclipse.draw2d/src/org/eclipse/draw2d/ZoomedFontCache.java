@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Device;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * A size-bounded, reference-counted cache of zoomed fonts. Fonts are keyed by
+ * the device and {@link FontData} of their base font and the zoomed height,
+ * rather than by the base font itself, whose equality depends on its native
+ * handle. All {@link ScaledGraphics}
+ * instances painting at the same zoom level share the same native font instead
+ * of creating and disposing one per paint.
+ * <P>
+ * Clients {@link #acquire(Font, int) acquire} a font and must
+ * {@link #release(Font) release} it once they no longer need it. Fonts which
+ * are not referenced remain cached in least-recently-used order until the
+ * cache grows beyond its maximum size, at which point the eldest unreferenced
+ * fonts are disposed. Referenced fonts are never disposed by eviction, so the
+ * cache may temporarily exceed its bound while all of its fonts are in use.
+ * <P>
+ * This class is intended to be used on the UI thread.
+ *
+ * @since 3.10
+ */
+public final class ZoomedFontCache {
+
+	private static class Entry {
+		Font font;
+		int refCount;
+	}
+
+	private static class Key {
+		final Device device;
+		final FontData[] data;
+		final int height;
+
+		Key(Device device, FontData[] data, int height) {
+			this.device = device;
+			this.data = data;
+			this.height = height;
+		}
+
+		public boolean equals(Object obj) {
+			Key other = (Key) obj;
+			return other.height == height && other.device == device
+					&& Arrays.equals(other.data, data);
+		}
+
+		public int hashCode() {
+			int hash = height;
+			for (int i = 0; i < data.length; i++)
+				hash = hash * 31 + data[i].hashCode();
+			return hash;
+		}
+	}
+
+	/**
+	 * The default maximum number of fonts which are retained by the shared
+	 * cache.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 64;
+
+	/**
+	 * The shared cache of each display.
+	 */
+	private static final Map shared = new HashMap();
+
+	/**
+	 * Returns the cache which is shared by all {@link ScaledGraphics}
+	 * instances painting on the current display. Each display has its own
+	 * cache, which is disposed with all of its fonts when the display is
+	 * disposed. On a thread without a display, a new cache is returned which
+	 * retains no unreferenced fonts, so that each font is disposed as soon as
+	 * it is released.
+	 *
+	 * @return the shared cache
+	 */
+	public static ZoomedFontCache getDefault() {
+		final Display display = Display.getCurrent();
+		if (display == null)
+			return new ZoomedFontCache(null, 0);
+		synchronized (shared) {
+			ZoomedFontCache cache = (ZoomedFontCache) shared.get(display);
+			if (cache == null) {
+				final ZoomedFontCache created = new ZoomedFontCache(null,
+						DEFAULT_MAX_SIZE);
+				display.disposeExec(new Runnable() {
+					public void run() {
+						created.dispose();
+						synchronized (shared) {
+							shared.remove(display);
+						}
+					}
+				});
+				shared.put(display, created);
+				cache = created;
+			}
+			return cache;
+		}
+	}
+
+	private final Device device;
+	private final LinkedHashMap entries = new LinkedHashMap(16, 0.75f, true);
+	private final Map fontToKey = new HashMap();
+	private int maxSize;
+	private int hits;
+	private int misses;
+	private int evictions;
+
+	/**
+	 * Creates a new cache which creates its fonts on the given device.
+	 *
+	 * @param device
+	 *            the device to create fonts on, or <code>null</code> to create
+	 *            each zoomed font on the device of its base font
+	 * @param maxSize
+	 *            the maximum number of unreferenced fonts to retain
+	 */
+	public ZoomedFontCache(Device device, int maxSize) {
+		this.device = device;
+		setMaxSize(maxSize);
+	}
+
+	/**
+	 * Returns a font which is the given base font at the given height,
+	 * creating it if necessary. The font's reference count is incremented;
+	 * callers must {@link #release(Font)} the font when they are done with it.
+	 * The returned font must not be disposed by the caller.
+	 *
+	 * @param base
+	 *            the base font
+	 * @param height
+	 *            the zoomed height
+	 * @return the zoomed font
+	 */
+	public Font acquire(Font base, int height) {
+		Device target = device == null ? base.getDevice() : device;
+		FontData[] baseData = base.getFontData();
+		Key key = new Key(target, baseData, height);
+		Entry entry = (Entry) entries.get(key);
+		if (entry != null) {
+			hits++;
+		} else {
+			misses++;
+			// copy all of the platform's font description, not just the name
+			FontData data = new FontData(baseData[0].toString());
+			data.setHeight(height);
+			entry = new Entry();
+			entry.font = new Font(target, data);
+			entries.put(key, entry);
+			fontToKey.put(entry.font, key);
+		}
+		entry.refCount++;
+		trim();
+		return entry.font;
+	}
+
+	/**
+	 * Decrements the reference count of the given font, which must have been
+	 * obtained from {@link #acquire(Font, int)}. The font remains cached and
+	 * is only disposed once it is evicted or the cache is disposed.
+	 *
+	 * @param font
+	 *            the zoomed font
+	 */
+	public void release(Font font) {
+		Key key = (Key) fontToKey.get(font);
+		if (key == null)
+			return;
+		Entry entry = (Entry) entries.get(key);
+		if (entry.refCount > 0)
+			entry.refCount--;
+		trim();
+	}
+
+	/**
+	 * Disposes all unreferenced fonts. Fonts which are still referenced stay
+	 * in the cache.
+	 */
+	public void clear() {
+		Iterator iter = entries.values().iterator();
+		while (iter.hasNext()) {
+			Entry entry = (Entry) iter.next();
+			if (entry.refCount == 0)
+				disposeEntry(iter, entry);
+		}
+	}
+
+	/**
+	 * Disposes all fonts, regardless of whether they are still referenced.
+	 * The cache may continue to be used afterwards.
+	 */
+	public void dispose() {
+		Iterator iter = entries.values().iterator();
+		while (iter.hasNext())
+			disposeEntry(iter, (Entry) iter.next());
+	}
+
+	private void disposeEntry(Iterator iter, Entry entry) {
+		iter.remove();
+		fontToKey.remove(entry.font);
+		if (!entry.font.isDisposed())
+			entry.font.dispose();
+		evictions++;
+	}
+
+	private void trim() {
+		if (entries.size() <= maxSize)
+			return;
+		int excess = entries.size() - maxSize;
+		Iterator iter = entries.values().iterator();
+		while (excess > 0 && iter.hasNext()) {
+			Entry entry = (Entry) iter.next();
+			if (entry.refCount == 0) {
+				disposeEntry(iter, entry);
+				excess--;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of lookups which were answered by an existing font.
+	 *
+	 * @return the hit count
+	 */
+	public int getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups which required a new font to be created.
+	 *
+	 * @return the miss count
+	 */
+	public int getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of fonts which have been disposed by the cache.
+	 *
+	 * @return the eviction count
+	 */
+	public int getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters to zero.
+	 */
+	public void resetStatistics() {
+		hits = misses = evictions = 0;
+	}
+
+	/**
+	 * Returns the number of fonts currently held by the cache.
+	 *
+	 * @return the cache size
+	 */
+	public int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the maximum number of unreferenced fonts retained.
+	 *
+	 * @return the maximum size
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of unreferenced fonts retained, evicting
+	 * fonts if the cache currently exceeds the new bound.
+	 *
+	 * @param maxSize
+	 *            the maximum size, must not be negative
+	 */
+	public void setMaxSize(int maxSize) {
+		if (maxSize < 0)
+			throw new IllegalArgumentException("Negative cache size"); //$NON-NLS-1$
+		this.maxSize = maxSize;
+		trim();
+	}
+
+}
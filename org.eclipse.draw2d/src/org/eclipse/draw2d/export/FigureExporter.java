@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.PageBuckets;
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.draw2d.ScaledGraphics;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * Exports a figure to PNG or SVG without painting it into a single image.
+ * <P>
+ * PNG export paints the figure into one reusable tile image at a time and
+ * streams each completed band of scanlines to a {@link PNGEncoder}. The
+ * memory used is bounded by the tile size and a fixed band budget, so very
+ * large diagrams can be exported without exceeding native image limits. SVG
+ * export paints the figure once into an {@link SVGGraphics}.
+ * <P>
+ * By default, the whole figure is exported at 100%. The figure is validated
+ * before it is painted, so it does not need to be shown in a viewer.
+ *
+ * @since 3.10
+ */
+public class FigureExporter {
+
+	/**
+	 * The default size, in pixels, of the tiles the figure is painted into.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 1024;
+
+	/**
+	 * The maximum number of pixels buffered before scanlines are encoded.
+	 */
+	private static final int MAX_BAND_PIXELS = 4 * 1024 * 1024;
+
+	private final IFigure figure;
+	private Rectangle region;
+	private double scale = 1.0;
+	private int tileSize = DEFAULT_TILE_SIZE;
+	private Color background;
+
+	/**
+	 * Creates an exporter for the given figure.
+	 *
+	 * @param figure
+	 *            the figure to export
+	 */
+	public FigureExporter(IFigure figure) {
+		this.figure = figure;
+	}
+
+	/**
+	 * Writes the figure to the given stream as a PNG image.
+	 *
+	 * @param out
+	 *            the stream to write to, which is not closed
+	 * @throws IOException
+	 *             if writing to the stream fails
+	 */
+	public void exportPNG(OutputStream out) throws IOException {
+		Display display = Display.getCurrent();
+		if (display == null)
+			SWT.error(SWT.ERROR_THREAD_INVALID_ACCESS);
+		figure.validate();
+		Rectangle source = getRegion();
+		Dimension size = getImageSize();
+		int width = size.width;
+		int height = size.height;
+		int tileWidth = Math.min(tileSize, width);
+		int bandHeight = Math.max(1,
+				Math.min(Math.min(tileSize, height), MAX_BAND_PIXELS / width));
+
+		PNGEncoder encoder = new PNGEncoder(out, width, height);
+		byte[] band = new byte[width * 3 * bandHeight];
+		Image tile = new Image(display, tileWidth, bandHeight);
+		try {
+			for (int y = 0; y < height; y += bandHeight) {
+				int h = Math.min(bandHeight, height - y);
+				for (int x = 0; x < width; x += tileWidth) {
+					int w = Math.min(tileWidth, width - x);
+					paintTile(tile, source, x, y, w, h);
+					copyPixels(tile.getImageData(), w, h, band, x, width);
+				}
+				for (int row = 0; row < h; row++)
+					encoder.writeRow(band, row * width * 3);
+			}
+		} finally {
+			tile.dispose();
+		}
+		encoder.finish();
+	}
+
+	/**
+	 * Writes the figure to the given writer as an SVG document.
+	 *
+	 * @param out
+	 *            the writer to write to, which is not closed
+	 */
+	public void exportSVG(Writer out) {
+		figure.validate();
+		Rectangle source = getRegion();
+		Dimension size = getImageSize();
+		SVGGraphics graphics = new SVGGraphics(out, size.width, size.height);
+		try {
+			if (getBackground() != null) {
+				graphics.setBackgroundColor(getBackground());
+				graphics.fillRectangle(0, 0, size.width, size.height);
+			}
+			graphics.scale(scale);
+			graphics.translate(-source.x, -source.y);
+			paintFigure(graphics);
+		} finally {
+			graphics.dispose();
+		}
+	}
+
+	/**
+	 * Writes one page of the figure to the given writer as an SVG document.
+	 * Only the children of layers which intersect the page are painted, so a
+	 * figure can be written out page by page for batch reports. The page
+	 * size is in the coordinates of the figure's bounds and is scaled by the
+	 * current scale; the region of this exporter is ignored.
+	 *
+	 * @param out
+	 *            the writer to write to, which is not closed
+	 * @param pages
+	 *            the page buckets, created for this exporter's figure
+	 * @param page
+	 *            the index of the page to write
+	 */
+	public void exportSVGPage(Writer out, PageBuckets pages, int page) {
+		if (pages.getRoot() != figure)
+			throw new IllegalArgumentException(
+					"Pages were created for another figure"); //$NON-NLS-1$
+		Rectangle bounds = pages.getPageBounds(page);
+		int width = Math.max(1, (int) Math.ceil(bounds.width * scale));
+		int height = Math.max(1, (int) Math.ceil(bounds.height * scale));
+		SVGGraphics graphics = new SVGGraphics(out, width, height);
+		try {
+			if (getBackground() != null) {
+				graphics.setBackgroundColor(getBackground());
+				graphics.fillRectangle(0, 0, width, height);
+			}
+			graphics.scale(scale);
+			graphics.setForegroundColor(figure.getForegroundColor());
+			graphics.setBackgroundColor(figure.getBackgroundColor());
+			graphics.setFont(figure.getFont());
+			pages.paintPage(graphics, page);
+		} finally {
+			graphics.dispose();
+		}
+	}
+
+	private static void copyPixels(ImageData data, int w, int h, byte[] band,
+			int x, int bandWidth) {
+		int[] pixels = new int[w];
+		PaletteData palette = data.palette;
+		for (int row = 0; row < h; row++) {
+			data.getPixels(0, row, w, pixels, 0);
+			int offset = (row * bandWidth + x) * 3;
+			for (int i = 0; i < w; i++) {
+				int pixel = pixels[i];
+				if (palette.isDirect) {
+					band[offset++] = (byte) shift(pixel & palette.redMask,
+							palette.redShift);
+					band[offset++] = (byte) shift(pixel & palette.greenMask,
+							palette.greenShift);
+					band[offset++] = (byte) shift(pixel & palette.blueMask,
+							palette.blueShift);
+				} else {
+					RGB rgb = palette.colors[pixel];
+					band[offset++] = (byte) rgb.red;
+					band[offset++] = (byte) rgb.green;
+					band[offset++] = (byte) rgb.blue;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the color the exported image is filled with before the figure
+	 * is painted. Defaults to the figure's background color.
+	 *
+	 * @return the background color
+	 */
+	public Color getBackground() {
+		if (background != null)
+			return background;
+		return figure.getBackgroundColor();
+	}
+
+	/**
+	 * Returns the size of the exported image, which is the exported region at
+	 * the current scale.
+	 *
+	 * @return the image size in pixels
+	 */
+	public Dimension getImageSize() {
+		Rectangle source = getRegion();
+		return new Dimension(Math.max(1,
+				(int) Math.ceil(source.width * scale)), Math.max(1,
+				(int) Math.ceil(source.height * scale)));
+	}
+
+	/**
+	 * Returns the region of the figure which is exported, in the coordinates
+	 * of the figure's bounds. Defaults to the figure's bounds.
+	 *
+	 * @return the exported region
+	 */
+	public Rectangle getRegion() {
+		if (region != null)
+			return region;
+		return figure.getBounds();
+	}
+
+	/**
+	 * Returns the scale at which the figure is exported.
+	 *
+	 * @return the scale
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * Returns the size of the tiles used for PNG export.
+	 *
+	 * @return the tile size in pixels
+	 */
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	private void paintFigure(Graphics graphics) {
+		graphics.setForegroundColor(figure.getForegroundColor());
+		graphics.setBackgroundColor(figure.getBackgroundColor());
+		graphics.setFont(figure.getFont());
+		graphics.pushState();
+		figure.paint(graphics);
+		graphics.popState();
+	}
+
+	private void paintTile(Image tile, Rectangle source, int x, int y, int w,
+			int h) {
+		GC gc = new GC(tile);
+		SWTGraphics swtGraphics = new SWTGraphics(gc);
+		ScaledGraphics scaledGraphics = null;
+		Graphics graphics = swtGraphics;
+		try {
+			swtGraphics.setBackgroundColor(getBackground());
+			swtGraphics.fillRectangle(0, 0, w, h);
+			swtGraphics.clipRect(new Rectangle(0, 0, w, h));
+			swtGraphics.translate(-x, -y);
+			if (scale != 1.0) {
+				scaledGraphics = new ScaledGraphics(swtGraphics);
+				scaledGraphics.scale(scale);
+				graphics = scaledGraphics;
+			}
+			graphics.translate(-source.x, -source.y);
+			paintFigure(graphics);
+		} finally {
+			if (scaledGraphics != null)
+				scaledGraphics.dispose();
+			swtGraphics.dispose();
+			gc.dispose();
+		}
+	}
+
+	/**
+	 * Sets the color the exported image is filled with before the figure is
+	 * painted. If <code>null</code>, the figure's background color is used.
+	 *
+	 * @param color
+	 *            the background color
+	 */
+	public void setBackground(Color color) {
+		background = color;
+	}
+
+	/**
+	 * Sets the region of the figure to export, in the coordinates of the
+	 * figure's bounds. If <code>null</code>, the figure's bounds are
+	 * exported.
+	 *
+	 * @param region
+	 *            the region to export
+	 */
+	public void setRegion(Rectangle region) {
+		this.region = region == null ? null : region.getCopy();
+	}
+
+	/**
+	 * Sets the scale at which the figure is exported.
+	 *
+	 * @param scale
+	 *            the scale, must be positive
+	 */
+	public void setScale(double scale) {
+		if (scale <= 0)
+			throw new IllegalArgumentException("Scale must be positive"); //$NON-NLS-1$
+		this.scale = scale;
+	}
+
+	/**
+	 * Sets the size of the tiles used for PNG export. Smaller tiles use less
+	 * native memory, larger tiles repaint the figure fewer times.
+	 *
+	 * @param tileSize
+	 *            the tile size in pixels, must be positive
+	 */
+	public void setTileSize(int tileSize) {
+		if (tileSize <= 0)
+			throw new IllegalArgumentException("Tile size must be positive"); //$NON-NLS-1$
+		this.tileSize = tileSize;
+	}
+
+	private static int shift(int value, int shift) {
+		return shift < 0 ? value >>> -shift : value << shift;
+	}
+
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * An incremental encoder for 24-bit RGB PNG images. The image is written one
+ * scanline at a time, so only the scanline being encoded has to be held in
+ * memory, regardless of the size of the image.
+ * <P>
+ * Clients must write exactly <code>height</code> rows using
+ * {@link #writeRow(byte[], int)} and then call {@link #finish()}. The
+ * underlying stream is not closed.
+ * 
+ * @since 3.10
+ */
+public class PNGEncoder {
+
+	private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10,
+			26, 10 };
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Buffers compressed data and emits it as a sequence of IDAT chunks.
+	 */
+	private class ChunkOutputStream extends OutputStream {
+		private final byte[] buffer = new byte[CHUNK_SIZE];
+		private int count;
+
+		public void write(int b) throws IOException {
+			if (count == buffer.length)
+				flushChunk();
+			buffer[count++] = (byte) b;
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (count == buffer.length)
+					flushChunk();
+				int n = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, n);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		void flushChunk() throws IOException {
+			if (count > 0)
+				writeChunk("IDAT", buffer, count); //$NON-NLS-1$
+			count = 0;
+		}
+	}
+
+	private final OutputStream out;
+	private final int width;
+	private final int height;
+	private final ChunkOutputStream chunks = new ChunkOutputStream();
+	private final Deflater deflater;
+	private final DeflaterOutputStream compressed;
+	private final CRC32 crc = new CRC32();
+	private int rows;
+
+	/**
+	 * Creates an encoder and writes the PNG header to the given stream.
+	 * 
+	 * @param out
+	 *            the stream to write to
+	 * @param width
+	 *            the image width in pixels
+	 * @param height
+	 *            the image height in pixels
+	 * @throws IOException
+	 *             if the header could not be written
+	 */
+	public PNGEncoder(OutputStream out, int width, int height)
+			throws IOException {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Invalid image size"); //$NON-NLS-1$
+		this.out = out;
+		this.width = width;
+		this.height = height;
+		deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		compressed = new DeflaterOutputStream(chunks, deflater, CHUNK_SIZE);
+
+		out.write(SIGNATURE);
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8; // bit depth
+		header[9] = 2; // color type: RGB
+		header[10] = 0; // compression: deflate
+		header[11] = 0; // filter: adaptive
+		header[12] = 0; // interlace: none
+		writeChunk("IHDR", header, header.length); //$NON-NLS-1$
+	}
+
+	/**
+	 * Completes the image. All rows must have been written.
+	 * 
+	 * @throws IOException
+	 *             if the image could not be written
+	 */
+	public void finish() throws IOException {
+		if (rows != height)
+			throw new IllegalStateException("Only " + rows + " of " + height //$NON-NLS-1$ //$NON-NLS-2$
+					+ " rows written"); //$NON-NLS-1$
+		compressed.finish();
+		deflater.end();
+		chunks.flushChunk();
+		writeChunk("IEND", new byte[0], 0); //$NON-NLS-1$
+		out.flush();
+	}
+
+	/**
+	 * Returns the height of the image.
+	 * 
+	 * @return the height in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the width of the image.
+	 * 
+	 * @return the width in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	private static void putInt(byte[] b, int offset, int value) {
+		b[offset] = (byte) (value >>> 24);
+		b[offset + 1] = (byte) (value >>> 16);
+		b[offset + 2] = (byte) (value >>> 8);
+		b[offset + 3] = (byte) value;
+	}
+
+	private void writeChunk(String type, byte[] data, int length)
+			throws IOException {
+		byte[] word = new byte[4];
+		putInt(word, 0, length);
+		out.write(word);
+		byte[] typeBytes = type.getBytes("US-ASCII"); //$NON-NLS-1$
+		out.write(typeBytes);
+		out.write(data, 0, length);
+		crc.reset();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		putInt(word, 0, (int) crc.getValue());
+		out.write(word);
+	}
+
+	/**
+	 * Writes the next scanline of the image.
+	 * 
+	 * @param rgb
+	 *            the pixel data, three bytes (red, green, blue) per pixel
+	 * @param offset
+	 *            the offset of the scanline's first byte in the array
+	 * @throws IOException
+	 *             if the row could not be written
+	 */
+	public void writeRow(byte[] rgb, int offset) throws IOException {
+		if (rows == height)
+			throw new IllegalStateException("All rows have been written"); //$NON-NLS-1$
+		compressed.write(0); // filter type: none
+		compressed.write(rgb, offset, width * 3);
+		rows++;
+	}
+
+}
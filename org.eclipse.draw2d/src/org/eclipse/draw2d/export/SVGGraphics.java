@@ -0,0 +1,919 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.FontMetrics;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.graphics.Path;
+import org.eclipse.swt.graphics.PathData;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.draw2d.ColorConstants;
+import org.eclipse.draw2d.FigureUtilities;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.PointList;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+/**
+ * A <code>Graphics</code> which writes Scalable Vector Graphics (SVG) markup
+ * to a <code>Writer</code> instead of rendering pixels. Every graphics call is
+ * written out immediately, so the memory used does not depend on the size of
+ * the painted figures. Images are embedded as PNG data once and referenced
+ * wherever they are drawn again.
+ * <P>
+ * Translation and scaling are applied to the written coordinates. The clip is
+ * limited to rectangles. XOR mode, patterns and non-rectangular clipping are
+ * not supported and are ignored.
+ * <P>
+ * The document is completed by {@link #dispose()}. Errors writing to the
+ * underlying writer are reported as {@link SWT#ERROR_IO} exceptions.
+ *
+ * @since 3.10
+ */
+public class SVGGraphics extends Graphics {
+
+	private static class State implements Cloneable {
+		double translateX;
+		double translateY;
+		double scale = 1.0;
+		double clipLeft, clipTop, clipRight, clipBottom;
+		Color fgColor;
+		Color bgColor;
+		Font font;
+		float lineWidth = 1;
+		int lineStyle = SWT.LINE_SOLID;
+		int lineCap = SWT.CAP_FLAT;
+		int lineJoin = SWT.JOIN_MITER;
+		float miterLimit = 10;
+		float[] dash;
+		int alpha = 255;
+		boolean xorMode;
+
+		State getCopy() {
+			try {
+				return (State) clone();
+			} catch (CloneNotSupportedException e) {
+				throw new RuntimeException(e.getMessage());
+			}
+		}
+	}
+
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray(); //$NON-NLS-1$
+
+	private final Writer out;
+	private State state = new State();
+	private final List stack = new ArrayList();
+	private int stackPointer;
+	private final Map imageIds = new HashMap();
+	private int nextId;
+	private String openClip;
+	private boolean disposed;
+
+	/**
+	 * Creates a new SVG graphics and writes the document header.
+	 *
+	 * @param out
+	 *            the writer receiving the SVG markup
+	 * @param width
+	 *            the width of the document
+	 * @param height
+	 *            the height of the document
+	 */
+	public SVGGraphics(Writer out, int width, int height) {
+		this.out = out;
+		state.clipRight = width;
+		state.clipBottom = height;
+		Display display = Display.getCurrent();
+		state.fgColor = display != null ? display
+				.getSystemColor(SWT.COLOR_WIDGET_FOREGROUND)
+				: ColorConstants.black;
+		state.bgColor = display != null ? display
+				.getSystemColor(SWT.COLOR_WIDGET_BACKGROUND)
+				: ColorConstants.white;
+		state.font = display != null ? display.getSystemFont() : null;
+		write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"); //$NON-NLS-1$
+		write("<svg xmlns=\"http://www.w3.org/2000/svg\"" //$NON-NLS-1$
+				+ " xmlns:xlink=\"http://www.w3.org/1999/xlink\" version=\"1.1\"" //$NON-NLS-1$
+				+ " width=\"" + width + "\" height=\"" + height //$NON-NLS-1$ //$NON-NLS-2$
+				+ "\" viewBox=\"0 0 " + width + " " + height + "\">\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * @see Graphics#clipRect(Rectangle)
+	 */
+	public void clipRect(Rectangle r) {
+		state.clipLeft = Math.max(state.clipLeft, tx(r.x));
+		state.clipTop = Math.max(state.clipTop, ty(r.y));
+		state.clipRight = Math.min(state.clipRight, tx(r.x + r.width));
+		state.clipBottom = Math.min(state.clipBottom, ty(r.y + r.height));
+	}
+
+	/**
+	 * Completes the SVG document. The writer is flushed but not closed.
+	 *
+	 * @see Graphics#dispose()
+	 */
+	public void dispose() {
+		if (disposed)
+			return;
+		disposed = true;
+		closeClip();
+		write("</svg>\n"); //$NON-NLS-1$
+		try {
+			out.flush();
+		} catch (IOException e) {
+			SWT.error(SWT.ERROR_IO, e);
+		}
+	}
+
+	/**
+	 * @see Graphics#drawArc(int, int, int, int, int, int)
+	 */
+	public void drawArc(int x, int y, int w, int h, int offset, int length) {
+		if (Math.abs(length) >= 360) {
+			drawOval(x, y, w, h);
+			return;
+		}
+		element("path", "d=\"" + arc(x, y, w, h, offset, length, false) //$NON-NLS-1$ //$NON-NLS-2$
+				+ "\"" + stroke()); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#drawFocus(int, int, int, int)
+	 */
+	public void drawFocus(int x, int y, int w, int h) {
+		element("rect", rect(x, y, w, h) + " fill=\"none\" stroke=\"" //$NON-NLS-1$ //$NON-NLS-2$
+				+ color(state.fgColor) + "\" stroke-dasharray=\"1,1\""); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#drawImage(Image, int, int)
+	 */
+	public void drawImage(Image srcImage, int x, int y) {
+		org.eclipse.swt.graphics.Rectangle b = srcImage.getBounds();
+		drawImage(srcImage, 0, 0, b.width, b.height, x, y, b.width, b.height);
+	}
+
+	/**
+	 * @see Graphics#drawImage(Image, int, int, int, int, int, int, int, int)
+	 */
+	public void drawImage(Image srcImage, int x1, int y1, int w1, int h1,
+			int x2, int y2, int w2, int h2) {
+		String id = getImageId(srcImage);
+		element("svg", "x=\"" + num(tx(x2)) + "\" y=\"" + num(ty(y2)) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "\" width=\"" + num(w2 * state.scale) + "\" height=\"" //$NON-NLS-1$ //$NON-NLS-2$
+				+ num(h2 * state.scale) + "\" viewBox=\"" + x1 + " " + y1 //$NON-NLS-1$ //$NON-NLS-2$
+				+ " " + w1 + " " + h1 + "\" preserveAspectRatio=\"none\"" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ opacity(), "<use xlink:href=\"#" + id + "\"/>"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * @see Graphics#drawLine(int, int, int, int)
+	 */
+	public void drawLine(int x1, int y1, int x2, int y2) {
+		element("line", "x1=\"" + num(tx(x1)) + "\" y1=\"" + num(ty(y1)) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ "\" x2=\"" + num(tx(x2)) + "\" y2=\"" + num(ty(y2)) + "\"" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ stroke());
+	}
+
+	/**
+	 * @see Graphics#drawOval(int, int, int, int)
+	 */
+	public void drawOval(int x, int y, int w, int h) {
+		element("ellipse", ellipse(x, y, w, h) + stroke()); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#drawPath(Path)
+	 */
+	public void drawPath(Path path) {
+		element("path", "d=\"" + path(path) + "\"" + stroke()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * @see Graphics#drawPoint(int, int)
+	 */
+	public void drawPoint(int x, int y) {
+		element("rect", rect(x, y, 1, 1) + fill(state.fgColor)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#drawPolygon(PointList)
+	 */
+	public void drawPolygon(PointList points) {
+		element("polygon", points(points) + stroke()); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#drawPolyline(PointList)
+	 */
+	public void drawPolyline(PointList points) {
+		element("polyline", points(points) + stroke()); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#drawRectangle(int, int, int, int)
+	 */
+	public void drawRectangle(int x, int y, int width, int height) {
+		element("rect", rect(x, y, width, height) + stroke()); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#drawRoundRectangle(Rectangle, int, int)
+	 */
+	public void drawRoundRectangle(Rectangle r, int arcWidth, int arcHeight) {
+		element("rect", rect(r.x, r.y, r.width, r.height) //$NON-NLS-1$
+				+ corners(arcWidth, arcHeight) + stroke());
+	}
+
+	/**
+	 * @see Graphics#drawString(String, int, int)
+	 */
+	public void drawString(String s, int x, int y) {
+		text(s, x, y, false);
+	}
+
+	/**
+	 * @see Graphics#drawText(String, int, int)
+	 */
+	public void drawText(String s, int x, int y) {
+		text(s, x, y, true);
+	}
+
+	/**
+	 * @see Graphics#fillArc(int, int, int, int, int, int)
+	 */
+	public void fillArc(int x, int y, int w, int h, int offset, int length) {
+		if (Math.abs(length) >= 360) {
+			fillOval(x, y, w, h);
+			return;
+		}
+		element("path", "d=\"" + arc(x, y, w, h, offset, length, true) //$NON-NLS-1$ //$NON-NLS-2$
+				+ "\"" + fill(state.bgColor)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#fillGradient(int, int, int, int, boolean)
+	 */
+	public void fillGradient(int x, int y, int w, int h, boolean vertical) {
+		String id = "g" + nextId++; //$NON-NLS-1$
+		write("<defs><linearGradient id=\"" + id + "\" x1=\"0\" y1=\"0\" x2=\"" //$NON-NLS-1$ //$NON-NLS-2$
+				+ (vertical ? "0" : "1") + "\" y2=\"" + (vertical ? "1" : "0") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+				+ "\"><stop offset=\"0\" stop-color=\"" + color(state.fgColor) //$NON-NLS-1$
+				+ "\"/><stop offset=\"1\" stop-color=\"" //$NON-NLS-1$
+				+ color(state.bgColor) + "\"/></linearGradient></defs>\n"); //$NON-NLS-1$
+		element("rect", rect(x, y, w, h) + " fill=\"url(#" + id + ")\"" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ opacity());
+	}
+
+	/**
+	 * @see Graphics#fillOval(int, int, int, int)
+	 */
+	public void fillOval(int x, int y, int w, int h) {
+		element("ellipse", ellipse(x, y, w, h) + fill(state.bgColor)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#fillPath(Path)
+	 */
+	public void fillPath(Path path) {
+		element("path", "d=\"" + path(path) + "\"" + fill(state.bgColor)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * @see Graphics#fillPolygon(PointList)
+	 */
+	public void fillPolygon(PointList points) {
+		element("polygon", points(points) + fill(state.bgColor)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#fillRectangle(int, int, int, int)
+	 */
+	public void fillRectangle(int x, int y, int width, int height) {
+		element("rect", rect(x, y, width, height) + fill(state.bgColor)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @see Graphics#fillRoundRectangle(Rectangle, int, int)
+	 */
+	public void fillRoundRectangle(Rectangle r, int arcWidth, int arcHeight) {
+		element("rect", rect(r.x, r.y, r.width, r.height) //$NON-NLS-1$
+				+ corners(arcWidth, arcHeight) + fill(state.bgColor));
+	}
+
+	/**
+	 * @see Graphics#fillString(String, int, int)
+	 */
+	public void fillString(String s, int x, int y) {
+		Dimension extent = FigureUtilities.getStringExtents(s, getFont());
+		fillRectangle(x, y, extent.width, extent.height);
+		drawString(s, x, y);
+	}
+
+	/**
+	 * @see Graphics#fillText(String, int, int)
+	 */
+	public void fillText(String s, int x, int y) {
+		Dimension extent = FigureUtilities.getTextExtents(s, getFont());
+		fillRectangle(x, y, extent.width, extent.height);
+		drawText(s, x, y);
+	}
+
+	/**
+	 * @see Graphics#getAbsoluteScale()
+	 */
+	public double getAbsoluteScale() {
+		return state.scale;
+	}
+
+	/**
+	 * @see Graphics#getAlpha()
+	 */
+	public int getAlpha() {
+		return state.alpha;
+	}
+
+	/**
+	 * @see Graphics#getBackgroundColor()
+	 */
+	public Color getBackgroundColor() {
+		return state.bgColor;
+	}
+
+	/**
+	 * @see Graphics#getClip(Rectangle)
+	 */
+	public Rectangle getClip(Rectangle rect) {
+		double left = (state.clipLeft - state.translateX) / state.scale;
+		double top = (state.clipTop - state.translateY) / state.scale;
+		double right = (state.clipRight - state.translateX) / state.scale;
+		double bottom = (state.clipBottom - state.translateY) / state.scale;
+		rect.x = (int) Math.floor(left);
+		rect.y = (int) Math.floor(top);
+		rect.width = Math.max(0, (int) Math.ceil(right) - rect.x);
+		rect.height = Math.max(0, (int) Math.ceil(bottom) - rect.y);
+		return rect;
+	}
+
+	/**
+	 * @see Graphics#getFont()
+	 */
+	public Font getFont() {
+		return state.font;
+	}
+
+	/**
+	 * @see Graphics#getFontMetrics()
+	 */
+	public FontMetrics getFontMetrics() {
+		return FigureUtilities.getFontMetrics(getFont());
+	}
+
+	/**
+	 * @see Graphics#getForegroundColor()
+	 */
+	public Color getForegroundColor() {
+		return state.fgColor;
+	}
+
+	/**
+	 * @see Graphics#getLineCap()
+	 */
+	public int getLineCap() {
+		return state.lineCap;
+	}
+
+	/**
+	 * @see Graphics#getLineJoin()
+	 */
+	public int getLineJoin() {
+		return state.lineJoin;
+	}
+
+	/**
+	 * @see Graphics#getLineMiterLimit()
+	 */
+	public float getLineMiterLimit() {
+		return state.miterLimit;
+	}
+
+	/**
+	 * @see Graphics#getLineStyle()
+	 */
+	public int getLineStyle() {
+		return state.lineStyle;
+	}
+
+	/**
+	 * @see Graphics#getLineWidth()
+	 */
+	public int getLineWidth() {
+		return (int) state.lineWidth;
+	}
+
+	/**
+	 * @see Graphics#getLineWidthFloat()
+	 */
+	public float getLineWidthFloat() {
+		return state.lineWidth;
+	}
+
+	/**
+	 * @see Graphics#getXORMode()
+	 */
+	public boolean getXORMode() {
+		return state.xorMode;
+	}
+
+	/**
+	 * @see Graphics#popState()
+	 */
+	public void popState() {
+		stackPointer--;
+		restoreState();
+		stack.remove(stackPointer);
+	}
+
+	/**
+	 * @see Graphics#pushState()
+	 */
+	public void pushState() {
+		stack.add(state.getCopy());
+		stackPointer++;
+	}
+
+	/**
+	 * @see Graphics#restoreState()
+	 */
+	public void restoreState() {
+		state = ((State) stack.get(stackPointer - 1)).getCopy();
+	}
+
+	/**
+	 * @see Graphics#scale(double)
+	 */
+	public void scale(double amount) {
+		state.scale *= amount;
+	}
+
+	/**
+	 * @see Graphics#setAlpha(int)
+	 */
+	public void setAlpha(int alpha) {
+		state.alpha = alpha;
+	}
+
+	/**
+	 * @see Graphics#setBackgroundColor(Color)
+	 */
+	public void setBackgroundColor(Color rgb) {
+		state.bgColor = rgb;
+	}
+
+	/**
+	 * @see Graphics#setClip(Rectangle)
+	 */
+	public void setClip(Rectangle r) {
+		state.clipLeft = tx(r.x);
+		state.clipTop = ty(r.y);
+		state.clipRight = tx(r.x + r.width);
+		state.clipBottom = ty(r.y + r.height);
+	}
+
+	/**
+	 * @see Graphics#setFont(Font)
+	 */
+	public void setFont(Font f) {
+		state.font = f;
+	}
+
+	/**
+	 * @see Graphics#setForegroundColor(Color)
+	 */
+	public void setForegroundColor(Color rgb) {
+		state.fgColor = rgb;
+	}
+
+	/**
+	 * @see Graphics#setLineCap(int)
+	 */
+	public void setLineCap(int cap) {
+		state.lineCap = cap;
+	}
+
+	/**
+	 * @see Graphics#setLineDash(float[])
+	 */
+	public void setLineDash(float[] value) {
+		state.dash = value == null ? null : (float[]) value.clone();
+		state.lineStyle = value == null ? SWT.LINE_SOLID : SWT.LINE_CUSTOM;
+	}
+
+	/**
+	 * @see Graphics#setLineDash(int[])
+	 */
+	public void setLineDash(int[] dash) {
+		if (dash == null) {
+			setLineDash((float[]) null);
+			return;
+		}
+		float[] value = new float[dash.length];
+		for (int i = 0; i < dash.length; i++)
+			value[i] = dash[i];
+		setLineDash(value);
+	}
+
+	/**
+	 * @see Graphics#setLineJoin(int)
+	 */
+	public void setLineJoin(int join) {
+		state.lineJoin = join;
+	}
+
+	/**
+	 * @see Graphics#setLineMiterLimit(float)
+	 */
+	public void setLineMiterLimit(float miterLimit) {
+		state.miterLimit = miterLimit;
+	}
+
+	/**
+	 * @see Graphics#setLineStyle(int)
+	 */
+	public void setLineStyle(int style) {
+		state.lineStyle = style;
+	}
+
+	/**
+	 * @see Graphics#setLineWidth(int)
+	 */
+	public void setLineWidth(int width) {
+		state.lineWidth = width;
+	}
+
+	/**
+	 * @see Graphics#setLineWidthFloat(float)
+	 */
+	public void setLineWidthFloat(float width) {
+		state.lineWidth = width;
+	}
+
+	/**
+	 * Ignored, since SVG has no equivalent of XOR painting.
+	 *
+	 * @see Graphics#setXORMode(boolean)
+	 */
+	public void setXORMode(boolean b) {
+		state.xorMode = b;
+	}
+
+	/**
+	 * @see Graphics#translate(int, int)
+	 */
+	public void translate(int dx, int dy) {
+		translate((float) dx, (float) dy);
+	}
+
+	/**
+	 * @see Graphics#translate(float, float)
+	 */
+	public void translate(float dx, float dy) {
+		state.translateX += dx * state.scale;
+		state.translateY += dy * state.scale;
+	}
+
+	private String arc(int x, int y, int w, int h, int offset, int length,
+			boolean pie) {
+		double rx = w * state.scale / 2;
+		double ry = h * state.scale / 2;
+		double cx = tx(x) + rx;
+		double cy = ty(y) + ry;
+		double start = Math.toRadians(offset);
+		double end = Math.toRadians(offset + length);
+		StringBuffer d = new StringBuffer();
+		if (pie)
+			d.append("M").append(num(cx)).append(' ').append(num(cy)).append(" L"); //$NON-NLS-1$ //$NON-NLS-2$
+		else
+			d.append("M"); //$NON-NLS-1$
+		d.append(num(cx + rx * Math.cos(start))).append(' ')
+				.append(num(cy - ry * Math.sin(start)));
+		// positive angles are counter-clockwise, which is sweep-flag 0 in SVG
+		d.append(" A").append(num(rx)).append(' ').append(num(ry)) //$NON-NLS-1$
+				.append(" 0 ").append(Math.abs(length) > 180 ? '1' : '0') //$NON-NLS-1$
+				.append(' ').append(length > 0 ? '0' : '1').append(' ')
+				.append(num(cx + rx * Math.cos(end))).append(' ')
+				.append(num(cy - ry * Math.sin(end)));
+		if (pie)
+			d.append(" Z"); //$NON-NLS-1$
+		return d.toString();
+	}
+
+	private static String color(Color c) {
+		if (c == null)
+			return "none"; //$NON-NLS-1$
+		String hex = Integer.toHexString((c.getRed() << 16)
+				| (c.getGreen() << 8) | c.getBlue() | 0x1000000);
+		return "#" + hex.substring(1); //$NON-NLS-1$
+	}
+
+	private String corners(int arcWidth, int arcHeight) {
+		return " rx=\"" + num(arcWidth * state.scale / 2) + "\" ry=\"" //$NON-NLS-1$ //$NON-NLS-2$
+				+ num(arcHeight * state.scale / 2) + "\""; //$NON-NLS-1$
+	}
+
+	private String dashArray() {
+		float[] pattern;
+		switch (state.lineStyle) {
+		case SWT.LINE_DASH:
+			pattern = new float[] { 18, 6 };
+			break;
+		case SWT.LINE_DOT:
+			pattern = new float[] { 3, 3 };
+			break;
+		case SWT.LINE_DASHDOT:
+			pattern = new float[] { 9, 6, 3, 6 };
+			break;
+		case SWT.LINE_DASHDOTDOT:
+			pattern = new float[] { 9, 3, 3, 3, 3, 3 };
+			break;
+		case SWT.LINE_CUSTOM:
+			if (state.dash != null) {
+				pattern = state.dash;
+				break;
+			}
+			return ""; //$NON-NLS-1$
+		default:
+			return ""; //$NON-NLS-1$
+		}
+		double unit = state.lineStyle == SWT.LINE_CUSTOM ? state.scale
+				: Math.max(1, state.lineWidth) * state.scale;
+		StringBuffer buffer = new StringBuffer(" stroke-dasharray=\""); //$NON-NLS-1$
+		for (int i = 0; i < pattern.length; i++) {
+			if (i > 0)
+				buffer.append(',');
+			buffer.append(num(pattern[i] * unit));
+		}
+		return buffer.append('"').toString();
+	}
+
+	/**
+	 * Writes a drawing element, switching the clip group first if the clip
+	 * has changed since the last element.
+	 */
+	private void element(String name, String attributes) {
+		element(name, attributes, null);
+	}
+
+	private void element(String name, String attributes, String content) {
+		if (state.clipRight <= state.clipLeft
+				|| state.clipBottom <= state.clipTop)
+			return;
+		String x = num(state.clipLeft), y = num(state.clipTop);
+		String w = num(state.clipRight - state.clipLeft);
+		String h = num(state.clipBottom - state.clipTop);
+		String clip = x + ' ' + y + ' ' + w + ' ' + h;
+		if (!clip.equals(openClip)) {
+			closeClip();
+			String id = "c" + nextId++; //$NON-NLS-1$
+			write("<clipPath id=\"" + id + "\"><rect x=\"" + x + "\" y=\"" + y //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ "\" width=\"" + w + "\" height=\"" + h //$NON-NLS-1$ //$NON-NLS-2$
+					+ "\"/></clipPath>\n<g clip-path=\"url(#" + id + ")\">\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			openClip = clip;
+		}
+		if (content == null)
+			write("<" + name + " " + attributes + "/>\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		else
+			write("<" + name + " " + attributes + ">" + content + "</" + name //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+					+ ">\n"); //$NON-NLS-1$
+	}
+
+	private void closeClip() {
+		if (openClip != null)
+			write("</g>\n"); //$NON-NLS-1$
+		openClip = null;
+	}
+
+	private String ellipse(int x, int y, int w, int h) {
+		double rx = w * state.scale / 2;
+		double ry = h * state.scale / 2;
+		return "cx=\"" + num(tx(x) + rx) + "\" cy=\"" + num(ty(y) + ry) //$NON-NLS-1$ //$NON-NLS-2$
+				+ "\" rx=\"" + num(rx) + "\" ry=\"" + num(ry) + "\""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private static String escape(String s) {
+		StringBuffer buffer = new StringBuffer(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '<':
+				buffer.append("&lt;"); //$NON-NLS-1$
+				break;
+			case '>':
+				buffer.append("&gt;"); //$NON-NLS-1$
+				break;
+			case '&':
+				buffer.append("&amp;"); //$NON-NLS-1$
+				break;
+			case '"':
+				buffer.append("&quot;"); //$NON-NLS-1$
+				break;
+			default:
+				if (c >= ' ' || c == '\t')
+					buffer.append(c);
+			}
+		}
+		return buffer.toString();
+	}
+
+	private String fill(Color color) {
+		return " fill=\"" + color(color) + "\" stroke=\"none\"" + opacity(); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private String getImageId(Image image) {
+		String id = (String) imageIds.get(image);
+		if (id != null)
+			return id;
+		id = "i" + nextId++; //$NON-NLS-1$
+		ImageData data = image.getImageData();
+		ImageLoader loader = new ImageLoader();
+		loader.data = new ImageData[] { data };
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		loader.save(png, SWT.IMAGE_PNG);
+		write("<defs><image id=\"" + id + "\" width=\"" + data.width //$NON-NLS-1$ //$NON-NLS-2$
+				+ "\" height=\"" + data.height //$NON-NLS-1$
+				+ "\" xlink:href=\"data:image/png;base64,"); //$NON-NLS-1$
+		byte[] bytes = png.toByteArray();
+		char[] quad = new char[4];
+		for (int i = 0; i < bytes.length; i += 3) {
+			int b = (bytes[i] & 0xFF) << 16;
+			if (i + 1 < bytes.length)
+				b |= (bytes[i + 1] & 0xFF) << 8;
+			if (i + 2 < bytes.length)
+				b |= bytes[i + 2] & 0xFF;
+			quad[0] = BASE64[(b >> 18) & 0x3F];
+			quad[1] = BASE64[(b >> 12) & 0x3F];
+			quad[2] = i + 1 < bytes.length ? BASE64[(b >> 6) & 0x3F] : '=';
+			quad[3] = i + 2 < bytes.length ? BASE64[b & 0x3F] : '=';
+			write(new String(quad));
+		}
+		write("\"/></defs>\n"); //$NON-NLS-1$
+		imageIds.put(image, id);
+		return id;
+	}
+
+	private static String num(double value) {
+		long rounded = Math.round(value * 100);
+		if (rounded % 100 == 0)
+			return Long.toString(rounded / 100);
+		return Double.toString(rounded / 100.0);
+	}
+
+	private String opacity() {
+		if (state.alpha == 255)
+			return ""; //$NON-NLS-1$
+		return " opacity=\"" + num(state.alpha / 255.0) + "\""; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private String path(Path path) {
+		PathData data = path.getPathData();
+		StringBuffer d = new StringBuffer();
+		int index = 0;
+		float[] p = data.points;
+		for (int i = 0; i < data.types.length; i++) {
+			switch (data.types[i]) {
+			case SWT.PATH_MOVE_TO:
+				d.append('M').append(num(tx(p[index]))).append(' ')
+						.append(num(ty(p[index + 1]))).append(' ');
+				index += 2;
+				break;
+			case SWT.PATH_LINE_TO:
+				d.append('L').append(num(tx(p[index]))).append(' ')
+						.append(num(ty(p[index + 1]))).append(' ');
+				index += 2;
+				break;
+			case SWT.PATH_CUBIC_TO:
+				d.append('C');
+				for (int j = 0; j < 6; j += 2)
+					d.append(num(tx(p[index + j]))).append(' ')
+							.append(num(ty(p[index + j + 1]))).append(' ');
+				index += 6;
+				break;
+			case SWT.PATH_QUAD_TO:
+				d.append('Q');
+				for (int j = 0; j < 4; j += 2)
+					d.append(num(tx(p[index + j]))).append(' ')
+							.append(num(ty(p[index + j + 1]))).append(' ');
+				index += 4;
+				break;
+			case SWT.PATH_CLOSE:
+				d.append("Z "); //$NON-NLS-1$
+				break;
+			}
+		}
+		return d.toString().trim();
+	}
+
+	private String points(PointList points) {
+		StringBuffer buffer = new StringBuffer("points=\""); //$NON-NLS-1$
+		int[] p = points.toIntArray();
+		for (int i = 0; i < points.size() * 2; i += 2) {
+			if (i > 0)
+				buffer.append(' ');
+			buffer.append(num(tx(p[i]))).append(',').append(num(ty(p[i + 1])));
+		}
+		return buffer.append('"').toString();
+	}
+
+	private String rect(int x, int y, int w, int h) {
+		return "x=\"" + num(tx(x)) + "\" y=\"" + num(ty(y)) + "\" width=\"" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ num(w * state.scale) + "\" height=\"" + num(h * state.scale) //$NON-NLS-1$
+				+ "\""; //$NON-NLS-1$
+	}
+
+	private String stroke() {
+		StringBuffer buffer = new StringBuffer(" fill=\"none\" stroke=\""); //$NON-NLS-1$
+		buffer.append(color(state.fgColor)).append("\" stroke-width=\"") //$NON-NLS-1$
+				.append(num(Math.max(1, state.lineWidth) * state.scale))
+				.append('"');
+		if (state.lineCap == SWT.CAP_ROUND)
+			buffer.append(" stroke-linecap=\"round\""); //$NON-NLS-1$
+		else if (state.lineCap == SWT.CAP_SQUARE)
+			buffer.append(" stroke-linecap=\"square\""); //$NON-NLS-1$
+		if (state.lineJoin == SWT.JOIN_ROUND)
+			buffer.append(" stroke-linejoin=\"round\""); //$NON-NLS-1$
+		else if (state.lineJoin == SWT.JOIN_BEVEL)
+			buffer.append(" stroke-linejoin=\"bevel\""); //$NON-NLS-1$
+		buffer.append(dashArray()).append(opacity());
+		return buffer.toString();
+	}
+
+	private void text(String s, int x, int y, boolean expandTabs) {
+		Font font = getFont();
+		if (font == null || s.length() == 0)
+			return;
+		FontData data = font.getFontData()[0];
+		FontMetrics metrics = FigureUtilities.getFontMetrics(font);
+		double size = data.getHeight() * font.getDevice().getDPI().y / 72.0
+				* state.scale;
+		StringBuffer style = new StringBuffer();
+		style.append("font-family=\"").append(escape(data.getName())) //$NON-NLS-1$
+				.append("\" font-size=\"").append(num(size)).append('"'); //$NON-NLS-1$
+		if ((data.getStyle() & SWT.BOLD) != 0)
+			style.append(" font-weight=\"bold\""); //$NON-NLS-1$
+		if ((data.getStyle() & SWT.ITALIC) != 0)
+			style.append(" font-style=\"italic\""); //$NON-NLS-1$
+		style.append(" xml:space=\"preserve\"").append(fill(state.fgColor)); //$NON-NLS-1$
+
+		String[] lines = expandTabs ? s.split("\r\n|\r|\n") : new String[] { s }; //$NON-NLS-1$
+		int baseline = y + metrics.getLeading() + metrics.getAscent();
+		for (int i = 0; i < lines.length; i++) {
+			String line = lines[i];
+			if (expandTabs)
+				line = line.replaceAll("\t", "        "); //$NON-NLS-1$ //$NON-NLS-2$
+			element("text", "x=\"" + num(tx(x)) + "\" y=\"" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ num(ty(baseline + i * metrics.getHeight())) + "\" " //$NON-NLS-1$
+					+ style, escape(line));
+		}
+	}
+
+	private double tx(double x) {
+		return x * state.scale + state.translateX;
+	}
+
+	private double ty(double y) {
+		return y * state.scale + state.translateY;
+	}
+
+	private void write(String s) {
+		try {
+			out.write(s);
+		} catch (IOException e) {
+			SWT.error(SWT.ERROR_IO, e);
+		}
+	}
+
+}
@@ -126,21 +126,38 @@ public class Geometry {
 	}
 
 	/**
-	 * @return true if the least distance between point (px,py) and segment
-	 *         (x1,y1) - (x2,y2) is less then specified tolerance
+	 * Returns <code>true</code> if the least distance between the point
+	 * (px,py) and the segment (x1,y1) - (x2,y2) is not more than the specified
+	 * tolerance.
+	 * 
+	 * @param x1
+	 *            the x coordinate of the segment's start
+	 * @param y1
+	 *            the y coordinate of the segment's start
+	 * @param x2
+	 *            the x coordinate of the segment's end
+	 * @param y2
+	 *            the y coordinate of the segment's end
+	 * @param px
+	 *            the x coordinate of the point
+	 * @param py
+	 *            the y coordinate of the point
+	 * @param tolerance
+	 *            the tolerance
+	 * @return <code>true</code> if the point is within the tolerance of the
+	 *         segment
+	 * @since 3.10
 	 */
-	private static boolean segmentContainsPoint(int x1, int y1, int x2, int y2,
+	public static boolean segmentContainsPoint(int x1, int y1, int x2, int y2,
 			int px, int py, int tolerance) {
 		/*
 		 * Point should be located inside Rectangle(x1 -+ tolerance, y1 -+
 		 * tolerance, x2 +- tolerance, y2 +- tolerance)
 		 */
-		Rectangle lineBounds = Rectangle.SINGLETON;
-		lineBounds.setSize(0, 0);
-		lineBounds.setLocation(x1, y1);
-		lineBounds.union(x2, y2);
-		lineBounds.expand(tolerance, tolerance);
-		if (!lineBounds.contains(px, py)) {
+		if (px < Math.min(x1, x2) - tolerance
+				|| px > Math.max(x1, x2) + tolerance
+				|| py < Math.min(y1, y2) - tolerance
+				|| py > Math.max(y1, y2) + tolerance) {
 			return false;
 		}
 
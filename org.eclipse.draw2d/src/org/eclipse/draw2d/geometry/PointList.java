@@ -119,9 +119,9 @@ public class PointList implements java.io.Serializable, Translatable {
 			return bounds;
 		bounds = new Rectangle();
 		if (size > 0) {
-			bounds.setLocation(getPoint(0));
-			for (int i = 0; i < size; i++)
-				bounds.union(getPoint(i));
+			bounds.setLocation(points[0], points[1]);
+			for (int i = 0; i < size * 2; i += 2)
+				bounds.union(points[i], points[i + 1]);
 		}
 		return bounds;
 	}
@@ -262,16 +262,38 @@ public class PointList implements java.io.Serializable, Translatable {
 	 * @since 3.1
 	 */
 	public boolean intersects(Rectangle r) {
-		if (r.isEmpty())
+		return intersects(r.x, r.y, r.width, r.height);
+	}
+
+	/**
+	 * Checks whether any of the line segments represented by this PointList
+	 * intersect the rectangle with the given location and size. Works like
+	 * {@link #intersects(Rectangle)} without requiring a
+	 * <code>Rectangle</code>.
+	 * 
+	 * @param x
+	 *            the x coordinate of the rectangle
+	 * @param y
+	 *            the y coordinate of the rectangle
+	 * @param width
+	 *            the width of the rectangle
+	 * @param height
+	 *            the height of the rectangle
+	 * @return <code>true</code> if the given rectangle intersects any of the
+	 *         line segments represented by this PointList
+	 * @since 3.10
+	 */
+	public boolean intersects(int x, int y, int width, int height) {
+		if (width <= 0 || height <= 0)
 			return false;
 		for (int i = 0; i < size * 2; i += 2) {
-			if (r.contains(points[i], points[i + 1]))
+			if (points[i] >= x && points[i + 1] >= y
+					&& points[i] < x + width && points[i + 1] < y + height)
 				return true;
 		}
-		int diagonal1x1 = r.x, diagonal1y1 = r.y, diagonal1x2 = r.x + r.width
-				- 1, diagonal1y2 = r.y + r.height - 1, diagonal2x1 = r.x
-				+ r.width - 1, diagonal2y1 = r.y, diagonal2x2 = r.x, diagonal2y2 = r.y
-				+ r.height - 1;
+		int diagonal1x1 = x, diagonal1y1 = y, diagonal1x2 = x + width - 1;
+		int diagonal1y2 = y + height - 1, diagonal2x1 = x + width - 1;
+		int diagonal2y1 = y, diagonal2x2 = x, diagonal2y2 = y + height - 1;
 		for (int i = 0; i < (size - 1) * 2; i += 2) {
 			if (Geometry.linesIntersect(diagonal1x1, diagonal1y1, diagonal1x2,
 					diagonal1y2, points[i], points[i + 1], points[i + 2],
@@ -299,6 +299,16 @@ public final class PrecisionRectangle extends Rectangle {
 		return intersectPrecise(rect);
 	}
 
+	/**
+	 * Computes the intersection with precise coordinates.
+	 * 
+	 * @see org.eclipse.draw2d.geometry.Rectangle#intersects(org.eclipse.draw2d.geometry.Rectangle)
+	 * @since 3.10
+	 */
+	public boolean intersects(Rectangle rect) {
+		return !getIntersection(rect).isEmpty();
+	}
+
 	/**
 	 * Sets the size of this Rectangle to the intersection region with the
 	 * Rectangle supplied as input, and returns this for convenience. The
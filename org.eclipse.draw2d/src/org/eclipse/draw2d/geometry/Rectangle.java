@@ -198,6 +198,28 @@ public class Rectangle implements Cloneable, java.io.Serializable, Translatable
 				&& bottom() >= rect.bottom();
 	}
 
+	/**
+	 * Returns <code>true</code> if the rectangle with the given location and
+	 * size is contained within the boundaries of this Rectangle. This method
+	 * exists to avoid the creation of a new <code>Rectangle</code>.
+	 * 
+	 * @param x
+	 *            the x coordinate of the rectangle to test
+	 * @param y
+	 *            the y coordinate of the rectangle to test
+	 * @param width
+	 *            the width of the rectangle to test
+	 * @param height
+	 *            the height of the rectangle to test
+	 * @return true if the rectangle is within this Rectangle
+	 * @see #contains(Rectangle)
+	 * @since 3.10
+	 */
+	public boolean contains(int x, int y, int width, int height) {
+		return this.x <= x && this.y <= y && right() >= x + width
+				&& bottom() >= y + height;
+	}
+
 	/**
 	 * Crops this rectangle by the amount specified in <code>insets</code>.
 	 * 
@@ -746,10 +768,31 @@ public class Rectangle implements Cloneable, java.io.Serializable, Translatable
 	 * @since 2.0
 	 */
 	public Rectangle intersect(Rectangle rect) {
-		int x1 = Math.max(x, rect.x());
-		int x2 = Math.min(x + width, rect.x() + rect.width());
-		int y1 = Math.max(y, rect.y());
-		int y2 = Math.min(y + height, rect.y() + rect.height());
+		return intersect(rect.x(), rect.y(), rect.width(), rect.height());
+	}
+
+	/**
+	 * Sets the size of this Rectangle to the intersection region with the
+	 * rectangle with the given location and size. Works like
+	 * {@link #intersect(Rectangle)} without requiring a
+	 * <code>Rectangle</code>.
+	 * 
+	 * @param x
+	 *            the x coordinate of the other rectangle
+	 * @param y
+	 *            the y coordinate of the other rectangle
+	 * @param width
+	 *            the width of the other rectangle
+	 * @param height
+	 *            the height of the other rectangle
+	 * @return <code>this</code> for convenience
+	 * @since 3.10
+	 */
+	public Rectangle intersect(int x, int y, int width, int height) {
+		int x1 = Math.max(this.x, x);
+		int x2 = Math.min(this.x + this.width, x + width);
+		int y1 = Math.max(this.y, y);
+		int y2 = Math.min(this.y + this.height, y + height);
 		if (((x2 - x1) < 0) || ((y2 - y1) < 0))
 			return setBounds(0, 0, 0, 0); // no intersection
 		else {
@@ -768,7 +811,30 @@ public class Rectangle implements Cloneable, java.io.Serializable, Translatable
 	 * @since 2.0
 	 */
 	public boolean intersects(Rectangle rect) {
-		return !getIntersection(rect).isEmpty();
+		return intersects(rect.x(), rect.y(), rect.width(), rect.height());
+	}
+
+	/**
+	 * Returns <code>true</code> if the rectangle with the given location and
+	 * size intersects this Rectangle. This method exists to avoid the creation
+	 * of a new <code>Rectangle</code>.
+	 * 
+	 * @param x
+	 *            the x coordinate of the other rectangle
+	 * @param y
+	 *            the y coordinate of the other rectangle
+	 * @param width
+	 *            the width of the other rectangle
+	 * @param height
+	 *            the height of the other rectangle
+	 * @return <code>true</code> if the rectangles intersect
+	 * @see #intersects(Rectangle)
+	 * @since 3.10
+	 */
+	public boolean intersects(int x, int y, int width, int height) {
+		return Math.min(this.x + this.width, x + width) > Math.max(this.x, x)
+				&& Math.min(this.y + this.height, y + height) > Math.max(
+						this.y, y);
 	}
 
 	/**
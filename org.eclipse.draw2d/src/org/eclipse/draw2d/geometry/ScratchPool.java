@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.geometry;
+
+/**
+ * A per-thread pool of reusable {@link Rectangle}, {@link Point} and
+ * {@link Dimension} objects for temporary calculations. Unlike the shared
+ * <code>SINGLETON</code> constants, an object obtained from the pool belongs
+ * to the caller until it is released, so pooled objects may be held across
+ * calls to other code, including recursive calls into the same method.
+ * <P>
+ * Objects must be released in a <code>finally</code> block by the code which
+ * obtained them, and must not be used or passed on after they are released.
+ * The values of an object returned by the pool are undefined; callers must
+ * set all values before reading them. A typical use is:
+ *
+ * <pre>
+ * ScratchPool pool = ScratchPool.getCurrent();
+ * Rectangle r = pool.getRectangle();
+ * try {
+ * 	r.setBounds(getBounds());
+ * 	...
+ * } finally {
+ * 	pool.release(r);
+ * }
+ * </pre>
+ *
+ * @since 3.10
+ */
+public final class ScratchPool {
+
+	private static final int MAX_POOLED = 32;
+
+	private static final ThreadLocal POOLS = new ThreadLocal() {
+		protected Object initialValue() {
+			return new ScratchPool();
+		}
+	};
+
+	/**
+	 * Returns the pool of the calling thread.
+	 *
+	 * @return the current thread's pool
+	 */
+	public static ScratchPool getCurrent() {
+		return (ScratchPool) POOLS.get();
+	}
+
+	private final Rectangle rectangles[] = new Rectangle[MAX_POOLED];
+	private int rectangleCount;
+	private final Point points[] = new Point[MAX_POOLED];
+	private int pointCount;
+	private final Dimension dimensions[] = new Dimension[MAX_POOLED];
+	private int dimensionCount;
+
+	private ScratchPool() {
+	}
+
+	/**
+	 * Returns a dimension for temporary use.
+	 *
+	 * @return a dimension with undefined values
+	 */
+	public Dimension getDimension() {
+		if (dimensionCount == 0)
+			return new Dimension();
+		Dimension d = dimensions[--dimensionCount];
+		dimensions[dimensionCount] = null;
+		return d;
+	}
+
+	/**
+	 * Returns a point for temporary use.
+	 *
+	 * @return a point with undefined values
+	 */
+	public Point getPoint() {
+		if (pointCount == 0)
+			return new Point();
+		Point p = points[--pointCount];
+		points[pointCount] = null;
+		return p;
+	}
+
+	/**
+	 * Returns a rectangle for temporary use.
+	 *
+	 * @return a rectangle with undefined values
+	 */
+	public Rectangle getRectangle() {
+		if (rectangleCount == 0)
+			return new Rectangle();
+		Rectangle r = rectangles[--rectangleCount];
+		rectangles[rectangleCount] = null;
+		return r;
+	}
+
+	/**
+	 * Returns the given dimension to the pool. Subclasses of Dimension are not
+	 * pooled.
+	 *
+	 * @param d
+	 *            a dimension obtained from {@link #getDimension()}
+	 */
+	public void release(Dimension d) {
+		if (d.getClass() == Dimension.class && dimensionCount < MAX_POOLED)
+			dimensions[dimensionCount++] = d;
+	}
+
+	/**
+	 * Returns the given point to the pool. Subclasses of Point are not pooled.
+	 *
+	 * @param p
+	 *            a point obtained from {@link #getPoint()}
+	 */
+	public void release(Point p) {
+		if (p.getClass() == Point.class && pointCount < MAX_POOLED)
+			points[pointCount++] = p;
+	}
+
+	/**
+	 * Returns the given rectangle to the pool. Subclasses of Rectangle are not
+	 * pooled.
+	 *
+	 * @param r
+	 *            a rectangle obtained from {@link #getRectangle()}
+	 */
+	public void release(Rectangle r) {
+		if (r.getClass() == Rectangle.class && rectangleCount < MAX_POOLED)
+			rectangles[rectangleCount++] = r;
+	}
+
+}
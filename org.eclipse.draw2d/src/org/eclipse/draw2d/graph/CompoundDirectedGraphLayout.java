@@ -33,12 +33,18 @@ package org.eclipse.draw2d.graph;
  * <em>T<SUP>-1</SUP></em> is the backwards graph of <EM>T</EM>, c element of T,
  * e element of G, and p element of T<SUP>-1</SUP>.
  * </UL>
+ * <P>
+ * In {@link #setIncremental(boolean) incremental} mode, each layout uses the
+ * previous one as a hint, so that small changes to the graph lead to small
+ * changes of the layout.
  * 
  * @author Randy Hudson
  * @since 2.1.2
  */
 public final class CompoundDirectedGraphLayout extends DirectedGraphLayout {
 
+	private LayoutHints hints;
+
 	void init() {
 		steps.add(new CompoundTransposeMetrics());
 		steps.add(new CompoundBreakCycles());
@@ -54,4 +60,58 @@ public final class CompoundDirectedGraphLayout extends DirectedGraphLayout {
 		steps.add(new CompoundHorizontalPlacement());
 	}
 
+	/**
+	 * Returns whether each layout uses the previous one as a hint.
+	 * 
+	 * @return <code>true</code> if the layout is incremental
+	 * @since 3.10
+	 */
+	public boolean isIncremental() {
+		return hints != null;
+	}
+
+	/**
+	 * Sets whether each layout uses the previous one as a hint. Nodes and
+	 * subgraphs are matched with the previous layout by their
+	 * {@link Node#data data}, which should therefore be unique and persist
+	 * between layouts.
+	 * <P>
+	 * A subgraph is changed if its members, their sizes, or the edges between
+	 * its members differ from the previous layout. The ancestors of a changed
+	 * subgraph are changed too. The previous ranks are the starting point of
+	 * the rank assignment, and nodes whose nearest common subgraph has not
+	 * changed keep their previous order within their rank. Ranks whose order
+	 * is fully determined by the previous layout are not sorted again.
+	 * 
+	 * @param incremental
+	 *            <code>true</code> to use the previous layout as a hint
+	 * @since 3.10
+	 */
+	public void setIncremental(boolean incremental) {
+		if (!incremental)
+			hints = null;
+		else if (hints == null)
+			hints = new LayoutHints();
+	}
+
+	/**
+	 * @see DirectedGraphLayout#visit(DirectedGraph)
+	 * @since 3.10
+	 */
+	public void visit(DirectedGraph graph) {
+		if (hints == null || graph.nodes.isEmpty()) {
+			super.visit(graph);
+			return;
+		}
+		CompoundDirectedGraph compound = (CompoundDirectedGraph) graph;
+		hints.prepare(compound);
+		graph.hints = hints;
+		try {
+			super.visit(graph);
+			hints.record(compound);
+		} finally {
+			graph.hints = null;
+		}
+	}
+
 }
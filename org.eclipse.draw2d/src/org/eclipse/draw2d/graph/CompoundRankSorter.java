@@ -140,7 +140,63 @@ class CompoundRankSorter extends RankSorter {
 		}
 	}
 
+	/**
+	 * Sets the sort values of the nodes in the rank to their order in the
+	 * previous layout. A node which was not in the previous layout follows the
+	 * average of its sources, or the node before it.
+	 */
+	void copyHints(Rank rank) {
+		double last = -1;
+		for (int i = 0; i < rank.count(); i++) {
+			Node n = rank.getNode(i);
+			int order = g.hints.getOrder(n);
+			if (order != -1)
+				n.sortValue = order;
+			else if (n.incoming.size() > 0) {
+				double total = 0;
+				for (int j = 0; j < n.incoming.size(); j++)
+					total += n.incoming.getEdge(j).source.sortValue;
+				n.sortValue = total / n.incoming.size();
+			} else
+				n.sortValue = last;
+			last = n.sortValue;
+		}
+	}
+
+	/**
+	 * Sets the sort value of each branch of the tree to the average sort value
+	 * of its nodes, and returns the number of nodes.
+	 */
+	int copyHints(NestingTree tree) {
+		double total = 0;
+		int count = 0;
+		for (int i = 0; i < tree.contents.size(); i++) {
+			Object child = tree.contents.get(i);
+			if (child instanceof Node) {
+				total += ((Node) child).sortValue;
+				count++;
+			} else {
+				NestingTree branch = (NestingTree) child;
+				int size = copyHints(branch);
+				total += branch.sortValue * size;
+				count += size;
+			}
+		}
+		tree.sortValue = count == 0 ? 0 : total / count;
+		return count;
+	}
+
+	private static boolean hasConstraints(Rank rank) {
+		for (int i = 0; i < rank.count(); i++)
+			if (rank.getNode(i).rowOrder != -1)
+				return true;
+		return false;
+	}
+
 	public void init(DirectedGraph g) {
+		// the sorter is reused when the layout is
+		init = false;
+		map.clear();
 		super.init(g);
 		init = true;
 
@@ -148,7 +204,11 @@ class CompoundRankSorter extends RankSorter {
 			Rank rank = g.ranks.getRank(row);
 
 			NestingTree tree = NestingTree.buildNestingTreeForRank(rank);
-			copyConstraints(tree);
+			if (g.hints != null && !hasConstraints(rank)) {
+				copyHints(rank);
+				copyHints(tree);
+			} else
+				copyConstraints(tree);
 			tree.recursiveSort(true);
 			rank.clear();
 			tree.repopulateRank(rank);
@@ -53,6 +53,7 @@ public class DirectedGraph {
 	public RankList ranks = new RankList();
 
 	Node forestRoot;
+	LayoutHints hints;
 	Insets margin = new Insets();
 	int[] rankLocations;
 	int[][] cellLocations;
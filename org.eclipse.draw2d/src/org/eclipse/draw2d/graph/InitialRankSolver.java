@@ -112,6 +112,8 @@ class InitialRankSolver extends GraphVisitor {
 			e = node.incoming.getEdge(i1);
 			rank = Math.max(rank, e.delta + e.source.rank);
 		}
+		if (graph.hints != null)
+			rank = Math.max(rank, graph.hints.getRank(node));
 		node.rank = rank;
 	}
 
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result of a previous layout of a compound directed graph, used as a hint
+ * by an incremental layout. Nodes are matched with the previous layout by their
+ * {@link Node#data}, and subgraph boundaries by the data of their subgraph.
+ * <P>
+ * Each subgraph, and the graph itself, has a signature made of its members'
+ * data and sizes, and of the edges which it contains. A subgraph whose
+ * signature differs from the previous layout is dirty, and so are its
+ * ancestors. The previous ranks are used as the initial rank assignment of
+ * all nodes, and the edges of the previous spanning tree are preferred when
+ * the initial tight tree is built. The previous order of two nodes in a rank
+ * is kept if the nearest subgraph containing both is clean.
+ */
+class LayoutHints {
+
+	private static final Object ROOT = new Object();
+	private static final Integer HEAD = new Integer(0);
+	private static final Integer TAIL = new Integer(1);
+
+	private Map ranks = new HashMap();
+	private Map orders = new HashMap();
+	private Map signatures = new HashMap();
+	private Map pendingSignatures;
+	private Set treeEdges = new HashSet();
+	private Set pendingTreeEdges = new HashSet();
+	private final Set dirty = new HashSet();
+	/**
+	 * The nodes of the graph being laid out, excluding the nodes which are
+	 * added by the layout.
+	 */
+	private final Set members = new HashSet();
+	private boolean rootDirty;
+
+	private static Subgraph commonAncestor(Node left, Node right) {
+		Subgraph s = left.getParent();
+		while (s != null && !isAncestor(s, right))
+			s = s.getParent();
+		return s;
+	}
+
+	/**
+	 * Returns the rank of the node in the previous layout, or -1.
+	 */
+	int getRank(Node node) {
+		Object key = getKey(node);
+		Integer rank = key == null ? null : (Integer) ranks.get(key);
+		return rank == null ? -1 : rank.intValue();
+	}
+
+	/**
+	 * Returns the index of the node in its rank in the previous layout, or -1.
+	 */
+	int getOrder(Node node) {
+		Object key = getKey(node);
+		Integer order = key == null ? null : (Integer) orders.get(key);
+		return order == null ? -1 : order.intValue();
+	}
+
+	private Object getKey(Edge edge) {
+		Object source = getKey(edge.source);
+		Object target = getKey(edge.target);
+		if (source == null || target == null)
+			return null;
+		return Arrays.asList(new Object[] { source, target });
+	}
+
+	private Object getKey(Node node) {
+		if (node instanceof SubgraphBoundary) {
+			Subgraph s = node.getParent();
+			if (!members.contains(s) || s.data == null)
+				return null;
+			if (s.head == node)
+				return Arrays.asList(new Object[] { s.data, HEAD });
+			if (s.tail == node)
+				return Arrays.asList(new Object[] { s.data, TAIL });
+			return null;
+		}
+		return members.contains(node) ? node.data : null;
+	}
+
+	private List getSignature(Map map, Subgraph s) {
+		Object key = s == null ? ROOT : (Object) s;
+		List signature = (List) map.get(key);
+		if (signature == null) {
+			signature = new ArrayList();
+			map.put(key, signature);
+		}
+		return signature;
+	}
+
+	/**
+	 * Returns which edges of the graph were in the spanning tree of the
+	 * previous layout, by index.
+	 */
+	boolean[] getTreeEdges(DirectedGraph graph) {
+		boolean[] result = new boolean[graph.edges.size()];
+		for (int i = 0; i < result.length; i++) {
+			Object key = getKey(graph.edges.getEdge(i));
+			result[i] = key != null && treeEdges.contains(key);
+		}
+		return result;
+	}
+
+	private static boolean isAncestor(Subgraph s, Node node) {
+		for (Subgraph p = node.getParent(); p != null; p = p.getParent())
+			if (p == s)
+				return true;
+		return false;
+	}
+
+	private boolean isClean(Subgraph s) {
+		return s == null ? !rootDirty : !dirty.contains(s);
+	}
+
+	/**
+	 * Returns whether the relative order of two nodes of the same rank must be
+	 * kept from the previous layout.
+	 */
+	boolean isFixed(Node left, Node right) {
+		return getOrder(left) != -1 && getOrder(right) != -1
+				&& isClean(commonAncestor(left, right));
+	}
+
+	/**
+	 * Returns whether the order of all nodes in the rank must be kept from the
+	 * previous layout.
+	 */
+	boolean isFixed(Rank rank) {
+		for (int i = 0; i < rank.count(); i++) {
+			Node node = rank.getNode(i);
+			if (getOrder(node) == -1 || !isClean(node.getParent()))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the signatures of the given graph, and determines its dirty
+	 * subgraphs. Must be called before the graph is converted.
+	 */
+	void prepare(CompoundDirectedGraph graph) {
+		Map current = new HashMap();
+		members.clear();
+		for (int i = 0; i < graph.nodes.size(); i++) {
+			Node node = graph.nodes.getNode(i);
+			members.add(node);
+			List signature = getSignature(current, node.getParent());
+			signature.add(node.data);
+			signature.add(new Integer(node.width));
+			signature.add(new Integer(node.height));
+			if (node instanceof Subgraph)
+				getSignature(current, (Subgraph) node);
+		}
+		for (int i = 0; i < graph.edges.size(); i++) {
+			Edge edge = graph.edges.getEdge(i);
+			List signature = getSignature(current,
+					commonAncestor(edge.source, edge.target));
+			signature.add(edge.source.data);
+			signature.add(edge.target.data);
+			signature.add(new Integer(edge.delta));
+			signature.add(new Integer(edge.weight));
+		}
+
+		dirty.clear();
+		rootDirty = false;
+		pendingSignatures = new HashMap();
+		for (Iterator iter = current.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			Object key = entry.getKey();
+			Object data = key == ROOT ? ROOT : ((Subgraph) key).data;
+			Object previous = signatures.get(data);
+			if (data != null)
+				pendingSignatures.put(data, entry.getValue());
+			if (data != null && entry.getValue().equals(previous))
+				continue;
+			if (key == ROOT) {
+				rootDirty = true;
+				continue;
+			}
+			for (Subgraph s = (Subgraph) key; s != null; s = s.getParent())
+				dirty.add(s);
+			rootDirty = true;
+		}
+	}
+
+	/**
+	 * Records the ranks and orders of the laid out graph, to be used as hints
+	 * for the next layout.
+	 */
+	void record(CompoundDirectedGraph graph) {
+		ranks = new HashMap();
+		orders = new HashMap();
+		for (int r = 0; r < graph.ranks.size(); r++) {
+			Rank rank = graph.ranks.getRank(r);
+			for (int i = 0; i < rank.count(); i++) {
+				Object key = getKey(rank.getNode(i));
+				if (key == null)
+					continue;
+				ranks.put(key, new Integer(r));
+				orders.put(key, new Integer(i));
+			}
+		}
+		signatures = pendingSignatures;
+		pendingSignatures = null;
+		treeEdges = pendingTreeEdges;
+		pendingTreeEdges = new HashSet();
+	}
+
+	/**
+	 * Records the spanning tree of the final rank assignment. Must be called
+	 * before the graph is converted back.
+	 */
+	void recordTree(DirectedGraph graph) {
+		pendingTreeEdges = new HashSet();
+		for (int i = 0; i < graph.edges.size(); i++) {
+			Edge edge = graph.edges.getEdge(i);
+			Object key = edge.tree ? getKey(edge) : null;
+			if (key != null)
+				pendingTreeEdges.add(key);
+		}
+	}
+
+}
@@ -19,9 +19,13 @@ package org.eclipse.draw2d.graph;
  */
 class LocalOptimizer extends GraphVisitor {
 
+	private DirectedGraph g;
+
 	boolean shouldSwap(Node current, Node next) {
 		if (GraphUtilities.isConstrained(current, next))
 			return false;
+		if (g.hints != null && g.hints.isFixed(current, next))
+			return false;
 		int crossCount = 0;
 		int invertedCrossCount = 0;
 
@@ -93,6 +97,7 @@ class LocalOptimizer extends GraphVisitor {
 	 * @see GraphVisitor#visit(org.eclipse.draw2d.graph.DirectedGraph)
 	 */
 	public void visit(DirectedGraph g) {
+		this.g = g;
 		boolean flag;
 		do {
 			flag = false;
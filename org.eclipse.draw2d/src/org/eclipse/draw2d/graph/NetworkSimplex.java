@@ -0,0 +1,423 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.draw2d.graph;
+
+import java.util.Arrays;
+
+/**
+ * The network simplex method for rank assignment, on a graph stored in
+ * primitive arrays. Nodes and edges are identified by their index. Each edge
+ * requires the rank of its target to be at least its minimum length more than
+ * the rank of its source, and the solver minimizes the total weighted length
+ * of the edges.
+ * <P>
+ * The solver first finds a feasible spanning tree of tight edges, starting
+ * from a feasible rank assignment. Edges may be preferred when growing the
+ * tree, so that the tree of a previous solution of a similar graph can be
+ * used as a warm start. The tree is then improved by exchanging a tree edge
+ * with a negative cut value for a non-tree edge. Each tree node has a
+ * post-order number and the lowest number in its subtree, so that subtree
+ * membership takes constant time, and after an exchange only the cut values
+ * on the tree path between the ends of the entering edge are updated.
+ */
+class NetworkSimplex {
+
+	/**
+	 * The number of tree edges with a negative cut value among which the
+	 * leaving edge is chosen.
+	 */
+	private static final int SEARCH_SIZE = 30;
+
+	private final int nodeCount;
+	private final int edgeCount;
+	private final int[] source, target, minLength, weight;
+	final int[] rank;
+
+	// the incident edges of each node, outgoing edges first
+	private final int[] adjacencyStart;
+	private final int[] adjacency;
+	private final int[] outCount;
+
+	final boolean[] tree;
+	final int[] cut;
+	final int[] parentEdge;
+	final int[] low, lim;
+	private final int[] nodeAtLim;
+	private final int[] treeEdges;
+	private int treeEdgeCount;
+	private final int[] stack, position, order, blocks;
+	private int enterEdge, enterSlack;
+	private int searchStart;
+
+	/**
+	 * Creates a solver for the given graph. The initial ranks must be
+	 * feasible. The arrays are used by reference.
+	 */
+	NetworkSimplex(int nodeCount, int[] source, int[] target, int[] minLength,
+			int[] weight, int[] rank) {
+		this.nodeCount = nodeCount;
+		this.edgeCount = source.length;
+		this.source = source;
+		this.target = target;
+		this.minLength = minLength;
+		this.weight = weight;
+		this.rank = rank;
+
+		adjacencyStart = new int[nodeCount + 1];
+		outCount = new int[nodeCount];
+		for (int e = 0; e < edgeCount; e++) {
+			adjacencyStart[source[e] + 1]++;
+			adjacencyStart[target[e] + 1]++;
+			outCount[source[e]]++;
+		}
+		for (int n = 0; n < nodeCount; n++)
+			adjacencyStart[n + 1] += adjacencyStart[n];
+		adjacency = new int[edgeCount * 2];
+		int[] outFill = new int[nodeCount];
+		int[] inFill = new int[nodeCount];
+		for (int e = 0; e < edgeCount; e++) {
+			int s = source[e], t = target[e];
+			adjacency[adjacencyStart[s] + outFill[s]++] = e;
+			adjacency[adjacencyStart[t] + outCount[t] + inFill[t]++] = e;
+		}
+
+		tree = new boolean[edgeCount];
+		cut = new int[edgeCount];
+		parentEdge = new int[nodeCount];
+		low = new int[nodeCount];
+		lim = new int[nodeCount];
+		nodeAtLim = new int[nodeCount + 1];
+		treeEdges = new int[Math.max(nodeCount - 1, 0)];
+		Arrays.fill(low, -1);
+		stack = new int[nodeCount];
+		position = new int[nodeCount];
+		order = new int[nodeCount];
+		blocks = new int[nodeCount * 3];
+	}
+
+	/**
+	 * Adds an edge to the initial tree. The edges added must form a spanning
+	 * tree of tight edges.
+	 */
+	void addTreeEdge(int e) {
+		tree[e] = true;
+		treeEdges[treeEdgeCount++] = e;
+	}
+
+	/**
+	 * Computes the cut values of all tree edges, in post-order.
+	 */
+	private void initCutValues() {
+		for (int i = 1; i <= nodeCount; i++) {
+			int v = nodeAtLim[i];
+			if (parentEdge[v] != -1)
+				cut[parentEdge[v]] = localCutValue(v);
+		}
+	}
+
+	private boolean inSubtree(int root, int node) {
+		return low[root] <= lim[node] && lim[node] <= lim[root];
+	}
+
+	/**
+	 * Returns the non-tree edge with the least slack which crosses the cut of
+	 * the given tree edge in the opposite direction, or -1. The edges are
+	 * searched from the smaller side of the cut.
+	 */
+	private int enter(int e) {
+		int v = lim[source[e]] < lim[target[e]] ? source[e] : target[e];
+		// if the leaving edge leaves the subtree, the entering edge enters it
+		boolean incoming = v == source[e];
+		enterEdge = -1;
+		enterSlack = Integer.MAX_VALUE;
+		if (lim[v] - low[v] < nodeCount / 2)
+			searchEnter(v, low[v], lim[v] + 1, incoming, false);
+		else {
+			searchEnter(v, 1, low[v], !incoming, true);
+			searchEnter(v, lim[v] + 1, nodeCount + 1, !incoming, true);
+		}
+		return enterEdge;
+	}
+
+	/**
+	 * Searches the incoming or outgoing edges of the nodes numbered from
+	 * first to end for the edge with the least slack whose other end is in or
+	 * out of the subtree of the given node. The search stops at a tight edge.
+	 */
+	private void searchEnter(int v, int first, int end, boolean incoming,
+			boolean otherInside) {
+		for (int i = first; i < end && enterSlack > 0; i++) {
+			int n = nodeAtLim[i];
+			int from = adjacencyStart[n] + (incoming ? outCount[n] : 0);
+			int to = incoming ? adjacencyStart[n + 1] : adjacencyStart[n]
+					+ outCount[n];
+			for (int j = from; j < to; j++) {
+				int f = adjacency[j];
+				if (tree[f])
+					continue;
+				int other = incoming ? source[f] : target[f];
+				if (inSubtree(v, other) != otherInside)
+					continue;
+				int slack = slack(f);
+				if (slack < enterSlack) {
+					enterEdge = f;
+					enterSlack = slack;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the leaving tree edge with the entering edge, moves the subtree
+	 * so that the entering edge is tight, and updates the cut values on the
+	 * tree path between the ends of the entering edge.
+	 */
+	private void exchange(int index, int f) {
+		int e = treeEdges[index];
+		int v = lim[source[e]] < lim[target[e]] ? source[e] : target[e];
+		int delta = slack(f);
+		if (delta > 0) {
+			if (inSubtree(v, target[f]))
+				delta = -delta;
+			for (int i = low[v]; i <= lim[v]; i++)
+				rank[nodeAtLim[i]] += delta;
+		}
+		int cutValue = cut[e];
+		int ancestor = updatePath(source[f], target[f], cutValue, true);
+		updatePath(target[f], source[f], cutValue, false);
+		cut[f] = -cutValue;
+		cut[e] = 0;
+		tree[e] = false;
+		tree[f] = true;
+		treeEdges[index] = f;
+		range(ancestor, parentEdge[ancestor], low[ancestor]);
+	}
+
+	/**
+	 * Returns the index of a tree edge with a negative cut value, or -1 if the
+	 * tree is optimal. The search starts where the previous one stopped, and
+	 * returns the edge with the most negative cut value, preferring heavy
+	 * edges, among the first {@link #SEARCH_SIZE} such edges.
+	 */
+	private int leave() {
+		int result = -1, minCut = 0, maxWeight = -1, found = 0;
+		for (int k = 0; k < treeEdgeCount; k++) {
+			int i = searchStart + k;
+			if (i >= treeEdgeCount)
+				i -= treeEdgeCount;
+			int e = treeEdges[i];
+			if (cut[e] >= 0)
+				continue;
+			if (cut[e] < minCut || (cut[e] == minCut && weight[e] > maxWeight)) {
+				result = i;
+				minCut = cut[e];
+				maxWeight = weight[e];
+			}
+			if (++found == SEARCH_SIZE) {
+				searchStart = i;
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cut value of the parent edge of the given node, from the
+	 * cut values of the edges to its children.
+	 */
+	private int localCutValue(int v) {
+		int edge = parentEdge[v];
+		int multiplier = target[edge] == v ? 1 : -1;
+		int value = 0;
+		int out = adjacencyStart[v] + outCount[v];
+		for (int j = adjacencyStart[v]; j < adjacencyStart[v + 1]; j++) {
+			int e = adjacency[j];
+			int sign = j < out ? multiplier : -multiplier;
+			if (tree[e] && e != edge)
+				value += (cut[e] - weight[e]) * sign;
+			else
+				value -= weight[e] * sign;
+		}
+		return value;
+	}
+
+	/**
+	 * Numbers the subtree of the given root in post-order, starting at the
+	 * given number. Only the nodes marked by a low number of -1 are visited.
+	 * The subtrees of the other children are unchanged, and their numbers are
+	 * only offset.
+	 */
+	private void range(int root, int rootParentEdge, int number) {
+		int start = number;
+		int blockCount = 0;
+		int size = 0;
+		parentEdge[root] = rootParentEdge;
+		low[root] = number;
+		stack[size] = root;
+		position[size++] = adjacencyStart[root];
+		while (size > 0) {
+			int v = stack[size - 1];
+			int j = position[size - 1];
+			while (j < adjacencyStart[v + 1]
+					&& (!tree[adjacency[j]] || adjacency[j] == parentEdge[v]))
+				j++;
+			if (j < adjacencyStart[v + 1]) {
+				position[size - 1] = j + 1;
+				int e = adjacency[j];
+				int child = source[e] == v ? target[e] : source[e];
+				if (low[child] != -1 && parentEdge[child] == e) {
+					int count = lim[child] - low[child] + 1;
+					blocks[blockCount++] = low[child];
+					blocks[blockCount++] = number;
+					blocks[blockCount++] = count;
+					number += count;
+					continue;
+				}
+				parentEdge[child] = e;
+				low[child] = number;
+				stack[size] = child;
+				position[size++] = adjacencyStart[child];
+			} else {
+				lim[v] = number;
+				order[number++ - start] = v;
+				size--;
+			}
+		}
+		for (int b = 0; b < blockCount; b += 3) {
+			int from = blocks[b], to = blocks[b + 1], count = blocks[b + 2];
+			System.arraycopy(nodeAtLim, from, order, to - start, count);
+			if (from == to)
+				continue;
+			for (int i = to - start; i < to - start + count; i++) {
+				low[order[i]] += to - from;
+				lim[order[i]] += to - from;
+			}
+		}
+		System.arraycopy(order, 0, nodeAtLim, start, number - start);
+	}
+
+	private int slack(int e) {
+		return rank[target[e]] - rank[source[e]] - minLength[e];
+	}
+
+	/**
+	 * Runs the network simplex loop on the current tree, for at most the given
+	 * number of iterations.
+	 */
+	void solve(int maxIterations) {
+		if (nodeCount == 0)
+			return;
+		range(0, -1, 1);
+		initCutValues();
+		for (int i = 0; i < maxIterations; i++) {
+			int index = leave();
+			if (index == -1)
+				break;
+			int f = enter(treeEdges[index]);
+			if (f == -1)
+				break;
+			exchange(index, f);
+		}
+	}
+
+	/**
+	 * Finds a spanning tree of tight edges, adjusting the ranks as needed. The
+	 * preferred edges, if any, are added to the tree before other tight edges.
+	 * 
+	 * @param preferred
+	 *            the edges to prefer, or <code>null</code>
+	 */
+	void tightTree(boolean[] preferred) {
+		if (nodeCount == 0)
+			return;
+		boolean[] reached = new boolean[nodeCount];
+		int[] members = new int[nodeCount];
+		int memberCount = 0;
+		reached[0] = true;
+		members[memberCount++] = 0;
+		while (true) {
+			// grow the tree along tight edges, following the preferred edges
+			// from each new member before any other edge
+			int next = 0, scanned = 0, position = adjacencyStart[0];
+			while (true) {
+				if (preferred != null)
+					for (; next < memberCount; next++) {
+						int v = members[next];
+						for (int j = adjacencyStart[v]; j < adjacencyStart[v + 1]; j++) {
+							int e = adjacency[j];
+							int other = source[e] == v ? target[e] : source[e];
+							if (preferred[e] && !reached[other] && slack(e) == 0) {
+								reached[other] = true;
+								members[memberCount++] = other;
+								addTreeEdge(e);
+							}
+						}
+					}
+				int added = -1;
+				while (added == -1 && scanned < memberCount) {
+					int v = members[scanned];
+					for (; position < adjacencyStart[v + 1]; position++) {
+						int e = adjacency[position];
+						int other = source[e] == v ? target[e] : source[e];
+						if (!reached[other] && slack(e) == 0) {
+							added = other;
+							addTreeEdge(e);
+							break;
+						}
+					}
+					if (added == -1 && ++scanned < memberCount)
+						position = adjacencyStart[members[scanned]];
+				}
+				if (added == -1)
+					break;
+				reached[added] = true;
+				members[memberCount++] = added;
+			}
+			if (memberCount == nodeCount)
+				break;
+
+			// move the tree towards the incident edge with the least slack
+			int minEdge = -1, minSlack = Integer.MAX_VALUE;
+			for (int e = 0; e < edgeCount; e++)
+				if (reached[source[e]] != reached[target[e]]
+						&& slack(e) < minSlack) {
+					minEdge = e;
+					minSlack = slack(e);
+				}
+			if (minEdge == -1)
+				throw new RuntimeException("graph is not fully connected");//$NON-NLS-1$
+			int delta = reached[target[minEdge]] ? -minSlack : minSlack;
+			for (int i = 0; i < memberCount; i++)
+				rank[members[i]] += delta;
+		}
+		range(0, -1, 1);
+	}
+
+	/**
+	 * Adjusts the cut values on the tree path from the given node up to the
+	 * subtree containing the other node, and returns the root of that subtree.
+	 * The nodes on the path are marked to be numbered again.
+	 */
+	private int updatePath(int v, int w, int cutValue, boolean direction) {
+		while (!inSubtree(v, w)) {
+			int e = parentEdge[v];
+			boolean d = v == source[e] ? direction : !direction;
+			if (d)
+				cut[e] += cutValue;
+			else
+				cut[e] -= cutValue;
+			low[v] = -1;
+			v = lim[source[e]] > lim[target[e]] ? source[e] : target[e];
+		}
+		return v;
+	}
+
+}
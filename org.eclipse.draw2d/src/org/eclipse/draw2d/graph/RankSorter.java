@@ -138,6 +138,10 @@ class RankSorter {
 		this.currentRow = row;
 		this.rank = rank;
 		this.progress = progress;
+		if (g.hints != null && g.hints.isFixed(rank)) {
+			postSort();
+			return;
+		}
 		assignIncomingSortValues();
 		sort();
 		postSort();
@@ -145,6 +149,9 @@ class RankSorter {
 
 	public void init(DirectedGraph g) {
 		this.g = g;
+		// an incremental layout must give the same result for the same graph
+		if (g.hints != null)
+			flipflop.setSeed(3);
 		for (int i = 0; i < g.ranks.size(); i++) {
 			rank = g.ranks.getRank(i);
 
@@ -185,6 +192,8 @@ class RankSorter {
 		Node right = rank.getNode(i + 1);
 		if (GraphUtilities.isConstrained(left, right))
 			return false;
+		if (g.hints != null && g.hints.isFixed(left, right))
+			return false;
 		if (left.sortValue <= right.sortValue)
 			return false;
 		rank.set(i, right);
@@ -197,6 +206,10 @@ class RankSorter {
 		this.currentRow = row;
 		this.rank = rank;
 		this.progress = progress;
+		if (g.hints != null && g.hints.isFixed(rank)) {
+			postSort();
+			return;
+		}
 		assignOutgoingSortValues();
 		sort();
 		postSort();
@@ -19,6 +19,59 @@ package org.eclipse.draw2d.graph;
  */
 abstract class SpanningTreeVisitor extends GraphVisitor {
 
+	/**
+	 * Writes the ranks and the spanning tree of the solver back to the graph.
+	 */
+	void applySolver(DirectedGraph graph, NetworkSimplex solver) {
+		for (int i = 0; i < graph.nodes.size(); i++) {
+			Node node = graph.nodes.getNode(i);
+			node.rank = solver.rank[i];
+			node.workingData[0] = new EdgeList();
+			node.workingData[1] = null;
+			node.workingInts[0] = solver.low[i];
+			node.workingInts[1] = solver.lim[i];
+		}
+		for (int i = 0; i < graph.edges.size(); i++) {
+			Edge edge = graph.edges.getEdge(i);
+			edge.tree = solver.tree[i];
+			edge.cut = solver.cut[i];
+			if (!edge.tree)
+				continue;
+			if (solver.parentEdge[edge.source.workingInts[2]] == i) {
+				setParentEdge(edge.source, edge);
+				getSpanningTreeChildren(edge.target).add(edge);
+			} else {
+				setParentEdge(edge.target, edge);
+				getSpanningTreeChildren(edge.source).add(edge);
+			}
+		}
+	}
+
+	/**
+	 * Creates a solver for the graph with its current ranks. The index of each
+	 * node is stored in its third working int.
+	 */
+	NetworkSimplex createSolver(DirectedGraph graph) {
+		int[] rank = new int[graph.nodes.size()];
+		for (int i = 0; i < rank.length; i++) {
+			Node node = graph.nodes.getNode(i);
+			node.workingInts[2] = i;
+			rank[i] = node.rank;
+		}
+		int count = graph.edges.size();
+		int[] source = new int[count], target = new int[count];
+		int[] minLength = new int[count], weight = new int[count];
+		for (int i = 0; i < count; i++) {
+			Edge edge = graph.edges.getEdge(i);
+			source[i] = edge.source.workingInts[2];
+			target[i] = edge.target.workingInts[2];
+			minLength[i] = edge.delta;
+			weight[i] = edge.weight;
+		}
+		return new NetworkSimplex(rank.length, source, target, minLength,
+				weight, rank);
+	}
+
 	Edge getParentEdge(Node node) {
 		return (Edge) node.workingData[1];
 	}
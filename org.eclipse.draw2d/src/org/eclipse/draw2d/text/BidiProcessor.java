@@ -76,6 +76,19 @@ public final class BidiProcessor {
 		bidiText.append(str);
 	}
 
+	/**
+	 * Records the contribution of the given characters, like
+	 * {@link #add(FlowFigure, String)}, without copying them to a String
+	 * first.
+	 */
+	void add(FlowFigure fig, CharSequence chars) {
+		int length = chars.length();
+		list.add(new BidiEntry(fig, bidiText.length(), length));
+		bidiText.ensureCapacity(bidiText.length() + length);
+		for (int i = 0; i < length; i++)
+			bidiText.append(chars.charAt(i));
+	}
+
 	/**
 	 * Records a character contribution for this bidi context. Contributions are
 	 * concatenated (in the order that they were contributed) to make the final
@@ -23,6 +23,11 @@ public class BlockBox extends CompositeBox {
 	int height;
 	private int y;
 	BlockFlow owner;
+	/**
+	 * <code>true</code> if the height is only an estimate because the block
+	 * was not laid out by a virtualized {@link FlowPage}.
+	 */
+	boolean estimated;
 
 	BlockBox(BlockFlow owner) {
 		this.owner = owner;
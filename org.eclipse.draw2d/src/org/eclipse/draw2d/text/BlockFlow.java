@@ -63,6 +63,10 @@ public class BlockFlow extends FlowFigure {
 		proc.addControlChar(BidiChars.P_SEP);
 	}
 
+	boolean isBlockValid() {
+		return isValid();
+	}
+
 	BlockBox createBlockBox() {
 		return new BlockBox(this);
 	}
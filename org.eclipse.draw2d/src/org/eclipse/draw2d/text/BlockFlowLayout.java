@@ -185,6 +185,16 @@ public class BlockFlowLayout extends FlowContainerLayout {
 		return getContext().getRemainingLineWidth();
 	}
 
+	/**
+	 * Returns the bottom of the last line added to the block, or 0 if there
+	 * is none yet.
+	 */
+	int getLinesBottom() {
+		if (previousLine == null)
+			return 0;
+		return previousLine.getBaseline() + previousLine.getDescent();
+	}
+
 	/**
 	 * @see FlowContext#getContinueOnSameLine()
 	 */
@@ -10,10 +10,18 @@
  *******************************************************************************/
 package org.eclipse.draw2d.text;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.util.List;
 
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.TreeSearch;
+import org.eclipse.draw2d.Viewport;
 import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.draw2d.geometry.ScratchPool;
 
 /**
  * The root of a Flow hierarchy. A flow page can be treated as a normal figure,
@@ -22,6 +30,12 @@ import org.eclipse.draw2d.geometry.Rectangle;
  * A FlowPage will not have a defined width unless it is inside a figure whose
  * layout provides width hints when calling
  * {@link org.eclipse.draw2d.IFigure#getPreferredSize(int, int)}.
+ * <P>
+ * A {@link #setVirtualized(boolean) virtualized} flow page inside a
+ * {@link Viewport} lays out only the blocks near the visible region. Other
+ * blocks are given an estimated height and are laid out once they are
+ * scrolled into view. Painting and hit testing then only visit the children
+ * which intersect the area of interest, found by binary search.
  * 
  * <P>
  * WARNING: This class is not intended to be subclassed by clients.
@@ -32,6 +46,16 @@ public class FlowPage extends BlockFlow {
 	private int recommendedWidth;
 	private int pageSizeCacheKeys[] = new int[3];
 	private Dimension pageSizeCacheValues[] = new Dimension[3];
+	private boolean virtualized;
+	private Viewport viewport;
+	private PropertyChangeListener scrollListener;
+	/**
+	 * For each child, the largest bottom of it and the children before it,
+	 * and the smallest top of it and the children after it. Both arrays are
+	 * sorted, so the children intersecting a range of y values can be found by
+	 * binary search.
+	 */
+	private int maxBottoms[], minTops[];
 
 	/**
 	 * @see org.eclipse.draw2d.Figure#addNotify()
@@ -39,6 +63,65 @@ public class FlowPage extends BlockFlow {
 	public void addNotify() {
 		super.addNotify();
 		setValid(false);
+		if (virtualized)
+			hookViewport();
+	}
+
+	/**
+	 * Returns the index of the first child whose bounds might end below the
+	 * given y value.
+	 */
+	private int findFirstChild(int y) {
+		int low = 0, high = maxBottoms.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (maxBottoms[mid] > y)
+				high = mid;
+			else
+				low = mid + 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Overridden to only search the children whose bounds might contain the
+	 * point if the page is virtualized.
+	 * 
+	 * @see org.eclipse.draw2d.Figure#findDescendantAtExcluding(int, int,
+	 *      TreeSearch)
+	 */
+	protected IFigure findDescendantAtExcluding(int x, int y,
+			TreeSearch search) {
+		List children = getChildren();
+		if (!hasChildIndex())
+			return super.findDescendantAtExcluding(x, y, search);
+		ScratchPool pool = ScratchPool.getCurrent();
+		Point pt = pool.getPoint();
+		Rectangle clientArea = pool.getRectangle();
+		try {
+			pt.setLocation(x, y);
+			translateFromParent(pt);
+			if (!getClientArea(clientArea).contains(pt))
+				return null;
+			x = pt.x;
+			y = pt.y;
+		} finally {
+			pool.release(clientArea);
+			pool.release(pt);
+		}
+		int first = findFirstChild(y);
+		int end = first;
+		while (end < children.size() && minTops[end] <= y)
+			end++;
+		for (int i = end - 1; i >= first; i--) {
+			IFigure fig = (IFigure) children.get(i);
+			if (fig.isVisible()) {
+				fig = fig.findFigureAt(x, y, search);
+				if (fig != null)
+					return fig;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -96,6 +179,79 @@ public class FlowPage extends BlockFlow {
 		return recommendedWidth;
 	}
 
+	/**
+	 * Returns the region of this page near the visible part of the enclosing
+	 * viewport, in the coordinates of the page's children, or
+	 * <code>null</code> if the page is not virtualized.
+	 */
+	Rectangle getVisibleRegion() {
+		if (!virtualized || viewport == null)
+			return null;
+		Rectangle r = viewport.getClientArea(new Rectangle());
+		viewport.translateToParent(r);
+		viewport.translateToAbsolute(r);
+		translateToRelative(r);
+		translateFromParent(r);
+		// lay out half a screen ahead in both directions
+		return r.expand(0, r.height / 2);
+	}
+
+	private boolean hasChildIndex() {
+		return virtualized && maxBottoms != null
+				&& maxBottoms.length == getChildren().size()
+				&& getClippingStrategy() == null;
+	}
+
+	private void hookViewport() {
+		IFigure parent = getParent();
+		while (parent != null && !(parent instanceof Viewport))
+			parent = parent.getParent();
+		viewport = (Viewport) parent;
+		if (viewport == null)
+			return;
+		if (scrollListener == null)
+			scrollListener = new PropertyChangeListener() {
+				public void propertyChange(PropertyChangeEvent evt) {
+					revealVisibleBlocks();
+				}
+			};
+		viewport.addPropertyChangeListener(Viewport.PROPERTY_VIEW_LOCATION,
+				scrollListener);
+	}
+
+	/**
+	 * Returns <code>true</code> if this page lays out only the blocks near its
+	 * visible region.
+	 * 
+	 * @return whether the page is virtualized
+	 * @since 3.10
+	 */
+	public boolean isVirtualized() {
+		return virtualized;
+	}
+
+	/**
+	 * Overridden to only paint the children which intersect the clip if the
+	 * page is virtualized.
+	 * 
+	 * @see org.eclipse.draw2d.Figure#paintChildren(Graphics)
+	 */
+	protected void paintChildren(Graphics graphics) {
+		if (!hasChildIndex()) {
+			super.paintChildren(graphics);
+			return;
+		}
+		List children = getChildren();
+		ScratchPool pool = ScratchPool.getCurrent();
+		Rectangle clip = graphics.getClip(pool.getRectangle());
+		int first = findFirstChild(clip.y);
+		int end = first;
+		while (end < children.size() && minTops[end] < clip.bottom())
+			end++;
+		pool.release(clip);
+		paintChildren(graphics, children.subList(first, end));
+	}
+
 	/**
 	 * @see BlockFlow#postValidate()
 	 */
@@ -106,6 +262,10 @@ public class FlowPage extends BlockFlow {
 		List v = getChildren();
 		for (int i = 0; i < v.size(); i++)
 			((FlowFigure) v.get(i)).postValidate();
+		if (virtualized)
+			updateChildIndex();
+		else
+			maxBottoms = minTops = null;
 	}
 
 	/**
@@ -114,10 +274,32 @@ public class FlowPage extends BlockFlow {
 	 * @see org.eclipse.draw2d.IFigure#removeNotify()
 	 */
 	public void removeNotify() {
+		unhookViewport();
 		super.removeNotify();
 		setValid(true);
 	}
 
+	/**
+	 * Revalidates the page if a block whose height is only estimated has come
+	 * near the visible region.
+	 */
+	void revealVisibleBlocks() {
+		Rectangle visible = getVisibleRegion();
+		if (visible == null || !isValid() || !hasChildIndex())
+			return;
+		List children = getChildren();
+		int bottom = visible.bottom();
+		for (int i = findFirstChild(visible.y); i < children.size()
+				&& minTops[i] < bottom; i++) {
+			Object child = children.get(i);
+			if (child instanceof BlockFlow
+					&& ((BlockFlow) child).getBlockBox().estimated) {
+				revalidate();
+				return;
+			}
+		}
+	}
+
 	/**
 	 * @see FlowFigure#setBounds(Rectangle)
 	 */
@@ -132,6 +314,37 @@ public class FlowPage extends BlockFlow {
 			setPageWidth(newWidth);
 			getUpdateManager().addInvalidFigure(this);
 		}
+		if (invalidate)
+			revealVisibleBlocks();
+	}
+
+	/**
+	 * Sets whether this page lays out only the blocks near its visible region.
+	 * Virtualization requires the page to be inside a {@link Viewport}, and
+	 * only applies to the blocks which are direct children of the page. Blocks
+	 * which are far from the visible region are given a height estimated from
+	 * the length of their text, and are laid out when they are scrolled into
+	 * view. This keeps long documents responsive, but the size of the page
+	 * and the position of the blocks after an estimated block are approximate
+	 * until it has been laid out. The flows inside an estimated block have no
+	 * fragments, so they are neither painted nor found by hit testing, and
+	 * must be scrolled into view before asking them for caret placements.
+	 * 
+	 * @param value
+	 *            <code>true</code> to virtualize the page
+	 * @since 3.10
+	 */
+	public void setVirtualized(boolean value) {
+		if (virtualized == value)
+			return;
+		virtualized = value;
+		if (getParent() != null) {
+			if (value)
+				hookViewport();
+			else
+				unhookViewport();
+		}
+		revalidate();
 	}
 
 	private void setPageWidth(int width) {
@@ -141,6 +354,33 @@ public class FlowPage extends BlockFlow {
 		super.invalidate();
 	}
 
+	private void unhookViewport() {
+		if (viewport != null)
+			viewport.removePropertyChangeListener(
+					Viewport.PROPERTY_VIEW_LOCATION, scrollListener);
+		viewport = null;
+	}
+
+	private void updateChildIndex() {
+		List children = getChildren();
+		int size = children.size();
+		if (maxBottoms == null || maxBottoms.length != size) {
+			maxBottoms = new int[size];
+			minTops = new int[size];
+		}
+		int bottom = Integer.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			Rectangle bounds = ((IFigure) children.get(i)).getBounds();
+			bottom = Math.max(bottom, bounds.bottom());
+			maxBottoms[i] = bottom;
+		}
+		int top = Integer.MAX_VALUE;
+		for (int i = size - 1; i >= 0; i--) {
+			top = Math.min(top, ((IFigure) children.get(i)).getBounds().y);
+			minTops[i] = top;
+		}
+	}
+
 	/**
 	 * @see org.eclipse.draw2d.Figure#validate()
 	 */
@@ -10,10 +10,25 @@
  *******************************************************************************/
 package org.eclipse.draw2d.text;
 
+import java.util.List;
+
+import org.eclipse.swt.graphics.FontMetrics;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FigureUtilities;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+
 /**
  * A block layout which requires no FlowContext to perform its layout. This
  * class is used by {@link FlowPage}.
  * <p>
+ * If the page is {@link FlowPage#setVirtualized(boolean) virtualized}, only
+ * the blocks near the visible region of the page are laid out. The other
+ * blocks keep their previous layout if it is still valid, or are given a
+ * height estimated from the length of their text. The flows inside a block
+ * whose height is estimated have no fragments until it is laid out.
+ * <p>
  * WARNING: This class is not intended to be subclassed by clients.
  */
 public class PageFlowLayout extends BlockFlowLayout {
@@ -28,6 +43,45 @@ public class PageFlowLayout extends BlockFlowLayout {
 		super(page);
 	}
 
+	/**
+	 * Drops the fragments of the flows inside a block whose height is only
+	 * estimated. They were placed by an earlier layout, which may no longer
+	 * match their text or the position of the block.
+	 */
+	private static void clearFragments(IFigure figure) {
+		List children = figure.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			IFigure child = (IFigure) children.get(i);
+			if (child instanceof InlineFlow)
+				((InlineFlow) child).getFragments().clear();
+			clearFragments(child);
+		}
+	}
+
+	private static int countCharacters(IFigure figure) {
+		if (figure instanceof TextFlow)
+			return ((TextFlow) figure).getContents().length();
+		int count = 0;
+		List children = figure.getChildren();
+		for (int i = 0; i < children.size(); i++)
+			count += countCharacters((IFigure) children.get(i));
+		return count;
+	}
+
+	private static int estimateHeight(BlockFlow block, int width) {
+		FontMetrics metrics = FigureUtilities.getFontMetrics(block.getFont());
+		int perLine = Math.max(1,
+				width / Math.max(1, metrics.getAverageCharWidth()));
+		int lines = Math.max(1, (countCharacters(block) + perLine - 1)
+				/ perLine);
+		return lines * metrics.getHeight() + block.getInsets().getHeight();
+	}
+
+	private static int getBlockWidth(BlockFlow block, int pageWidth) {
+		return Math.max(0, pageWidth - block.getInsets().getWidth()
+				- block.getLeftMargin() - block.getRightMargin());
+	}
+
 	/**
 	 * @see org.eclipse.draw2d.text.BlockFlowLayout#getContextWidth()
 	 */
@@ -35,4 +89,58 @@ public class PageFlowLayout extends BlockFlowLayout {
 		return ((FlowPage) getFlowFigure()).getPageWidth();
 	}
 
+	/**
+	 * Lays out only the blocks near the visible region if the page is
+	 * virtualized.
+	 *
+	 * @see org.eclipse.draw2d.text.FlowContainerLayout#layoutChildren()
+	 */
+	protected void layoutChildren() {
+		Rectangle visible = ((FlowPage) getFlowFigure()).getVisibleRegion();
+		int pageWidth = blockBox.getRecommendedWidth();
+		if (visible == null || !blockInvalid || pageWidth <= 0) {
+			super.layoutChildren();
+			return;
+		}
+		List children = getFlowFigure().getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			Figure f = (Figure) children.get(i);
+			if (!(f instanceof BlockFlow)) {
+				f.invalidate();
+				f.validate();
+				continue;
+			}
+			BlockFlow block = (BlockFlow) f;
+			BlockBox box = block.getBlockBox();
+			int width = getBlockWidth(block, pageWidth);
+			boolean sameWidth = box.getRecommendedWidth() == width;
+			if (sameWidth && !box.estimated && block.isBlockValid()) {
+				// the previous layout is still valid
+				addLine(box);
+				continue;
+			}
+			endLine();
+			int top = getLinesBottom();
+			int height = sameWidth ? box.height : estimateHeight(block,
+					width);
+			if (top < visible.bottom() && top + height > visible.y) {
+				box.estimated = false;
+				((BlockFlowLayout) block.getLayoutManager())
+						.blockContentsChanged();
+				block.invalidate();
+				block.validate();
+			} else {
+				if (!box.estimated)
+					clearFragments(block);
+				box.estimated = true;
+				box.setRecommendedWidth(width);
+				box.setWidth(width);
+				box.height = height;
+				addLine(box);
+				// the block is laid out once it becomes visible
+				block.setValid(true);
+			}
+		}
+	}
+
 }
@@ -10,12 +10,23 @@
  *******************************************************************************/
 package org.eclipse.draw2d.text;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.swt.graphics.Font;
 
 /**
  * The layout for {@link TextFlow}.
+ * <P>
+ * Unless the text flow has a border or bidirectional text, the layout keeps
+ * track of how each fragment was placed on its line. When the text changes,
+ * the fragments before the changed lines are placed again without measuring
+ * any text, the text is wrapped starting with the line before the first
+ * changed line, and as soon as a line starts at the same place in the
+ * unchanged text as before, the fragments up to the last two lines are
+ * placed again as well. The last two lines are always wrapped, as they depend
+ * on the width of the figures which follow. The text is read from the flow's
+ * contents one line at a time, so that only the wrapped lines are copied.
  * 
  * @author hudsonr
  * @since 2.1
@@ -43,6 +54,25 @@ public class ParagraphTextLayout extends TextLayout {
 
 	private int wrappingStyle = WORD_WRAP_HARD;
 
+	/**
+	 * Flags recorded for each fragment: the fragment starts a line, it leaves
+	 * the context continuing on the same line, and it ends its line.
+	 */
+	private static final byte LINE_START = 1, CONTINUE_LINE = 2, LINE_END = 4;
+
+	/**
+	 * The number of fragments placed by the last layout, or -1 if it cannot
+	 * be reused.
+	 */
+	private int placedCount = -1;
+	private int placedWidths[];
+	private int placedAdvances[];
+	private byte placedFlags[];
+	private Font placedFont;
+	private int placedStartWidth;
+	private boolean placedStartOccupied;
+	private boolean placedStartContinue;
+
 	/**
 	 * Constructs a new ParagraphTextLayout on the specified TextFlow.
 	 * 
@@ -141,10 +171,258 @@ public class ParagraphTextLayout extends TextLayout {
 		}
 	}
 
+	/**
+	 * Records how fragments are added to the lines while the text is wrapped.
+	 */
+	private class PlacementRecorder implements FlowContext {
+		private final FlowContext context;
+		boolean lineStart;
+		int width;
+
+		PlacementRecorder(FlowContext context) {
+			this.context = context;
+		}
+
+		public void addLine(CompositeBox box) {
+			context.addLine(box);
+		}
+
+		public void addToCurrentLine(FlowBox box) {
+			lineStart = !context.isCurrentLineOccupied();
+			width = context.getRemainingLineWidth();
+			context.addToCurrentLine(box);
+		}
+
+		public void endLine() {
+			context.endLine();
+		}
+
+		public boolean getContinueOnSameLine() {
+			return context.getContinueOnSameLine();
+		}
+
+		public int getRemainingLineWidth() {
+			return context.getRemainingLineWidth();
+		}
+
+		public void getWidthLookahead(FlowFigure child, int[] result) {
+			context.getWidthLookahead(child, result);
+		}
+
+		public boolean isCurrentLineOccupied() {
+			return context.isCurrentLineOccupied();
+		}
+
+		public void setContinueOnSameLine(boolean value) {
+			context.setContinueOnSameLine(value);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if a fragment which started a line with the
+	 * given width can be placed the same way again.
+	 */
+	private static boolean canPlaceAgain(FlowContext context, int width) {
+		return !context.isCurrentLineOccupied()
+				&& context.getRemainingLineWidth() == width;
+	}
+
+	/**
+	 * Returns the index of the first fragment on the line of the given
+	 * fragment.
+	 */
+	private int getLineStart(int index) {
+		while (index > 0 && (placedFlags[index] & LINE_START) == 0)
+			index--;
+		return index;
+	}
+
 	/**
 	 * @see org.eclipse.draw2d.text.FlowFigureLayout#layout()
 	 */
 	protected void layout() {
+		TextFlow textFlow = (TextFlow) getFlowFigure();
+		if (textFlow.getBidiInfo() == null
+				&& !(textFlow.getBorder() instanceof FlowBorder))
+			layoutIncrementally();
+		else {
+			layoutSegments();
+			placedCount = -1;
+		}
+		textFlow.changeStart = -1;
+	}
+
+	private void layoutIncrementally() {
+		TextFlow textFlow = (TextFlow) getFlowFigure();
+		FlowContext context = getContext();
+		PlacementRecorder recorder = new PlacementRecorder(context);
+		int length = textFlow.getContents().length();
+		Font font = textFlow.getFont();
+		List fragments = textFlow.getFragments();
+
+		int changeStart = textFlow.changeStart;
+		int changeEnd = textFlow.changeEnd;
+		int delta = textFlow.changeDelta;
+		if (changeStart == -1) {
+			changeStart = changeEnd = length;
+			delta = 0;
+		}
+
+		int startWidth = context.getRemainingLineWidth();
+		boolean startOccupied = context.isCurrentLineOccupied();
+		boolean startContinue = context.getContinueOnSameLine();
+
+		Object placed[] = fragments.toArray();
+		int count = placed.length;
+		boolean reusable = count > 0
+				&& placedCount == count
+				&& font != null
+				&& font.equals(placedFont)
+				&& ((TextFragmentBox) placed[count - 1]).offset
+						+ placedAdvances[count - 1] == length - delta;
+
+		// the fragments before the line preceding the first changed line, and
+		// the fragments on the last two lines
+		int prefix = 0, tail = count;
+		if (reusable) {
+			tail = getLineStart(count - 1);
+			if (tail > 0)
+				tail = getLineStart(tail - 1);
+			int changed = 0;
+			while (changed < count - 1
+					&& ((TextFragmentBox) placed[changed]).offset
+							+ placedAdvances[changed] < changeStart)
+				changed++;
+			prefix = getLineStart(changed);
+			if (prefix > 0)
+				prefix = getLineStart(prefix - 1);
+			prefix = Math.min(prefix, tail);
+			if (startWidth != placedStartWidth
+					|| startOccupied != placedStartOccupied
+					|| startContinue != placedStartContinue)
+				prefix = 0;
+		}
+
+		List result = new ArrayList(count + 4);
+		int widths[] = new int[count + 4];
+		int advances[] = new int[count + 4];
+		byte flags[] = new byte[count + 4];
+		int size = 0;
+
+		// place the fragments before the change again
+		int offset = 0;
+		for (int i = 0; i < prefix; i++) {
+			TextFragmentBox fragment = (TextFragmentBox) placed[i];
+			if (i > 0 && (placedFlags[i] & LINE_START) != 0
+					&& !canPlaceAgain(context, placedWidths[i]))
+				break;
+			place(context, fragment, placedFlags[i]);
+			result.add(fragment);
+			widths[size] = placedWidths[i];
+			advances[size] = placedAdvances[i];
+			flags[size++] = placedFlags[i];
+			offset = fragment.offset + placedAdvances[i];
+		}
+
+		FlowUtilities flowUtilities = textFlow.getFlowUtilities();
+		// the text is a single segment, followed by the figures after the flow
+		SegmentLookahead lookahead = new SegmentLookahead(new String[1], 0);
+		lookahead.setIndex(0);
+		TextFragmentBox fragment;
+		int advance;
+		int next = prefix;
+		do {
+			// the line delimiter ends the wrapping, so only the rest of the
+			// current line is read
+			String segment = textFlow.getText(offset, textFlow
+					.getLineEnd(offset)
+					- offset);
+			fragment = new TextFragmentBox(textFlow);
+			fragment.offset = offset;
+			fragment.setBidiLevel(-1);
+			advance = flowUtilities.wrapFragmentInContext(fragment, segment,
+					recorder, lookahead, font, wrappingStyle);
+			boolean continueLine = context.getContinueOnSameLine();
+			offset += advance;
+			boolean lineEnd = offset < length
+					|| fragment.length < advance || fragment.isTruncated();
+			if (lineEnd)
+				context.endLine();
+
+			if (size == widths.length) {
+				int newWidths[] = new int[size * 2];
+				int newAdvances[] = new int[size * 2];
+				byte newFlags[] = new byte[size * 2];
+				System.arraycopy(widths, 0, newWidths, 0, size);
+				System.arraycopy(advances, 0, newAdvances, 0, size);
+				System.arraycopy(flags, 0, newFlags, 0, size);
+				widths = newWidths;
+				advances = newAdvances;
+				flags = newFlags;
+			}
+			result.add(fragment);
+			widths[size] = recorder.width;
+			advances[size] = advance;
+			flags[size++] = (byte) ((recorder.lineStart ? LINE_START : 0)
+					| (continueLine ? CONTINUE_LINE : 0)
+					| (lineEnd ? LINE_END : 0));
+
+			if (reusable && lineEnd && offset < length && offset >= changeEnd) {
+				// look for a line which started at the same place in the
+				// unchanged text
+				while (next < tail
+						&& ((TextFragmentBox) placed[next]).offset < offset
+								- delta)
+					next++;
+				int i = next;
+				if (i < tail
+						&& ((TextFragmentBox) placed[i]).offset == offset
+								- delta && (placedFlags[i] & LINE_START) != 0
+						&& canPlaceAgain(context, placedWidths[i])) {
+					reusable = false;
+					int capacity = size + tail - i + 4;
+					if (widths.length < capacity) {
+						int newWidths[] = new int[capacity];
+						int newAdvances[] = new int[capacity];
+						byte newFlags[] = new byte[capacity];
+						System.arraycopy(widths, 0, newWidths, 0, size);
+						System.arraycopy(advances, 0, newAdvances, 0, size);
+						System.arraycopy(flags, 0, newFlags, 0, size);
+						widths = newWidths;
+						advances = newAdvances;
+						flags = newFlags;
+					}
+					for (; i < tail; i++) {
+						fragment = (TextFragmentBox) placed[i];
+						if ((placedFlags[i] & LINE_START) != 0
+								&& !canPlaceAgain(context, placedWidths[i]))
+							break;
+						fragment.offset += delta;
+						place(context, fragment, placedFlags[i]);
+						result.add(fragment);
+						widths[size] = placedWidths[i];
+						advances[size] = placedAdvances[i];
+						flags[size++] = placedFlags[i];
+						offset = fragment.offset + placedAdvances[i];
+					}
+				}
+			}
+		} while (offset < length
+				|| (!fragment.isTruncated() && fragment.length < advance));
+
+		fragments.clear();
+		fragments.addAll(result);
+		placedCount = size;
+		placedWidths = widths;
+		placedAdvances = advances;
+		placedFlags = flags;
+		placedFont = font;
+		placedStartWidth = startWidth;
+		placedStartOccupied = startOccupied;
+		placedStartContinue = startContinue;
+	}
+
+	private void layoutSegments() {
 		TextFlow textFlow = (TextFlow) getFlowFigure();
 		int offset = 0;
 
@@ -217,4 +495,19 @@ public class ParagraphTextLayout extends TextLayout {
 			fragments.remove(fragments.size() - 1);
 	}
 
+	/**
+	 * Adds a fragment to the context the same way it was added by the last
+	 * layout.
+	 */
+	private static void place(FlowContext context, TextFragmentBox fragment,
+			byte flags) {
+		if ((flags & LINE_START) != 0 && context.isCurrentLineOccupied())
+			context.endLine();
+		context.addToCurrentLine(fragment);
+		if ((flags & CONTINUE_LINE) != 0)
+			context.setContinueOnSameLine(true);
+		if ((flags & LINE_END) != 0)
+			context.endLine();
+	}
+
 }
@@ -39,8 +39,20 @@ public class TextFlow extends InlineFlow {
 	static final String ELLIPSIS = "..."; //$NON-NLS-1$
 	private BidiInfo bidiInfo;
 	private int selectionEnd = -1;
+	private CharSequence contents;
+	/**
+	 * The contents as a String, or <code>null</code> if they have changed
+	 * since the String was last requested.
+	 */
 	private String text;
 
+	/**
+	 * The range of the text which changed since the last layout, in the
+	 * current text, and the change in length. <code>changeStart</code> is -1
+	 * if the text has not changed.
+	 */
+	int changeStart = -1, changeEnd, changeDelta;
+
 	/**
 	 * Constructs a new TextFlow with the empty String.
 	 * 
@@ -57,7 +69,7 @@ public class TextFlow extends InlineFlow {
 	 *            the string
 	 */
 	public TextFlow(String s) {
-		text = s;
+		contents = text = s;
 	}
 
 	/**
@@ -66,7 +78,8 @@ public class TextFlow extends InlineFlow {
 	 * @see org.eclipse.draw2d.text.FlowFigure#addLeadingWordRequirements(int[])
 	 */
 	public boolean addLeadingWordRequirements(int[] width) {
-		return addLeadingWordWidth(getText(), width);
+		// the first word ends at the latest with the first line
+		return addLeadingWordWidth(getText(0, getLineEnd(0)), width);
 	}
 
 	/**
@@ -121,7 +134,10 @@ public class TextFlow extends InlineFlow {
 	 */
 	protected void contributeBidi(BidiProcessor proc) {
 		bidiInfo = null;
-		proc.add(this, getText());
+		if (text != null)
+			proc.add(this, text);
+		else
+			proc.add(this, contents);
 	}
 
 	/**
@@ -220,13 +236,13 @@ public class TextFlow extends InlineFlow {
 	 */
 	protected String getBidiSubstring(TextFragmentBox box, int index) {
 		if (box.getBidiLevel() < 1)
-			return getText().substring(box.offset, box.offset + box.length);
+			return getText(box.offset, box.length);
 
 		StringBuffer buffer = new StringBuffer(box.length + 3);
 		buffer.append(box.isRightToLeft() ? BidiChars.RLO : BidiChars.LRO);
 		if (index == 0 && bidiInfo.leadingJoiner)
 			buffer.append(BidiChars.ZWJ);
-		buffer.append(getText().substring(box.offset, box.offset + box.length));
+		buffer.append(getText(box.offset, box.length));
 		if (index == getFragmentsWithoutBorder().size() - 1
 				&& bidiInfo.trailingJoiner)
 			buffer.append(BidiChars.ZWJ);
@@ -248,11 +264,11 @@ public class TextFlow extends InlineFlow {
 	 * @return the caret bounds relative to this figure
 	 */
 	public CaretInfo getCaretPlacement(int offset, boolean trailing) {
-		if (offset < 0 || offset > getText().length())
+		if (offset < 0 || offset > contents.length())
 			throw new IllegalArgumentException("Offset: " + offset //$NON-NLS-1$
 					+ " is invalid"); //$NON-NLS-1$
 
-		if (offset == getText().length())
+		if (offset == contents.length())
 			trailing = false;
 
 		List fragments = getFragmentsWithoutBorder();
@@ -286,8 +302,7 @@ public class TextFlow extends InlineFlow {
 		if (bidiInfo == null) {
 			if (trailing && offset < box.length)
 				offset++;
-			String substring = getText().substring(box.offset,
-					box.offset + offset);
+			String substring = getText(box.offset, offset);
 			result.x = getTextUtilities().getTextExtents(substring, getFont()).width;
 		} else {
 			TextLayout layout = FlowUtilities.getTextLayout();
@@ -498,13 +513,52 @@ public class TextFlow extends InlineFlow {
 		return -1;
 	}
 
+	/**
+	 * Returns the characters being displayed, without copying them.
+	 */
+	CharSequence getContents() {
+		return contents;
+	}
+
+	/**
+	 * Returns the end of the line which starts at the given offset, after its
+	 * line delimiter if it has one.
+	 */
+	int getLineEnd(int offset) {
+		int length = contents.length();
+		for (; offset < length; offset++) {
+			char c = contents.charAt(offset);
+			if (c == '\n')
+				return offset + 1;
+			if (c == '\r') {
+				if (offset + 1 < length && contents.charAt(offset + 1) == '\n')
+					return offset + 2;
+				return offset + 1;
+			}
+		}
+		return length;
+	}
+
 	/**
 	 * @return the String being displayed; will not be <code>null</code>
 	 */
 	public String getText() {
+		if (text == null)
+			text = contents.toString();
 		return text;
 	}
 
+	/**
+	 * Returns the given range of the characters being displayed, copying only
+	 * that range if the contents have changed since the whole text was last
+	 * requested.
+	 */
+	String getText(int offset, int length) {
+		if (text != null)
+			return text.substring(offset, offset + length);
+		return contents.subSequence(offset, offset + length).toString();
+	}
+
 	int getVisibleAscent() {
 		if (getBorder() instanceof FlowBorder) {
 			FlowBorder border = (FlowBorder) getBorder();
@@ -675,6 +729,57 @@ public class TextFlow extends InlineFlow {
 			repaint();
 	}
 
+	/**
+	 * Tells this flow that <code>length</code> characters at the given offset
+	 * of its contents were replaced by <code>newLength</code> characters.
+	 * Only the lines around the change are wrapped again.
+	 * 
+	 * @param offset
+	 *            the start of the changed range
+	 * @param length
+	 *            the number of characters which were replaced
+	 * @param newLength
+	 *            the number of characters which replaced them
+	 * @exception IllegalArgumentException
+	 *                If the range is not within the contents
+	 * @see #setContents(CharSequence)
+	 * @since 3.10
+	 */
+	public void contentsChanged(int offset, int length, int newLength) {
+		if (offset < 0 || length < 0 || newLength < 0
+				|| offset + newLength > contents.length())
+			throw new IllegalArgumentException("Range: " + offset + ", " //$NON-NLS-1$ //$NON-NLS-2$
+					+ newLength + " is invalid"); //$NON-NLS-1$
+		if (length == 0 && newLength == 0)
+			return;
+		text = null;
+		textChanged(offset, length, newLength);
+		revalidateBidi(this);
+		repaint();
+	}
+
+	/**
+	 * Sets the characters being displayed, such as the text held by a model
+	 * element. They are not copied: the flow reads them again when it is laid
+	 * out or painted, so every later change must be reported with
+	 * {@link #contentsChanged(int, int, int)}. The contents may not be
+	 * <code>null</code>.
+	 * 
+	 * @param contents
+	 *            the characters to display
+	 * @since 3.10
+	 */
+	public void setContents(CharSequence contents) {
+		this.contents = contents;
+		text = null;
+		// wrap all lines again
+		changeStart = 0;
+		changeEnd = contents.length();
+		changeDelta = 0;
+		revalidateBidi(this);
+		repaint();
+	}
+
 	/**
 	 * Sets the text being displayed. The string may not be <code>null</code>.
 	 * 
@@ -682,8 +787,21 @@ public class TextFlow extends InlineFlow {
 	 *            The new text
 	 */
 	public void setText(String s) {
-		if (s != null && !s.equals(text)) {
-			text = s;
+		String old = getText();
+		if (s != null && !s.equals(old)) {
+			int start = 0;
+			int end = Math.min(old.length(), s.length());
+			while (start < end && old.charAt(start) == s.charAt(start))
+				start++;
+			int oldEnd = old.length();
+			int newEnd = s.length();
+			while (oldEnd > start && newEnd > start
+					&& old.charAt(oldEnd - 1) == s.charAt(newEnd - 1)) {
+				oldEnd--;
+				newEnd--;
+			}
+			contents = text = s;
+			textChanged(start, oldEnd - start, newEnd - start);
 			revalidateBidi(this);
 			repaint();
 		}
@@ -693,7 +811,25 @@ public class TextFlow extends InlineFlow {
 	 * @see java.lang.Object#toString()
 	 */
 	public String toString() {
-		return text;
+		return getText();
+	}
+
+	/**
+	 * Adds the replacement of <code>removed</code> characters at the given
+	 * offset by <code>inserted</code> characters to the range of text which
+	 * changed since the last layout.
+	 */
+	private void textChanged(int offset, int removed, int inserted) {
+		if (changeStart == -1) {
+			changeStart = offset;
+			changeEnd = offset + inserted;
+			changeDelta = inserted - removed;
+		} else {
+			int end = Math.max(changeEnd, offset + removed);
+			changeStart = Math.min(changeStart, offset);
+			changeEnd = end + inserted - removed;
+			changeDelta += inserted - removed;
+		}
 	}
 
 	private int vDistanceBetween(TextFragmentBox box, int y) {
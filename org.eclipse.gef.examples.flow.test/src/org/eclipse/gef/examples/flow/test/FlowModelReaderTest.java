@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.flow.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.gef.examples.flow.model.Activity;
+import org.eclipse.gef.examples.flow.model.ActivityDiagram;
+import org.eclipse.gef.examples.flow.model.FlowModelReader;
+import org.eclipse.gef.examples.flow.model.FlowModelWriter;
+import org.eclipse.gef.examples.flow.model.ParallelActivity;
+import org.eclipse.gef.examples.flow.model.SequentialActivity;
+import org.eclipse.gef.examples.flow.model.StructuredActivity;
+import org.eclipse.gef.examples.flow.model.Transition;
+
+/**
+ * Reads back activity diagrams saved in the binary format and by Java
+ * serialization, and compares them with the saved diagram.
+ */
+public class FlowModelReaderTest extends TestCase {
+
+	private ActivityDiagram diagram;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		diagram = new ActivityDiagram();
+		diagram.setName("Diagram"); //$NON-NLS-1$
+		Activity start = new Activity("Start"); //$NON-NLS-1$
+		diagram.addChild(start);
+		SequentialActivity sequence = new SequentialActivity();
+		sequence.setName("Sequence"); //$NON-NLS-1$
+		diagram.addChild(sequence);
+		Activity first = new Activity("First"); //$NON-NLS-1$
+		sequence.addChild(first);
+		ParallelActivity parallel = new ParallelActivity();
+		sequence.addChild(parallel);
+		Activity left = new Activity("Branch"); //$NON-NLS-1$
+		Activity right = new Activity("Branch"); //$NON-NLS-1$
+		right.setSortIndex(3);
+		parallel.addChild(left);
+		parallel.addChild(right);
+		Activity end = new Activity("End"); //$NON-NLS-1$
+		diagram.addChild(end);
+
+		new Transition(start, sequence);
+		new Transition(first, left);
+		new Transition(first, right);
+		new Transition(left, end);
+		new Transition(right, end);
+	}
+
+	private static void collect(Activity activity, List activities) {
+		activities.add(activity);
+		if (activity instanceof StructuredActivity) {
+			List children = ((StructuredActivity) activity).getChildren();
+			for (int i = 0; i < children.size(); i++)
+				collect((Activity) children.get(i), activities);
+		}
+	}
+
+	private static Map number(List activities) {
+		Map numbers = new IdentityHashMap();
+		for (int i = 0; i < activities.size(); i++)
+			numbers.put(activities.get(i), new Integer(i));
+		return numbers;
+	}
+
+	private static void assertDiagramEquals(ActivityDiagram expected,
+			ActivityDiagram actual) {
+		List expectedActivities = new ArrayList();
+		List actualActivities = new ArrayList();
+		collect(expected, expectedActivities);
+		collect(actual, actualActivities);
+		assertEquals(expectedActivities.size(), actualActivities.size());
+		Map expectedNumbers = number(expectedActivities);
+		Map actualNumbers = number(actualActivities);
+		for (int i = 0; i < expectedActivities.size(); i++) {
+			Activity e = (Activity) expectedActivities.get(i);
+			Activity a = (Activity) actualActivities.get(i);
+			assertEquals(e.getClass(), a.getClass());
+			assertEquals(e.getName(), a.getName());
+			assertEquals(e.getSortIndex(), a.getSortIndex());
+			List eo = e.getOutgoingTransitions();
+			List ao = a.getOutgoingTransitions();
+			assertEquals(eo.size(), ao.size());
+			for (int j = 0; j < eo.size(); j++) {
+				Transition et = (Transition) eo.get(j);
+				Transition at = (Transition) ao.get(j);
+				assertSame(a, at.source);
+				assertEquals(expectedNumbers.get(et.target),
+						actualNumbers.get(at.target));
+				assertTrue(at.target.getIncomingTransitions().contains(at));
+			}
+			assertEquals(e.getIncomingTransitions().size(), a
+					.getIncomingTransitions().size());
+		}
+	}
+
+	private static ActivityDiagram read(byte[] bytes) throws IOException {
+		return FlowModelReader.read(new ByteArrayInputStream(bytes));
+	}
+
+	public void testBinaryRoundTrip() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new FlowModelWriter(out).write(diagram);
+		assertDiagramEquals(diagram, read(out.toByteArray()));
+	}
+
+	public void testSerializedDiagramIsRead() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(diagram);
+		oos.close();
+		assertDiagramEquals(diagram, read(out.toByteArray()));
+	}
+
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.flow.model;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an activity diagram written by {@link FlowModelWriter}.
+ */
+public class FlowModelReader {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Reads a diagram from the given stream, which may contain either the
+	 * binary format or a serialized diagram saved by earlier versions. The
+	 * stream is not closed.
+	 *
+	 * @param in
+	 *            the stream to read from
+	 * @return the diagram
+	 * @throws IOException
+	 *             if reading fails or the contents are not a diagram
+	 */
+	public static ActivityDiagram read(InputStream in) throws IOException {
+		if (!in.markSupported())
+			in = new BufferedInputStream(in);
+		in.mark(4);
+		int magic = 0;
+		for (int i = 0; i < 4; i++)
+			magic = (magic << 8) | (in.read() & 0xFF);
+		in.reset();
+		if (magic == FlowModelWriter.MAGIC)
+			return new FlowModelReader(Channels.newChannel(in)).read();
+		try {
+			return (ActivityDiagram) new ObjectInputStream(in).readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final List strings = new ArrayList();
+	private final List activities = new ArrayList();
+
+	/**
+	 * Creates a reader for the given channel.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 */
+	public FlowModelReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		buffer.flip();
+	}
+
+	private static Activity createActivity(int type) throws IOException {
+		switch (type) {
+		case FlowModelWriter.TYPE_ACTIVITY:
+			return new Activity();
+		case FlowModelWriter.TYPE_SEQUENTIAL:
+			return new SequentialActivity();
+		case FlowModelWriter.TYPE_PARALLEL:
+			return new ParallelActivity();
+		case FlowModelWriter.TYPE_DIAGRAM:
+			return new ActivityDiagram();
+		}
+		throw new IOException("Unknown activity type: " + type); //$NON-NLS-1$
+	}
+
+	private Activity getActivity(int number) throws IOException {
+		if (number < 0 || number >= activities.size())
+			throw new IOException("Invalid activity number: " + number); //$NON-NLS-1$
+		return (Activity) activities.get(number);
+	}
+
+	/**
+	 * Reads a diagram. The channel is not closed.
+	 *
+	 * @return the diagram
+	 * @throws IOException
+	 *             if reading fails or the contents are not in the binary
+	 *             format
+	 */
+	public ActivityDiagram read() throws IOException {
+		require(5);
+		if (buffer.getInt() != FlowModelWriter.MAGIC)
+			throw new IOException("Not a binary activity diagram"); //$NON-NLS-1$
+		int version = buffer.get();
+		if (version != FlowModelWriter.VERSION)
+			throw new IOException("Unsupported version: " + version); //$NON-NLS-1$
+		Activity root = readActivity();
+		if (!(root instanceof ActivityDiagram))
+			throw new IOException("Not an activity diagram"); //$NON-NLS-1$
+		readTransitions();
+		return (ActivityDiagram) root;
+	}
+
+	private Activity readActivity() throws IOException {
+		require(1);
+		int type = buffer.get();
+		Activity activity = createActivity(type);
+		activities.add(activity);
+		activity.setName(readString());
+		activity.setSortIndex(readInt());
+		if (type != FlowModelWriter.TYPE_ACTIVITY) {
+			int count = readInt();
+			List children = ((StructuredActivity) activity).getChildren();
+			for (int i = 0; i < count; i++)
+				children.add(readActivity());
+		}
+		return activity;
+	}
+
+	private int readInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			require(1);
+			int b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed integer"); //$NON-NLS-1$
+	}
+
+	private String readString() throws IOException {
+		int number = readInt();
+		if (number == 0)
+			return null;
+		if (number > 1) {
+			if (number - 2 >= strings.size())
+				throw new IOException("Invalid string number: " + number); //$NON-NLS-1$
+			return (String) strings.get(number - 2);
+		}
+		byte[] bytes = new byte[readInt()];
+		for (int offset = 0; offset < bytes.length;) {
+			if (!buffer.hasRemaining())
+				require(1);
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.get(bytes, offset, length);
+			offset += length;
+		}
+		String s = new String(bytes, "UTF-8"); //$NON-NLS-1$
+		strings.add(s);
+		return s;
+	}
+
+	private void readTransitions() throws IOException {
+		int count = readInt();
+		for (int i = 0; i < count; i++)
+			new Transition(getActivity(readInt()), getActivity(readInt()));
+	}
+
+	/**
+	 * Makes sure that at least the given number of bytes can be read from
+	 * the buffer.
+	 */
+	private void require(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes)
+			return;
+		buffer.compact();
+		while (buffer.position() < bytes) {
+			if (channel.read(buffer) < 0) {
+				buffer.flip();
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+	}
+
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.flow.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an activity diagram in the compact binary format read by
+ * {@link FlowModelReader}.
+ * <P>
+ * The format starts with {@link #MAGIC} and {@link #VERSION}. The activities
+ * follow depth first, each structured activity followed by its children, and
+ * are numbered in that order. The transitions are written afterwards as pairs
+ * of activity numbers. Names are written once and referenced by number
+ * afterwards.
+ */
+public class FlowModelWriter {
+
+	/**
+	 * The first four bytes of a binary flow file.
+	 */
+	public static final int MAGIC = 0x47464C57;
+
+	/**
+	 * The current format version.
+	 */
+	public static final int VERSION = 1;
+
+	static final int TYPE_ACTIVITY = 0, TYPE_SEQUENTIAL = 1,
+			TYPE_PARALLEL = 2, TYPE_DIAGRAM = 3;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final Map strings = new HashMap();
+	private final Map activityNumbers = new IdentityHashMap();
+	private final List activities = new ArrayList();
+
+	/**
+	 * Creates a writer for the given channel.
+	 *
+	 * @param channel
+	 *            the channel to write to
+	 */
+	public FlowModelWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Creates a writer for the given stream.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 */
+	public FlowModelWriter(OutputStream out) {
+		this(Channels.newChannel(out));
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	private static int getType(Activity activity) {
+		if (activity instanceof ActivityDiagram)
+			return TYPE_DIAGRAM;
+		if (activity instanceof ParallelActivity)
+			return TYPE_PARALLEL;
+		if (activity instanceof SequentialActivity)
+			return TYPE_SEQUENTIAL;
+		if (activity instanceof StructuredActivity)
+			throw new IllegalArgumentException("Unknown activity: " + activity); //$NON-NLS-1$
+		return TYPE_ACTIVITY;
+	}
+
+	private void require(int bytes) throws IOException {
+		if (buffer.remaining() < bytes)
+			flush();
+	}
+
+	/**
+	 * Writes the given diagram and flushes the channel. The channel is not
+	 * closed.
+	 *
+	 * @param diagram
+	 *            the diagram to write
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(ActivityDiagram diagram) throws IOException {
+		require(5);
+		buffer.putInt(MAGIC);
+		buffer.put((byte) VERSION);
+		writeActivity(diagram);
+		writeTransitions();
+		flush();
+	}
+
+	private void writeActivity(Activity activity) throws IOException {
+		activityNumbers.put(activity, new Integer(activities.size()));
+		activities.add(activity);
+		int type = getType(activity);
+		require(1);
+		buffer.put((byte) type);
+		writeString(activity.getName());
+		writeInt(activity.getSortIndex());
+		if (type != TYPE_ACTIVITY) {
+			List children = ((StructuredActivity) activity).getChildren();
+			writeInt(children.size());
+			for (int i = 0; i < children.size(); i++)
+				writeActivity((Activity) children.get(i));
+		}
+	}
+
+	/**
+	 * Writes an unsigned variable length integer, 7 bits per byte.
+	 */
+	private void writeInt(int value) throws IOException {
+		require(5);
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Writes a string the first time it is seen, and its number afterwards.
+	 * 0 stands for <code>null</code>.
+	 */
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			writeInt(0);
+			return;
+		}
+		Integer number = (Integer) strings.get(s);
+		if (number != null) {
+			writeInt(number.intValue() + 2);
+			return;
+		}
+		strings.put(s, new Integer(strings.size()));
+		writeInt(1);
+		byte[] bytes = s.getBytes("UTF-8"); //$NON-NLS-1$
+		writeInt(bytes.length);
+		for (int offset = 0; offset < bytes.length;) {
+			if (!buffer.hasRemaining())
+				flush();
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	private void writeTransitions() throws IOException {
+		List transitions = new ArrayList();
+		for (int i = 0; i < activities.size(); i++) {
+			List outputs = ((Activity) activities.get(i))
+					.getOutgoingTransitions();
+			for (int j = 0; j < outputs.size(); j++) {
+				Transition transition = (Transition) outputs.get(j);
+				if (activityNumbers.containsKey(transition.target))
+					transitions.add(transition);
+			}
+		}
+		writeInt(transitions.size());
+		for (int i = 0; i < transitions.size(); i++) {
+			Transition transition = (Transition) transitions.get(i);
+			writeInt(((Integer) activityNumbers.get(transition.source))
+					.intValue());
+			writeInt(((Integer) activityNumbers.get(transition.target))
+					.intValue());
+		}
+	}
+
+}
@@ -25,8 +25,15 @@ class GraphLayoutManager extends AbstractLayout {
 
 	private ActivityDiagramPart diagram;
 
+	/**
+	 * Reused for every layout, so that each layout starts from the previous
+	 * one and unchanged activities keep their places.
+	 */
+	private CompoundDirectedGraphLayout graphLayout = new CompoundDirectedGraphLayout();
+
 	GraphLayoutManager(ActivityDiagramPart diagram) {
 		this.diagram = diagram;
+		graphLayout.setIncremental(true);
 	}
 
 	protected Dimension calculatePreferredSize(IFigure container, int wHint,
@@ -51,7 +58,7 @@ class GraphLayoutManager extends AbstractLayout {
 		Map partsToNodes = new HashMap();
 		diagram.contributeNodesToGraph(graph, null, partsToNodes);
 		diagram.contributeEdgesToGraph(graph, partsToNodes);
-		new CompoundDirectedGraphLayout().visit(graph);
+		graphLayout.visit(graph);
 		diagram.applyGraphResults(graph, partsToNodes);
 	}
 
@@ -14,8 +14,6 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.EventObject;
 
@@ -36,6 +34,8 @@ import org.eclipse.gef.editparts.ScalableRootEditPart;
 import org.eclipse.gef.examples.flow.FlowEditorPaletteFactory;
 import org.eclipse.gef.examples.flow.actions.FlowContextMenuProvider;
 import org.eclipse.gef.examples.flow.model.ActivityDiagram;
+import org.eclipse.gef.examples.flow.model.FlowModelReader;
+import org.eclipse.gef.examples.flow.model.FlowModelWriter;
 import org.eclipse.gef.examples.flow.parts.ActivityPartFactory;
 import org.eclipse.gef.palette.PaletteRoot;
 import org.eclipse.gef.ui.actions.ActionRegistry;
@@ -100,9 +100,8 @@ public class FlowEditor extends GraphicalEditorWithPalette {
 	 * @throws IOException
 	 */
 	protected void createOutputStream(OutputStream os) throws IOException {
-		ObjectOutputStream out = new ObjectOutputStream(os);
-		out.writeObject(diagram);
-		out.close();
+		new FlowModelWriter(os).write(diagram);
+		os.close();
 	}
 
 	/**
@@ -245,9 +244,8 @@ public class FlowEditor extends GraphicalEditorWithPalette {
 		IFile file = ((IFileEditorInput) input).getFile();
 		try {
 			InputStream is = file.getContents(false);
-			ObjectInputStream ois = new ObjectInputStream(is);
-			diagram = (ActivityDiagram) ois.readObject();
-			ois.close();
+			diagram = FlowModelReader.read(is);
+			is.close();
 		} catch (Exception e) {
 			// This is just an example. All exceptions caught here.
 			e.printStackTrace();
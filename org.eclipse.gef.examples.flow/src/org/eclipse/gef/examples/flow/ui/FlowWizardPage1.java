@@ -13,12 +13,12 @@ package org.eclipse.gef.examples.flow.ui;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.gef.examples.flow.FlowPlugin;
 import org.eclipse.gef.examples.flow.model.Activity;
 import org.eclipse.gef.examples.flow.model.ActivityDiagram;
+import org.eclipse.gef.examples.flow.model.FlowModelWriter;
 import org.eclipse.gef.examples.flow.model.ParallelActivity;
 import org.eclipse.gef.examples.flow.model.SequentialActivity;
 import org.eclipse.gef.examples.flow.model.Transition;
@@ -114,10 +114,7 @@ public class FlowWizardPage1 extends WizardNewFileCreationPage {
 		ByteArrayInputStream bais = null;
 		try {
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			ObjectOutputStream oos = new ObjectOutputStream(baos);
-			oos.writeObject(diag);
-			oos.flush();
-			oos.close();
+			new FlowModelWriter(baos).write(diag);
 			baos.close();
 			bais = new ByteArrayInputStream(baos.toByteArray());
 			bais.close();
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.logicdesigner.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.PositionConstants;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
+
+import org.eclipse.gef.examples.logicdesigner.model.AndGate;
+import org.eclipse.gef.examples.logicdesigner.model.Circuit;
+import org.eclipse.gef.examples.logicdesigner.model.Gate;
+import org.eclipse.gef.examples.logicdesigner.model.LED;
+import org.eclipse.gef.examples.logicdesigner.model.LiveOutput;
+import org.eclipse.gef.examples.logicdesigner.model.LogicDiagram;
+import org.eclipse.gef.examples.logicdesigner.model.LogicFlowContainer;
+import org.eclipse.gef.examples.logicdesigner.model.LogicGuide;
+import org.eclipse.gef.examples.logicdesigner.model.LogicLabel;
+import org.eclipse.gef.examples.logicdesigner.model.LogicModelReader;
+import org.eclipse.gef.examples.logicdesigner.model.LogicModelWriter;
+import org.eclipse.gef.examples.logicdesigner.model.LogicRuler;
+import org.eclipse.gef.examples.logicdesigner.model.LogicSubpart;
+import org.eclipse.gef.examples.logicdesigner.model.OrGate;
+import org.eclipse.gef.examples.logicdesigner.model.SimpleOutput;
+import org.eclipse.gef.examples.logicdesigner.model.Wire;
+import org.eclipse.gef.examples.logicdesigner.model.WireBendpoint;
+
+/**
+ * Reads back logic diagrams saved in the binary format and by Java
+ * serialization, and compares them with the saved diagram.
+ */
+public class LogicModelReaderTest extends TestCase {
+
+	private LogicDiagram diagram;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		diagram = new LogicDiagram();
+		diagram.setZoom(1.5);
+		diagram.setGridEnabled(true);
+		diagram.setConnectionRouter(LogicDiagram.ROUTER_MANHATTAN);
+
+		LiveOutput live = new LiveOutput();
+		live.setLocation(new Point(10, 20));
+		diagram.addChild(live);
+		AndGate and = new AndGate();
+		and.setLocation(new Point(-30, 80));
+		diagram.addChild(and);
+		LogicLabel label = new LogicLabel();
+		label.setLabelContents("Adder"); //$NON-NLS-1$
+		diagram.addChild(label);
+
+		Circuit circuit = new Circuit();
+		circuit.setLocation(new Point(200, 40));
+		circuit.setSize(new Dimension(120, 90));
+		diagram.addChild(circuit);
+		OrGate or = new OrGate();
+		circuit.addChild(or);
+		LogicFlowContainer flow = new LogicFlowContainer();
+		flow.setLayout(LogicFlowContainer.LAYOUT_SINGLE_ROW);
+		diagram.addChild(flow);
+		LED led = new LED();
+		led.setValue(9);
+		flow.addChild(led);
+
+		connect(live, SimpleOutput.TERMINAL_OUT, and, Gate.TERMINAL_A);
+		connect(live, SimpleOutput.TERMINAL_OUT, and, Gate.TERMINAL_B);
+		Wire wire = connect(and, SimpleOutput.TERMINAL_OUT, circuit,
+				Circuit.TERMINALS_IN[0]);
+		WireBendpoint bendpoint = new WireBendpoint();
+		bendpoint.setRelativeDimensions(new Dimension(5, -7),
+				new Dimension(-12, 3));
+		bendpoint.setWeight(0.25f);
+		wire.insertBendpoint(0, bendpoint);
+		connect(circuit, Circuit.TERMINALS_OUT[0], or, Gate.TERMINAL_A);
+		connect(or, SimpleOutput.TERMINAL_OUT, led, LED.TERMINAL_1_IN);
+
+		LogicRuler ruler = diagram.getRuler(PositionConstants.WEST);
+		LogicGuide guide = new LogicGuide();
+		guide.setPosition(80);
+		ruler.addGuide(guide);
+		guide.attachPart(and, -1);
+	}
+
+	private static Wire connect(LogicSubpart source, String sourceTerminal,
+			LogicSubpart target, String targetTerminal) {
+		Wire wire = new Wire();
+		wire.setSource(source);
+		wire.setSourceTerminal(sourceTerminal);
+		wire.setTarget(target);
+		wire.setTargetTerminal(targetTerminal);
+		wire.attachSource();
+		wire.attachTarget();
+		return wire;
+	}
+
+	private static void collect(LogicSubpart part, List parts) {
+		parts.add(part);
+		if (part instanceof LogicDiagram) {
+			List children = ((LogicDiagram) part).getChildren();
+			for (int i = 0; i < children.size(); i++)
+				collect((LogicSubpart) children.get(i), parts);
+		}
+	}
+
+	private static Map number(List parts) {
+		Map numbers = new IdentityHashMap();
+		for (int i = 0; i < parts.size(); i++)
+			numbers.put(parts.get(i), new Integer(i));
+		return numbers;
+	}
+
+	private static void assertDiagramEquals(LogicDiagram expected,
+			LogicDiagram actual) {
+		List expectedParts = new ArrayList();
+		List actualParts = new ArrayList();
+		collect(expected, expectedParts);
+		collect(actual, actualParts);
+		assertEquals(expectedParts.size(), actualParts.size());
+		Map expectedNumbers = number(expectedParts);
+		Map actualNumbers = number(actualParts);
+		for (int i = 0; i < expectedParts.size(); i++) {
+			LogicSubpart e = (LogicSubpart) expectedParts.get(i);
+			LogicSubpart a = (LogicSubpart) actualParts.get(i);
+			assertEquals(e.getClass(), a.getClass());
+			assertEquals(e.getID(), a.getID());
+			assertEquals(e.getLocation(), a.getLocation());
+			assertEquals(e.getSize(), a.getSize());
+			if (e instanceof LED)
+				assertEquals(((LED) e).getValue(), ((LED) a).getValue());
+			if (e instanceof LogicLabel)
+				assertEquals(((LogicLabel) e).getLabelContents(),
+						((LogicLabel) a).getLabelContents());
+			if (e instanceof LogicFlowContainer)
+				assertEquals(((LogicFlowContainer) e).getLayout(),
+						((LogicFlowContainer) a).getLayout());
+			if (e instanceof LogicDiagram) {
+				LogicDiagram d = (LogicDiagram) e;
+				assertEquals(d.getZoom(), ((LogicDiagram) a).getZoom(), 0);
+				assertEquals(d.isGridEnabled(),
+						((LogicDiagram) a).isGridEnabled());
+				assertEquals(d.getConnectionRouter(),
+						((LogicDiagram) a).getConnectionRouter());
+			}
+			assertWiresEqual(e.getSourceConnections(), expectedNumbers,
+					a.getSourceConnections(), actualNumbers);
+			assertGuideEquals(e, e.getVerticalGuide(), a, a.getVerticalGuide());
+			assertGuideEquals(e, e.getHorizontalGuide(), a,
+					a.getHorizontalGuide());
+		}
+		for (int i = 0; i < 2; i++) {
+			int side = i == 0 ? PositionConstants.NORTH : PositionConstants.WEST;
+			List e = expected.getRuler(side).getGuides();
+			List a = actual.getRuler(side).getGuides();
+			assertEquals(e.size(), a.size());
+			for (int j = 0; j < e.size(); j++)
+				assertEquals(((LogicGuide) e.get(j)).getPosition(),
+						((LogicGuide) a.get(j)).getPosition());
+		}
+	}
+
+	private static void assertGuideEquals(LogicSubpart expectedPart,
+			LogicGuide expected, LogicSubpart actualPart, LogicGuide actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.getPosition(), actual.getPosition());
+		assertEquals(expected.isHorizontal(), actual.isHorizontal());
+		assertEquals(expected.getAlignment(expectedPart),
+				actual.getAlignment(actualPart));
+	}
+
+	private static void assertWiresEqual(List expected, Map expectedNumbers,
+			List actual, Map actualNumbers) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Wire e = (Wire) expected.get(i);
+			Wire a = (Wire) actual.get(i);
+			assertEquals(expectedNumbers.get(e.getSource()),
+					actualNumbers.get(a.getSource()));
+			assertEquals(expectedNumbers.get(e.getTarget()),
+					actualNumbers.get(a.getTarget()));
+			assertEquals(e.getSourceTerminal(), a.getSourceTerminal());
+			assertEquals(e.getTargetTerminal(), a.getTargetTerminal());
+			assertEquals(e.getValue(), a.getValue());
+			assertTrue(a.getTarget().getTargetConnections().contains(a));
+			List eb = e.getBendpoints();
+			List ab = a.getBendpoints();
+			assertEquals(eb.size(), ab.size());
+			for (int j = 0; j < eb.size(); j++) {
+				WireBendpoint ep = (WireBendpoint) eb.get(j);
+				WireBendpoint ap = (WireBendpoint) ab.get(j);
+				assertEquals(ep.getFirstRelativeDimension(),
+						ap.getFirstRelativeDimension());
+				assertEquals(ep.getSecondRelativeDimension(),
+						ap.getSecondRelativeDimension());
+				assertEquals(ep.getWeight(), ap.getWeight(), 0);
+			}
+		}
+	}
+
+	private static LogicDiagram read(byte[] bytes) throws IOException {
+		return LogicModelReader.read(new ByteArrayInputStream(bytes));
+	}
+
+	public void testBinaryRoundTrip() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new LogicModelWriter(out).write(diagram);
+		assertDiagramEquals(diagram, read(out.toByteArray()));
+	}
+
+	public void testSerializedDiagramIsRead() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(out);
+		oos.writeObject(diagram);
+		oos.close();
+		assertDiagramEquals(diagram, read(out.toByteArray()));
+	}
+
+	public void testDeepCircuitRoundTrip() throws IOException {
+		LiveOutput live = new LiveOutput();
+		diagram.addChild(live);
+		LogicSubpart previous = live;
+		for (int i = 0; i < 20000; i++) {
+			OrGate gate = new OrGate();
+			diagram.addChild(gate);
+			connect(previous, SimpleOutput.TERMINAL_OUT, gate, Gate.TERMINAL_A);
+			previous = gate;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new LogicModelWriter(out).write(diagram);
+		assertDiagramEquals(diagram, read(out.toByteArray()));
+	}
+
+}
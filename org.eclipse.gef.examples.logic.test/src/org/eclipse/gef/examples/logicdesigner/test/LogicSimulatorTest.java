@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.logicdesigner.test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+import org.eclipse.gef.examples.logicdesigner.model.AndGate;
+import org.eclipse.gef.examples.logicdesigner.model.Circuit;
+import org.eclipse.gef.examples.logicdesigner.model.Gate;
+import org.eclipse.gef.examples.logicdesigner.model.GroundOutput;
+import org.eclipse.gef.examples.logicdesigner.model.LiveOutput;
+import org.eclipse.gef.examples.logicdesigner.model.LogicSubpart;
+import org.eclipse.gef.examples.logicdesigner.model.OrGate;
+import org.eclipse.gef.examples.logicdesigner.model.SimpleOutput;
+import org.eclipse.gef.examples.logicdesigner.model.Simulator;
+import org.eclipse.gef.examples.logicdesigner.model.Wire;
+import org.eclipse.gef.examples.logicdesigner.model.XORGate;
+
+/**
+ * Compares the logic simulator with the values which recursive propagation
+ * of every change settles on.
+ */
+public class LogicSimulatorTest extends TestCase {
+
+	private LiveOutput live;
+	private GroundOutput ground;
+	private List wires;
+	private List switches;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		live = new LiveOutput();
+		ground = new GroundOutput();
+		wires = new ArrayList();
+		switches = new ArrayList();
+	}
+
+	protected void tearDown() throws Exception {
+		Simulator.getDefault().setParallelThreshold(0);
+		super.tearDown();
+	}
+
+	private Wire connect(LogicSubpart source, String sourceTerminal,
+			LogicSubpart target, String targetTerminal) {
+		Wire wire = new Wire();
+		wire.setSource(source);
+		wire.setSourceTerminal(sourceTerminal);
+		wire.setTarget(target);
+		wire.setTargetTerminal(targetTerminal);
+		wire.attachSource();
+		wire.attachTarget();
+		wires.add(wire);
+		return wire;
+	}
+
+	private void toggle(Wire wire) {
+		wire.detachSource();
+		wire.setSource(wire.getSource() == live ? (LogicSubpart) ground
+				: live);
+		wire.attachSource();
+	}
+
+	/**
+	 * Builds a random netlist without feedback, which is threaded through
+	 * the terminals of a few circuits. Each circuit is therefore wired to
+	 * both sides of its terminals, and scheduled again whenever a signal
+	 * comes back to it. Exclusive ors pass on every change of their inputs,
+	 * so a netlist made of them schedules the circuits most often.
+	 */
+	private void buildNetlist(Random random, int circuitCount, int size,
+			boolean exclusive) {
+		List signals = new ArrayList();
+		for (int i = 0; i < 4; i++) {
+			OrGate input = new OrGate();
+			connect(ground, SimpleOutput.TERMINAL_OUT, input, Gate.TERMINAL_A);
+			switches.add(connect(ground, SimpleOutput.TERMINAL_OUT, input,
+					Gate.TERMINAL_B));
+			signals.add(new Object[] { input, SimpleOutput.TERMINAL_OUT });
+		}
+		Circuit[] circuits = new Circuit[circuitCount];
+		int[] used = new int[circuitCount];
+		for (int i = 0; i < circuitCount; i++)
+			circuits[i] = new Circuit();
+		for (int i = 0; i < size; i++) {
+			int c = random.nextInt(circuitCount * 4);
+			if (c < circuitCount && used[c] < Circuit.TERMINALS_IN.length) {
+				Object[] signal = pick(random, signals);
+				connect((LogicSubpart) signal[0], (String) signal[1],
+						circuits[c], Circuit.TERMINALS_IN[used[c]]);
+				signals.add(new Object[] { circuits[c],
+						Circuit.TERMINALS_OUT[used[c]++] });
+				continue;
+			}
+			Gate gate;
+			switch (exclusive ? 2 : random.nextInt(3)) {
+			case 0:
+				gate = new AndGate();
+				break;
+			case 1:
+				gate = new OrGate();
+				break;
+			default:
+				gate = new XORGate();
+			}
+			Object[] a = pick(random, signals);
+			Object[] b = pick(random, signals);
+			connect((LogicSubpart) a[0], (String) a[1], gate, Gate.TERMINAL_A);
+			connect((LogicSubpart) b[0], (String) b[1], gate, Gate.TERMINAL_B);
+			signals.add(new Object[] { gate, SimpleOutput.TERMINAL_OUT });
+		}
+	}
+
+	private static Object[] pick(Random random, List signals) {
+		// prefer recent signals, so that the netlist gets deep
+		int range = Math.min(signals.size(), 12);
+		return (Object[]) signals.get(signals.size() - 1
+				- random.nextInt(range));
+	}
+
+	/**
+	 * Returns the value of every wire once all changes have propagated, by
+	 * evaluating all parts until no wire changes.
+	 */
+	private Map settle() {
+		Map values = new IdentityHashMap();
+		for (int i = 0; i < wires.size(); i++)
+			values.put(wires.get(i), Boolean.FALSE);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < wires.size(); i++) {
+				Wire wire = (Wire) wires.get(i);
+				Boolean value = Boolean.valueOf(output(values,
+						wire.getSource(), wire.getSourceTerminal()));
+				if (!value.equals(values.put(wire, value)))
+					changed = true;
+			}
+		}
+		return values;
+	}
+
+	private static boolean input(Map values, LogicSubpart part,
+			String terminal) {
+		Vector inputs = part.getTargetConnections();
+		for (int i = 0; i < inputs.size(); i++) {
+			Wire wire = (Wire) inputs.get(i);
+			if (wire.getTargetTerminal().equals(terminal))
+				return ((Boolean) values.get(wire)).booleanValue();
+		}
+		return false;
+	}
+
+	private static boolean output(Map values, LogicSubpart part,
+			String terminal) {
+		if (part instanceof LiveOutput)
+			return true;
+		if (part instanceof GroundOutput)
+			return false;
+		if (part instanceof Circuit) {
+			for (int i = 0; i < Circuit.TERMINALS_OUT.length; i++)
+				if (Circuit.TERMINALS_OUT[i].equals(terminal))
+					return input(values, part, Circuit.TERMINALS_IN[i]);
+			fail();
+		}
+		boolean a = input(values, part, Gate.TERMINAL_A);
+		boolean b = input(values, part, Gate.TERMINAL_B);
+		if (part instanceof AndGate)
+			return a & b;
+		if (part instanceof OrGate)
+			return a | b;
+		return a ^ b;
+	}
+
+	private void assertSettled() {
+		assertTrue(Simulator.getDefault().hasConverged());
+		Map expected = settle();
+		for (int i = 0; i < wires.size(); i++) {
+			Wire wire = (Wire) wires.get(i);
+			assertEquals(wire.toString(), expected.get(wire),
+					Boolean.valueOf(wire.getValue()));
+		}
+	}
+
+	private void runNetlists(int seeds, boolean exclusive) {
+		for (int seed = 0; seed < seeds; seed++) {
+			wires.clear();
+			switches.clear();
+			Random random = new Random(seed);
+			buildNetlist(random, 6, 400, exclusive);
+			assertSettled();
+			for (int i = 0; i < 12; i++) {
+				toggle((Wire) switches.get(random.nextInt(switches.size())));
+				assertSettled();
+			}
+		}
+	}
+
+	public void testCircuitsSettleLikeRecursivePropagation() {
+		runNetlists(10, false);
+	}
+
+	public void testGlitchingCircuitsSettleLikeRecursivePropagation() {
+		runNetlists(20, true);
+	}
+
+	public void testParallelEvaluationSettles() {
+		Simulator.getDefault().setParallelThreshold(2);
+		runNetlists(5, false);
+	}
+
+	public void testOscillatorIsReported() {
+		XORGate oscillator = new XORGate();
+		connect(live, SimpleOutput.TERMINAL_OUT, oscillator, Gate.TERMINAL_A);
+		connect(oscillator, SimpleOutput.TERMINAL_OUT, oscillator,
+				Gate.TERMINAL_B);
+		assertFalse(Simulator.getDefault().hasConverged());
+		assertTrue(Simulator.getDefault().getEvaluationCount() <= Simulator.MAX_EVALUATIONS
+				+ 1);
+	}
+
+}
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.logicdesigner.test;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * The test suite for the logic example.
+ */
+public class LogicTestSuite extends TestSuite {
+
+	public static Test suite() {
+		return new LogicTestSuite();
+	}
+
+	/**
+	 * Constructs a new LogicTestSuite. Add any JUnit tests to the suite here.
+	 */
+	public LogicTestSuite() {
+		addTest(new TestSuite(LogicSimulatorTest.class));
+		addTest(new TestSuite(LogicModelReaderTest.class));
+	}
+
+}
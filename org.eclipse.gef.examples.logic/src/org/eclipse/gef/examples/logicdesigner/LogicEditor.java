@@ -14,8 +14,6 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.EventObject;
@@ -126,6 +124,8 @@ import org.eclipse.gef.examples.logicdesigner.dnd.TextTransferDropTargetListener
 import org.eclipse.gef.examples.logicdesigner.edit.GraphicalPartFactory;
 import org.eclipse.gef.examples.logicdesigner.edit.TreePartFactory;
 import org.eclipse.gef.examples.logicdesigner.model.LogicDiagram;
+import org.eclipse.gef.examples.logicdesigner.model.LogicModelReader;
+import org.eclipse.gef.examples.logicdesigner.model.LogicModelWriter;
 import org.eclipse.gef.examples.logicdesigner.model.LogicRuler;
 import org.eclipse.gef.examples.logicdesigner.palette.LogicPaletteCustomizer;
 import org.eclipse.gef.examples.logicdesigner.rulers.LogicRulerProvider;
@@ -494,9 +494,8 @@ public class LogicEditor extends GraphicalEditorWithFlyoutPalette {
 	}
 
 	protected void writeToOutputStream(OutputStream os) throws IOException {
-		ObjectOutputStream out = new ObjectOutputStream(os);
-		out.writeObject(getLogicDiagram());
-		out.close();
+		new LogicModelWriter(os).write(getLogicDiagram());
+		os.close();
 	}
 
 	protected CustomPalettePage createPalettePage() {
@@ -841,9 +840,8 @@ public class LogicEditor extends GraphicalEditorWithFlyoutPalette {
 		IFile file = ((IFileEditorInput) input).getFile();
 		try {
 			InputStream is = file.getContents(false);
-			ObjectInputStream ois = new ObjectInputStream(is);
-			setLogicDiagram((LogicDiagram) ois.readObject());
-			ois.close();
+			setLogicDiagram(LogicModelReader.read(is));
+			is.close();
 		} catch (Exception e) {
 			// This is just an example. All exceptions caught here.
 			e.printStackTrace();
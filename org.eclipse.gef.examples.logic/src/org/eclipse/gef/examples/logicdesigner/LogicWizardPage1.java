@@ -13,7 +13,6 @@ package org.eclipse.gef.examples.logicdesigner;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionEvent;
@@ -36,6 +35,7 @@ import org.eclipse.ui.ide.IDE;
 
 import org.eclipse.gef.examples.logicdesigner.model.LogicDiagram;
 import org.eclipse.gef.examples.logicdesigner.model.LogicDiagramFactory;
+import org.eclipse.gef.examples.logicdesigner.model.LogicModelWriter;
 
 public class LogicWizardPage1 extends WizardNewFileCreationPage implements
 		SelectionListener {
@@ -91,10 +91,7 @@ public class LogicWizardPage1 extends WizardNewFileCreationPage implements
 		ByteArrayInputStream bais = null;
 		try {
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			ObjectOutputStream oos = new ObjectOutputStream(baos);
-			oos.writeObject(ld);
-			oos.flush();
-			oos.close();
+			new LogicModelWriter(baos).write(ld);
 			baos.close();
 			bais = new ByteArrayInputStream(baos.toByteArray());
 			bais.close();
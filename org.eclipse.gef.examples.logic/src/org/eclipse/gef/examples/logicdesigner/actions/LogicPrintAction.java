@@ -11,7 +11,6 @@
 package org.eclipse.gef.examples.logicdesigner.actions;
 
 import java.io.InputStream;
-import java.io.ObjectInputStream;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.printing.PrintDialog;
@@ -35,6 +34,7 @@ import org.eclipse.gef.print.PrintGraphicalViewerOperation;
 import org.eclipse.gef.ui.parts.ScrollingGraphicalViewer;
 
 import org.eclipse.gef.examples.logicdesigner.edit.GraphicalPartFactory;
+import org.eclipse.gef.examples.logicdesigner.model.LogicModelReader;
 
 /**
  * @author Eric Bordeau
@@ -100,9 +100,8 @@ public class LogicPrintAction extends Action implements IObjectActionDelegate {
 		selectedFile = (IFile) sel.getFirstElement();
 		try {
 			InputStream is = selectedFile.getContents(false);
-			ObjectInputStream ois = new ObjectInputStream(is);
-			setContents(ois.readObject());
-			ois.close();
+			setContents(LogicModelReader.read(is));
+			is.close();
 		} catch (Exception e) {
 			// This is just an example. All exceptions caught here.
 			e.printStackTrace();
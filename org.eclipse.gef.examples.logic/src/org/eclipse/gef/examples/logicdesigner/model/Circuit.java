@@ -23,6 +23,13 @@ public class Circuit extends LogicDiagram {
 	public static String TERMINALS_IN[] = new String[] { "A", "B", "C", "D", //$NON-NLS-4$//$NON-NLS-3$//$NON-NLS-2$//$NON-NLS-1$
 			"E", "F", "G", "H" };//$NON-NLS-4$//$NON-NLS-3$//$NON-NLS-2$//$NON-NLS-1$
 
+	String getOutputTerminal(String inputTerminal) {
+		for (int i = 0; i < TERMINALS_IN.length; i++)
+			if (TERMINALS_IN[i].equals(inputTerminal))
+				return TERMINALS_OUT[i];
+		return null;
+	}
+
 	public String getNewID() {
 		return Integer.toString(count++);
 	}
@@ -71,6 +71,15 @@ public class LED extends LogicSubpart {
 		return LED_ICON;
 	}
 
+	String getOutputTerminal(String inputTerminal) {
+		String[] outputs = { TERMINAL_1_OUT, TERMINAL_2_OUT, TERMINAL_3_OUT,
+				TERMINAL_4_OUT };
+		for (int i = 0; i < IN_TERMINALS.length; i++)
+			if (IN_TERMINALS[i].equals(inputTerminal))
+				return outputs[i];
+		return null;
+	}
+
 	public String getNewID() {
 		return Integer.toString(count++);
 	}
@@ -132,7 +141,7 @@ public class LED extends LogicSubpart {
 		if (val % 4 > 1)
 			bits[1] = true;
 		bits[0] = val % 2 == 1;
-		update();
+		Simulator.getDefault().schedule(this);
 		firePropertyChange(P_VALUE, null, null);
 	}
 
@@ -153,7 +162,7 @@ public class LED extends LogicSubpart {
 			}
 		}
 		if (changed) {
-			firePropertyChange(P_VALUE, null, null);
+			Simulator.getDefault().firePropertyChange(this, P_VALUE);
 		}
 
 		setOutput(TERMINAL_1_OUT, bits[0]);
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.logicdesigner.model;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.draw2d.PositionConstants;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
+
+/**
+ * Reads a logic diagram written by {@link LogicModelWriter}. The restored
+ * wires keep their saved values, so the circuit does not need to be
+ * simulated after loading.
+ */
+public class LogicModelReader {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Reads a diagram from the given stream, which may contain either the
+	 * binary format or a serialized diagram saved by earlier versions. The
+	 * stream is not closed.
+	 *
+	 * @param in
+	 *            the stream to read from
+	 * @return the diagram
+	 * @throws IOException
+	 *             if reading fails or the contents are not a diagram
+	 */
+	public static LogicDiagram read(InputStream in) throws IOException {
+		if (!in.markSupported())
+			in = new BufferedInputStream(in);
+		in.mark(4);
+		int magic = 0;
+		for (int i = 0; i < 4; i++)
+			magic = (magic << 8) | (in.read() & 0xFF);
+		in.reset();
+		if (magic == LogicModelWriter.MAGIC)
+			return new LogicModelReader(Channels.newChannel(in)).read();
+		try {
+			return (LogicDiagram) new ObjectInputStream(in).readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final List strings = new ArrayList();
+	private final List parts = new ArrayList();
+	private final List guides = new ArrayList();
+
+	/**
+	 * Creates a reader for the given channel.
+	 *
+	 * @param channel
+	 *            the channel to read from
+	 */
+	public LogicModelReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		buffer.flip();
+	}
+
+	private static LogicSubpart createPart(int type) throws IOException {
+		switch (type) {
+		case LogicModelWriter.TYPE_DIAGRAM:
+			return new LogicDiagram();
+		case LogicModelWriter.TYPE_FLOW_CONTAINER:
+			return new LogicFlowContainer();
+		case LogicModelWriter.TYPE_CIRCUIT:
+			return new Circuit();
+		case LogicModelWriter.TYPE_LED:
+			return new LED();
+		case LogicModelWriter.TYPE_LABEL:
+			return new LogicLabel();
+		case LogicModelWriter.TYPE_AND:
+			return new AndGate();
+		case LogicModelWriter.TYPE_OR:
+			return new OrGate();
+		case LogicModelWriter.TYPE_XOR:
+			return new XORGate();
+		case LogicModelWriter.TYPE_LIVE:
+			return new LiveOutput();
+		case LogicModelWriter.TYPE_GROUND:
+			return new GroundOutput();
+		}
+		throw new IOException("Unknown part type: " + type); //$NON-NLS-1$
+	}
+
+	private LogicSubpart getPart(int number) throws IOException {
+		if (number < 0 || number >= parts.size())
+			throw new IOException("Invalid part number: " + number); //$NON-NLS-1$
+		return (LogicSubpart) parts.get(number);
+	}
+
+	/**
+	 * Reads a diagram. The channel is not closed.
+	 *
+	 * @return the diagram
+	 * @throws IOException
+	 *             if reading fails or the contents are not in the binary
+	 *             format
+	 */
+	public LogicDiagram read() throws IOException {
+		require(5);
+		if (buffer.getInt() != LogicModelWriter.MAGIC)
+			throw new IOException("Not a binary logic diagram"); //$NON-NLS-1$
+		int version = buffer.get();
+		if (version != LogicModelWriter.VERSION)
+			throw new IOException("Unsupported version: " + version); //$NON-NLS-1$
+		LogicSubpart root = readPart();
+		if (!(root instanceof LogicDiagram))
+			throw new IOException("Not a logic diagram"); //$NON-NLS-1$
+		readWires();
+		readGuideAttachments();
+		return (LogicDiagram) root;
+	}
+
+	private boolean readBoolean() throws IOException {
+		require(1);
+		return buffer.get() != 0;
+	}
+
+	private Dimension readDimension() throws IOException {
+		return new Dimension(readSignedInt(), readSignedInt());
+	}
+
+	private void readGuideAttachments() throws IOException {
+		int count = readInt();
+		for (int i = 0; i < count; i++) {
+			LogicSubpart part = getPart(readInt());
+			int guide = readInt();
+			if (guide >= guides.size())
+				throw new IOException("Invalid guide number: " + guide); //$NON-NLS-1$
+			((LogicGuide) guides.get(guide)).attachPart(part, readSignedInt());
+		}
+	}
+
+	private int readInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			require(1);
+			int b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed integer"); //$NON-NLS-1$
+	}
+
+	private LogicSubpart readPart() throws IOException {
+		require(1);
+		int type = buffer.get();
+		LogicSubpart part = createPart(type);
+		parts.add(part);
+		part.setID(readString());
+		part.location = new Point(readSignedInt(), readSignedInt());
+		part.size = readDimension();
+		switch (type) {
+		case LogicModelWriter.TYPE_LED:
+			int value = readInt();
+			LED led = (LED) part;
+			for (int i = 0; i < led.bits.length; i++)
+				led.bits[i] = (value & (1 << i)) != 0;
+			break;
+		case LogicModelWriter.TYPE_LABEL:
+			((LogicLabel) part).setLabelContents(readString());
+			break;
+		case LogicModelWriter.TYPE_DIAGRAM:
+		case LogicModelWriter.TYPE_FLOW_CONTAINER:
+		case LogicModelWriter.TYPE_CIRCUIT:
+			LogicDiagram diagram = (LogicDiagram) part;
+			diagram.setRulerVisibility(readBoolean());
+			diagram.setSnapToGeometry(readBoolean());
+			diagram.setGridEnabled(readBoolean());
+			require(8);
+			diagram.setZoom(buffer.getDouble());
+			diagram.connectionRouter = new Integer(readInt());
+			readRuler(diagram.getRuler(PositionConstants.NORTH));
+			readRuler(diagram.getRuler(PositionConstants.WEST));
+			if (type == LogicModelWriter.TYPE_FLOW_CONTAINER)
+				((LogicFlowContainer) part).layout = new Integer(readInt());
+			int count = readInt();
+			List children = diagram.getChildren();
+			for (int i = 0; i < count; i++)
+				children.add(readPart());
+		}
+		return part;
+	}
+
+	private void readRuler(LogicRuler ruler) throws IOException {
+		ruler.setUnit(readInt());
+		int count = readInt();
+		for (int i = 0; i < count; i++) {
+			LogicGuide guide = new LogicGuide();
+			guide.setPosition(readSignedInt());
+			ruler.addGuide(guide);
+			guides.add(guide);
+		}
+	}
+
+	private int readSignedInt() throws IOException {
+		int value = readInt();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private String readString() throws IOException {
+		int number = readInt();
+		if (number == 0)
+			return null;
+		if (number > 1) {
+			if (number - 2 >= strings.size())
+				throw new IOException("Invalid string number: " + number); //$NON-NLS-1$
+			return (String) strings.get(number - 2);
+		}
+		byte[] bytes = new byte[readInt()];
+		for (int offset = 0; offset < bytes.length;) {
+			if (!buffer.hasRemaining())
+				require(1);
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.get(bytes, offset, length);
+			offset += length;
+		}
+		String s = new String(bytes, "UTF-8"); //$NON-NLS-1$
+		strings.add(s);
+		return s;
+	}
+
+	private void readWires() throws IOException {
+		int count = readInt();
+		for (int i = 0; i < count; i++) {
+			Wire wire = new Wire();
+			wire.source = getPart(readInt());
+			wire.sourceTerminal = readString();
+			wire.target = getPart(readInt());
+			wire.targetTerminal = readString();
+			wire.value = readBoolean();
+			int bendpoints = readInt();
+			for (int j = 0; j < bendpoints; j++) {
+				WireBendpoint bendpoint = new WireBendpoint();
+				bendpoint.setRelativeDimensions(readDimension(),
+						readDimension());
+				require(4);
+				bendpoint.setWeight(buffer.getFloat());
+				wire.bendpoints.add(bendpoint);
+			}
+			// connect without simulating, the saved values are consistent
+			wire.source.outputs.addElement(wire);
+			wire.target.inputs.put(wire.targetTerminal, wire);
+		}
+	}
+
+	/**
+	 * Makes sure that at least the given number of bytes can be read from
+	 * the buffer.
+	 */
+	private void require(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes)
+			return;
+		buffer.compact();
+		while (buffer.position() < bytes) {
+			if (channel.read(buffer) < 0) {
+				buffer.flip();
+				throw new EOFException();
+			}
+		}
+		buffer.flip();
+	}
+
+}
@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.logicdesigner.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.PositionConstants;
+import org.eclipse.draw2d.geometry.Dimension;
+
+/**
+ * Writes a logic diagram in the compact binary format read by
+ * {@link LogicModelReader}.
+ * <P>
+ * The format starts with {@link #MAGIC} and {@link #VERSION}. The parts
+ * follow depth first, each container followed by its children, and are
+ * numbered in that order. The wires are written afterwards as pairs of part
+ * numbers and terminals, followed by the guide attachments. Coordinates and
+ * counts are written as variable length integers, and strings such as IDs and
+ * terminal names are written once and referenced by number afterwards.
+ * Nothing is written recursively through the wires, so the depth of a
+ * circuit does not matter.
+ */
+public class LogicModelWriter {
+
+	/**
+	 * The first four bytes of a binary logic file.
+	 */
+	public static final int MAGIC = 0x474C4F47;
+
+	/**
+	 * The current format version.
+	 */
+	public static final int VERSION = 1;
+
+	static final int TYPE_DIAGRAM = 0, TYPE_FLOW_CONTAINER = 1,
+			TYPE_CIRCUIT = 2, TYPE_LED = 3, TYPE_LABEL = 4, TYPE_AND = 5,
+			TYPE_OR = 6, TYPE_XOR = 7, TYPE_LIVE = 8, TYPE_GROUND = 9;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final Map strings = new HashMap();
+	private final Map partNumbers = new IdentityHashMap();
+	private final Map guideNumbers = new IdentityHashMap();
+	private final List parts = new ArrayList();
+
+	/**
+	 * Creates a writer for the given channel.
+	 *
+	 * @param channel
+	 *            the channel to write to
+	 */
+	public LogicModelWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Creates a writer for the given stream.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 */
+	public LogicModelWriter(OutputStream out) {
+		this(Channels.newChannel(out));
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	private static int getType(LogicSubpart part) {
+		if (part instanceof Circuit)
+			return TYPE_CIRCUIT;
+		if (part instanceof LogicFlowContainer)
+			return TYPE_FLOW_CONTAINER;
+		if (part instanceof LogicDiagram)
+			return TYPE_DIAGRAM;
+		if (part instanceof LED)
+			return TYPE_LED;
+		if (part instanceof LogicLabel)
+			return TYPE_LABEL;
+		if (part instanceof AndGate)
+			return TYPE_AND;
+		if (part instanceof OrGate)
+			return TYPE_OR;
+		if (part instanceof XORGate)
+			return TYPE_XOR;
+		if (part instanceof LiveOutput)
+			return TYPE_LIVE;
+		if (part instanceof GroundOutput)
+			return TYPE_GROUND;
+		throw new IllegalArgumentException("Unknown part: " + part); //$NON-NLS-1$
+	}
+
+	private void require(int bytes) throws IOException {
+		if (buffer.remaining() < bytes)
+			flush();
+	}
+
+	/**
+	 * Writes the given diagram and flushes the channel. The channel is not
+	 * closed.
+	 *
+	 * @param diagram
+	 *            the diagram to write
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(LogicDiagram diagram) throws IOException {
+		require(5);
+		buffer.putInt(MAGIC);
+		buffer.put((byte) VERSION);
+		writePart(diagram);
+		writeWires();
+		writeGuideAttachments();
+		flush();
+	}
+
+	private void writeBoolean(boolean value) throws IOException {
+		require(1);
+		buffer.put((byte) (value ? 1 : 0));
+	}
+
+	private void writeDimension(Dimension d) throws IOException {
+		writeSignedInt(d == null ? 0 : d.width);
+		writeSignedInt(d == null ? 0 : d.height);
+	}
+
+	private void writeGuideAttachments() throws IOException {
+		int count = 0;
+		for (int i = 0; i < parts.size(); i++) {
+			LogicSubpart part = (LogicSubpart) parts.get(i);
+			if (guideNumbers.containsKey(part.getHorizontalGuide()))
+				count++;
+			if (guideNumbers.containsKey(part.getVerticalGuide()))
+				count++;
+		}
+		writeInt(count);
+		for (int i = 0; i < parts.size(); i++) {
+			LogicSubpart part = (LogicSubpart) parts.get(i);
+			writeGuideAttachment(i, part, part.getHorizontalGuide());
+			writeGuideAttachment(i, part, part.getVerticalGuide());
+		}
+	}
+
+	private void writeGuideAttachment(int partNumber, LogicSubpart part,
+			LogicGuide guide) throws IOException {
+		Integer guideNumber = (Integer) guideNumbers.get(guide);
+		if (guideNumber == null)
+			return;
+		writeInt(partNumber);
+		writeInt(guideNumber.intValue());
+		writeSignedInt(guide.getAlignment(part));
+	}
+
+	/**
+	 * Writes an unsigned variable length integer, 7 bits per byte.
+	 */
+	private void writeInt(int value) throws IOException {
+		require(5);
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private void writePart(LogicSubpart part) throws IOException {
+		partNumbers.put(part, new Integer(parts.size()));
+		parts.add(part);
+		int type = getType(part);
+		require(1);
+		buffer.put((byte) type);
+		writeString(part.getID());
+		writeSignedInt(part.location.x);
+		writeSignedInt(part.location.y);
+		writeDimension(part.size);
+		switch (type) {
+		case TYPE_LED:
+			writeInt(((LED) part).getValue());
+			break;
+		case TYPE_LABEL:
+			writeString(((LogicLabel) part).getLabelContents());
+			break;
+		case TYPE_DIAGRAM:
+		case TYPE_FLOW_CONTAINER:
+		case TYPE_CIRCUIT:
+			LogicDiagram diagram = (LogicDiagram) part;
+			writeBoolean(diagram.getRulerVisibility());
+			writeBoolean(diagram.isSnapToGeometryEnabled());
+			writeBoolean(diagram.isGridEnabled());
+			require(8);
+			buffer.putDouble(diagram.getZoom());
+			writeInt(diagram.getConnectionRouter().intValue());
+			writeRuler(diagram.getRuler(PositionConstants.NORTH));
+			writeRuler(diagram.getRuler(PositionConstants.WEST));
+			if (type == TYPE_FLOW_CONTAINER)
+				writeInt(((LogicFlowContainer) part).getLayout().intValue());
+			List children = diagram.getChildren();
+			writeInt(children.size());
+			for (int i = 0; i < children.size(); i++)
+				writePart((LogicSubpart) children.get(i));
+		}
+	}
+
+	private void writeRuler(LogicRuler ruler) throws IOException {
+		writeInt(ruler.getUnit());
+		List guides = ruler.getGuides();
+		writeInt(guides.size());
+		for (int i = 0; i < guides.size(); i++) {
+			LogicGuide guide = (LogicGuide) guides.get(i);
+			guideNumbers.put(guide, new Integer(guideNumbers.size()));
+			writeSignedInt(guide.getPosition());
+		}
+	}
+
+	/**
+	 * Writes a signed variable length integer, using zigzag encoding so that
+	 * small negative values stay short.
+	 */
+	private void writeSignedInt(int value) throws IOException {
+		writeInt((value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * Writes a string the first time it is seen, and its number afterwards.
+	 * 0 stands for <code>null</code>.
+	 */
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			writeInt(0);
+			return;
+		}
+		Integer number = (Integer) strings.get(s);
+		if (number != null) {
+			writeInt(number.intValue() + 2);
+			return;
+		}
+		strings.put(s, new Integer(strings.size()));
+		writeInt(1);
+		byte[] bytes = s.getBytes("UTF-8"); //$NON-NLS-1$
+		writeInt(bytes.length);
+		for (int offset = 0; offset < bytes.length;) {
+			if (!buffer.hasRemaining())
+				flush();
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	private void writeWires() throws IOException {
+		List wires = new ArrayList();
+		for (int i = 0; i < parts.size(); i++) {
+			List outputs = ((LogicSubpart) parts.get(i)).outputs;
+			for (int j = 0; j < outputs.size(); j++) {
+				Wire wire = (Wire) outputs.get(j);
+				if (partNumbers.containsKey(wire.getTarget()))
+					wires.add(wire);
+			}
+		}
+		writeInt(wires.size());
+		for (int i = 0; i < wires.size(); i++) {
+			Wire wire = (Wire) wires.get(i);
+			writeInt(((Integer) partNumbers.get(wire.getSource())).intValue());
+			writeString(wire.getSourceTerminal());
+			writeInt(((Integer) partNumbers.get(wire.getTarget())).intValue());
+			writeString(wire.getTargetTerminal());
+			writeBoolean(wire.getValue());
+			List bendpoints = wire.getBendpoints();
+			writeInt(bendpoints.size());
+			for (int j = 0; j < bendpoints.size(); j++) {
+				WireBendpoint bendpoint = (WireBendpoint) bendpoints.get(j);
+				writeDimension(bendpoint.getFirstRelativeDimension());
+				writeDimension(bendpoint.getSecondRelativeDimension());
+				require(4);
+				buffer.putFloat(bendpoint.getWeight());
+			}
+		}
+	}
+
+}
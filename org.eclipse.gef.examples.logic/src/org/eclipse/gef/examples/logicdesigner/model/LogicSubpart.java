@@ -36,6 +36,13 @@ abstract public class LogicSubpart extends LogicElement {
 	static final long serialVersionUID = 1;
 	protected Dimension size = new Dimension(-1, -1);
 
+	// state owned by the Simulator
+	transient int simulationLevel;
+	transient boolean simulationLevelValid;
+	transient int simulationEvaluations;
+	transient boolean simulationQueued;
+	transient int simulationLoop;
+
 	protected static IPropertyDescriptor[] descriptors = null;
 	public static String ID_SIZE = "size"; //$NON-NLS-1$
 	public static String ID_LOCATION = "location"; //$NON-NLS-1$
@@ -64,25 +71,27 @@ abstract public class LogicSubpart extends LogicElement {
 
 	public void connectInput(Wire w) {
 		inputs.put(w.getTargetTerminal(), w);
-		update();
+		Simulator.getDefault().inputsChanged(this);
+		Simulator.getDefault().schedule(this);
 		fireStructureChange(INPUTS, w);
 	}
 
 	public void connectOutput(Wire w) {
 		outputs.addElement(w);
-		update();
+		Simulator.getDefault().schedule(this);
 		fireStructureChange(OUTPUTS, w);
 	}
 
 	public void disconnectInput(Wire w) {
 		inputs.remove(w.getTargetTerminal());
-		update();
+		Simulator.getDefault().inputsChanged(this);
+		Simulator.getDefault().schedule(this);
 		fireStructureChange(INPUTS, w);
 	}
 
 	public void disconnectOutput(Wire w) {
 		outputs.removeElement(w);
-		update();
+		Simulator.getDefault().schedule(this);
 		fireStructureChange(OUTPUTS, w);
 	}
 
@@ -108,6 +117,16 @@ abstract public class LogicSubpart extends LogicElement {
 		return id;
 	}
 
+	/**
+	 * Returns the only output terminal whose value depends on the given input
+	 * terminal, or <code>null</code> if any output may depend on it. The
+	 * simulator uses this to tell feedback loops from parts which only pass
+	 * signals through.
+	 */
+	String getOutputTerminal(String inputTerminal) {
+		return null;
+	}
+
 	protected boolean getInput(String terminal) {
 		if (inputs.isEmpty()) {
 			return false;
@@ -0,0 +1,541 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.logicdesigner.model;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Propagates signal changes through the logic model.
+ * <P>
+ * Parts whose inputs change are not updated recursively. They are scheduled
+ * on a worklist ordered by their level in the netlist, which is the length of
+ * the longest path from a part without inputs. Parts are evaluated level by
+ * level, so that in a netlist without feedback or circuits every part is
+ * evaluated at most once per step, however deep the netlist is. Parts in a
+ * feedback loop are re-evaluated until the loop settles, up to
+ * {@link #MAX_EVALUATIONS} times per step. A part only counts as being in a feedback loop if a change
+ * of its outputs can come back to itself; a {@link Circuit}, whose contents
+ * are wired to both sides of its terminals, is followed terminal by terminal.
+ * <P>
+ * Property changes for wire values and LED values are collected during a
+ * step and fired once per element when the step is done.
+ * <P>
+ * Like the rest of the model, the simulator must only be used from one
+ * thread. Only the evaluation of large levels can optionally be spread over
+ * several threads, see {@link #setParallelThreshold(int)}.
+ */
+public final class Simulator {
+
+	/**
+	 * The number of times a part in a feedback loop may be evaluated during
+	 * one step. Parts in a loop which does not settle, such as an oscillator,
+	 * keep their last value once the limit is reached, see
+	 * {@link #hasConverged()}. Parts outside of feedback loops are evaluated
+	 * as often as their inputs change.
+	 */
+	public static final int MAX_EVALUATIONS = 64;
+
+	private static final int LOOP_UNKNOWN = 0;
+	private static final int LOOP = 1;
+	private static final int NO_LOOP = 2;
+
+	/**
+	 * An output terminal of a part, or all outputs of the part if the name
+	 * is <code>null</code>.
+	 */
+	private static final class Terminal {
+		final LogicSubpart part;
+		final String name;
+
+		Terminal(LogicSubpart part, String name) {
+			this.part = part;
+			this.name = name;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Terminal))
+				return false;
+			Terminal other = (Terminal) o;
+			return other.part == part
+					&& (name == null ? other.name == null : name
+							.equals(other.name));
+		}
+
+		public int hashCode() {
+			return System.identityHashCode(part)
+					^ (name == null ? 0 : name.hashCode());
+		}
+	}
+
+	/**
+	 * Daemon threads which compute gate results for large levels. They are
+	 * started on first use and wait for the next level in between.
+	 */
+	private static final class Workers {
+		private final Thread[] threads;
+		private List parts;
+		private boolean[] results;
+		private int chunk;
+		private int generation;
+		private int pending;
+		private RuntimeException failure;
+
+		Workers(int count) {
+			threads = new Thread[count];
+			for (int t = 0; t < count; t++) {
+				final int index = t + 1;
+				threads[t] = new Thread("Logic simulation") { //$NON-NLS-1$
+					public void run() {
+						work(index);
+					}
+				};
+				threads[t].setDaemon(true);
+				threads[t].start();
+			}
+		}
+
+		int getCount() {
+			return threads.length;
+		}
+
+		synchronized void dispose() {
+			for (int t = 0; t < threads.length; t++)
+				threads[t].interrupt();
+		}
+
+		/**
+		 * Computes the results of the given parts, using the calling thread
+		 * for the first chunk.
+		 */
+		void evaluate(List parts, boolean[] results) {
+			int chunk = (parts.size() + threads.length) / (threads.length + 1);
+			synchronized (this) {
+				this.parts = parts;
+				this.results = results;
+				this.chunk = chunk;
+				pending = threads.length;
+				failure = null;
+				generation++;
+				notifyAll();
+			}
+			RuntimeException error = null;
+			try {
+				evaluateResults(parts, results, 0,
+						Math.min(chunk, parts.size()));
+			} catch (RuntimeException e) {
+				error = e;
+			}
+			boolean interrupted = false;
+			synchronized (this) {
+				while (pending > 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				this.parts = null;
+				this.results = null;
+				if (error == null)
+					error = failure;
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			if (error != null)
+				throw error;
+		}
+
+		private void work(int index) {
+			int done = 0;
+			while (true) {
+				List parts;
+				boolean[] results;
+				int start, end;
+				synchronized (this) {
+					while (generation == done) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+					done = generation;
+					parts = this.parts;
+					results = this.results;
+					start = Math.min(index * chunk, parts.size());
+					end = Math.min(start + chunk, parts.size());
+				}
+				RuntimeException error = null;
+				try {
+					evaluateResults(parts, results, start, end);
+				} catch (RuntimeException e) {
+					error = e;
+				}
+				synchronized (this) {
+					if (failure == null)
+						failure = error;
+					if (--pending == 0)
+						notifyAll();
+				}
+			}
+		}
+	}
+
+	private static final Simulator INSTANCE = new Simulator();
+
+	/**
+	 * Returns the shared simulator.
+	 *
+	 * @return the simulator
+	 */
+	public static Simulator getDefault() {
+		return INSTANCE;
+	}
+
+	private List[] levels = new List[16];
+	private int lowestLevel = Integer.MAX_VALUE;
+	private int highestLevel = -1;
+	private boolean running;
+	private boolean converged = true;
+	private int parallelThreshold;
+	private Workers workers;
+	private int evaluationCount;
+	private final List evaluated = new ArrayList();
+	private final Map pendingEvents = new LinkedHashMap();
+
+	private Simulator() {
+	}
+
+	private void computeLevel(LogicSubpart root) {
+		// iterative depth first search over the inputs, so that long chains
+		// do not exhaust the stack; edges to parts on the stack are feedback
+		List stack = new ArrayList();
+		List pending = new ArrayList();
+		root.simulationLevel = -1;
+		root.simulationLevelValid = true;
+		stack.add(root);
+		pending.add(inputSources(root));
+		while (!stack.isEmpty()) {
+			int top = stack.size() - 1;
+			LogicSubpart part = (LogicSubpart) stack.get(top);
+			Iterator sources = (Iterator) pending.get(top);
+			if (sources.hasNext()) {
+				LogicSubpart source = (LogicSubpart) sources.next();
+				if (!source.simulationLevelValid) {
+					source.simulationLevelValid = true;
+					source.simulationLevel = -1;
+					stack.add(source);
+					pending.add(inputSources(source));
+				}
+				continue;
+			}
+			stack.remove(top);
+			pending.remove(top);
+			int level = 0;
+			Iterator iter = inputSources(part);
+			while (iter.hasNext()) {
+				int sourceLevel = ((LogicSubpart) iter.next()).simulationLevel;
+				if (sourceLevel >= 0)
+					level = Math.max(level, sourceLevel + 1);
+			}
+			part.simulationLevel = level;
+		}
+	}
+
+	private void enqueue(LogicSubpart part) {
+		if (part.simulationQueued)
+			return;
+		if (!part.simulationLevelValid)
+			computeLevel(part);
+		int level = part.simulationLevel;
+		if (level >= levels.length) {
+			List[] newLevels = new List[Math.max(level + 1, levels.length * 2)];
+			System.arraycopy(levels, 0, newLevels, 0, levels.length);
+			levels = newLevels;
+		}
+		if (levels[level] == null)
+			levels[level] = new ArrayList();
+		levels[level].add(part);
+		part.simulationQueued = true;
+		lowestLevel = Math.min(lowestLevel, level);
+		highestLevel = Math.max(highestLevel, level);
+	}
+
+	private void evaluate(List parts) {
+		boolean[] results = null;
+		if (parallelThreshold > 0 && parts.size() >= parallelThreshold) {
+			if (workers == null)
+				workers = new Workers(Runtime.getRuntime()
+						.availableProcessors() - 1);
+			if (workers.getCount() > 0) {
+				results = new boolean[parts.size()];
+				workers.evaluate(parts, results);
+			}
+		}
+		for (int i = 0; i < parts.size(); i++) {
+			LogicSubpart part = (LogicSubpart) parts.get(i);
+			if (results != null && part instanceof SimpleOutput)
+				part.setOutput(SimpleOutput.TERMINAL_OUT, results[i]);
+			else
+				part.update();
+		}
+	}
+
+	private static void evaluateResults(List parts, boolean[] results,
+			int start, int end) {
+		for (int i = start; i < end; i++) {
+			Object part = parts.get(i);
+			if (part instanceof SimpleOutput)
+				results[i] = ((SimpleOutput) part).getResult();
+		}
+	}
+
+	/**
+	 * Fires the given property change for the given element. During a step,
+	 * the event is deferred until the step is done, and fired only once per
+	 * element and property.
+	 *
+	 * @param element
+	 *            the element which changed
+	 * @param property
+	 *            the property name
+	 */
+	void firePropertyChange(LogicElement element, String property) {
+		if (!running) {
+			element.firePropertyChange(property, null, null);
+			return;
+		}
+		List properties = (List) pendingEvents.get(element);
+		if (properties == null) {
+			properties = new ArrayList(1);
+			pendingEvents.put(element, properties);
+		}
+		if (!properties.contains(property))
+			properties.add(property);
+	}
+
+	private void firePendingEvents() {
+		while (!pendingEvents.isEmpty()) {
+			Iterator iter = pendingEvents.entrySet().iterator();
+			Map.Entry entry = (Map.Entry) iter.next();
+			iter.remove();
+			LogicElement element = (LogicElement) entry.getKey();
+			List properties = (List) entry.getValue();
+			for (int i = 0; i < properties.size(); i++)
+				element.firePropertyChange((String) properties.get(i), null,
+						null);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if a change of one of the given part's outputs
+	 * can come back to its own inputs. The result is cached until the end of
+	 * the step.
+	 */
+	private static boolean isInFeedbackLoop(LogicSubpart part) {
+		if (part.simulationLoop == LOOP_UNKNOWN) {
+			part.simulationLoop = NO_LOOP;
+			Set starts = new HashSet();
+			Enumeration wires = part.inputs.elements();
+			while (wires.hasMoreElements()) {
+				Terminal start = new Terminal(part,
+						part.getOutputTerminal(((Wire) wires.nextElement())
+								.getTargetTerminal()));
+				if (starts.add(start) && reaches(start, start)) {
+					part.simulationLoop = LOOP;
+					break;
+				}
+			}
+		}
+		return part.simulationLoop == LOOP;
+	}
+
+	private static boolean reaches(Terminal from, Terminal to) {
+		Set visited = new HashSet();
+		List stack = new ArrayList();
+		stack.add(from);
+		while (!stack.isEmpty()) {
+			Terminal next = (Terminal) stack.remove(stack.size() - 1);
+			for (int i = 0; i < next.part.outputs.size(); i++) {
+				Wire wire = (Wire) next.part.outputs.get(i);
+				LogicSubpart target = wire.getTarget();
+				if (target == null || next.name != null
+						&& !next.name.equals(wire.getSourceTerminal()))
+					continue;
+				Terminal reached = new Terminal(target,
+						target.getOutputTerminal(wire.getTargetTerminal()));
+				if (reached.equals(to))
+					return true;
+				if (visited.add(reached))
+					stack.add(reached);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of part evaluations done by the last step.
+	 *
+	 * @return the evaluation count
+	 */
+	public int getEvaluationCount() {
+		return evaluationCount;
+	}
+
+	/**
+	 * Returns the minimum number of parts a level must contain to have the
+	 * results of its gates computed in parallel, or 0 if parallel evaluation
+	 * is disabled.
+	 *
+	 * @return the parallel threshold
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Returns <code>false</code> if the last step stopped evaluating a feedback
+	 * loop which had not settled after {@link #MAX_EVALUATIONS} evaluations.
+	 * The values in such a loop, and of the parts it drives, are those of the
+	 * last evaluation.
+	 *
+	 * @return whether all changes of the last step have settled
+	 */
+	public boolean hasConverged() {
+		return converged;
+	}
+
+	private static Iterator inputSources(LogicSubpart part) {
+		List sources = new ArrayList(part.inputs.size());
+		Enumeration wires = part.inputs.elements();
+		while (wires.hasMoreElements()) {
+			LogicSubpart source = ((Wire) wires.nextElement()).getSource();
+			if (source != null)
+				sources.add(source);
+		}
+		return sources.iterator();
+	}
+
+	/**
+	 * Notifies the simulator that a wire was connected to or disconnected
+	 * from the inputs of the given part. The levels of the part and of all
+	 * parts it drives are recomputed when they are next scheduled.
+	 */
+	void inputsChanged(LogicSubpart part) {
+		// a part whose level is invalid only drives parts with invalid levels
+		List stack = new ArrayList();
+		stack.add(part);
+		while (!stack.isEmpty()) {
+			LogicSubpart next = (LogicSubpart) stack.remove(stack.size() - 1);
+			if (!next.simulationLevelValid)
+				continue;
+			next.simulationLevelValid = false;
+			for (int i = 0; i < next.outputs.size(); i++) {
+				LogicSubpart target = ((Wire) next.outputs.get(i)).getTarget();
+				if (target != null)
+					stack.add(target);
+			}
+		}
+	}
+
+	private void run() {
+		running = true;
+		converged = true;
+		evaluationCount = 0;
+		try {
+			while (lowestLevel <= highestLevel) {
+				int level = lowestLevel;
+				List parts = levels[level];
+				levels[level] = null;
+				lowestLevel = nextLevel(level + 1);
+				if (parts == null)
+					continue;
+				for (int i = parts.size() - 1; i >= 0; i--) {
+					LogicSubpart part = (LogicSubpart) parts.get(i);
+					part.simulationQueued = false;
+					if (part.simulationEvaluations++ == 0)
+						evaluated.add(part);
+					if (part.simulationEvaluations > MAX_EVALUATIONS
+							&& isInFeedbackLoop(part)) {
+						parts.remove(i);
+						converged = false;
+					}
+				}
+				evaluationCount += parts.size();
+				evaluate(parts);
+			}
+		} finally {
+			for (int i = lowestLevel; i <= highestLevel; i++) {
+				if (levels[i] != null) {
+					for (int j = 0; j < levels[i].size(); j++)
+						((LogicSubpart) levels[i].get(j)).simulationQueued = false;
+					levels[i] = null;
+				}
+			}
+			lowestLevel = Integer.MAX_VALUE;
+			highestLevel = -1;
+			for (int i = 0; i < evaluated.size(); i++) {
+				LogicSubpart part = (LogicSubpart) evaluated.get(i);
+				part.simulationEvaluations = 0;
+				part.simulationLoop = LOOP_UNKNOWN;
+			}
+			evaluated.clear();
+			running = false;
+			firePendingEvents();
+		}
+	}
+
+	private int nextLevel(int from) {
+		for (int i = from; i <= highestLevel; i++)
+			if (levels[i] != null)
+				return i;
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Schedules the given part to be evaluated. If no step is running, a step
+	 * is started and runs until all changes have propagated.
+	 *
+	 * @param part
+	 *            the part whose inputs changed
+	 */
+	public void schedule(LogicSubpart part) {
+		enqueue(part);
+		if (!running)
+			run();
+	}
+
+	/**
+	 * Sets the minimum number of parts a level must contain to have the
+	 * results of its gates computed on several threads. Gate results only
+	 * depend on the values of their input wires, which are not changed while
+	 * a level is evaluated. The outputs are still set on the calling thread.
+	 * The worker threads are kept until parallel evaluation is disabled.
+	 *
+	 * @param threshold
+	 *            the minimum level size, or 0 to disable parallel evaluation
+	 */
+	public void setParallelThreshold(int threshold) {
+		parallelThreshold = Math.max(0, threshold);
+		if (parallelThreshold == 0 && workers != null) {
+			workers.dispose();
+			workers = null;
+		}
+	}
+
+}
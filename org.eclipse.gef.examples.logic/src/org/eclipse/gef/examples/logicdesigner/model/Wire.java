@@ -123,8 +123,8 @@ public class Wire extends LogicElement {
 			return;
 		this.value = value;
 		if (target != null)
-			target.update();
-		firePropertyChange("value", null, null);//$NON-NLS-1$
+			Simulator.getDefault().schedule(target);
+		Simulator.getDefault().firePropertyChange(this, "value");//$NON-NLS-1$
 	}
 
 	public String toString() {
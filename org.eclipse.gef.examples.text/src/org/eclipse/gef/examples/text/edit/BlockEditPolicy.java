@@ -48,7 +48,7 @@ public class BlockEditPolicy extends GraphicalEditPolicy {
 
 	private Command checkForConversion(TextLocation location) {
 		TextRun run = (TextRun) location.part.getModel();
-		String prefix = run.getText().substring(0, location.offset);
+		String prefix = run.getText(0, location.offset);
 		if (prefix.endsWith("<b>")) {
 			Container converted = new InlineContainer(Container.TYPE_INLINE);
 			converted.getStyle().setBold(true);
@@ -22,6 +22,7 @@ import org.eclipse.draw2d.text.SimpleTextLayout;
 import org.eclipse.draw2d.text.TextFlow;
 import org.eclipse.gef.examples.text.TextLocation;
 import org.eclipse.gef.examples.text.model.Style;
+import org.eclipse.gef.examples.text.model.TextChange;
 import org.eclipse.gef.examples.text.model.TextRun;
 import org.eclipse.gef.examples.text.requests.CaretRequest;
 import org.eclipse.gef.examples.text.requests.SearchResult;
@@ -94,7 +95,15 @@ public class TextFlowPart extends AbstractTextPart {
 	}
 
 	public void propertyChange(PropertyChangeEvent evt) {
-		if (evt.getPropertyName().equals("text"))
+		if (!evt.getPropertyName().equals("text"))
+			return;
+		if (evt.getNewValue() instanceof TextChange) {
+			// the flow displays the run itself, only the changed range is laid
+			// out again
+			TextChange change = (TextChange) evt.getNewValue();
+			getTextFlow().contentsChanged(change.offset, change.length,
+					change.text.length());
+		} else
 			refreshVisuals();
 	}
 
@@ -110,7 +119,7 @@ public class TextFlowPart extends AbstractTextPart {
 			getFigure().setFont(font);
 		} else
 			FontCache.checkIn(font);
-		getTextFlow().setText(textRun.getText());
+		getTextFlow().setContents(textRun);
 	}
 
 	protected void searchColumn(CaretRequest search, SearchResult result) {
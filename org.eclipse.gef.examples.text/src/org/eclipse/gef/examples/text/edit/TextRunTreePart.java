@@ -31,9 +31,11 @@ public class TextRunTreePart extends ExampleTreePart {
 
 	protected void refreshVisuals() {
 		TextRun run = (TextRun) getModel();
-		String s = run.getText();
-		if (s.length() > 50)
-			s = s.substring(0, 50) + "...";
+		String s;
+		if (run.size() > 50)
+			s = run.getText(0, 50) + "...";
+		else
+			s = run.getText();
 		setWidgetText(s);
 	}
 
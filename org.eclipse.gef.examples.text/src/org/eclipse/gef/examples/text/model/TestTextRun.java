@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.text.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the piece table of a {@link TextRun} with a StringBuffer receiving
+ * the same edits, and checks the {@link TextChange}s it fires.
+ */
+public class TestTextRun extends TestCase {
+
+	private TextRun run;
+	private StringBuffer expected;
+	private List changes;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		run = new TextRun("The quick brown fox");
+		expected = new StringBuffer(run.getText());
+		changes = new ArrayList();
+		run.addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent evt) {
+				assertEquals("text", evt.getPropertyName());
+				changes.add(evt.getNewValue());
+			}
+		});
+	}
+
+	private void assertChange(int offset, int length, String text) {
+		assertEquals(1, changes.size());
+		TextChange change = (TextChange) changes.remove(0);
+		assertEquals(offset, change.offset);
+		assertEquals(length, change.length);
+		assertEquals(text, change.text);
+	}
+
+	private void assertContents() {
+		String s = expected.toString();
+		assertEquals(s.length(), run.size());
+		assertEquals(s.length(), run.length());
+		for (int i = 0; i < s.length(); i++)
+			assertEquals(s.charAt(i), run.charAt(i));
+		if (s.length() > 2)
+			assertEquals(s.substring(1, s.length() - 1),
+					run.subSequence(1, s.length() - 1).toString());
+		assertEquals(s, run.getText());
+	}
+
+	public void testInsertText() {
+		run.insertText(" very", 9);
+		expected.insert(9, " very");
+		assertChange(9, 0, " very");
+		assertContents();
+		run.insertText("!", run.size());
+		expected.append('!');
+		assertChange(19 + 5, 0, "!");
+		assertContents();
+	}
+
+	public void testRemoveRange() {
+		assertEquals("quick ", run.removeRange(4, 6));
+		expected.delete(4, 10);
+		assertChange(4, 6, "");
+		assertContents();
+	}
+
+	public void testOverwriteText() {
+		assertEquals("fox", run.overwriteText("foxes", 16));
+		expected.replace(16, 19, "foxes");
+		assertChange(16, 3, "foxes");
+		assertContents();
+	}
+
+	public void testSetText() {
+		run.setText("Lazy dog");
+		assertChange(0, 19, "Lazy dog");
+		expected.setLength(0);
+		expected.append("Lazy dog");
+		assertContents();
+	}
+
+	public void testTyping() {
+		int offset = 4;
+		for (int i = 0; i < 1000; i++) {
+			String c = String.valueOf((char) ('a' + i % 26));
+			run.insertText(c, offset);
+			expected.insert(offset, c);
+			assertChange(offset++, 0, c);
+		}
+		assertContents();
+	}
+
+	public void testRandomEdits() {
+		Random random = new Random(0);
+		for (int i = 0; i < 2000; i++) {
+			int offset = random.nextInt(run.size() + 1);
+			int length = random.nextInt(Math.min(5, run.size() - offset) + 1);
+			String s = "x" + i;
+			if (random.nextBoolean())
+				s = "";
+			if (s.length() == 0 && length == 0)
+				continue;
+			assertEquals(expected.substring(offset, offset + length),
+					run.removeRange(offset, length));
+			expected.delete(offset, offset + length);
+			assertChange(offset, length, "");
+			run.insertText(s, offset);
+			expected.insert(offset, s);
+			assertChange(offset, 0, s);
+			if (i % 100 == 0)
+				assertContents();
+		}
+		assertContents();
+	}
+
+	public void testSubdivideRun() {
+		run.insertText("!", 3);
+		expected.insert(3, "!");
+		changes.clear();
+		TextRun second = run.subdivideRun(10);
+		assertEquals(expected.substring(10), second.getText());
+		expected.setLength(10);
+		assertContents();
+	}
+
+	public void testSerialization() throws Exception {
+		run.insertText(" very", 9);
+		run.removeRange(0, 4);
+		expected.insert(9, " very");
+		expected.delete(0, 4);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(run);
+		out.close();
+		run = (TextRun) new ObjectInputStream(new ByteArrayInputStream(bytes
+				.toByteArray())).readObject();
+		assertContents();
+	}
+
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.examples.text.model;
+
+/**
+ * Describes a change to the text of a {@link TextRun}: <code>length</code>
+ * characters at <code>offset</code> were replaced by <code>text</code>. It is
+ * the new value of the "text" property change.
+ */
+public class TextChange {
+
+	public final int offset;
+
+	public final int length;
+
+	public final String text;
+
+	public TextChange(int offset, int length, String text) {
+		this.offset = offset;
+		this.length = length;
+		this.text = text;
+	}
+
+}
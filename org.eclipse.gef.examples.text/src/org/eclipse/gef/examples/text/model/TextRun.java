@@ -11,38 +11,180 @@
 
 package org.eclipse.gef.examples.text.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+
 import org.eclipse.core.runtime.Assert;
 
 /**
+ * A run of text. The text is stored as a piece table: an append-only buffer
+ * holding the initial text followed by everything inserted since, and a list
+ * of pieces, each a range of that buffer. Edits only change the list of
+ * pieces, so typing in a long run does not copy its text. The text is
+ * compacted into a single piece once there are too many pieces or the buffer
+ * holds too much deleted text.
+ * <P>
+ * Changes are fired as a "text" property change whose new value is a
+ * {@link TextChange}. The run is a {@link CharSequence}, so that figures can
+ * display it without holding a copy of the text.
+ * 
  * @since 3.1
  */
-public class TextRun extends ModelElement {
+public class TextRun extends ModelElement implements CharSequence {
 
 	private static final long serialVersionUID = 1;
 
+	/**
+	 * Only the text is serialized, as in earlier versions.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField(
+			"text", String.class) };
+
+	private static final int MAX_PIECES = 256;
+	private static final int MAX_GARBAGE = 4096;
+
 	public static final int TYPE_IMPORT = 1;
 	public static final int TYPE_PACKAGE = 2;
 	public static final int TYPE_BULLET = 3;
 	public static final int TYPE_UNDERLINE = 4;
 	public static final int TYPE_CODE = 5;
 
-	private String text;
+	private transient StringBuffer buffer;
+	private transient int pieceStarts[];
+	private transient int pieceLengths[];
+	private transient int pieceCount;
+	private transient int length;
+	/**
+	 * The text as a String, or <code>null</code> if it has changed since it
+	 * was last requested.
+	 */
+	private transient String text;
 
 	/**
 	 * @since 3.1
 	 */
 	public TextRun(String text) {
-		this.text = text;
+		init(text);
 	}
 
 	/**
 	 * @since 3.1
 	 */
 	public TextRun(String text, int type) {
-		this.text = text;
+		init(text);
 		this.type = type;
 	}
 
+	public char charAt(int index) {
+		if (text != null)
+			return text.charAt(index);
+		if (index >= 0) {
+			int start = 0;
+			for (int i = 0; i < pieceCount; i++) {
+				int end = start + pieceLengths[i];
+				if (index < end)
+					return buffer.charAt(pieceStarts[i] + index - start);
+				start = end;
+			}
+		}
+		throw new IndexOutOfBoundsException("Index: " + index);
+	}
+
+	private void delete(int offset, int count) {
+		int from = split(offset);
+		int to = split(offset + count);
+		System.arraycopy(pieceStarts, to, pieceStarts, from, pieceCount - to);
+		System.arraycopy(pieceLengths, to, pieceLengths, from, pieceCount - to);
+		pieceCount -= to - from;
+		length -= count;
+	}
+
+	private void init(String s) {
+		buffer = new StringBuffer(s);
+		pieceStarts = new int[8];
+		pieceLengths = new int[8];
+		pieceCount = 0;
+		if (s.length() > 0) {
+			pieceLengths[0] = s.length();
+			pieceCount = 1;
+		}
+		length = s.length();
+		text = s;
+	}
+
+	private void insert(String s, int offset) {
+		if (s.length() == 0)
+			return;
+		int index = split(offset);
+		if (index > 0
+				&& pieceStarts[index - 1] + pieceLengths[index - 1] == buffer
+						.length())
+			// continues the previous insertion, as when typing
+			pieceLengths[index - 1] += s.length();
+		else
+			insertPiece(index, buffer.length(), s.length());
+		buffer.append(s);
+		length += s.length();
+	}
+
+	private void insertPiece(int index, int start, int count) {
+		if (pieceCount == pieceStarts.length) {
+			int newStarts[] = new int[pieceCount * 2];
+			int newLengths[] = new int[pieceCount * 2];
+			System.arraycopy(pieceStarts, 0, newStarts, 0, pieceCount);
+			System.arraycopy(pieceLengths, 0, newLengths, 0, pieceCount);
+			pieceStarts = newStarts;
+			pieceLengths = newLengths;
+		}
+		System.arraycopy(pieceStarts, index, pieceStarts, index + 1,
+				pieceCount - index);
+		System.arraycopy(pieceLengths, index, pieceLengths, index + 1,
+				pieceCount - index);
+		pieceStarts[index] = start;
+		pieceLengths[index] = count;
+		pieceCount++;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		init((String) in.readFields().get("text", ""));
+	}
+
+	private void replace(int offset, int count, String s) {
+		Assert.isTrue(offset >= 0 && offset + count <= length);
+		if (count > 0)
+			delete(offset, count);
+		insert(s, offset);
+		text = null;
+		if (pieceCount > MAX_PIECES
+				|| buffer.length() - length > Math.max(length, MAX_GARBAGE))
+			init(getText());
+		firePropertyChange("text", null, new TextChange(offset, count, s));
+	}
+
+	/**
+	 * Makes sure that a piece starts at the given offset, and returns its
+	 * index, or the number of pieces if the offset is the end of the text.
+	 */
+	private int split(int offset) {
+		int start = 0;
+		for (int i = 0; i < pieceCount; i++) {
+			if (offset == start)
+				return i;
+			int end = start + pieceLengths[i];
+			if (offset < end) {
+				insertPiece(i + 1, pieceStarts[i] + offset - start, end
+						- offset);
+				pieceLengths[i] = offset - start;
+				return i + 1;
+			}
+			start = end;
+		}
+		return pieceCount;
+	}
+
 	/**
 	 * Divide this Run into two runs at the given offset. The second run is
 	 * return.
@@ -58,47 +200,87 @@ public class TextRun extends ModelElement {
 	}
 
 	public String getText() {
+		if (text == null)
+			text = getText(0, length);
 		return text;
 	}
 
+	/**
+	 * Returns a part of the text, without building the whole text.
+	 * 
+	 * @param offset
+	 *            the start of the part
+	 * @param length
+	 *            the length of the part
+	 * @return the part of the text
+	 */
+	public String getText(int offset, int length) {
+		Assert.isTrue(offset >= 0 && offset + length <= this.length);
+		if (text != null)
+			return text.substring(offset, offset + length);
+		char chars[] = new char[length];
+		int start = 0, copied = 0;
+		for (int i = 0; i < pieceCount && copied < length; i++) {
+			int end = start + pieceLengths[i];
+			if (end > offset) {
+				int from = Math.max(offset, start);
+				int to = Math.min(offset + length, end);
+				buffer.getChars(pieceStarts[i] + from - start, pieceStarts[i]
+						+ to - start, chars, copied);
+				copied += to - from;
+			}
+			start = end;
+		}
+		return new String(chars);
+	}
+
+	public int length() {
+		return length;
+	}
+
 	public void insertText(String someText, int offset) {
-		text = text.substring(0, offset) + someText
-				+ text.substring(offset, text.length());
-		firePropertyChange("text", null, text);
+		replace(offset, 0, someText);
 	}
 
 	public String overwriteText(String someText, int offset) {
-		String result = text.substring(offset,
-				Math.min(offset + someText.length(), text.length()));
-		text = text.substring(0, offset) + someText
-				+ text.substring(offset + result.length());
-		firePropertyChange("text", null, text);
+		String result = getText(offset,
+				Math.min(someText.length(), length - offset));
+		replace(offset, result.length(), someText);
 		return result;
 	}
 
 	public String removeRange(int offset, int length) {
-		Assert.isTrue(offset <= text.length());
-		Assert.isTrue(offset + length <= text.length());
-		String result = text.substring(offset, offset + length);
-		text = text.substring(0, offset) + text.substring(offset + length);
-		firePropertyChange("text", null, text);
+		Assert.isTrue(offset <= this.length);
+		Assert.isTrue(offset + length <= this.length);
+		String result = getText(offset, length);
+		replace(offset, length, "");
 		return result;
 	}
 
 	public void setText(String text) {
-		this.text = text;
-		firePropertyChange("text", null, text);
+		int oldLength = length;
+		init(text);
+		firePropertyChange("text", null, new TextChange(0, oldLength, text));
 	}
 
 	/**
 	 * @see org.eclipse.gef.examples.text.model.ModelElement#size()
 	 */
 	public int size() {
-		return getText().length();
+		return length;
+	}
+
+	public CharSequence subSequence(int start, int end) {
+		return getText(start, end - start);
 	}
 
 	public String toString() {
-		return text;
+		return getText();
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.putFields().put("text", getText());
+		out.writeFields();
 	}
 
 }
\ No newline at end of file
@@ -46,7 +46,7 @@ public class ApplyBooleanStyle extends MiniEdit {
 
 	public void apply() {
 		right = begin.subdivideRun(endOffset);
-		if (right.getText().length() == 0)
+		if (right.size() == 0)
 			right = null;
 		middle = begin.subdivideRun(beginOffset);
 
@@ -74,7 +74,7 @@ public class ApplyBooleanStyle extends MiniEdit {
 		if (right != null)
 			parent.add(right, index);
 		parent.add(container, index);
-		if (begin.getText().length() == 0)
+		if (begin.size() == 0)
 			parent.remove(begin);
 	}
 
@@ -39,7 +39,7 @@ public class ConvertElementCommand extends ExampleTextCommand {
 		this.offset = begin;
 		this.converted = converted;
 		this.caret = caret;
-		removed = text.getText().substring(begin, end).toCharArray();
+		removed = text.getText(begin, end - begin).toCharArray();
 	}
 
 	public void execute() {
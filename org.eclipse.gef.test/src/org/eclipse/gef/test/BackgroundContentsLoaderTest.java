@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+
+import org.eclipse.gef.ConcurrentEditPartFactory;
+import org.eclipse.gef.EditPart;
+import org.eclipse.gef.editparts.AbstractGraphicalEditPart;
+import org.eclipse.gef.editparts.BackgroundContentsLoader;
+import org.eclipse.gef.ui.parts.ScrollingGraphicalViewer;
+
+/**
+ * Loads a model whose parents have equal children, and checks that every
+ * child gets the EditPart which was prepared for it in the background.
+ */
+public class BackgroundContentsLoaderTest extends TestCase {
+
+	/**
+	 * A model object which equals every other node of the same name.
+	 */
+	private static class Node {
+		final String name;
+		final List children = new ArrayList();
+
+		Node(String name) {
+			this.name = name;
+		}
+
+		Node add(Node child) {
+			children.add(child);
+			return this;
+		}
+
+		public boolean equals(Object obj) {
+			return obj instanceof Node && ((Node) obj).name.equals(name);
+		}
+
+		public int hashCode() {
+			return name.hashCode();
+		}
+	}
+
+	/**
+	 * Remembers the context and the thread it was created with.
+	 */
+	private static class NodeEditPart extends AbstractGraphicalEditPart {
+		final EditPart context;
+		final Thread thread = Thread.currentThread();
+
+		NodeEditPart(EditPart context, Object model) {
+			this.context = context;
+			setModel(model);
+		}
+
+		protected IFigure createFigure() {
+			return new Figure();
+		}
+
+		protected void createEditPolicies() {
+			// do nothing
+		}
+
+		protected List getModelChildren() {
+			return ((Node) getModel()).children;
+		}
+
+		protected void register() {
+			// equal models would replace each other in the registry
+		}
+
+		protected void unregister() {
+			// do nothing
+		}
+	}
+
+	private static class Factory implements ConcurrentEditPartFactory {
+		public EditPart createEditPart(EditPart context, Object model) {
+			return new NodeEditPart(context, model);
+		}
+
+		public boolean isThreadSafe(Object model) {
+			return true;
+		}
+	}
+
+	private Shell shell;
+	private ScrollingGraphicalViewer viewer;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		shell = new Shell();
+		viewer = new ScrollingGraphicalViewer();
+		viewer.createControl(shell);
+		viewer.setEditPartFactory(new Factory());
+	}
+
+	protected void tearDown() throws Exception {
+		shell.dispose();
+		super.tearDown();
+	}
+
+	private void assertPrepared(EditPart parent, Thread uiThread) {
+		List children = parent.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			NodeEditPart child = (NodeEditPart) children.get(i);
+			assertSame(parent, child.context);
+			assertNotSame(uiThread, child.thread);
+			assertPrepared(child, uiThread);
+		}
+	}
+
+	public void testEqualModelsGetTheirOwnEditParts()
+			throws InterruptedException {
+		Node contents = new Node("contents"); //$NON-NLS-1$
+		for (int i = 0; i < 20; i++) {
+			// siblings differ, but every parent has the same children
+			Node parent = new Node("parent" + i); //$NON-NLS-1$
+			parent.add(new Node("leaf").add(new Node("leaf"))); //$NON-NLS-1$ //$NON-NLS-2$
+			parent.add(new Node("other")); //$NON-NLS-1$
+			contents.add(parent);
+		}
+
+		BackgroundContentsLoader loader = new BackgroundContentsLoader(viewer);
+		loader.load(contents);
+		Display display = shell.getDisplay();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (loader.isLoading() && System.currentTimeMillis() < deadline)
+			if (!display.readAndDispatch())
+				Thread.sleep(10);
+		assertFalse(loader.isLoading());
+
+		EditPart part = viewer.getContents();
+		assertEquals(contents.children.size(), part.getChildren().size());
+		assertPrepared(part, display.getThread());
+	}
+
+}
@@ -11,6 +11,7 @@
 
 package org.eclipse.gef.test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import junit.framework.TestCase;
@@ -18,10 +19,18 @@ import junit.framework.TestCase;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.draw2d.Figure;
 import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.gef.DefaultEditDomain;
 import org.eclipse.gef.EditPart;
+import org.eclipse.gef.EditPartViewer;
+import org.eclipse.gef.EditPolicy;
+import org.eclipse.gef.LayerConstants;
+import org.eclipse.gef.Request;
 import org.eclipse.gef.editparts.AbstractGraphicalEditPart;
+import org.eclipse.gef.editparts.ScalableRootEditPart;
+import org.eclipse.gef.editpolicies.GraphicalEditPolicy;
 import org.eclipse.gef.tools.DragEditPartsTracker;
+import org.eclipse.gef.ui.parts.GraphicalViewerImpl;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.IEditorInput;
@@ -165,6 +174,53 @@ public class DragEditPartsTrackerTest extends TestCase {
 		}
 	};
 
+	/**
+	 * A part whose edit policy counts the source feedback requests.
+	 */
+	private static class FeedbackEditPart extends TestGraphicalEditPart {
+		int feedback;
+
+		FeedbackEditPart(Rectangle bounds) {
+			getFigure().setBounds(bounds);
+			installEditPolicy(EditPolicy.PRIMARY_DRAG_ROLE,
+					new GraphicalEditPolicy() {
+						public void showSourceFeedback(Request request) {
+							feedback++;
+						}
+					});
+		}
+	}
+
+	/**
+	 * Drags the given parts in the given viewer.
+	 */
+	private class FeedbackTracker extends DragEditPartsTracker {
+		private final EditPartViewer viewer;
+		private final List parts;
+
+		FeedbackTracker(EditPartViewer viewer, List parts) {
+			super((EditPart) parts.get(0));
+			this.viewer = viewer;
+			this.parts = parts;
+		}
+
+		protected List createOperationSet() {
+			return parts;
+		}
+
+		protected EditPartViewer getCurrentViewer() {
+			return viewer;
+		}
+
+		public void showSourceFeedback() {
+			super.showSourceFeedback();
+		}
+
+		public void eraseSourceFeedback() {
+			super.eraseSourceFeedback();
+		}
+	}
+
 	public void test_createOperationSet() {
 		TestDragEditPartsTracker dept = new TestDragEditPartsTracker(
 				new TestGraphicalEditPart());
@@ -176,4 +232,43 @@ public class DragEditPartsTrackerTest extends TestCase {
 		dept.deactivate();
 	}
 
+	public void test_aggregatedFeedback() {
+		GraphicalViewerImpl viewer = new GraphicalViewerImpl();
+		ScalableRootEditPart root = new ScalableRootEditPart();
+		viewer.setRootEditPart(root);
+		viewer.setProperty(
+				DragEditPartsTracker.PROPERTY_AGGREGATE_FEEDBACK_THRESHOLD,
+				new Integer(3));
+		IFigure layer = root.getLayer(LayerConstants.FEEDBACK_LAYER);
+
+		List parts = new ArrayList();
+		for (int i = 0; i < 2; i++) {
+			FeedbackEditPart part = new FeedbackEditPart(new Rectangle(
+					10 + i * 50, 20, 30, 40));
+			part.activate();
+			parts.add(part);
+		}
+		FeedbackTracker tracker = new FeedbackTracker(viewer, parts);
+		tracker.showSourceFeedback();
+		assertEquals(1, ((FeedbackEditPart) parts.get(1)).feedback);
+		assertEquals(0, layer.getChildren().size());
+		tracker.eraseSourceFeedback();
+
+		FeedbackEditPart part = new FeedbackEditPart(new Rectangle(10, 100,
+				30, 40));
+		part.activate();
+		parts.add(part);
+		tracker = new FeedbackTracker(viewer, parts);
+		tracker.showSourceFeedback();
+		tracker.showSourceFeedback();
+		assertEquals(0, part.feedback);
+		assertEquals(1, ((FeedbackEditPart) parts.get(1)).feedback);
+		assertEquals(1, layer.getChildren().size());
+		IFigure feedback = (IFigure) layer.getChildren().get(0);
+		assertEquals(new Rectangle(10, 20, 80, 120), feedback.getBounds());
+
+		tracker.eraseSourceFeedback();
+		assertEquals(0, layer.getChildren().size());
+	}
+
 }
@@ -31,6 +31,9 @@ public class GEFTestSuite extends TestSuite {
 		addTest(new TestSuite(PaletteCustomizerTest.class));
 		addTest(new TestSuite(ToolUtilitiesTest.class));
 		addTest(new TestSuite(DragEditPartsTrackerTest.class));
+		addTest(new TestSuite(BackgroundContentsLoaderTest.class));
+		addTest(new TestSuite(SelectionManagerTest.class));
+		addTest(new TestSuite(SelectionOverlayTest.class));
 	}
 
 }
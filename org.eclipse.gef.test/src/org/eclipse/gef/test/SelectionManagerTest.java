@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jface.viewers.ISelectionChangedListener;
+import org.eclipse.jface.viewers.SelectionChangedEvent;
+
+import org.eclipse.gef.DragTracker;
+import org.eclipse.gef.EditPart;
+import org.eclipse.gef.Request;
+import org.eclipse.gef.SelectionManager;
+import org.eclipse.gef.editparts.AbstractEditPart;
+import org.eclipse.gef.ui.parts.GraphicalViewerImpl;
+
+/**
+ * Checks the order, the selected states and the number of selection events
+ * of the bulk operations of the {@link SelectionManager}.
+ */
+public class SelectionManagerTest extends TestCase {
+
+	private static class TestEditPart extends AbstractEditPart {
+		protected void addChildVisual(EditPart child, int index) {
+		}
+
+		protected void createEditPolicies() {
+		}
+
+		public DragTracker getDragTracker(Request request) {
+			return null;
+		}
+
+		protected void removeChildVisual(EditPart child) {
+		}
+	}
+
+	/**
+	 * Gives access to the raw selection list.
+	 */
+	private static class TestViewer extends GraphicalViewerImpl {
+		List getSelectionList() {
+			return selection;
+		}
+	}
+
+	private TestViewer viewer;
+	private SelectionManager manager;
+	private EditPart a, b, c, d;
+	private int events;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		viewer = new TestViewer();
+		manager = viewer.getSelectionManager();
+		a = new TestEditPart();
+		b = new TestEditPart();
+		c = new TestEditPart();
+		d = new TestEditPart();
+		viewer.addSelectionChangedListener(new ISelectionChangedListener() {
+			public void selectionChanged(SelectionChangedEvent event) {
+				events++;
+			}
+		});
+	}
+
+	/**
+	 * Asserts the selection, in order, and that one event has been fired
+	 * since the last call.
+	 */
+	private void assertSelection(EditPart[] expected) {
+		assertEquals(1, events);
+		events = 0;
+		assertEquals(Arrays.asList(expected), viewer.getSelectedEditParts());
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(i == expected.length - 1 ? EditPart.SELECTED_PRIMARY
+					: EditPart.SELECTED, expected[i].getSelected());
+	}
+
+	public void testSetSelection() {
+		manager.setSelection(Arrays.asList(new EditPart[] { a, b, c, b }));
+		assertSelection(new EditPart[] { a, b, c });
+		manager.setSelection(Arrays.asList(new EditPart[] { c, a }));
+		assertSelection(new EditPart[] { c, a });
+		assertEquals(EditPart.SELECTED_NONE, b.getSelected());
+	}
+
+	public void testAppendSelection() {
+		manager.setSelection(Arrays.asList(new EditPart[] { a, b }));
+		events = 0;
+		manager.appendSelection(Arrays.asList(new EditPart[] { c, a }));
+		assertSelection(new EditPart[] { b, c, a });
+		manager.appendSelection(Arrays.asList(new EditPart[] { d }));
+		assertSelection(new EditPart[] { b, c, a, d });
+	}
+
+	public void testDeselect() {
+		manager.setSelection(Arrays.asList(new EditPart[] { a, b, c }));
+		events = 0;
+		manager.deselect(Arrays.asList(new EditPart[] { c, d }));
+		assertSelection(new EditPart[] { a, b });
+		assertEquals(EditPart.SELECTED_NONE, c.getSelected());
+		manager.deselect(Arrays.asList(new EditPart[] { a }));
+		assertSelection(new EditPart[] { b });
+	}
+
+	public void testListReplacedWithSameSize() {
+		manager.setSelection(Arrays.asList(new EditPart[] { a, b }));
+		events = 0;
+		viewer.getSelectionList().set(1, c);
+		c.setSelected(EditPart.SELECTED_PRIMARY);
+		b.setSelected(EditPart.SELECTED_NONE);
+
+		manager.appendSelection(c);
+		assertSelection(new EditPart[] { a, c });
+		manager.deselect(Arrays.asList(new EditPart[] { c }));
+		assertSelection(new EditPart[] { a });
+	}
+
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.test;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import org.eclipse.gef.handles.SelectionOverlay;
+
+/**
+ * Checks the hit-testing and the bounds of a {@link SelectionOverlay} as its
+ * clients are added and removed.
+ */
+public class SelectionOverlayTest extends TestCase {
+
+	private static class Client implements SelectionOverlay.Client {
+		final IFigure figure = new Figure();
+
+		Client(IFigure parent, int x, int y) {
+			figure.setBounds(new Rectangle(x, y, 40, 30));
+			parent.add(figure);
+		}
+
+		public int getHandleStyle() {
+			return SelectionOverlay.CORNERS;
+		}
+
+		public IFigure getReferenceFigure() {
+			return figure;
+		}
+
+		public void hideHandles() {
+		}
+
+		public void showHandles() {
+		}
+	}
+
+	private Figure root;
+	private SelectionOverlay overlay;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		root = new Figure();
+		root.setBounds(new Rectangle(0, 0, 1000, 1000));
+		Figure layer = new Figure();
+		layer.setBounds(root.getBounds());
+		root.add(layer);
+		overlay = SelectionOverlay.getOverlay(layer);
+		assertSame(overlay, SelectionOverlay.getOverlay(layer));
+	}
+
+	public void testRemovedClientsShrinkBoundsOnValidation() {
+		Client first = new Client(root, 100, 100);
+		Client second = new Client(root, 500, 400);
+		Client third = new Client(root, 800, 700);
+		overlay.add(first);
+		overlay.add(second);
+		overlay.add(third);
+		overlay.validate();
+		Rectangle all = overlay.getBounds().getCopy();
+		assertTrue(all.contains(100, 100));
+		assertTrue(all.contains(839, 729));
+		assertTrue(overlay.containsPoint(100, 100));
+		assertTrue(overlay.containsPoint(839, 729));
+
+		overlay.remove(second);
+		overlay.remove(third);
+		// the bounds are only recomputed once, when the overlay is validated
+		assertEquals(all, overlay.getBounds());
+		assertFalse(overlay.containsPoint(839, 729));
+		assertTrue(overlay.containsPoint(100, 100));
+
+		overlay.validate();
+		Rectangle bounds = overlay.getBounds();
+		assertTrue(bounds.contains(100, 100));
+		assertTrue(bounds.contains(139, 129));
+		assertFalse(bounds.contains(500, 400));
+
+		overlay.remove(first);
+		overlay.validate();
+		assertTrue(overlay.getBounds().isEmpty());
+		assertFalse(overlay.containsPoint(100, 100));
+	}
+
+	public void testMovedClientIsRelocated() {
+		Client client = new Client(root, 100, 100);
+		overlay.add(client);
+		overlay.validate();
+		assertTrue(overlay.containsPoint(100, 100));
+
+		client.figure.setLocation(new Point(300, 200));
+		overlay.validate();
+		assertFalse(overlay.containsPoint(100, 100));
+		assertTrue(overlay.containsPoint(300, 200));
+	}
+
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef;
+
+/**
+ * An {@link EditPartFactory} which can create some of its EditParts away from
+ * the UI thread. It is used by
+ * {@link org.eclipse.gef.editparts.BackgroundContentsLoader} to prepare the
+ * EditParts of large models in the background.
+ * <P>
+ * For every model for which {@link #isThreadSafe(Object)} returns
+ * <code>true</code>, the following methods may be called on a background
+ * thread, and must therefore neither access the viewer nor any other UI
+ * state:
+ * <UL>
+ * <LI>{@link #createEditPart(EditPart, Object)}, with a context which is not
+ * yet part of the viewer.
+ * <LI>The <code>getModelChildren()</code> method of the created EditPart.
+ * <LI>{@link GraphicalEditPart#getFigure()} of the created EditPart, if it is
+ * a GraphicalEditPart. The figure must not be shared with other EditParts.
+ * </UL>
+ * The EditParts are attached to the viewer on the UI thread afterwards.
+ * 
+ * @since 3.10
+ */
+public interface ConcurrentEditPartFactory extends EditPartFactory {
+
+	/**
+	 * Returns whether the EditPart of the given model, and its figure, may be
+	 * created on a background thread.
+	 * 
+	 * @param model
+	 *            the model
+	 * @return <code>true</code> if the EditPart may be created in the
+	 *         background
+	 */
+	boolean isThreadSafe(Object model);
+
+}
@@ -11,10 +11,12 @@
 
 package org.eclipse.gef;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.swt.widgets.Control;
 
@@ -22,6 +24,8 @@ import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.StructuredSelection;
 
+import org.eclipse.gef.internal.SelectionList;
+
 /**
  * Manages a viewer's selection model. Selection management includes
  * representing a form of selection which is available to clients of a viewer as
@@ -38,6 +42,8 @@ public class SelectionManager {
 	private EditPart focusPart;
 	private Runnable notifier;
 	private List selection;
+	private Map members = new IdentityHashMap();
+	private int membersVersion = -1;
 	private EditPartViewer viewer;
 
 	/**
@@ -76,13 +82,57 @@ public class SelectionManager {
 		}
 		// if the editpart is already in the list, re-order it to be the last
 		// one
-		selection.remove(editpart);
+		if (isMember(editpart))
+			selection.remove(editpart);
 		selection.add(editpart);
+		members.put(editpart, editpart);
+		membersUpdated();
 		editpart.setSelected(EditPart.SELECTED_PRIMARY);
 
 		fireSelectionChanged();
 	}
 
+	/**
+	 * Appends the given <code>EditParts</code> to the current selection, in
+	 * the order of the collection. The last EditPart becomes the new primary
+	 * selection. EditParts which are already selected are moved to the end.
+	 * Fires selection changed to all
+	 * {@link org.eclipse.jface.viewers.ISelectionChangedListener}s once.
+	 * 
+	 * @param editparts
+	 *            the EditParts to append
+	 * @since 3.10
+	 */
+	public void appendSelection(Collection editparts) {
+		if (editparts.isEmpty())
+			return;
+		if (editparts.size() > 1 || !editparts.contains(getFocus()))
+			viewer.setFocus(null);
+		if (!selection.isEmpty()) {
+			EditPart primary = (EditPart) selection.get(selection.size() - 1);
+			primary.setSelected(EditPart.SELECTED);
+		}
+
+		Map appended = new IdentityHashMap(editparts.size());
+		List ordered = new ArrayList(editparts.size());
+		boolean reordered = false;
+		for (Iterator iter = editparts.iterator(); iter.hasNext();) {
+			EditPart part = (EditPart) iter.next();
+			if (appended.put(part, part) == null) {
+				ordered.add(part);
+				reordered |= isMember(part);
+			}
+		}
+		if (reordered)
+			removeMembers(appended);
+		selection.addAll(ordered);
+		members.putAll(appended);
+		membersUpdated();
+		selectInOrder(ordered);
+
+		fireSelectionChanged();
+	}
+
 	/**
 	 * Removes the <code>EditPart</code> from the current selection.
 	 * 
@@ -93,7 +143,44 @@ public class SelectionManager {
 	public void deselect(EditPart editpart) {
 		editpart.setSelected(EditPart.SELECTED_NONE);
 
-		selection.remove(editpart);
+		if (isMember(editpart)) {
+			selection.remove(editpart);
+			members.remove(editpart);
+			membersUpdated();
+		}
+		updatePrimary();
+		fireSelectionChanged();
+	}
+
+	/**
+	 * Removes the given <code>EditParts</code> from the current selection.
+	 * Fires selection changed to all
+	 * {@link org.eclipse.jface.viewers.ISelectionChangedListener}s once.
+	 * 
+	 * @param editparts
+	 *            the EditParts to deselect
+	 * @since 3.10
+	 */
+	public void deselect(Collection editparts) {
+		if (editparts.isEmpty())
+			return;
+		Map removed = new IdentityHashMap(editparts.size());
+		for (Iterator iter = editparts.iterator(); iter.hasNext();) {
+			EditPart part = (EditPart) iter.next();
+			part.setSelected(EditPart.SELECTED_NONE);
+			if (isMember(part))
+				removed.put(part, part);
+		}
+		removeMembers(removed);
+		updatePrimary();
+		fireSelectionChanged();
+	}
+
+	/**
+	 * Makes the last selectable EditPart in the selection the primary
+	 * selection.
+	 */
+	private void updatePrimary() {
 		if (!selection.isEmpty()) {
 			// IMPORTANT: it may (temporarily) happen that the selection list
 			// contains edit parts, which are not selectable (any more) when
@@ -115,7 +202,6 @@ public class SelectionManager {
 				}
 			}
 		}
-		fireSelectionChanged();
 	}
 
 	/**
@@ -131,6 +217,8 @@ public class SelectionManager {
 			part.setSelected(EditPart.SELECTED_NONE);
 		}
 		selection.clear();
+		members.clear();
+		membersUpdated();
 		fireSelectionChanged();
 	}
 
@@ -220,6 +308,8 @@ public class SelectionManager {
 		this.viewer = viewer;
 		this.selection = selection;
 		this.notifier = notifier;
+		members.clear();
+		membersVersion = -1;
 
 		hookViewer(viewer);
 	}
@@ -252,31 +342,105 @@ public class SelectionManager {
 		if (!(newSelection instanceof IStructuredSelection))
 			return;
 
-		List orderedSelection = ((IStructuredSelection) newSelection).toList();
-		// Convert to HashSet to optimize performance.
-		Collection hashset = new HashSet(orderedSelection);
+		setSelection(((IStructuredSelection) newSelection).toList());
+	}
+
+	/**
+	 * Sets the selection to the given <code>EditParts</code>, in the order of
+	 * the collection. The last EditPart becomes the primary selection. Fires
+	 * selection changed to all
+	 * {@link org.eclipse.jface.viewers.ISelectionChangedListener}s once.
+	 * 
+	 * @param editparts
+	 *            the EditParts to select
+	 * @since 3.10
+	 */
+	public void setSelection(Collection editparts) {
+		Map selected = new IdentityHashMap(editparts.size());
+		List ordered = new ArrayList(editparts.size());
+		for (Iterator iter = editparts.iterator(); iter.hasNext();) {
+			EditPart part = (EditPart) iter.next();
+			if (selected.put(part, part) == null)
+				ordered.add(part);
+		}
 
 		setFocus(null);
 		for (int i = 0; i < selection.size(); i++) {
 			EditPart part = (EditPart) selection.get(i);
-			if (!hashset.contains(part))
+			if (!selected.containsKey(part))
 				part.setSelected(EditPart.SELECTED_NONE);
 		}
 		selection.clear();
+		selection.addAll(ordered);
+		members = selected;
+		membersUpdated();
+		selectInOrder(ordered);
+		fireSelectionChanged();
+	}
 
-		if (!orderedSelection.isEmpty()) {
-			Iterator itr = orderedSelection.iterator();
-			while (true) {
-				EditPart part = (EditPart) itr.next();
-				selection.add(part);
-				if (!itr.hasNext()) {
-					part.setSelected(EditPart.SELECTED_PRIMARY);
-					break;
-				}
-				part.setSelected(EditPart.SELECTED);
-			}
+	/**
+	 * Marks the given EditParts as selected, and the last one as the primary
+	 * selection.
+	 */
+	private static void selectInOrder(List parts) {
+		int last = parts.size() - 1;
+		for (int i = 0; i < last; i++)
+			((EditPart) parts.get(i)).setSelected(EditPart.SELECTED);
+		if (last >= 0)
+			((EditPart) parts.get(last)).setSelected(EditPart.SELECTED_PRIMARY);
+	}
+
+	/**
+	 * Returns the modification count of the selection list, or -1 if the list
+	 * does not count its modifications.
+	 */
+	private int getSelectionVersion() {
+		if (selection instanceof SelectionList)
+			return ((SelectionList) selection).getModificationCount();
+		return -1;
+	}
+
+	/**
+	 * Returns whether the given EditPart is in the selection list, in
+	 * constant time. The membership is rebuilt if the list has been modified
+	 * elsewhere, or on every call if the list does not count its
+	 * modifications.
+	 */
+	private boolean isMember(EditPart part) {
+		int version = getSelectionVersion();
+		if (version == -1 || version != membersVersion) {
+			members.clear();
+			for (int i = 0; i < selection.size(); i++)
+				members.put(selection.get(i), selection.get(i));
+			membersVersion = version;
 		}
-		fireSelectionChanged();
+		return members.containsKey(part);
+	}
+
+	/**
+	 * Records that the membership matches the selection list again, after the
+	 * list has been modified by this manager.
+	 */
+	private void membersUpdated() {
+		membersVersion = getSelectionVersion();
+	}
+
+	/**
+	 * Removes the given members from the selection list in a single pass.
+	 */
+	private void removeMembers(Map removed) {
+		if (removed.isEmpty())
+			return;
+		int j = 0;
+		for (int i = 0; i < selection.size(); i++) {
+			Object part = selection.get(i);
+			if (!removed.containsKey(part))
+				selection.set(j++, part);
+			else
+				members.remove(part);
+		}
+		selection.subList(j, selection.size()).clear();
+		membersUpdated();
 	}
 
 }
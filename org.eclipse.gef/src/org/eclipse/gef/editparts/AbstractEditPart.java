@@ -83,6 +83,12 @@ public abstract class AbstractEditPart implements EditPart, RequestConstants,
 	 */
 	protected List children;
 
+	/**
+	 * The number of model children which currently have EditParts while the
+	 * children are attached by a {@link BackgroundContentsLoader}, or -1.
+	 */
+	int loadedChildren = -1;
+
 	/**
 	 * call getEventListeners(Class) instead.
 	 */
@@ -760,6 +766,8 @@ public abstract class AbstractEditPart implements EditPart, RequestConstants,
 		}
 
 		List modelObjects = getModelChildren();
+		if (loadedChildren >= 0 && loadedChildren < modelObjects.size())
+			modelObjects = modelObjects.subList(0, loadedChildren);
 		for (i = 0; i < modelObjects.size(); i++) {
 			model = modelObjects.get(i);
 
@@ -13,9 +13,12 @@ package org.eclipse.gef.editparts;
 import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeItem;
 import org.eclipse.swt.widgets.Widget;
@@ -32,6 +35,15 @@ import org.eclipse.gef.TreeEditPart;
  * This is an implementation class, and the documentation here is targeted at
  * <em>subclassing</em> this class. Callers of public API should refer to the
  * interface's documentation.
+ * <P>
+ * If the widget belongs to a {@link SWT#VIRTUAL virtual} tree, the children
+ * are created lazily. Only the item count is set for the model children, and
+ * the child EditParts are created when the tree asks for the data of their
+ * items, i.e. when a row is first shown. Rows which are never shown never get
+ * an EditPart, so {@link #getChildren()} only contains the children of the
+ * rows which have been shown, in the order of their rows. When the model
+ * children change, the children whose row now shows another model are
+ * removed, and their rows are created again when they are shown.
  */
 public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 		TreeEditPart {
@@ -43,6 +55,20 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 
 	private boolean expanded;
 
+	private Listener setDataListener;
+
+	/**
+	 * The child EditParts by the index of their model, if the children are
+	 * created lazily for a virtual tree. Rows which have not been shown have
+	 * no EditPart.
+	 */
+	private EditPart[] virtualChildren;
+
+	/**
+	 * The row of the child which is being added lazily, or -1.
+	 */
+	private int realizing = -1;
+
 	/**
 	 * Constructs a new EditPart with the specified model.
 	 * 
@@ -69,6 +95,12 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 	protected void addChildVisual(EditPart childEditPart, int index) {
 		Widget widget = getWidget();
 		TreeItem item;
+		if (realizing >= 0) {
+			// use the item which the tree has created for the row
+			((TreeEditPart) childEditPart).setWidget(getItem(widget,
+					realizing));
+			return;
+		}
 		if (widget instanceof Tree)
 			item = new TreeItem((Tree) widget, 0, index);
 		else
@@ -112,6 +144,44 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 		return null;
 	}
 
+	private static void clearItem(Widget widget, int index) {
+		if (widget instanceof Tree)
+			((Tree) widget).clear(index, true);
+		else
+			((TreeItem) widget).clear(index, true);
+	}
+
+	private static TreeItem getItem(Widget widget, int index) {
+		if (widget instanceof Tree)
+			return ((Tree) widget).getItem(index);
+		return ((TreeItem) widget).getItem(index);
+	}
+
+	private Listener getSetDataListener() {
+		if (setDataListener == null)
+			setDataListener = new Listener() {
+				public void handleEvent(Event event) {
+					TreeItem item = (TreeItem) event.item;
+					Widget parent = item.getParentItem();
+					if (parent == null)
+						parent = item.getParent();
+					if (!(parent.getData() instanceof AbstractTreeEditPart))
+						return;
+					AbstractTreeEditPart part = (AbstractTreeEditPart) parent
+							.getData();
+					if (part.virtualChildren == null
+							|| event.index >= part.virtualChildren.length)
+						return;
+					EditPart child = part.virtualChildren[event.index];
+					if (child == null)
+						part.realize(event.index);
+					else
+						child.refresh();
+				}
+			};
+		return setDataListener;
+	}
+
 	/**
 	 * Override this method to return the String to be used in this EditPart's
 	 * {@link #widget}. This method is called from {@link #refreshVisuals()}.
@@ -129,6 +199,91 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 		return widget;
 	}
 
+	private static boolean isVirtual(Widget widget) {
+		if (widget == null || widget.isDisposed())
+			return false;
+		Tree tree = widget instanceof Tree ? (Tree) widget
+				: ((TreeItem) widget).getParent();
+		return (tree.getStyle() & SWT.VIRTUAL) != 0;
+	}
+
+	/**
+	 * Creates the child EditPart for the row with the given index, and adds
+	 * it after the children of the rows above it.
+	 */
+	private EditPart realize(int index) {
+		EditPart child = createChild(getModelChildren().get(index));
+		virtualChildren[index] = child;
+		int position = 0;
+		for (int i = 0; i < index; i++)
+			if (virtualChildren[i] != null)
+				position++;
+		realizing = index;
+		try {
+			addChild(child, position);
+		} finally {
+			realizing = -1;
+		}
+		return child;
+	}
+
+	/**
+	 * Creates the child EditPart for the given model, if the children are
+	 * created lazily because the widget belongs to a virtual tree and the row
+	 * of the model has not been shown yet. This is used to resolve a model
+	 * which has not been shown in the tree, e.g. when synchronizing the
+	 * selection with another viewer. Only the EditPart of the model's row is
+	 * created.
+	 * 
+	 * @param model
+	 *            a model child
+	 * @return the child EditPart for the model, or <code>null</code> if the
+	 *         children are not created lazily or the model is not a child
+	 * @since 3.10
+	 */
+	public EditPart realizeChild(Object model) {
+		if (virtualChildren == null)
+			return null;
+		int index = getModelChildren().indexOf(model);
+		if (index < 0 || index >= virtualChildren.length)
+			return null;
+		EditPart child = virtualChildren[index];
+		if (child == null)
+			child = realize(index);
+		return child;
+	}
+
+	/**
+	 * Extended to only update the rows of a virtual tree. The children whose
+	 * row now shows another model are removed, and the item count is set to
+	 * the number of model children. The EditParts of the other rows are
+	 * created when the rows are shown.
+	 * 
+	 * @see AbstractEditPart#refreshChildren()
+	 */
+	protected void refreshChildren() {
+		if (virtualChildren == null) {
+			super.refreshChildren();
+			return;
+		}
+		List modelObjects = getModelChildren();
+		for (int i = 0; i < virtualChildren.length; i++) {
+			EditPart child = virtualChildren[i];
+			if (child != null
+					&& (i >= modelObjects.size() || modelObjects.get(i) != child
+							.getModel()))
+				removeChild(child);
+		}
+		if (virtualChildren.length != modelObjects.size()) {
+			EditPart[] resized = new EditPart[modelObjects.size()];
+			System.arraycopy(virtualChildren, 0, resized, 0, Math.min(
+					resized.length, virtualChildren.length));
+			virtualChildren = resized;
+		}
+		if (widget != null && !widget.isDisposed())
+			setItemCount(widget, modelObjects.size());
+	}
+
 	/**
 	 * By default, this method will apply an <code>Image</code> and
 	 * <code>String</code> to the widget if it is a <code>TreeItem</code>.
@@ -153,6 +308,22 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 	 */
 	protected void removeChildVisual(EditPart childEditPart) {
 		TreeEditPart treeEditPart = (TreeEditPart) childEditPart;
+		if (virtualChildren != null) {
+			// keep the row, which shows another model from now on
+			Widget item = treeEditPart.getWidget();
+			treeEditPart.setWidget(null);
+			for (int i = 0; i < virtualChildren.length; i++) {
+				if (virtualChildren[i] != childEditPart)
+					continue;
+				virtualChildren[i] = null;
+				if (item != null && !item.isDisposed()) {
+					item.setData(null);
+					clearItem(widget, i);
+				}
+				break;
+			}
+			return;
+		}
 		treeEditPart.getWidget().dispose();
 		treeEditPart.setWidget(null);
 	}
@@ -167,6 +338,13 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 		editpart.refresh();
 	}
 
+	private static void setItemCount(Widget widget, int count) {
+		if (widget instanceof Tree)
+			((Tree) widget).setItemCount(count);
+		else
+			((TreeItem) widget).setItemCount(count);
+	}
+
 	/**
 	 * Sets the {@link #widget}.
 	 * 
@@ -174,8 +352,20 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 	 */
 	public void setWidget(Widget widget) {
 		List children = getChildren();
+		if (setDataListener != null && this.widget instanceof Tree
+				&& !this.widget.isDisposed())
+			this.widget.removeListener(SWT.SetData, setDataListener);
 		if (widget != null) {
 			widget.setData(this);
+			boolean virtual = isVirtual(widget);
+			if (virtual) {
+				if (virtualChildren == null)
+					virtualChildren = (EditPart[]) children
+							.toArray(new EditPart[children.size()]);
+				setItemCount(widget, virtualChildren.length);
+				if (widget instanceof Tree)
+					widget.addListener(SWT.SetData, getSetDataListener());
+			}
 			if (widget instanceof TreeItem) {
 				final TreeItem item = (TreeItem) widget;
 				item.addDisposeListener(new DisposeListener() {
@@ -184,15 +374,26 @@ public abstract class AbstractTreeEditPart extends AbstractEditPart implements
 					}
 				});
 			}
-			for (int i = 0; i < children.size(); i++) {
-				TreeEditPart tep = (TreeEditPart) children.get(i);
-				if (widget instanceof TreeItem)
-					tep.setWidget(new TreeItem((TreeItem) widget, 0));
-				else
-					tep.setWidget(new TreeItem((Tree) widget, 0));
-
-				// We have just assigned a new TreeItem to the EditPart
-				tep.refresh();
+			if (virtual) {
+				// the children keep the rows of their models
+				for (int i = 0; i < virtualChildren.length; i++) {
+					TreeEditPart tep = (TreeEditPart) virtualChildren[i];
+					if (tep == null)
+						continue;
+					tep.setWidget(getItem(widget, i));
+					tep.refresh();
+				}
+			} else {
+				for (int i = 0; i < children.size(); i++) {
+					TreeEditPart tep = (TreeEditPart) children.get(i);
+					if (widget instanceof TreeItem)
+						tep.setWidget(new TreeItem((TreeItem) widget, 0));
+					else
+						tep.setWidget(new TreeItem((Tree) widget, 0));
+
+					// We have just assigned a new TreeItem to the EditPart
+					tep.refresh();
+				}
 			}
 			if (widget instanceof TreeItem)
 				((TreeItem) widget).setExpanded(expanded);
@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.editparts;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.gef.ConcurrentEditPartFactory;
+import org.eclipse.gef.EditPart;
+import org.eclipse.gef.EditPartFactory;
+import org.eclipse.gef.EditPartViewer;
+import org.eclipse.gef.GraphicalEditPart;
+import org.eclipse.gef.internal.GEFMessages;
+
+/**
+ * Sets the contents of an {@link EditPartViewer} without blocking the UI thread
+ * until the EditParts and figures of the whole model have been created.
+ * <P>
+ * The contents EditPart is set on the viewer right away, without children. A
+ * {@link Job} then creates the EditParts of the contents' model children,
+ * together with their descendants and figures, on a background thread,
+ * wherever the viewer's {@link ConcurrentEditPartFactory} declares this to be
+ * thread-safe. The prepared children are attached on the UI thread in batches
+ * which take at most {@link #setTimeSlice(int) time slice} each, so a
+ * partially loaded diagram can already be scrolled. Progress is reported by
+ * the job, and the load can be cancelled through the job or
+ * {@link #cancel()}. The children which have not been attached when a load is
+ * cancelled are created the next time the contents are refreshed.
+ * <P>
+ * If the viewer's factory is not a ConcurrentEditPartFactory, or the contents
+ * EditPart is not an AbstractEditPart, the contents are set synchronously.
+ * While the contents are loading, the viewer's factory is replaced by one
+ * which hands out the prepared EditParts.
+ * <P>
+ * This class must be used on the UI thread.
+ *
+ * @since 3.10
+ */
+public class BackgroundContentsLoader {
+
+	/**
+	 * A single load. Prepares the children in the background, and attaches
+	 * them when it is run on the UI thread.
+	 */
+	private class Load extends Job implements Runnable, EditPartFactory {
+		private final AbstractEditPart contents;
+		private final ConcurrentEditPartFactory factory;
+		private final Display display;
+		/**
+		 * The prepared EditParts, by context and by model. Both are compared
+		 * by identity, so that equal models under different parents get their
+		 * own EditParts.
+		 */
+		private final Map prepared = new IdentityHashMap();
+		private List models;
+		private int ready;
+		private boolean attachPending;
+		private volatile boolean cancelled;
+		private boolean finished;
+
+		Load(AbstractEditPart contents, ConcurrentEditPartFactory factory,
+				Display display) {
+			super(GEFMessages.BackgroundContentsLoader_Label);
+			this.contents = contents;
+			this.factory = factory;
+			this.display = display;
+			setPriority(LONG);
+		}
+
+		public boolean belongsTo(Object family) {
+			return family == BackgroundContentsLoader.this;
+		}
+
+		protected void canceling() {
+			cancelled = true;
+			scheduleAttach();
+		}
+
+		/**
+		 * Hands out the prepared EditPart of the given model, if there is one.
+		 */
+		public EditPart createEditPart(EditPart context, Object model) {
+			EditPart part = null;
+			synchronized (prepared) {
+				Map parts = (Map) prepared.get(context);
+				if (parts != null)
+					part = (EditPart) parts.remove(model);
+			}
+			if (part != null)
+				return part;
+			return factory.createEditPart(context, model);
+		}
+
+		private void prepare(EditPart parent, Object model) {
+			if (cancelled || !factory.isThreadSafe(model))
+				return;
+			EditPart part = factory.createEditPart(parent, model);
+			if (part == null)
+				return;
+			if (part instanceof GraphicalEditPart)
+				((GraphicalEditPart) part).getFigure();
+			synchronized (prepared) {
+				Map parts = (Map) prepared.get(parent);
+				if (parts == null) {
+					parts = new IdentityHashMap();
+					prepared.put(parent, parts);
+				}
+				parts.put(model, part);
+			}
+			if (part instanceof AbstractEditPart) {
+				List children = ((AbstractEditPart) part).getModelChildren();
+				for (int i = 0; i < children.size(); i++)
+					prepare(part, children.get(i));
+			}
+		}
+
+		protected IStatus run(IProgressMonitor monitor) {
+			monitor.beginTask(getName(), models.size());
+			try {
+				for (int i = 0; i < models.size(); i++) {
+					if (cancelled || monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					try {
+						prepare(contents, models.get(i));
+					} catch (RuntimeException e) {
+						// the child is created on the UI thread instead, where
+						// the failure surfaces
+					}
+					synchronized (prepared) {
+						ready = i + 1;
+					}
+					scheduleAttach();
+					monitor.worked(1);
+				}
+			} finally {
+				monitor.done();
+			}
+			return Status.OK_STATUS;
+		}
+
+		/**
+		 * Attaches as many prepared children as fit into one time slice.
+		 */
+		public void run() {
+			int limit;
+			synchronized (prepared) {
+				attachPending = false;
+				limit = ready;
+			}
+			if (finished)
+				return;
+			if (cancelled || viewer.getContents() != contents) {
+				finish(false);
+				return;
+			}
+
+			List modelChildren = contents.getModelChildren();
+			limit = Math.min(limit, modelChildren.size());
+			long end = System.currentTimeMillis() + timeSlice;
+			while (contents.loadedChildren < limit) {
+				int index = contents.loadedChildren++;
+				Object model = modelChildren.get(index);
+				if (index == contents.getChildren().size()
+						&& viewer.getEditPartRegistry().get(model) == null)
+					contents.addChild(contents.createChild(model), index);
+				else
+					// the model children have changed since loading started
+					contents.refreshChildren();
+				if (System.currentTimeMillis() >= end)
+					break;
+			}
+
+			boolean allPrepared;
+			synchronized (prepared) {
+				allPrepared = ready == models.size();
+			}
+			if (contents.loadedChildren < limit)
+				scheduleAttach();
+			else if (allPrepared)
+				finish(true);
+		}
+
+		private void scheduleAttach() {
+			synchronized (prepared) {
+				if (attachPending)
+					return;
+				attachPending = true;
+			}
+			try {
+				display.asyncExec(this);
+			} catch (SWTException e) {
+				// the display has been disposed
+				cancelled = true;
+			}
+		}
+
+		void start() {
+			models = new ArrayList(contents.getModelChildren());
+			if (models.isEmpty())
+				finish(true);
+			else
+				schedule();
+		}
+
+		void stop() {
+			cancelled = true;
+			cancel();
+			finish(false);
+		}
+
+		/**
+		 * Restores the viewer's factory and stops limiting the children of
+		 * the contents. Called on the UI thread.
+		 */
+		private void finish(boolean complete) {
+			if (finished)
+				return;
+			finished = true;
+			cancelled = true;
+			if (viewer.getEditPartFactory() == this)
+				viewer.setEditPartFactory(factory);
+			synchronized (prepared) {
+				prepared.clear();
+			}
+			if (current == this)
+				current = null;
+			contents.loadedChildren = -1;
+			if (complete && viewer.getContents() == contents)
+				contents.refreshChildren();
+		}
+	}
+
+	private final EditPartViewer viewer;
+	private int timeSlice = 30;
+	private Load current;
+
+	/**
+	 * Creates a new loader for the given viewer.
+	 *
+	 * @param viewer
+	 *            the viewer
+	 */
+	public BackgroundContentsLoader(EditPartViewer viewer) {
+		this.viewer = viewer;
+	}
+
+	/**
+	 * Cancels the current load, if there is one. The children which have
+	 * already been attached remain in the viewer.
+	 */
+	public void cancel() {
+		if (current != null)
+			current.stop();
+	}
+
+	/**
+	 * Returns the maximum time in milliseconds for which the UI thread is
+	 * busy attaching one batch of children.
+	 *
+	 * @return the time slice
+	 */
+	public int getTimeSlice() {
+		return timeSlice;
+	}
+
+	/**
+	 * Returns whether contents are being loaded.
+	 *
+	 * @return <code>true</code> if contents are being loaded
+	 */
+	public boolean isLoading() {
+		return current != null;
+	}
+
+	/**
+	 * Sets the contents of the viewer to the EditPart created by the viewer's
+	 * factory for the given model, and loads its children in the background.
+	 * A load which is still in progress is cancelled first.
+	 *
+	 * @param contents
+	 *            the contents model
+	 * @see EditPartViewer#setContents(Object)
+	 */
+	public void load(Object contents) {
+		cancel();
+		EditPartFactory factory = viewer.getEditPartFactory();
+		Assert.isTrue(factory != null,
+				"An EditPartFactory is required to load contents");//$NON-NLS-1$
+		EditPart part = factory.createEditPart(null, contents);
+		Control control = viewer.getControl();
+		if (!(factory instanceof ConcurrentEditPartFactory)
+				|| !(part instanceof AbstractEditPart) || control == null) {
+			viewer.setContents(part);
+			return;
+		}
+
+		AbstractEditPart abstractPart = (AbstractEditPart) part;
+		abstractPart.loadedChildren = 0;
+		current = new Load(abstractPart, (ConcurrentEditPartFactory) factory,
+				control.getDisplay());
+		viewer.setEditPartFactory(current);
+		viewer.setContents(part);
+		current.start();
+	}
+
+	/**
+	 * Sets the maximum time in milliseconds for which the UI thread is busy
+	 * attaching one batch of children. At least one child is attached per
+	 * batch. The default is 30.
+	 *
+	 * @param timeSlice
+	 *            the time slice
+	 */
+	public void setTimeSlice(int timeSlice) {
+		this.timeSlice = timeSlice;
+	}
+
+}
@@ -35,6 +35,7 @@ import org.eclipse.gef.handles.AbstractHandle;
 import org.eclipse.gef.handles.HandleBounds;
 import org.eclipse.gef.handles.NonResizableHandleKit;
 import org.eclipse.gef.handles.ResizableHandleKit;
+import org.eclipse.gef.handles.SelectionOverlay;
 import org.eclipse.gef.requests.AlignmentRequest;
 import org.eclipse.gef.requests.ChangeBoundsRequest;
 import org.eclipse.gef.tools.DragEditPartsTracker;
@@ -90,6 +91,17 @@ public class NonResizableEditPolicy extends SelectionHandlesEditPolicy {
 		return list;
 	}
 
+	/**
+	 * Returns {@link SelectionOverlay#CORNERS}, matching the handles created by
+	 * {@link #createSelectionHandles()}.
+	 * 
+	 * @see SelectionHandlesEditPolicy#getSelectionOverlayStyle()
+	 * @since 3.10
+	 */
+	protected int getSelectionOverlayStyle() {
+		return SelectionOverlay.CORNERS;
+	}
+
 	/**
 	 * Creates a 'resize'/'drag' handle, which uses a
 	 * {@link DragEditPartsTracker} in case {@link #isDragAllowed()} returns
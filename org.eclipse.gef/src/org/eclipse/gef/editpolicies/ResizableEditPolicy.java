@@ -20,6 +20,7 @@ import org.eclipse.gef.GraphicalEditPart;
 import org.eclipse.gef.Request;
 import org.eclipse.gef.commands.Command;
 import org.eclipse.gef.handles.ResizableHandleKit;
+import org.eclipse.gef.handles.SelectionOverlay;
 import org.eclipse.gef.requests.ChangeBoundsRequest;
 import org.eclipse.gef.tools.ResizeTracker;
 
@@ -50,6 +51,19 @@ public class ResizableEditPolicy extends NonResizableEditPolicy {
 	public ResizableEditPolicy() {
 	}
 
+	/**
+	 * Returns {@link SelectionOverlay#SIDES} in addition to the corners,
+	 * unless the host is not resizable in any direction.
+	 * 
+	 * @see SelectionHandlesEditPolicy#getSelectionOverlayStyle()
+	 * @since 3.10
+	 */
+	protected int getSelectionOverlayStyle() {
+		if (resizeDirections == PositionConstants.NONE)
+			return super.getSelectionOverlayStyle();
+		return SelectionOverlay.CORNERS | SelectionOverlay.SIDES;
+	}
+
 	/**
 	 * @see org.eclipse.gef.editpolicies.SelectionHandlesEditPolicy#createSelectionHandles()
 	 */
@@ -19,8 +19,10 @@ import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.geometry.Point;
 
 import org.eclipse.gef.AccessibleHandleProvider;
+import org.eclipse.gef.EditPart;
 import org.eclipse.gef.Handle;
 import org.eclipse.gef.LayerConstants;
+import org.eclipse.gef.handles.SelectionOverlay;
 
 /**
  * A SelectionEditPolicy which manages a List of handles provided by the
@@ -32,6 +34,12 @@ import org.eclipse.gef.LayerConstants;
  * {@link org.eclipse.core.runtime.IAdaptable} for accessibility support. If any
  * of the managed Handles provide accesible locations, then a
  * {@link org.eclipse.gef.AccessibleHandleProvider} is automatically created.
+ * <P>
+ * If the viewer's {@link SelectionOverlay#PROPERTY_ENABLED} property is set,
+ * and {@link #getSelectionOverlayStyle()} is not <code>0</code>, the handles
+ * of a secondary selection are painted by the {@link SelectionOverlay} of the
+ * HANDLE layer. The handles are only created for the primary selection, or
+ * while the mouse is over the handles painted by the overlay.
  * 
  * @since 2.0
  */
@@ -43,12 +51,48 @@ public abstract class SelectionHandlesEditPolicy extends SelectionEditPolicy
 	 */
 	protected List handles;
 
+	private class OverlayClient implements SelectionOverlay.Client {
+		public IFigure getReferenceFigure() {
+			return getHostFigure();
+		}
+
+		public int getHandleStyle() {
+			return getSelectionOverlayStyle();
+		}
+
+		public void hideHandles() {
+			handlesShown = false;
+			if (handles != null && isSelectionOverlayUsed())
+				addSelectionHandles();
+		}
+
+		public void showHandles() {
+			handlesShown = true;
+			addSelectionHandles();
+		}
+	}
+
+	private SelectionOverlay overlay;
+	private SelectionOverlay.Client overlayClient;
+	private boolean handlesShown;
+
 	/**
-	 * Adds the handles to the handle layer.
+	 * Adds the handles to the handle layer, or the host to the selection
+	 * overlay of the handle layer.
 	 */
 	protected void addSelectionHandles() {
 		removeSelectionHandles();
 		IFigure layer = getLayer(LayerConstants.HANDLE_LAYER);
+		if (isSelectionOverlayUsed()) {
+			overlay = SelectionOverlay.getOverlay(layer);
+			if (!handlesShown) {
+				if (overlayClient == null)
+					overlayClient = new OverlayClient();
+				overlay.add(overlayClient);
+				return;
+			}
+		} else
+			handlesShown = false;
 		handles = createSelectionHandles();
 		for (int i = 0; i < handles.size(); i++)
 			layer.add((IFigure) handles.get(i));
@@ -83,19 +127,47 @@ public abstract class SelectionHandlesEditPolicy extends SelectionEditPolicy
 		return null;
 	}
 
+	/**
+	 * Returns which of the handles created by {@link #createSelectionHandles()}
+	 * the {@link SelectionOverlay} paints for a secondary selection, a
+	 * combination of {@link SelectionOverlay#CORNERS} and
+	 * {@link SelectionOverlay#SIDES}, or <code>0</code> if the handles can not
+	 * be painted by the overlay. Subclasses which create handles looking
+	 * different from the standard move and square handles should return
+	 * <code>0</code>. The default is <code>0</code>.
+	 * 
+	 * @return the handle style, or <code>0</code>
+	 * @since 3.10
+	 */
+	protected int getSelectionOverlayStyle() {
+		return 0;
+	}
+
 	/**
 	 * Implemented to remove the handles.
 	 * 
 	 * @see org.eclipse.gef.editpolicies.SelectionEditPolicy#hideSelection()
 	 */
 	protected void hideSelection() {
+		handlesShown = false;
 		removeSelectionHandles();
 	}
 
+	private boolean isSelectionOverlayUsed() {
+		return getHost().getSelected() == EditPart.SELECTED
+				&& getSelectionOverlayStyle() != 0
+				&& Boolean.TRUE.equals(getHost().getViewer().getProperty(
+						SelectionOverlay.PROPERTY_ENABLED));
+	}
+
 	/**
 	 * removes the selection handles from the selection layer.
 	 */
 	protected void removeSelectionHandles() {
+		if (overlay != null) {
+			overlay.remove(overlayClient);
+			overlay = null;
+		}
 		if (handles == null)
 			return;
 		IFigure layer = getLayer(LayerConstants.HANDLE_LAYER);
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.export;
+
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.export.FigureExporter;
+
+import org.eclipse.gef.GraphicalViewer;
+import org.eclipse.gef.LayerConstants;
+import org.eclipse.gef.editparts.LayerManager;
+
+/**
+ * Exports the printable layers of a {@link GraphicalViewer} to PNG or SVG.
+ * Selection handles and feedback are not part of the printable layers and are
+ * therefore not exported.
+ * 
+ * @since 3.10
+ */
+public class GraphicalViewerExporter extends FigureExporter {
+
+	private final GraphicalViewer viewer;
+
+	/**
+	 * Creates an exporter for the given viewer. NOTE: The GraphicalViewer to
+	 * be exported must have a {@link org.eclipse.draw2d.Layer Layer} with the
+	 * {@link LayerConstants#PRINTABLE_LAYERS} key.
+	 * 
+	 * @param viewer
+	 *            the viewer to export
+	 */
+	public GraphicalViewerExporter(GraphicalViewer viewer) {
+		super(getPrintableLayers(viewer));
+		this.viewer = viewer;
+	}
+
+	private static IFigure getPrintableLayers(GraphicalViewer viewer) {
+		LayerManager lm = (LayerManager) viewer.getEditPartRegistry().get(
+				LayerManager.ID);
+		return lm.getLayer(LayerConstants.PRINTABLE_LAYERS);
+	}
+
+	/**
+	 * Returns the viewer.
+	 * 
+	 * @return the exported viewer
+	 */
+	public GraphicalViewer getViewer() {
+		return viewer;
+	}
+
+}
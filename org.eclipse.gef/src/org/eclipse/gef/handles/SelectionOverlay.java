@@ -0,0 +1,420 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.handles;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.AncestorListener;
+import org.eclipse.draw2d.ColorConstants;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.MouseEvent;
+import org.eclipse.draw2d.MouseMotionListener;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PrecisionRectangle;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import org.eclipse.gef.DragTracker;
+import org.eclipse.gef.Handle;
+
+/**
+ * A single figure on the handle layer which paints the selection handles of
+ * many secondary selected EditParts, instead of one handle figure per handle.
+ * It paints the same move frame and square handles as {@link MoveHandle} and
+ * {@link SquareHandle}. The handle bounds of its {@link Client clients} are
+ * kept in a compact array, and hit-tested by index.
+ * <P>
+ * When the mouse rests on the handles of a client, or a drag tracker is
+ * requested for them, the client is asked to {@link Client#showHandles() show}
+ * interactive handle figures instead. The client whose handles were shown
+ * before is asked to {@link Client#hideHandles() hide} them again, so that
+ * there are interactive handles for at most one secondary selection.
+ * <P>
+ * The overlay is used by the
+ * {@link org.eclipse.gef.editpolicies.SelectionHandlesEditPolicy} of a viewer
+ * whose {@link #PROPERTY_ENABLED} property is set to {@link Boolean#TRUE}.
+ *
+ * @since 3.10
+ */
+public class SelectionOverlay extends Figure implements Handle {
+
+	/**
+	 * Viewer property which enables the selection overlay for the secondary
+	 * selection when set to {@link Boolean#TRUE}.
+	 */
+	public static final String PROPERTY_ENABLED = "SelectionOverlay.enabled"; //$NON-NLS-1$
+
+	/**
+	 * Style of a client which has handles at the corners of its bounds.
+	 */
+	public static final int CORNERS = 1;
+
+	/**
+	 * Style of a client which has handles at the middle of the sides of its
+	 * bounds.
+	 */
+	public static final int SIDES = 2;
+
+	private static final int SIZE = SquareHandle.DEFAULT_HANDLE_SIZE;
+	private static final int PAD = SIZE / 2 + 1;
+
+	/**
+	 * The relative positions of the corner handles, followed by those of the
+	 * side handles, as in {@link RelativeHandleLocator}.
+	 */
+	private static final double[] POSITIONS = { 0, 0, 1, 0, 1, 1, 0, 1, 0.5,
+			0, 1, 0.5, 0.5, 1, 0, 0.5 };
+
+	/**
+	 * A selected EditPart whose selection handles are painted by an overlay.
+	 */
+	public interface Client {
+
+		/**
+		 * Returns the figure whose handle bounds are surrounded by the
+		 * handles.
+		 *
+		 * @return the reference figure
+		 */
+		IFigure getReferenceFigure();
+
+		/**
+		 * Returns which handles are painted, {@link #CORNERS} or
+		 * <code>CORNERS | {@link #SIDES}</code>.
+		 *
+		 * @return the handle style
+		 */
+		int getHandleStyle();
+
+		/**
+		 * Called when the handles of this client are hovered. The client
+		 * should remove itself from the overlay and add interactive handle
+		 * figures to the handle layer.
+		 */
+		void showHandles();
+
+		/**
+		 * Called when the handles of another client are shown. The client
+		 * should remove its interactive handle figures and return to the
+		 * overlay, unless it no longer is a secondary selection.
+		 */
+		void hideHandles();
+
+	}
+
+	private class Entry implements AncestorListener {
+		final Client client;
+		final int style;
+		int index;
+		boolean dirty = true;
+
+		Entry(Client client) {
+			this.client = client;
+			style = client.getHandleStyle();
+		}
+
+		public void ancestorAdded(IFigure ancestor) {
+		}
+
+		public void ancestorMoved(IFigure ancestor) {
+			dirty = true;
+			revalidate();
+		}
+
+		public void ancestorRemoved(IFigure ancestor) {
+		}
+	}
+
+	private final Map clients = new IdentityHashMap();
+	private Entry[] entries = new Entry[16];
+	private int[] bounds = new int[64];
+	private int size;
+	private boolean removed;
+	private Entry hit;
+	private int hitX, hitY;
+	private Client shown;
+
+	/**
+	 * Creates a new, empty overlay. Use {@link #getOverlay(IFigure)} to share
+	 * one overlay per handle layer.
+	 */
+	public SelectionOverlay() {
+		addMouseMotionListener(new MouseMotionListener.Stub() {
+			public void mouseMoved(MouseEvent me) {
+				if (findEntry(me.x, me.y) != null)
+					showHandles(hit);
+			}
+		});
+	}
+
+	/**
+	 * Returns the overlay of the given handle layer, creating and adding it
+	 * below all handles if there is none yet.
+	 *
+	 * @param layer
+	 *            the handle layer
+	 * @return the overlay of the layer
+	 */
+	public static SelectionOverlay getOverlay(IFigure layer) {
+		List children = layer.getChildren();
+		for (int i = 0; i < children.size(); i++)
+			if (children.get(i) instanceof SelectionOverlay)
+				return (SelectionOverlay) children.get(i);
+		SelectionOverlay overlay = new SelectionOverlay();
+		layer.add(overlay, 0);
+		return overlay;
+	}
+
+	/**
+	 * Paints the handles of the given client until it is removed.
+	 *
+	 * @param client
+	 *            the client
+	 */
+	public void add(Client client) {
+		if (clients.containsKey(client))
+			return;
+		Entry entry = new Entry(client);
+		if (size == entries.length) {
+			Entry[] newEntries = new Entry[size * 2];
+			System.arraycopy(entries, 0, newEntries, 0, size);
+			entries = newEntries;
+			int[] newBounds = new int[size * 8];
+			System.arraycopy(bounds, 0, newBounds, 0, size * 4);
+			bounds = newBounds;
+		}
+		entry.index = size;
+		entries[size++] = entry;
+		clients.put(client, entry);
+		client.getReferenceFigure().addAncestorListener(entry);
+		revalidate();
+	}
+
+	private Entry findEntry(int x, int y) {
+		hit = null;
+		if (!getBounds().contains(x, y))
+			return null;
+		for (int i = size - 1; i >= 0; i--) {
+			if (hitTest(i, x, y)) {
+				hit = entries[i];
+				hitX = x;
+				hitY = y;
+				break;
+			}
+		}
+		return hit;
+	}
+
+	/**
+	 * Returns <code>true</code> if the point is on the handles of one of the
+	 * clients.
+	 *
+	 * @see org.eclipse.draw2d.Figure#containsPoint(int, int)
+	 */
+	public boolean containsPoint(int x, int y) {
+		return findEntry(x, y) != null;
+	}
+
+	/**
+	 * Returns <code>null</code>, the handles painted by the overlay are not
+	 * accessible. The interactive handles of the clients are.
+	 *
+	 * @see org.eclipse.gef.Handle#getAccessibleLocation()
+	 */
+	public Point getAccessibleLocation() {
+		return null;
+	}
+
+	/**
+	 * Shows the interactive handles of the client which was hit last, and
+	 * returns the drag tracker of the interactive handle at the hit location.
+	 *
+	 * @see org.eclipse.gef.Handle#getDragTracker()
+	 */
+	public DragTracker getDragTracker() {
+		if (hit == null || getParent() == null)
+			return null;
+		int x = hitX, y = hitY;
+		IFigure layer = getParent();
+		showHandles(hit);
+		layer.validate();
+		List children = layer.getChildren();
+		for (int i = children.size() - 1; i >= 0; i--) {
+			IFigure child = (IFigure) children.get(i);
+			if (child != this && child instanceof Handle
+					&& child.containsPoint(x, y))
+				return ((Handle) child).getDragTracker();
+		}
+		return null;
+	}
+
+	private boolean hitTest(int index, int x, int y) {
+		int bx = bounds[index * 4], by = bounds[index * 4 + 1];
+		int bw = bounds[index * 4 + 2], bh = bounds[index * 4 + 3];
+		if (x < bx - PAD || y < by - PAD || x >= bx + bw + PAD
+				|| y >= by + bh + PAD)
+			return false;
+		// the frame of the move handle, whose bounds are one pixel larger
+		if (x >= bx - 1 && y >= by - 1 && x < bx + bw + 1 && y < by + bh + 1) {
+			int inset = MoveHandle.INNER_PAD - 1;
+			if (x < bx + inset || y < by + inset || x >= bx + bw - inset
+					|| y >= by + bh - inset)
+				return true;
+		}
+		int style = entries[index].style;
+		for (int i = (style & CORNERS) != 0 ? 0 : 8; i < 16; i += 2) {
+			if (i == 8 && (style & SIDES) == 0)
+				break;
+			int hx = handleLocation(bx, bw, POSITIONS[i]);
+			int hy = handleLocation(by, bh, POSITIONS[i + 1]);
+			if (x >= hx && y >= hy && x < hx + SIZE && y < hy + SIZE)
+				return true;
+		}
+		return false;
+	}
+
+	private static int handleLocation(int x, int width, double position) {
+		return x + (int) (width * position - (SIZE + 1) / 2);
+	}
+
+	/**
+	 * Relocates the handles of the clients whose figures have moved, and
+	 * updates the bounds of the overlay if clients have moved or been removed.
+	 *
+	 * @see org.eclipse.draw2d.Figure#layout()
+	 */
+	protected void layout() {
+		boolean moved = removed;
+		removed = false;
+		PrecisionRectangle r = new PrecisionRectangle();
+		for (int i = 0; i < size; i++) {
+			Entry entry = entries[i];
+			if (!entry.dirty)
+				continue;
+			entry.dirty = false;
+			moved = true;
+			repaintEntry(i);
+			IFigure reference = entry.client.getReferenceFigure();
+			Rectangle handleBounds = reference instanceof HandleBounds ? ((HandleBounds) reference)
+					.getHandleBounds() : reference.getBounds();
+			r.setBounds(handleBounds);
+			r.resize(-1, -1);
+			reference.translateToAbsolute(r);
+			translateToRelative(r);
+			r.resize(1, 1);
+			bounds[i * 4] = r.x;
+			bounds[i * 4 + 1] = r.y;
+			bounds[i * 4 + 2] = r.width;
+			bounds[i * 4 + 3] = r.height;
+			repaintEntry(i);
+		}
+		if (moved)
+			updateBounds();
+	}
+
+	/**
+	 * Paints the move frames and square handles of the clients which
+	 * intersect the clip.
+	 *
+	 * @see org.eclipse.draw2d.Figure#paintFigure(Graphics)
+	 */
+	protected void paintFigure(Graphics graphics) {
+		Rectangle clip = graphics.getClip(new Rectangle());
+		for (int i = 0; i < size; i++) {
+			int bx = bounds[i * 4], by = bounds[i * 4 + 1];
+			int bw = bounds[i * 4 + 2], bh = bounds[i * 4 + 3];
+			if (bx - PAD >= clip.right() || by - PAD >= clip.bottom()
+					|| bx + bw + PAD <= clip.x || by + bh + PAD <= clip.y)
+				continue;
+			graphics.setForegroundColor(ColorConstants.black);
+			graphics.drawRectangle(bx - 1, by - 1, bw + 1, bh + 1);
+			int style = entries[i].style;
+			for (int j = (style & CORNERS) != 0 ? 0 : 8; j < 16; j += 2) {
+				if (j == 8 && (style & SIDES) == 0)
+					break;
+				int hx = handleLocation(bx, bw, POSITIONS[j]);
+				int hy = handleLocation(by, bh, POSITIONS[j + 1]);
+				graphics.setBackgroundColor(ColorConstants.white);
+				graphics.fillRectangle(hx + 1, hy + 1, SIZE - 2, SIZE - 2);
+				graphics.setForegroundColor(ColorConstants.black);
+				graphics.drawRectangle(hx + 1, hy + 1, SIZE - 2, SIZE - 2);
+			}
+		}
+	}
+
+	/**
+	 * Stops painting the handles of the given client. The bounds of the
+	 * overlay are updated during the next validation, so that removing many
+	 * clients at once does not compute them each time.
+	 *
+	 * @param client
+	 *            the client
+	 */
+	public void remove(Client client) {
+		if (shown == client)
+			shown = null;
+		Entry entry = (Entry) clients.remove(client);
+		if (entry == null)
+			return;
+		client.getReferenceFigure().removeAncestorListener(entry);
+		if (hit == entry)
+			hit = null;
+		int index = entry.index;
+		repaintEntry(index);
+		Entry last = entries[--size];
+		if (last != entry) {
+			entries[index] = last;
+			last.index = index;
+			System.arraycopy(bounds, size * 4, bounds, index * 4, 4);
+		}
+		entries[size] = null;
+		removed = true;
+		revalidate();
+	}
+
+	private void repaintEntry(int index) {
+		repaint(bounds[index * 4] - PAD, bounds[index * 4 + 1] - PAD,
+				bounds[index * 4 + 2] + PAD * 2, bounds[index * 4 + 3] + PAD
+						* 2);
+	}
+
+	private void showHandles(Entry entry) {
+		Client previous = shown;
+		shown = null;
+		if (previous != null && previous != entry.client)
+			previous.hideHandles();
+		entry.client.showHandles();
+		shown = entry.client;
+	}
+
+	private void updateBounds() {
+		if (size == 0) {
+			setBounds(new Rectangle());
+			return;
+		}
+		int x1 = Integer.MAX_VALUE, y1 = Integer.MAX_VALUE;
+		int x2 = Integer.MIN_VALUE, y2 = Integer.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			x1 = Math.min(x1, bounds[i * 4]);
+			y1 = Math.min(y1, bounds[i * 4 + 1]);
+			x2 = Math.max(x2, bounds[i * 4] + bounds[i * 4 + 2]);
+			y2 = Math.max(y2, bounds[i * 4 + 1] + bounds[i * 4 + 3]);
+		}
+		Rectangle r = new Rectangle(x1, y1, x2 - x1, y2 - y1).expand(PAD,
+				PAD);
+		if (!r.equals(getBounds()))
+			setBounds(r);
+	}
+
+}
@@ -33,6 +33,8 @@ public class GEFMessages extends NLS {
 	public static String AlignTopAction_Label;
 	public static String AlignTopAction_Tooltip;
 
+	public static String BackgroundContentsLoader_Label;
+
 	public static String CopyAction_ActionDeleteCommandName;
 	public static String CopyAction_Label;
 	public static String CopyAction_Tooltip;
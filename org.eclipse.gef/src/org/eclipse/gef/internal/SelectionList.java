@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.internal;
+
+import java.util.ArrayList;
+
+/**
+ * The list of selected EditParts of a viewer. It counts its modifications, so
+ * that the SelectionManager can tell whether the list was changed by someone
+ * else, even if its size stayed the same.
+ */
+public class SelectionList extends ArrayList {
+
+	private static final long serialVersionUID = 1;
+
+	/**
+	 * Returns the number of modifications of this list. Replacing an element
+	 * counts as a modification.
+	 * 
+	 * @return the modification count
+	 */
+	public int getModificationCount() {
+		return modCount;
+	}
+
+	/**
+	 * @see java.util.List#set(int, Object)
+	 */
+	public Object set(int index, Object element) {
+		modCount++;
+		return super.set(index, element);
+	}
+
+}
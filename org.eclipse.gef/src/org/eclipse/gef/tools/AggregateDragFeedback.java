@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.gef.tools;
+
+import java.util.List;
+
+import org.eclipse.draw2d.ColorConstants;
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FigureUtilities;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.RectangleFigure;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PrecisionPoint;
+import org.eclipse.draw2d.geometry.PrecisionRectangle;
+import org.eclipse.draw2d.geometry.Rectangle;
+
+import org.eclipse.gef.GraphicalEditPart;
+import org.eclipse.gef.handles.HandleBounds;
+
+/**
+ * Drag feedback for a whole operation set in a single figure. The feedback
+ * bounds of the parts are captured once, relative to the figure, and painted
+ * as the same ghost rectangles that
+ * {@link org.eclipse.gef.editpolicies.NonResizableEditPolicy} uses. Moving the
+ * feedback just moves the figure.
+ */
+class AggregateDragFeedback extends Figure {
+
+	private final int[] rects;
+	private final int count;
+	private final PrecisionPoint origin;
+	private final RectangleFigure ghost = new RectangleFigure();
+
+	/**
+	 * Captures the feedback bounds of the given edit parts, and adds the
+	 * feedback to the given layer.
+	 */
+	AggregateDragFeedback(List editparts, IFigure layer) {
+		rects = new int[editparts.size() * 4];
+		Rectangle union = null;
+		PrecisionRectangle r = new PrecisionRectangle();
+		int n = 0;
+		for (int i = 0; i < editparts.size(); i++) {
+			if (!(editparts.get(i) instanceof GraphicalEditPart))
+				continue;
+			IFigure figure = ((GraphicalEditPart) editparts.get(i))
+					.getFigure();
+			r.setBounds(figure instanceof HandleBounds ? ((HandleBounds) figure)
+					.getHandleBounds() : figure.getBounds());
+			figure.translateToAbsolute(r);
+			rects[n++] = r.x;
+			rects[n++] = r.y;
+			rects[n++] = r.width;
+			rects[n++] = r.height;
+			if (union == null)
+				union = new Rectangle(r.x, r.y, r.width, r.height);
+			else
+				union.union(r.x, r.y, r.width, r.height);
+		}
+		count = n / 4;
+		if (union == null)
+			union = new Rectangle();
+		for (int i = 0; i < n; i += 4) {
+			rects[i] -= union.x;
+			rects[i + 1] -= union.y;
+		}
+		origin = new PrecisionPoint(union.getLocation());
+
+		FigureUtilities.makeGhostShape(ghost);
+		ghost.setLineStyle(Graphics.LINE_DOT);
+		ghost.setForegroundColor(ColorConstants.white);
+		setSize(union.width, union.height);
+		layer.add(this);
+		moveBy(new Point());
+	}
+
+	/**
+	 * Moves the feedback by the given delta, in absolute coordinates.
+	 */
+	void moveBy(Point moveDelta) {
+		PrecisionPoint location = new PrecisionPoint(origin);
+		location.translate(moveDelta);
+		translateToRelative(location);
+		setLocation(location);
+	}
+
+	/**
+	 * Paints a ghost rectangle for each part which intersects the clip.
+	 *
+	 * @see org.eclipse.draw2d.Figure#paintFigure(Graphics)
+	 */
+	protected void paintFigure(Graphics graphics) {
+		Rectangle clip = graphics.getClip(new Rectangle());
+		Rectangle r = new Rectangle();
+		int x = getBounds().x, y = getBounds().y;
+		for (int i = 0; i < count * 4; i += 4) {
+			r.setBounds(x + rects[i], y + rects[i + 1], rects[i + 2],
+					rects[i + 3]);
+			if (!r.intersects(clip))
+				continue;
+			ghost.setBounds(r);
+			ghost.paint(graphics);
+		}
+	}
+
+	/**
+	 * Removes the feedback from its layer.
+	 */
+	void remove() {
+		if (getParent() != null)
+			getParent().remove(this);
+	}
+
+}
@@ -67,6 +67,18 @@ public class DragEditPartsTracker extends SelectEditPartTracker {
 	 */
 	static final int MODIFIER_CONSTRAINED_MOVE = SWT.SHIFT;
 
+	/**
+	 * Viewer property for the minimum number of parts in the operation set for
+	 * which the drag feedback is aggregated. The value is an {@link Integer}.
+	 * When the operation set has at least this many parts, the parts are not
+	 * asked to show source feedback; the tracker paints the outlines of all
+	 * parts from a single figure on the feedback layer instead. If the property
+	 * is not set, every part shows its own feedback.
+	 *
+	 * @since 3.10
+	 */
+	public static final String PROPERTY_AGGREGATE_FEEDBACK_THRESHOLD = "DragEditPartsTracker.aggregateFeedbackThreshold"; //$NON-NLS-1$
+
 	private static final int FLAG_SOURCE_FEEDBACK = SelectEditPartTracker.MAX_FLAG << 1;
 	/** Max flag */
 	protected static final int MAX_FLAG = FLAG_SOURCE_FEEDBACK;
@@ -75,6 +87,7 @@ public class DragEditPartsTracker extends SelectEditPartTracker {
 	private SnapToHelper snapToHelper;
 	private PrecisionRectangle sourceRectangle, compoundSrcRect;
 	private boolean cloneActive;
+	private AggregateDragFeedback aggregateFeedback;
 
 	/**
 	 * Constructs a new DragEditPartsTracker with the given source edit part.
@@ -233,6 +246,11 @@ public class DragEditPartsTracker extends SelectEditPartTracker {
 		if (!getFlag(FLAG_SOURCE_FEEDBACK))
 			return;
 		setFlag(FLAG_SOURCE_FEEDBACK, false);
+		if (aggregateFeedback != null) {
+			aggregateFeedback.remove();
+			aggregateFeedback = null;
+			return;
+		}
 		List editParts = getOperationSet();
 		for (int i = 0; i < editParts.size(); i++) {
 			EditPart editPart = (EditPart) editParts.get(i);
@@ -561,11 +579,44 @@ public class DragEditPartsTracker extends SelectEditPartTracker {
 					SnapToHelper.class);
 	}
 
+	/**
+	 * Returns whether the drag feedback is aggregated, because the
+	 * {@link AbstractTool#getOperationSet() operation set} has at least as
+	 * many parts as the viewer's
+	 * {@link #PROPERTY_AGGREGATE_FEEDBACK_THRESHOLD threshold}.
+	 *
+	 * @return <code>true</code> if the feedback is aggregated
+	 * @since 3.10
+	 */
+	protected boolean isFeedbackAggregated() {
+		Object threshold = getCurrentViewer().getProperty(
+				PROPERTY_AGGREGATE_FEEDBACK_THRESHOLD);
+		return threshold instanceof Integer
+				&& getOperationSet().size() >= ((Integer) threshold)
+						.intValue();
+	}
+
 	/**
 	 * Asks the edit parts in the {@link AbstractTool#getOperationSet()
-	 * operation set} to show source feedback.
+	 * operation set} to show source feedback. If the feedback is
+	 * {@link #isFeedbackAggregated() aggregated}, the outlines of all parts are
+	 * shown by the tracker instead.
 	 */
 	protected void showSourceFeedback() {
+		if (aggregateFeedback == null && isFeedbackAggregated()) {
+			LayerManager layerManager = (LayerManager) getCurrentViewer()
+					.getEditPartRegistry().get(LayerManager.ID);
+			if (layerManager != null)
+				aggregateFeedback = new AggregateDragFeedback(
+						getOperationSet(),
+						layerManager.getLayer(LayerConstants.FEEDBACK_LAYER));
+		}
+		if (aggregateFeedback != null) {
+			aggregateFeedback.moveBy(((ChangeBoundsRequest) getTargetRequest())
+					.getMoveDelta());
+			setFlag(FLAG_SOURCE_FEEDBACK, true);
+			return;
+		}
 		List editParts = getOperationSet();
 		for (int i = 0; i < editParts.size(); i++) {
 			EditPart editPart = (EditPart) editParts.get(i);
@@ -51,6 +51,7 @@ import org.eclipse.gef.EditPartViewer;
 import org.eclipse.gef.KeyHandler;
 import org.eclipse.gef.RootEditPart;
 import org.eclipse.gef.SelectionManager;
+import org.eclipse.gef.internal.SelectionList;
 
 /**
  * The base implementation for EditPartViewer.
@@ -66,7 +67,7 @@ public abstract class AbstractEditPartViewer implements EditPartViewer {
 	/**
 	 * The raw list of selected editparts.
 	 */
-	protected final List selection = new ArrayList();
+	protected final List selection = new SelectionList();
 
 	/**
 	 * The unmodifiable list of selected editparts.
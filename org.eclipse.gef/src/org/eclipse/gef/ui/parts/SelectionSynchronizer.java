@@ -22,6 +22,7 @@ import org.eclipse.jface.viewers.StructuredSelection;
 
 import org.eclipse.gef.EditPart;
 import org.eclipse.gef.EditPartViewer;
+import org.eclipse.gef.editparts.AbstractTreeEditPart;
 
 /**
  * A utility for synchronizing the selection of multiple EditPartViewers. This
@@ -30,6 +31,10 @@ import org.eclipse.gef.EditPartViewer;
  * performed by matching the models of the selected EditParts from one viewer to
  * the EditParts with the same models in another. It can be customized by
  * overriding the {@link #convert(EditPartViewer, EditPart)} method.
+ * <P>
+ * If a viewer creates some of its EditParts lazily, like a virtual
+ * {@link TreeViewer}, the EditPart for a model which has not been shown yet is
+ * created on demand through the parent of the corresponding EditPart.
  * 
  * @author hudsonr
  */
@@ -53,7 +58,9 @@ public class SelectionSynchronizer implements ISelectionChangedListener {
 
 	/**
 	 * Maps the given editpart from one viewer to an editpart in another viewer.
-	 * It returns <code>null</code> if there is no corresponding part. This
+	 * It returns <code>null</code> if there is no corresponding part. If the
+	 * parent of the part maps to an {@link AbstractTreeEditPart} which creates
+	 * its children lazily, the child for the part's model is created. This
 	 * method can be overridden to provide custom mapping.
 	 * 
 	 * @param viewer
@@ -67,6 +74,11 @@ public class SelectionSynchronizer implements ISelectionChangedListener {
 		EditPart newPart = null;
 		if (temp != null) {
 			newPart = (EditPart) temp;
+		} else if (part.getParent() != null) {
+			EditPart parent = convert(viewer, part.getParent());
+			if (parent instanceof AbstractTreeEditPart)
+				newPart = ((AbstractTreeEditPart) parent).realizeChild(part
+						.getModel());
 		}
 		return newPart;
 	}
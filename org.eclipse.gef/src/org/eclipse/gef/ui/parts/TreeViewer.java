@@ -44,12 +44,18 @@ import org.eclipse.gef.editparts.RootTreeEditPart;
 /**
  * An EditPartViewer implementation based on a
  * {@link org.eclipse.swt.widgets.Tree}.
+ * <P>
+ * If the viewer is {@link #setVirtual(boolean) virtual}, the tree is created
+ * with the {@link SWT#VIRTUAL} style, and the tree EditParts are only created
+ * for the rows which are shown. See
+ * {@link org.eclipse.gef.editparts.AbstractTreeEditPart}.
  * 
  * @author hudsonr
  */
 public class TreeViewer extends AbstractEditPartViewer {
 
 	private boolean ignore = false;
+	private boolean virtual = false;
 
 	class EventDispatcher implements MouseListener, MouseMoveListener,
 			KeyListener, MouseTrackListener, FocusListener {
@@ -119,14 +125,18 @@ public class TreeViewer extends AbstractEditPartViewer {
 
 	/**
 	 * Creates the default tree and sets it as the control. The default styles
-	 * will show scrollbars as needed, and allows for multiple selection.
+	 * will show scrollbars as needed, and allows for multiple selection. If the
+	 * viewer is virtual, the tree is a {@link SWT#VIRTUAL virtual} tree.
 	 * 
 	 * @param parent
 	 *            The parent for the Tree
 	 * @return the control
 	 */
 	public Control createControl(Composite parent) {
-		Tree tree = new Tree(parent, SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL);
+		int style = SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL;
+		if (virtual)
+			style |= SWT.VIRTUAL;
+		Tree tree = new Tree(parent, style);
 		setControl(tree);
 		return tree;
 	}
@@ -150,7 +160,7 @@ public class TreeViewer extends AbstractEditPartViewer {
 		TreeItem tie = tree.getItem(new org.eclipse.swt.graphics.Point(pt.x,
 				pt.y));
 
-		if (tie != null) {
+		if (tie != null && tie.getData() != null) {
 			result = (EditPart) tie.getData();
 		} else {
 			result = (EditPart) tree.getData();
@@ -189,9 +199,12 @@ public class TreeViewer extends AbstractEditPartViewer {
 		tree.addSelectionListener(new SelectionListener() {
 			public void widgetSelected(SelectionEvent e) {
 				TreeItem[] ties = tree.getSelection();
-				Object newSelection[] = new Object[ties.length];
-				for (int i = 0; i < ties.length; i++)
-					newSelection[i] = ties[i].getData();
+				List newSelection = new ArrayList(ties.length);
+				for (int i = 0; i < ties.length; i++) {
+					// the rows of a virtual tree may not have an EditPart yet
+					if (ties[i].getData() != null)
+						newSelection.add(ties[i].getData());
+				}
 				ignore = true;
 				setSelection(new StructuredSelection(newSelection));
 				ignore = false;
@@ -219,6 +232,21 @@ public class TreeViewer extends AbstractEditPartViewer {
 			tree.showItem((TreeItem) widget);
 	}
 
+	/**
+	 * Sets whether the tree created by {@link #createControl(Composite)} is a
+	 * {@link SWT#VIRTUAL virtual} tree, whose EditParts are only created for
+	 * the rows which are shown. This must be called before the control is
+	 * created, and the contents should be set after the control is created.
+	 * The default is <code>false</code>.
+	 * 
+	 * @param value
+	 *            <code>true</code> if the tree should be virtual
+	 * @since 3.10
+	 */
+	public void setVirtual(boolean value) {
+		virtual = value;
+	}
+
 	private void showSelectionInTree() {
 		if (ignore || getControl() == null || getControl().isDisposed())
 			return;
@@ -405,6 +405,20 @@ public class Graph extends FigureCanvas implements IContainer {
 		}
 	}
 
+	/**
+	 * Applies the layout of this graph and the layouts of all of its
+	 * containers, nested at any depth. The layouts are computed concurrently,
+	 * each by its algorithm on a worker thread, and the new positions are
+	 * applied together in one animation. Containers which share a layout
+	 * algorithm are laid out one after the other. This method returns before
+	 * the layouts have been applied. If a layout which runs on the UI thread
+	 * throws a runtime exception, its nodes stay in place and the exception is
+	 * rethrown once the other layouts have been applied.
+	 */
+	public void applyNestedLayout() {
+		new NestedLayoutScheduler(this).start();
+	}
+
 	/**
 	 * Sets the preferred size of the layout area. Size of ( -1, -1) uses the
 	 * current canvas size.
@@ -1099,9 +1113,38 @@ public class Graph extends FigureCanvas implements IContainer {
 	private void applyLayoutInternal() {
 		hasPendingLayoutRequest = false;
 
-		if ((this.getNodes().size() == 0)) {
+		Dimension d = prepareLayout();
+		if (d == null) {
 			return;
 		}
+		LayoutRelationship[] connectionsToLayout = getConnectionsToLayout(nodes);
+		LayoutEntity[] nodesToLayout = getNodesToLayout(getNodes());
+
+		try {
+			if ((nodeStyle & ZestStyles.NODES_NO_LAYOUT_ANIMATION) == 0) {
+				Animation.markBegin();
+			}
+			layoutAlgorithm.applyLayout(nodesToLayout, connectionsToLayout, 0,
+					0, d.width, d.height, false, false);
+			if ((nodeStyle & ZestStyles.NODES_NO_LAYOUT_ANIMATION) == 0) {
+				Animation.run(ANIMATION_TIME);
+			}
+			getLightweightSystem().getUpdateManager().performUpdate();
+
+		} catch (InvalidLayoutConfiguration e) {
+			e.printStackTrace();
+		}
+
+	}
+
+	/**
+	 * Makes sure there is a layout algorithm, and returns the size of the area
+	 * in which the nodes are laid out, or null if there is nothing to lay out.
+	 */
+	Dimension prepareLayout() {
+		if ((this.getNodes().size() == 0)) {
+			return null;
+		}
 
 		int layoutStyle = 0;
 
@@ -1128,26 +1171,9 @@ public class Graph extends FigureCanvas implements IContainer {
 		}
 
 		if (d.isEmpty()) {
-			return;
-		}
-		LayoutRelationship[] connectionsToLayout = getConnectionsToLayout(nodes);
-		LayoutEntity[] nodesToLayout = getNodesToLayout(getNodes());
-
-		try {
-			if ((nodeStyle & ZestStyles.NODES_NO_LAYOUT_ANIMATION) == 0) {
-				Animation.markBegin();
-			}
-			layoutAlgorithm.applyLayout(nodesToLayout, connectionsToLayout, 0,
-					0, d.width, d.height, false, false);
-			if ((nodeStyle & ZestStyles.NODES_NO_LAYOUT_ANIMATION) == 0) {
-				Animation.run(ANIMATION_TIME);
-			}
-			getLightweightSystem().getUpdateManager().performUpdate();
-
-		} catch (InvalidLayoutConfiguration e) {
-			e.printStackTrace();
+			return null;
 		}
-
+		return d;
 	}
 
 	interface MyRunnable extends Runnable {
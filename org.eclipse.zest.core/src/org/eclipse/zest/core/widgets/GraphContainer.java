@@ -511,9 +511,38 @@ public class GraphContainer extends GraphNode implements IContainer {
 	}
 
 	public void applyLayout() {
-		if ((this.getNodes().size() == 0)) {
+		Rectangle area = prepareLayout();
+		if (area == null) {
 			return;
 		}
+		LayoutRelationship[] connectionsToLayout = getGraph().getConnectionsToLayout(getNodes());
+		LayoutEntity[] nodesToLayout = getGraph().getNodesToLayout(getNodes());
+
+		try {
+			Animation.markBegin();
+			layoutAlgorithm.applyLayout(nodesToLayout, connectionsToLayout, area.x, area.y, area.width, area.height, false, false);
+			Animation.run(ANIMATION_TIME);
+			getFigure().getUpdateManager().performUpdate();
+
+		} catch (InvalidLayoutConfiguration e) {
+			e.printStackTrace();
+		}
+
+	}
+
+	LayoutAlgorithm getLayoutAlgorithm() {
+		return layoutAlgorithm;
+	}
+
+	/**
+	 * Makes sure there is a layout algorithm, and returns the area in which
+	 * the nodes of this container are laid out, or null if there is nothing to
+	 * lay out.
+	 */
+	Rectangle prepareLayout() {
+		if ((this.getNodes().size() == 0)) {
+			return null;
+		}
 
 		int layoutStyle = 0;
 
@@ -541,21 +570,9 @@ public class GraphContainer extends GraphNode implements IContainer {
 		//d.scale(1 / this.scalledLayer.getScale());
 
 		if (d.isEmpty()) {
-			return;
+			return null;
 		}
-		LayoutRelationship[] connectionsToLayout = getGraph().getConnectionsToLayout(getNodes());
-		LayoutEntity[] nodesToLayout = getGraph().getNodesToLayout(getNodes());
-
-		try {
-			Animation.markBegin();
-			layoutAlgorithm.applyLayout(nodesToLayout, connectionsToLayout, 25, 25, d.width - 50, d.height - 50, false, false);
-			Animation.run(ANIMATION_TIME);
-			getFigure().getUpdateManager().performUpdate();
-
-		} catch (InvalidLayoutConfiguration e) {
-			e.printStackTrace();
-		}
-
+		return new Rectangle(25, 25, d.width - 50, d.height - 50);
 	}
 
 	/**
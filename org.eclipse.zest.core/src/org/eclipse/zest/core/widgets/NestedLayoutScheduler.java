@@ -0,0 +1,466 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.core.widgets;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.Animation;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.zest.layouts.InvalidLayoutConfiguration;
+import org.eclipse.zest.layouts.LayoutAlgorithm;
+import org.eclipse.zest.layouts.LayoutBendPoint;
+import org.eclipse.zest.layouts.LayoutEntity;
+import org.eclipse.zest.layouts.LayoutRelationship;
+import org.eclipse.zest.layouts.constraints.LayoutConstraint;
+import org.eclipse.zest.layouts.progress.ProgressEvent;
+import org.eclipse.zest.layouts.progress.ProgressListener;
+
+/**
+ * Lays out a graph together with all of its containers, nested at any depth.
+ *
+ * Each layout runs on a copy of its nodes and connections, so that the layout
+ * algorithms can run concurrently in their asynchronous mode, each on its own
+ * worker thread. The UI thread polls for the layouts to finish, and then
+ * applies all the positions in one animation. Layouts which share an
+ * algorithm run one after the other, and algorithms which cannot run
+ * asynchronously run on the UI thread.
+ *
+ * The area of the graph is the viewport, and the area of a container is its
+ * child area, which has a fixed size and is scaled to fit the container. The
+ * size of a container is computed from its label and its own size, never from
+ * the layout of its children, so an inner layout cannot change the size which
+ * the outer layout sees. The layouts are therefore not ordered bottom-up by
+ * nesting depth; doing so would only reduce how many of them run at once.
+ *
+ * A runtime exception thrown by a layout which runs on the UI thread is
+ * rethrown after the other layouts have been applied.
+ */
+class NestedLayoutScheduler {
+
+	private static final int POLL_INTERVAL = 20;
+
+	/**
+	 * A copy of a layout entity, which records the new location and size.
+	 */
+	private static class EntityCopy implements LayoutEntity {
+		final LayoutJob job;
+		final LayoutEntity entity;
+		final double x, y, width, height;
+		double newX, newY, newWidth, newHeight;
+		boolean moved, resized;
+		Object layoutInformation;
+		Object graphData;
+
+		EntityCopy(LayoutJob job, LayoutEntity entity) {
+			this.job = job;
+			this.entity = entity;
+			x = newX = entity.getXInLayout();
+			y = newY = entity.getYInLayout();
+			width = newWidth = entity.getWidthInLayout();
+			height = newHeight = entity.getHeightInLayout();
+			graphData = entity.getGraphData();
+		}
+
+		void apply() {
+			if (resized && (newWidth != width || newHeight != height)) {
+				entity.setSizeInLayout(newWidth, newHeight);
+			}
+			if (moved && (newX != x || newY != y)) {
+				entity.setLocationInLayout(newX, newY);
+			}
+		}
+
+		public int compareTo(Object o) {
+			if (o instanceof EntityCopy) {
+				o = ((EntityCopy) o).entity;
+			}
+			return entity.compareTo(o);
+		}
+
+		public Object getGraphData() {
+			return graphData;
+		}
+
+		public double getHeightInLayout() {
+			job.touch();
+			return newHeight;
+		}
+
+		public Object getLayoutInformation() {
+			return layoutInformation;
+		}
+
+		public double getWidthInLayout() {
+			job.touch();
+			return newWidth;
+		}
+
+		public double getXInLayout() {
+			job.touch();
+			return newX;
+		}
+
+		public double getYInLayout() {
+			job.touch();
+			return newY;
+		}
+
+		public void populateLayoutConstraint(final LayoutConstraint constraint) {
+			job.syncExec(new Runnable() {
+				public void run() {
+					entity.populateLayoutConstraint(constraint);
+				}
+			});
+		}
+
+		public void setGraphData(Object o) {
+			graphData = o;
+		}
+
+		public void setLayoutInformation(Object internalEntity) {
+			layoutInformation = internalEntity;
+		}
+
+		public void setLocationInLayout(double x, double y) {
+			newX = x;
+			newY = y;
+			moved = true;
+		}
+
+		public void setSizeInLayout(double width, double height) {
+			newWidth = width;
+			newHeight = height;
+			resized = true;
+		}
+	}
+
+	/**
+	 * A copy of a layout relationship, which records the new bend points.
+	 */
+	private static class RelationshipCopy implements LayoutRelationship {
+		final LayoutJob job;
+		final LayoutRelationship relationship;
+		final LayoutEntity source, destination;
+		LayoutBendPoint[] bendPoints;
+		boolean cleared;
+		Object layoutInformation;
+		Object graphData;
+
+		RelationshipCopy(LayoutJob job, LayoutRelationship relationship,
+				LayoutEntity source, LayoutEntity destination) {
+			this.job = job;
+			this.relationship = relationship;
+			this.source = source;
+			this.destination = destination;
+			graphData = relationship.getGraphData();
+		}
+
+		void apply() {
+			if (cleared) {
+				relationship.clearBendPoints();
+			}
+			if (bendPoints != null) {
+				relationship.setBendPoints(bendPoints);
+			}
+		}
+
+		public void clearBendPoints() {
+			bendPoints = null;
+			cleared = true;
+		}
+
+		public LayoutEntity getDestinationInLayout() {
+			return destination;
+		}
+
+		public Object getGraphData() {
+			return graphData;
+		}
+
+		public Object getLayoutInformation() {
+			return layoutInformation;
+		}
+
+		public LayoutEntity getSourceInLayout() {
+			return source;
+		}
+
+		public void populateLayoutConstraint(final LayoutConstraint constraint) {
+			job.syncExec(new Runnable() {
+				public void run() {
+					relationship.populateLayoutConstraint(constraint);
+				}
+			});
+		}
+
+		public void setBendPoints(LayoutBendPoint[] bendPoints) {
+			this.bendPoints = bendPoints;
+		}
+
+		public void setGraphData(Object o) {
+			graphData = o;
+		}
+
+		public void setLayoutInformation(Object layoutInformation) {
+			this.layoutInformation = layoutInformation;
+		}
+	}
+
+	/**
+	 * The layout of the graph or of one container.
+	 */
+	private class LayoutJob implements ProgressListener {
+		final LayoutAlgorithm algorithm;
+		final Rectangle area;
+		final EntityCopy[] entities;
+		final RelationshipCopy[] relationships;
+		volatile Thread worker;
+		volatile boolean done;
+		boolean failed;
+		RuntimeException error;
+
+		LayoutJob(LayoutAlgorithm algorithm, Rectangle area,
+				LayoutEntity[] entities, LayoutRelationship[] relationships) {
+			this.algorithm = algorithm;
+			this.area = area;
+			this.entities = new EntityCopy[entities.length];
+			Map copies = new HashMap(entities.length);
+			for (int i = 0; i < entities.length; i++) {
+				this.entities[i] = new EntityCopy(this, entities[i]);
+				copies.put(entities[i], this.entities[i]);
+			}
+			this.relationships = new RelationshipCopy[relationships.length];
+			for (int i = 0; i < relationships.length; i++) {
+				LayoutRelationship r = relationships[i];
+				LayoutEntity source = (LayoutEntity) copies.get(r.getSourceInLayout());
+				LayoutEntity destination = (LayoutEntity) copies.get(r.getDestinationInLayout());
+				this.relationships[i] = new RelationshipCopy(this, r, source != null ? source : r.getSourceInLayout(), destination != null ? destination : r.getDestinationInLayout());
+			}
+		}
+
+		void apply() {
+			if (failed) {
+				return;
+			}
+			for (int i = 0; i < relationships.length; i++) {
+				relationships[i].apply();
+			}
+			for (int i = 0; i < entities.length; i++) {
+				entities[i].apply();
+			}
+		}
+
+		/**
+		 * Returns whether the layout has finished. A layout whose worker
+		 * thread has died without finishing has failed.
+		 */
+		boolean isFinished() {
+			if (done) {
+				return true;
+			}
+			Thread thread = worker;
+			if (thread != null && !thread.isAlive()) {
+				failed = true;
+				return true;
+			}
+			return false;
+		}
+
+		public void progressEnded(ProgressEvent e) {
+			done = true;
+		}
+
+		public void progressStarted(ProgressEvent e) {
+		}
+
+		public void progressUpdated(ProgressEvent e) {
+		}
+
+		/**
+		 * Starts the layout on the UI thread.
+		 */
+		void start() {
+			algorithm.addProgressListener(this);
+			try {
+				algorithm.applyLayout(entities, relationships, area.x, area.y, area.width, area.height, true, false);
+				return;
+			} catch (InvalidLayoutConfiguration e) {
+				// the algorithm cannot run asynchronously
+			}
+			try {
+				worker = Thread.currentThread();
+				algorithm.applyLayout(entities, relationships, area.x, area.y, area.width, area.height, false, false);
+			} catch (InvalidLayoutConfiguration e) {
+				// the algorithm rejects both modes, so the nodes stay where
+				// they are
+				failed = true;
+			} catch (RuntimeException e) {
+				error = e;
+				failed = true;
+			} finally {
+				done = true;
+			}
+		}
+
+		void stop() {
+			algorithm.removeProgressListener(this);
+		}
+
+		void syncExec(Runnable runnable) {
+			if (Thread.currentThread() == display.getThread()) {
+				runnable.run();
+				return;
+			}
+			try {
+				display.syncExec(runnable);
+			} catch (SWTException e) {
+				// the display has been disposed
+			}
+		}
+
+		/**
+		 * Records the thread on which the algorithm reads the entities.
+		 */
+		void touch() {
+			if (worker == null && Thread.currentThread() != display.getThread()) {
+				worker = Thread.currentThread();
+			}
+		}
+	}
+
+	private final Graph graph;
+	private final Display display;
+	private final List jobs = new ArrayList();
+	/**
+	 * Maps each algorithm to the jobs which wait for it.
+	 */
+	private final Map waiting = new HashMap();
+	private final List running = new ArrayList();
+
+	NestedLayoutScheduler(Graph graph) {
+		this.graph = graph;
+		this.display = graph.getDisplay();
+	}
+
+	private void addContainers(List nodes) {
+		for (Iterator i = nodes.iterator(); i.hasNext();) {
+			Object node = i.next();
+			if (node instanceof GraphContainer) {
+				GraphContainer container = (GraphContainer) node;
+				Rectangle area = container.prepareLayout();
+				if (area != null) {
+					addJob(new LayoutJob(container.getLayoutAlgorithm(), area, graph.getNodesToLayout(container.getNodes()), graph.getConnectionsToLayout(container.getNodes())));
+				}
+				addContainers(container.getNodes());
+			}
+		}
+	}
+
+	private void addJob(LayoutJob job) {
+		jobs.add(job);
+		List queue = (List) waiting.get(job.algorithm);
+		if (queue == null) {
+			queue = new ArrayList();
+			waiting.put(job.algorithm, queue);
+		}
+		queue.add(job);
+	}
+
+	private void apply() {
+		boolean animate = (graph.getNodeStyle() & ZestStyles.NODES_NO_LAYOUT_ANIMATION) == 0;
+		if (animate) {
+			Animation.markBegin();
+		}
+		for (int i = 0; i < jobs.size(); i++) {
+			((LayoutJob) jobs.get(i)).apply();
+		}
+		if (animate) {
+			Animation.run(Graph.ANIMATION_TIME);
+		}
+		graph.getLightweightSystem().getUpdateManager().performUpdate();
+		for (int i = 0; i < jobs.size(); i++) {
+			RuntimeException error = ((LayoutJob) jobs.get(i)).error;
+			if (error != null) {
+				throw error;
+			}
+		}
+	}
+
+	/**
+	 * Starts the next waiting job of each algorithm which is not busy, and
+	 * applies the layouts once all jobs have finished.
+	 */
+	private void poll() {
+		if (graph.isDisposed()) {
+			return;
+		}
+		for (int i = running.size() - 1; i >= 0; i--) {
+			LayoutJob job = (LayoutJob) running.get(i);
+			if (job.isFinished()) {
+				job.stop();
+				running.remove(i);
+			}
+		}
+		for (Iterator i = waiting.keySet().iterator(); i.hasNext();) {
+			LayoutAlgorithm algorithm = (LayoutAlgorithm) i.next();
+			if (isBusy(algorithm)) {
+				continue;
+			}
+			List queue = (List) waiting.get(algorithm);
+			LayoutJob job = (LayoutJob) queue.remove(0);
+			if (queue.isEmpty()) {
+				i.remove();
+			}
+			running.add(job);
+			job.start();
+		}
+		if (running.isEmpty() && waiting.isEmpty()) {
+			apply();
+		} else {
+			display.timerExec(POLL_INTERVAL, new Runnable() {
+				public void run() {
+					poll();
+				}
+			});
+		}
+	}
+
+	private boolean isBusy(LayoutAlgorithm algorithm) {
+		for (int i = 0; i < running.size(); i++) {
+			if (((LayoutJob) running.get(i)).algorithm == algorithm) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Starts the layouts. Must be called on the UI thread.
+	 */
+	void start() {
+		Dimension d = graph.prepareLayout();
+		if (d != null) {
+			addJob(new LayoutJob(graph.getLayoutAlgorithm(), new Rectangle(0, 0, d.width, d.height), graph.getNodesToLayout(graph.getNodes()), graph.getConnectionsToLayout(graph.getNodes())));
+		}
+		addContainers(graph.getNodes());
+		if (!jobs.isEmpty()) {
+			poll();
+		}
+	}
+
+}
@@ -13,18 +13,16 @@ import org.eclipse.draw2d.Animation;
 import org.eclipse.draw2d.ColorConstants;
 import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.Label;
-import org.eclipse.draw2d.SWTGraphics;
 import org.eclipse.draw2d.ScaledGraphics;
-import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
-import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
-import org.eclipse.swt.widgets.Display;
 
 /**
- * A cached label to improve performance of text drawing under linux
+ * A cached label to improve performance of text drawing under linux. The
+ * rendered text is kept in a {@link LabelAtlas} shared by all cached labels,
+ * so labels with the same text, font and colors share one cached image area.
  * 
  * @author Ian Bull
  * 
@@ -36,7 +34,7 @@ public abstract class CachedLabel extends Label {
 	 * 
 	 * @see org.eclipse.draw2d.Label#paintFigure(org.eclipse.draw2d.Graphics)
 	 */
-	Image cachedImage = null;
+	LabelAtlas.Entry cachedImage = null;
 	boolean cacheLabel = false;
 	boolean invalidationRequired = false;
 
@@ -191,26 +189,20 @@ public abstract class CachedLabel extends Label {
 		int width = getSubStringTextSize().width;
 		int height = getSubStringTextSize().height;
 
-		if (cachedImage == null || shouldInvalidateCache()) {
+		if (cachedImage == null || !cachedImage.isValid()
+				|| shouldInvalidateCache()) {
 			invalidationRequired = false;
 			cleanImage();
-			cachedImage = new Image(Display.getCurrent(), width, height);
-
-			// @tag TODO : Dispose of the image properly
-			//ZestPlugin.getDefault().addImage(cachedImage.toString(), cachedImage);
-
-			GC gc = new GC(cachedImage);
-
-			Graphics graphics2 = new SWTGraphics(gc);
-			graphics2.setBackgroundColor(getBackgroundTextColor());
-			graphics2.fillRectangle(0, 0, width, height);
-			graphics2.setForegroundColor(getForegroundColor());
-			//graphics2.drawText(getSubStringText(), new Point(0, 0));
-			graphics2.drawText(getText(), new Point(0, 0));
-			gc.dispose();
-
+			cachedImage = LabelAtlas.getDefault().get(getText(), getFont(),
+					getForegroundColor(), getBackgroundTextColor(), width,
+					height);
+		}
+		if (cachedImage != null) {
+			cachedImage.paint(graphics, getTextLocation());
+		} else {
+			graphics.setForegroundColor(getForegroundColor());
+			graphics.drawText(getText(), getTextLocation());
 		}
-		graphics.drawImage(cachedImage, getTextLocation());
 		graphics.translate(-bounds.x, -bounds.y);
 		this.paintBorder(graphics);
 
@@ -237,11 +229,7 @@ public abstract class CachedLabel extends Label {
 	}
 
 	protected void cleanImage() {
-		if (cachedImage != null) {
-
-			//ZestPlugin.getDefault().removeImage(cachedImage.toString());
-			cachedImage.dispose();
-			cachedImage = null;
-		}
+		// the image area stays in the shared atlas until it is evicted
+		cachedImage = null;
 	}
 }
@@ -0,0 +1,379 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.core.widgets.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * A cache of rendered label texts which is shared by all {@link CachedLabel}s
+ * of a display. The texts are packed into large page images, in shelves of
+ * similar height, instead of one image per label. Labels with the same text,
+ * font data and colors share their entry.
+ * <P>
+ * When all pages are full, the least recently painted page is cleared and its
+ * entries become invalid. A page which has been painted in the current paint
+ * is never cleared; the atlas rather grows beyond its page limit until it
+ * holds all labels of the paint, and gives up the extra pages after a later
+ * paint which does not use them. Labels which are larger than a page are not
+ * cached.
+ */
+public class LabelAtlas {
+
+	static final int PAGE_SIZE = 512;
+	static final int MAX_PAGES = 8;
+
+	private static LabelAtlas current;
+
+	/**
+	 * A rendered text in one of the pages.
+	 */
+	public static class Entry {
+		final Key key;
+		Page page;
+		final int x, y, width, height;
+
+		Entry(Key key, Page page, int x, int y, int width, int height) {
+			this.key = key;
+			this.page = page;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+
+		/**
+		 * Returns whether the entry is still in its page.
+		 *
+		 * @return <code>true</code> if the entry can be painted
+		 */
+		public boolean isValid() {
+			return page != null;
+		}
+
+		/**
+		 * Paints the text at the given location.
+		 */
+		void paint(Graphics graphics, Point location) {
+			page.atlas.use(page);
+			graphics.drawImage(page.image, x, y, width, height, location.x,
+					location.y, width, height);
+		}
+	}
+
+	/**
+	 * Identifies a rendered text by values rather than by SWT resources, whose
+	 * equality depends on their native handles.
+	 */
+	private static class Key {
+		final String text;
+		final FontData[] font;
+		final RGB foreground, background;
+		final int width, height;
+		final int hash;
+
+		Key(String text, Font font, Color foreground, Color background,
+				int width, int height) {
+			this.text = text;
+			this.font = font == null ? null : font.getFontData();
+			this.foreground = foreground == null ? null : foreground.getRGB();
+			this.background = background == null ? null : background.getRGB();
+			this.width = width;
+			this.height = height;
+			int h = text.hashCode();
+			if (this.font != null)
+				for (int i = 0; i < this.font.length; i++)
+					h = h * 31 + this.font[i].hashCode();
+			h = h * 31 + (foreground == null ? 0 : this.foreground.hashCode());
+			h = h * 31 + (background == null ? 0 : this.background.hashCode());
+			hash = h * 31 + width * 17 + height;
+		}
+
+		private static boolean equal(Object a, Object b) {
+			return a == null ? b == null : a.equals(b);
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return hash == k.hash && width == k.width && height == k.height
+					&& text.equals(k.text) && Arrays.equals(font, k.font)
+					&& equal(foreground, k.foreground)
+					&& equal(background, k.background);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * A page image, filled from the top with shelves. Each shelf is filled from
+	 * the left with entries which are at most as high as the shelf.
+	 */
+	private static class Page {
+		final LabelAtlas atlas;
+		final Image image;
+		final List entries = new ArrayList();
+		// y, height and used width of each shelf
+		int[] shelves = new int[3 * 8];
+		int shelfCount;
+		int top;
+		long lastUsed;
+
+		Page(LabelAtlas atlas, Image image) {
+			this.atlas = atlas;
+			this.image = image;
+		}
+
+		/**
+		 * Returns the location of a free area of the given size, or
+		 * <code>null</code> if the page is full.
+		 */
+		Point allocate(int width, int height) {
+			int size = atlas.pageSize;
+			for (int i = 0; i < shelfCount * 3; i += 3) {
+				int shelfHeight = shelves[i + 1];
+				if (shelfHeight >= height && shelfHeight <= height + height / 4 + 2
+						&& shelves[i + 2] + width <= size) {
+					Point p = new Point(shelves[i + 2], shelves[i]);
+					shelves[i + 2] += width;
+					return p;
+				}
+			}
+			if (top + height > size)
+				return null;
+			if (shelfCount * 3 == shelves.length) {
+				int[] grown = new int[shelves.length * 2];
+				System.arraycopy(shelves, 0, grown, 0, shelves.length);
+				shelves = grown;
+			}
+			int i = shelfCount++ * 3;
+			shelves[i] = top;
+			shelves[i + 1] = height;
+			shelves[i + 2] = width;
+			top += height;
+			return new Point(0, shelves[i]);
+		}
+
+		void clear() {
+			for (int i = 0; i < entries.size(); i++)
+				((Entry) entries.get(i)).page = null;
+			entries.clear();
+			shelfCount = 0;
+			top = 0;
+		}
+	}
+
+	/**
+	 * Returns the atlas of the current display.
+	 *
+	 * @return the shared atlas
+	 */
+	public static LabelAtlas getDefault() {
+		Display display = Display.getCurrent();
+		if (current == null || current.display != display) {
+			final LabelAtlas atlas = new LabelAtlas(display, PAGE_SIZE,
+					MAX_PAGES);
+			display.disposeExec(new Runnable() {
+				public void run() {
+					atlas.dispose();
+					if (current == atlas)
+						current = null;
+				}
+			});
+			current = atlas;
+		}
+		return current;
+	}
+
+	private final Display display;
+	private final int pageSize;
+	private final int maxPages;
+	private final Map entries = new HashMap();
+	private final List pages = new ArrayList();
+	private long clock;
+	// the clock when the current paint started
+	private long paintStart;
+	private boolean paintEnding;
+
+	private final Runnable endPaint = new Runnable() {
+		public void run() {
+			paintEnding = false;
+			trim();
+			paintStart = clock;
+		}
+	};
+
+	/**
+	 * Creates an atlas of square pages.
+	 *
+	 * @param display
+	 *            the display of the page images
+	 * @param pageSize
+	 *            the width and height of a page
+	 * @param maxPages
+	 *            the number of pages which are kept between paints
+	 */
+	public LabelAtlas(Display display, int pageSize, int maxPages) {
+		this.display = display;
+		this.pageSize = pageSize;
+		this.maxPages = maxPages;
+	}
+
+	/**
+	 * Disposes all pages, which invalidates all entries.
+	 */
+	public void dispose() {
+		for (int i = 0; i < pages.size(); i++) {
+			Page page = (Page) pages.get(i);
+			page.clear();
+			page.image.dispose();
+		}
+		pages.clear();
+		entries.clear();
+	}
+
+	/**
+	 * Returns the number of page images.
+	 *
+	 * @return the number of pages
+	 */
+	public int getPageCount() {
+		return pages.size();
+	}
+
+	/**
+	 * Marks the page as painted. All uses until the event loop runs again
+	 * belong to the same paint.
+	 */
+	void use(Page page) {
+		page.lastUsed = ++clock;
+		if (!paintEnding && !display.isDisposed()) {
+			paintEnding = true;
+			display.asyncExec(endPaint);
+		}
+	}
+
+	private Page getLeastRecentlyUsed() {
+		Page page = (Page) pages.get(0);
+		for (int i = 1; i < pages.size(); i++) {
+			Page p = (Page) pages.get(i);
+			if (p.lastUsed < page.lastUsed)
+				page = p;
+		}
+		return page;
+	}
+
+	private void clear(Page page) {
+		for (int i = 0; i < page.entries.size(); i++)
+			entries.remove(((Entry) page.entries.get(i)).key);
+		page.clear();
+	}
+
+	/**
+	 * Disposes the pages beyond the limit which have not been used in the
+	 * paint which just ended.
+	 */
+	private void trim() {
+		while (pages.size() > maxPages) {
+			Page page = getLeastRecentlyUsed();
+			if (page.lastUsed > paintStart)
+				return;
+			clear(page);
+			page.image.dispose();
+			pages.remove(page);
+		}
+	}
+
+	/**
+	 * Returns the entry for the given text, rendering it into a page if it is
+	 * not cached yet. Returns <code>null</code> if the text is too large to be
+	 * cached.
+	 *
+	 * @param text
+	 *            the text
+	 * @param font
+	 *            the font of the text
+	 * @param foreground
+	 *            the text color
+	 * @param background
+	 *            the color behind the text
+	 * @param width
+	 *            the width of the rendered text
+	 * @param height
+	 *            the height of the rendered text
+	 * @return the entry or <code>null</code>
+	 */
+	public Entry get(String text, Font font, Color foreground,
+			Color background, int width, int height) {
+		if (width <= 0 || height <= 0 || width > pageSize || height > pageSize)
+			return null;
+		Key key = new Key(text, font, foreground, background, width, height);
+		Entry entry = (Entry) entries.get(key);
+		if (entry != null) {
+			use(entry.page);
+			return entry;
+		}
+
+		Page page = null;
+		Point location = null;
+		for (int i = 0; i < pages.size() && location == null; i++) {
+			page = (Page) pages.get(i);
+			location = page.allocate(width, height);
+		}
+		if (location == null) {
+			page = pages.size() < maxPages ? null : getLeastRecentlyUsed();
+			if (page == null || page.lastUsed > paintStart) {
+				page = new Page(this, new Image(display, pageSize, pageSize));
+				pages.add(page);
+			} else {
+				clear(page);
+			}
+			location = page.allocate(width, height);
+		}
+
+		GC gc = new GC(page.image);
+		Graphics graphics = new SWTGraphics(gc);
+		graphics.clipRect(new Rectangle(location.x, location.y, width, height));
+		graphics.setBackgroundColor(background);
+		graphics.fillRectangle(location.x, location.y, width, height);
+		graphics.setForegroundColor(foreground);
+		if (font != null)
+			graphics.setFont(font);
+		graphics.drawText(text, location);
+		graphics.dispose();
+		gc.dispose();
+
+		entry = new Entry(key, page, location.x, location.y, width, height);
+		page.entries.add(entry);
+		use(page);
+		entries.put(key, entry);
+		return entry;
+	}
+
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.zest.core.widgets.internal.LabelAtlas;
+
+/**
+ * Tests for the {@link LabelAtlas} of cached labels.
+ */
+public class LabelAtlasTests extends TestCase {
+
+	private static final int WIDTH = 60;
+
+	private static final int HEIGHT = 20;
+
+	private Shell shell;
+
+	private Display display;
+
+	private LabelAtlas atlas;
+
+	protected void setUp() throws Exception {
+		shell = new Shell();
+		display = shell.getDisplay();
+		// three texts fit into a page, and two pages are kept
+		atlas = new LabelAtlas(display, 64, 2);
+	}
+
+	protected void tearDown() throws Exception {
+		atlas.dispose();
+		shell.dispose();
+	}
+
+	private LabelAtlas.Entry get(String text) {
+		return atlas.get(text, display.getSystemFont(), display
+				.getSystemColor(SWT.COLOR_BLACK), display
+				.getSystemColor(SWT.COLOR_WHITE), WIDTH, HEIGHT);
+	}
+
+	private void endPaint() {
+		while (display.readAndDispatch()) {
+		}
+	}
+
+	public void testEqualFontsAndColorsShareEntry() {
+		Font font = new Font(display, "Arial", 10, SWT.NORMAL);
+		Font equal = new Font(display, "Arial", 10, SWT.NORMAL);
+		Color black = new Color(display, 0, 0, 0);
+		Color white = new Color(display, 255, 255, 255);
+		try {
+			LabelAtlas.Entry entry = atlas.get("text", font, black, white,
+					WIDTH, HEIGHT);
+			assertSame(entry, atlas.get("text", equal, display
+					.getSystemColor(SWT.COLOR_BLACK), display
+					.getSystemColor(SWT.COLOR_WHITE), WIDTH, HEIGHT));
+			font.dispose();
+			Font bold = new Font(display, "Arial", 10, SWT.BOLD);
+			try {
+				assertNotSame(entry, atlas.get("text", bold, black, white,
+						WIDTH, HEIGHT));
+			} finally {
+				bold.dispose();
+			}
+		} finally {
+			if (!font.isDisposed())
+				font.dispose();
+			equal.dispose();
+			black.dispose();
+			white.dispose();
+		}
+	}
+
+	public void testPagesOfCurrentPaintAreNotEvicted() {
+		LabelAtlas.Entry[] entries = new LabelAtlas.Entry[10];
+		for (int i = 0; i < entries.length; i++)
+			entries[i] = get("label " + i);
+		assertEquals(4, atlas.getPageCount());
+		for (int i = 0; i < entries.length; i++)
+			assertTrue(entries[i].isValid());
+		endPaint();
+
+		// a smaller paint keeps its own page and gives up the extra ones
+		for (int i = 0; i < 3; i++)
+			assertSame(entries[i], get("label " + i));
+		endPaint();
+		assertEquals(2, atlas.getPageCount());
+		for (int i = 0; i < 3; i++)
+			assertTrue(entries[i].isValid());
+		for (int i = 3; i < 6; i++)
+			assertFalse(entries[i].isValid());
+		assertTrue(entries[9].isValid());
+
+		// a full atlas evicts the page which has not been painted since
+		get("label 10");
+		get("label 11");
+		assertTrue(get("label 12").isValid());
+		assertEquals(2, atlas.getPageCount());
+		for (int i = 0; i < 3; i++)
+			assertFalse(entries[i].isValid());
+		assertTrue(entries[9].isValid());
+	}
+
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2013 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.zest.tests;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.zest.core.widgets.Graph;
+import org.eclipse.zest.core.widgets.GraphContainer;
+import org.eclipse.zest.core.widgets.GraphNode;
+import org.eclipse.zest.core.widgets.ZestStyles;
+import org.eclipse.zest.layouts.LayoutAlgorithm;
+import org.eclipse.zest.layouts.algorithms.GridLayoutAlgorithm;
+import org.eclipse.zest.layouts.dataStructures.InternalNode;
+import org.eclipse.zest.layouts.dataStructures.InternalRelationship;
+
+/**
+ * Tests for {@link Graph#applyNestedLayout()}.
+ */
+public class NestedLayoutTests extends TestCase {
+
+	/**
+	 * Runs only on the UI thread, and fails there.
+	 */
+	private static class FailingLayoutAlgorithm extends GridLayoutAlgorithm {
+		protected boolean isValidConfiguration(boolean asynchronous,
+				boolean continuous) {
+			return !asynchronous && !continuous;
+		}
+
+		protected synchronized void applyLayoutInternal(
+				InternalNode[] entitiesToLayout,
+				InternalRelationship[] relationshipsToConsider,
+				double boundsX, double boundsY, double boundsWidth,
+				double boundsHeight) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private Shell shell;
+
+	private Display display;
+
+	private Graph graph;
+
+	protected void setUp() throws Exception {
+		shell = new Shell();
+		display = shell.getDisplay();
+		graph = new Graph(shell, SWT.NONE);
+		graph.setNodeStyle(ZestStyles.NODES_NO_LAYOUT_ANIMATION);
+		graph.setPreferredSize(600, 600);
+		graph.setLayoutAlgorithm(new GridLayoutAlgorithm(), false);
+	}
+
+	protected void tearDown() throws Exception {
+		shell.dispose();
+	}
+
+	private GraphContainer createContainer(LayoutAlgorithm algorithm) {
+		GraphContainer container = new GraphContainer(graph, SWT.NONE);
+		container.setLayoutAlgorithm(algorithm, false);
+		container.setLocation(0, 0);
+		for (int i = 0; i < 3; i++) {
+			new GraphNode(container, SWT.NONE).setLocation(0, 0);
+		}
+		return container;
+	}
+
+	/**
+	 * Returns whether the nodes have been moved apart.
+	 */
+	private static boolean isLaidOut(List nodes) {
+		Set locations = new HashSet();
+		for (Iterator i = nodes.iterator(); i.hasNext();) {
+			if (!locations.add(((GraphNode) i.next()).getLocation())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the event loop until the nodes have been laid out, and returns the
+	 * exception which it has thrown, if any.
+	 */
+	private RuntimeException waitForLayout(List nodes)
+			throws InterruptedException {
+		RuntimeException error = null;
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!isLaidOut(nodes) && System.currentTimeMillis() < deadline) {
+			try {
+				if (!display.readAndDispatch()) {
+					Thread.sleep(10);
+				}
+			} catch (RuntimeException e) {
+				error = e;
+			}
+		}
+		return error;
+	}
+
+	public void testNestedLayoutsAreApplied() throws InterruptedException {
+		// the containers share an algorithm, so they are laid out in turn
+		LayoutAlgorithm algorithm = new GridLayoutAlgorithm();
+		GraphContainer first = createContainer(algorithm);
+		GraphContainer second = createContainer(algorithm);
+		GraphContainer inner = new GraphContainer(second, SWT.NONE);
+		inner.setLayoutAlgorithm(new GridLayoutAlgorithm(), false);
+		for (int i = 0; i < 3; i++) {
+			new GraphNode(inner, SWT.NONE).setLocation(0, 0);
+		}
+
+		graph.applyNestedLayout();
+		assertNull(waitForLayout(graph.getNodes()));
+		assertTrue(isLaidOut(first.getNodes()));
+		assertTrue(isLaidOut(second.getNodes()));
+		assertTrue(isLaidOut(inner.getNodes()));
+	}
+
+	public void testFailingLayoutIsRethrown() throws InterruptedException {
+		GraphContainer good = createContainer(new GridLayoutAlgorithm());
+		GraphContainer bad = createContainer(new FailingLayoutAlgorithm());
+
+		graph.applyNestedLayout();
+		RuntimeException error = waitForLayout(good.getNodes());
+		assertTrue(error instanceof IllegalStateException);
+		assertTrue(isLaidOut(graph.getNodes()));
+		for (Iterator i = bad.getNodes().iterator(); i.hasNext();) {
+			GraphNode node = (GraphNode) i.next();
+			assertEquals(0, node.getLocation().x);
+			assertEquals(0, node.getLocation().y);
+		}
+	}
+
+}